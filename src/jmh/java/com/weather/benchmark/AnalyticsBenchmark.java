@@ -0,0 +1,132 @@
+package com.weather.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather.analytics.Aggregate;
+import com.weather.analytics.DailySeries;
+import com.weather.analytics.ForecastSet;
+import com.weather.analytics.HourlySeries;
+import com.weather.analytics.SeriesStats;
+import com.weather.analytics.SiteValue;
+import com.weather.analytics.TimeWindow;
+import com.weather.model.DailyWeather;
+import com.weather.model.HourlyWeather;
+import com.weather.model.Location;
+import com.weather.model.WeatherResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ForecastSet queries over many synthetic sites, each the Tokyo fixture with
+ * its values jittered, run with pools of increasing parallelism so the
+ * scaling across cores can be read off the results
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AnalyticsBenchmark {
+
+    @Param({"10000", "50000"})
+    public int sites;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private ForkJoinPool pool;
+    private ForecastSet set;
+    private TimeWindow next48Hours;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        WeatherResponse template = mapper.readValue(Fixtures.forecastStartingToday(mapper), WeatherResponse.class);
+        Random random = new Random(42);
+        List<Location> locations = new ArrayList<>(sites);
+        List<WeatherResponse> forecasts = new ArrayList<>(sites);
+        for (int i = 0; i < sites; i++) {
+            locations.add(new Location(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180,
+                "Site " + i, null, null));
+            forecasts.add(jitter(template, random.nextDouble() * 20 - 10));
+        }
+        pool = new ForkJoinPool(parallelism);
+        set = new ForecastSet(locations, forecasts, pool);
+        next48Hours = TimeWindow.next(Duration.ofHours(48));
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<SiteValue> hotSites() {
+        return set.filter(HourlySeries.TEMPERATURE, next48Hours, Aggregate.MAX, t -> t >= 35);
+    }
+
+    @Benchmark
+    public List<SiteValue> windiestSites() {
+        return set.top(DailySeries.WIND_SPEED_MAX, TimeWindow.ALL, Aggregate.MAX, 10);
+    }
+
+    @Benchmark
+    public SeriesStats temperatureSummary() {
+        return set.summarize(HourlySeries.TEMPERATURE, TimeWindow.ALL);
+    }
+
+    /**
+     * Copies the forecast with its temperatures and wind speeds shifted, sharing the timelines
+     */
+    private static WeatherResponse jitter(WeatherResponse template, double offset) {
+        HourlyWeather hourly = new HourlyWeather();
+        hourly.time = template.hourly.time;
+        hourly.temperature_2m = shift(template.hourly.temperature_2m, offset);
+        hourly.apparent_temperature = shift(template.hourly.apparent_temperature, offset);
+        hourly.weathercode = template.hourly.weathercode;
+        hourly.precipitation_probability = template.hourly.precipitation_probability;
+        hourly.relative_humidity_2m = template.hourly.relative_humidity_2m;
+
+        DailyWeather daily = new DailyWeather();
+        daily.time = template.daily.time;
+        daily.temperature_2m_max = shift(template.daily.temperature_2m_max, offset);
+        daily.temperature_2m_min = shift(template.daily.temperature_2m_min, offset);
+        daily.wind_speed_10m_max = shift(template.daily.wind_speed_10m_max, Math.abs(offset));
+
+        WeatherResponse forecast = new WeatherResponse();
+        forecast.timezone = template.timezone;
+        forecast.utc_offset_seconds = template.utc_offset_seconds;
+        forecast.hourly = hourly;
+        forecast.daily = daily;
+        return forecast;
+    }
+
+    private static double[] shift(double[] values, double offset) {
+        if (values == null) {
+            return null;
+        }
+        double[] shifted = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            shifted[i] = values[i] + offset;
+        }
+        return shifted;
+    }
+}
@@ -0,0 +1,66 @@
+package com.weather.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.weather.model.GeocodingResponse;
+import com.weather.model.IpLocationResponse;
+import com.weather.model.WeatherResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON binding cost of each API response, decoded from a stream as BaseHttpService does
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DecodeBenchmark {
+
+    private byte[] forecast;
+    private byte[] geocoding;
+    private byte[] ipLocation;
+    private ObjectReader forecastReader;
+    private ObjectReader geocodingReader;
+    private ObjectReader ipLocationReader;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = new ObjectMapper();
+        forecast = Fixtures.load(Fixtures.FORECAST);
+        geocoding = Fixtures.load(Fixtures.GEOCODING);
+        ipLocation = Fixtures.load(Fixtures.IP_LOCATION);
+        forecastReader = mapper.readerFor(WeatherResponse.class);
+        geocodingReader = mapper.readerFor(GeocodingResponse.class);
+        ipLocationReader = mapper.readerFor(IpLocationResponse.class);
+    }
+
+    @Benchmark
+    public WeatherResponse weatherResponse() throws IOException {
+        return forecastReader.readValue(new ByteArrayInputStream(forecast));
+    }
+
+    @Benchmark
+    public GeocodingResponse geocodingResponse() throws IOException {
+        return geocodingReader.readValue(new ByteArrayInputStream(geocoding));
+    }
+
+    @Benchmark
+    public IpLocationResponse ipLocationResponse() throws IOException {
+        return ipLocationReader.readValue(new ByteArrayInputStream(ipLocation));
+    }
+}
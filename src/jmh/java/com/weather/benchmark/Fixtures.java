@@ -0,0 +1,64 @@
+package com.weather.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Loads the JSON fixtures used by the benchmarks
+ */
+final class Fixtures {
+
+    static final String FORECAST = "forecast-tokyo.json";
+    static final String GEOCODING = "geocoding-london.json";
+    static final String IP_LOCATION = "ip-api.json";
+
+    private Fixtures() {
+    }
+
+    static byte[] load(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing fixture: " + name);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Loads the forecast fixture with its timestamps moved so that it starts today,
+     * otherwise the hourly section would have no upcoming hours to render
+     */
+    static byte[] forecastStartingToday(ObjectMapper mapper) {
+        try {
+            ObjectNode forecast = (ObjectNode) mapper.readTree(load(FORECAST));
+            long offset = forecast.get("utc_offset_seconds").asLong();
+            long firstDay = forecast.get("daily").get("time").get(0).asLong();
+            long now = System.currentTimeMillis() / 1000;
+            long today = Math.floorDiv(now + offset, 86_400L) * 86_400L - offset;
+            long shift = today - firstDay;
+
+            shift(forecast.get("hourly"), "time", shift);
+            shift(forecast.get("daily"), "time", shift);
+            shift(forecast.get("daily"), "sunrise", shift);
+            shift(forecast.get("daily"), "sunset", shift);
+            return mapper.writeValueAsBytes(forecast);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void shift(JsonNode series, String field, long seconds) {
+        ArrayNode values = (ArrayNode) series.get(field);
+        for (int i = 0; i < values.size(); i++) {
+            values.set(i, values.get(i).asLong() + seconds);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.weather.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather.formatter.WeatherFormatter;
+import com.weather.model.Location;
+import com.weather.model.WeatherResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering cost of the full report and of each report section
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FormatterBenchmark {
+
+    private final Location location = new Location(35.6895, 139.6917, "Tokyo", "Tokyo", "Japan");
+    private final WeatherFormatter formatter = new WeatherFormatter(false);
+    private final StringBuilder out = new StringBuilder(8192);
+    private WeatherResponse forecast;
+    private ZoneId zoneId;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        forecast = mapper.readValue(Fixtures.forecastStartingToday(mapper), WeatherResponse.class);
+        zoneId = WeatherFormatter.zoneOf(forecast.timezone);
+    }
+
+    @Benchmark
+    public String formatWeatherToString() {
+        return formatter.formatWeather(location, forecast);
+    }
+
+    @Benchmark
+    public int formatWeatherToAppendable() throws IOException {
+        out.setLength(0);
+        formatter.formatWeather(location, forecast, out);
+        return out.length();
+    }
+
+    @Benchmark
+    public int header() throws IOException {
+        out.setLength(0);
+        formatter.appendHeader(location, out);
+        return out.length();
+    }
+
+    @Benchmark
+    public int todayWeather() throws IOException {
+        out.setLength(0);
+        formatter.appendTodayWeather(forecast.daily, zoneId, out);
+        return out.length();
+    }
+
+    @Benchmark
+    public int hourlyForecast() throws IOException {
+        out.setLength(0);
+        formatter.appendHourlyForecast(forecast.hourly, zoneId, out);
+        return out.length();
+    }
+
+    @Benchmark
+    public int weeklyForecast() throws IOException {
+        out.setLength(0);
+        formatter.appendWeeklyForecast(forecast.daily, zoneId, out);
+        return out.length();
+    }
+}
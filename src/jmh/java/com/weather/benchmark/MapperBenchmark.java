@@ -0,0 +1,64 @@
+package com.weather.benchmark;
+
+import com.weather.formatter.TimeFormatter;
+import com.weather.mapper.WeatherCodeMapper;
+import com.weather.mapper.WindDirectionMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of the small lookup and time helpers used for every report cell
+ * Each invocation maps a fixed set of inputs covering all branches
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapperBenchmark {
+
+    private final String[] times24 = {
+        "00:00", "06:16", "09:05", "11:59", "12:00", "13:30", "16:35", "23:45"
+    };
+    private final int[] degrees = {0, 11, 23, 90, 178, 200, 271, 359};
+    private final int[] codes = {0, 1, 2, 3, 45, 48, 51, 61, 71, 77, 80, 85, 95, 42};
+
+    @Benchmark
+    public void format24To12Hour(Blackhole bh) {
+        for (String time : times24) {
+            bh.consume(TimeFormatter.format24To12Hour(time));
+        }
+    }
+
+    @Benchmark
+    public void windDirection(Blackhole bh) {
+        for (int degree : degrees) {
+            bh.consume(WindDirectionMapper.getWindDirection(degree));
+        }
+    }
+
+    @Benchmark
+    public void weatherCondition(Blackhole bh) {
+        for (int code : codes) {
+            bh.consume(WeatherCodeMapper.getCondition(code));
+        }
+    }
+
+    @Benchmark
+    public void weatherEmoji(Blackhole bh) {
+        for (int code : codes) {
+            bh.consume(WeatherCodeMapper.getWeatherEmoji(code));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.weather.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather.display.ConsoleWeatherDisplay;
+import com.weather.formatter.WeatherFormatter;
+import com.weather.model.GeocodingResponse;
+import com.weather.model.IpLocationResponse;
+import com.weather.model.Location;
+import com.weather.model.LocationResult;
+import com.weather.model.WeatherResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The App pipeline without the network: resolve the location from a recorded
+ * response, decode the forecast and render it through ConsoleWeatherDisplay
+ * into a discarding UTF-8 sink
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PipelineBenchmark {
+
+    private ObjectMapper mapper;
+    private byte[] forecast;
+    private byte[] geocoding;
+    private byte[] ipLocation;
+    private ConsoleWeatherDisplay display;
+
+    @Setup
+    public void setUp() {
+        mapper = new ObjectMapper();
+        forecast = Fixtures.forecastStartingToday(mapper);
+        geocoding = Fixtures.load(Fixtures.GEOCODING);
+        ipLocation = Fixtures.load(Fixtures.IP_LOCATION);
+        BufferedWriter sink = new BufferedWriter(
+            new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8), 16 * 1024);
+        display = new ConsoleWeatherDisplay(new WeatherFormatter(false), sink);
+    }
+
+    @Benchmark
+    public WeatherResponse currentLocation() throws IOException {
+        IpLocationResponse ip = mapper.readValue(new ByteArrayInputStream(ipLocation), IpLocationResponse.class);
+        Location location = new Location(ip.lat, ip.lon, ip.city, ip.regionName, ip.country);
+        return render(location);
+    }
+
+    @Benchmark
+    public WeatherResponse namedLocation() throws IOException {
+        GeocodingResponse geo = mapper.readValue(new ByteArrayInputStream(geocoding), GeocodingResponse.class);
+        LocationResult best = geo.results.get(0);
+        Location location = new Location(best.latitude, best.longitude, best.name, best.admin1, best.country);
+        return render(location);
+    }
+
+    private WeatherResponse render(Location location) throws IOException {
+        WeatherResponse weatherData = mapper.readValue(new ByteArrayInputStream(forecast), WeatherResponse.class);
+        display.display(location, weatherData);
+        return weatherData;
+    }
+}
@@ -1,15 +1,56 @@
 package com.weather;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather.cache.CacheDirectory;
+import com.weather.cache.ForecastCache;
+import com.weather.cache.GeocodingIndex;
+import com.weather.cache.LocationCache;
+import com.weather.cache.MappedSharedCache;
+import com.weather.cache.TinyLfuForecastCache;
 import com.weather.cli.CommandLineParser;
 import com.weather.display.ConsoleWeatherDisplay;
+import com.weather.display.TerminalScreen;
 import com.weather.formatter.WeatherFormatter;
+import com.weather.gazetteer.Gazetteer;
+import com.weather.gazetteer.GazetteerBuilder;
 import com.weather.model.Location;
+import com.weather.model.StreamingModelModule;
 import com.weather.model.WeatherResponse;
+import com.weather.output.ForecastWriter;
+import com.weather.output.ForecastWriters;
+import com.weather.output.OutputFormat;
+import com.weather.server.ForecastServer;
+import com.weather.service.FanOut;
+import com.weather.service.ForecastHorizon;
+import com.weather.service.ForecastProvider;
+import com.weather.service.HttpClientFactory;
 import com.weather.service.LocationService;
+import com.weather.service.ResiliencePolicy;
 import com.weather.service.WeatherService;
+import com.weather.timing.Timings;
+import com.weather.transport.HttpArchive;
+import com.weather.transport.HttpArchiveWriter;
+import com.weather.transport.RecordingHttpClient;
+import com.weather.transport.ReplayHttpClient;
+import com.weather.watch.ForecastWatcher;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.net.InetSocketAddress;
 import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * Weather App - Get weather forecast for any location
@@ -19,38 +60,107 @@ import java.net.http.HttpClient;
  * - Open-Meteo API for weather data
  * 
  * Usage:
- *   java -jar weather-app.jar [location] [-f|--fahrenheit]
+ *   java -jar weather-app.jar [location] [-f|--fahrenheit] [--wind kmh|mph|kn|ms] [--precip mm|in]
+ *   java -jar weather-app.jar [-l location]... [--file locations.txt] [-f|--fahrenheit]
+ *   java -jar weather-app.jar [location] --shared-cache
+ *   java -jar weather-app.jar --build-gazetteer cities15000.txt
+ *   java -XX:SharedArchiveFile=target/weather-app.jsa -jar weather-app.jar [location] --fast-start
+ *   java -jar weather-app.jar --serve [host]:port
+ *   java -jar weather-app.jar [location] --timings
+ *   java -jar weather-app.jar [location] --watch
+ *   java -jar weather-app.jar [-l location]... [--file locations.txt] --output ndjson|csv|json  # Always metric
+ *   java -jar weather-app.jar [location] --record run.rec | --replay run.rec [--replay-latency recorded]
+ *   java -jar weather-app.jar [location] [--provider url]... [--models a,b] [--fan-out fastest|ensemble]
+ *   java -jar weather-app.jar [location] --hedge
  * 
  * Examples:
  *   java -jar weather-app.jar                    # Use current location from IP
  *   java -jar weather-app.jar London             # Weather for London
  *   java -jar weather-app.jar "New York" -f      # Weather for New York in Fahrenheit
+ *   java -jar weather-app.jar Oslo --wind ms     # Wind speeds in metres per second
+ *   java -jar weather-app.jar -l Paris -l Tokyo  # Weather for several locations
+ *   java -jar weather-app.jar --serve :8080      # Serve /forecast?q=London over HTTP
+ *   java -jar weather-app.jar Rome --shared-cache  # Reuse what other runs fetched recently
+ *   java -jar weather-app.jar Lima --timings     # Per-phase latency report on stderr
+ *   java -jar weather-app.jar Oslo --watch       # Keep the forecast on screen, redrawing changes
+ *   java -jar weather-app.jar --file sites.txt --output ndjson  # One JSON line per site
+ *   java -jar weather-app.jar Oslo --replay oslo.rec  # Offline, from an earlier --record run
+ *   java -jar weather-app.jar Oslo --models ecmwf_ifs025,gfs_seamless --fan-out ensemble  # Model mean
+ *   java -jar weather-app.jar --serve :8080 --hedge  # Resend forecast requests slower than usual
  */
 public class App {
     
+    private static final int SERVER_CACHE_ENTRIES = 10_000;
+    private static final Duration SERVER_CACHE_TTL = Duration.ofMinutes(30);
+    private static final String SHARED_CACHE_FILE = "shared-cache-v1.bin";
+    private static final String GAZETTEER_FILE = "gazetteer.bin";
+    private static final int LOCATIONS_PER_CHUNK = 200;
+    
     public static void main(String[] args) {
         try {
+            // Parse command-line arguments
+            CommandLineParser parser;
+            try {
+                parser = new CommandLineParser(args);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                System.exit(1);
+                return;
+            }
+            
+            if (parser.isTimings()) {
+                Timings.enable();
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(Timings.report())));
+            }
+            
             // Initialize dependencies
-            HttpClient client = HttpClient.newHttpClient();
-            ObjectMapper mapper = new ObjectMapper();
+            HttpClient client = createClient(parser);
+            ObjectMapper mapper = StreamingModelModule.newMapper(parser.isFastStart());
             
-            // Parse command-line arguments
-            CommandLineParser parser = new CommandLineParser(args);
+            if (parser.getGazetteerDump() != null) {
+                buildGazetteer(Path.of(parser.getGazetteerDump()));
+                return;
+            }
             
             // Initialize services
-            LocationService locationService = new LocationService(client, mapper);
-            WeatherService weatherService = new WeatherService(client, mapper);
-            WeatherFormatter formatter = new WeatherFormatter(parser.isUseFahrenheit());
-            ConsoleWeatherDisplay display = new ConsoleWeatherDisplay(formatter);
+            MappedSharedCache sharedCache = parser.isSharedCache() ? openSharedCache() : null;
+            GeocodingIndex geocodingIndex = new GeocodingIndex(CacheDirectory.resolve().resolve("geocoding.idx"));
+            Gazetteer gazetteer = Gazetteer.openIfPresent(CacheDirectory.resolve().resolve(GAZETTEER_FILE));
+            LocationService locationService = new LocationService(client, mapper, geocodingIndex,
+                sharedCache != null ? sharedCache : LocationCache.NONE, gazetteer);
             
-            // Get location
-            Location location = getLocation(locationService, parser);
+            if (parser.getServeAddress() != null) {
+                serve(locationService, client, mapper, parser);
+                return;
+            }
             
-            // Fetch weather data
-            WeatherResponse weatherData = weatherService.getWeather(location, parser.isUseFahrenheit());
+            if (parser.isWatch()) {
+                watch(locationService, client, mapper, sharedCache, parser);
+                return;
+            }
             
-            // Display weather forecast
-            display.display(location, weatherData);
+            // Only the console report is trimmed to the hours it shows
+            ForecastHorizon horizon = parser.getOutputFormat() == OutputFormat.TEXT
+                ? ForecastHorizon.REPORT : ForecastHorizon.FULL;
+            WeatherService weatherService = createWeatherService(client, mapper,
+                sharedCache != null ? sharedCache : ForecastCache.NONE, horizon, parser);
+            // Connect to the forecast API while the location resolves
+            weatherService.warmUp();
+            try (ForecastWriter writer = openWriter(parser)) {
+                if (parser.hasMultipleLocations()) {
+                    writeMultipleLocations(locationService, weatherService, writer, parser);
+                    return;
+                }
+                
+                // Get location
+                Location location = getLocation(locationService, parser);
+                
+                // Fetch weather data
+                WeatherResponse weatherData = weatherService.getWeather(location);
+                
+                // Display weather forecast
+                writer.write(location, weatherData);
+            }
             
         } catch (LocationService.LocationNotFoundException e) {
             System.err.println(e.getMessage());
@@ -68,6 +178,133 @@ public class App {
         }
     }
     
+    /**
+     * Runs the HTTP server until the process is stopped
+     * Forecasts are cached in memory since the same places are requested repeatedly
+     */
+    private static void serve(LocationService locationService, HttpClient client, ObjectMapper mapper, 
+            CommandLineParser parser) throws Exception {
+        String address = parser.getServeAddress();
+        WeatherService weatherService = createWeatherService(client, mapper, 
+            new TinyLfuForecastCache(SERVER_CACHE_ENTRIES, 0, SERVER_CACHE_TTL), ForecastHorizon.FULL, parser);
+        ForecastServer server = new ForecastServer(locationService, weatherService, mapper);
+        server.start(parseAddress(address));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        System.err.println("Serving forecasts on http://" + address + "/forecast?q=<place>");
+        Thread.currentThread().join();
+    }
+    
+    /**
+     * Shows one location's forecast and keeps it current until the process is stopped
+     * The location is resolved once; forecasts are revalidated about hourly
+     */
+    private static void watch(LocationService locationService, HttpClient client, ObjectMapper mapper,
+            MappedSharedCache sharedCache, CommandLineParser parser) throws Exception {
+        WeatherService weatherService = createWeatherService(client, mapper,
+            sharedCache != null ? sharedCache : ForecastCache.NONE, ForecastWatcher.HORIZON, parser);
+        weatherService.warmUp();
+        Location location = getLocation(locationService, parser);
+        TerminalScreen screen = new TerminalScreen(
+            new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        Runtime.getRuntime().addShutdownHook(new Thread(screen::close));
+        Clock clock = Clock.systemDefaultZone();
+        new ForecastWatcher(weatherService, new WeatherFormatter(parser.getUnits(), clock), screen, clock)
+            .run(location);
+    }
+    
+    /**
+     * Returns the forecast service for the providers chosen, hedging their requests with --hedge
+     */
+    private static WeatherService createWeatherService(HttpClient client, ObjectMapper mapper, ForecastCache cache,
+            ForecastHorizon horizon, CommandLineParser parser) {
+        WeatherService weatherService = new WeatherService(client, mapper, cache, horizon, createFanOut(parser));
+        if (parser.isHedge()) {
+            weatherService.setProviderPolicy(ResiliencePolicy.HEDGED);
+        }
+        return weatherService;
+    }
+    
+    /**
+     * Returns the forecast providers chosen with --provider and --models: every endpoint with every model
+     */
+    private static FanOut createFanOut(CommandLineParser parser) {
+        List<ForecastProvider> endpoints = new ArrayList<>();
+        for (String url : parser.getProviderUrls()) {
+            endpoints.add(url.equals("open-meteo") ? ForecastProvider.OPEN_METEO : ForecastProvider.of(url));
+        }
+        if (endpoints.isEmpty()) {
+            endpoints.add(ForecastProvider.OPEN_METEO);
+        }
+        List<ForecastProvider> providers = new ArrayList<>();
+        for (ForecastProvider endpoint : endpoints) {
+            if (parser.getModels().isEmpty()) {
+                providers.add(endpoint);
+            }
+            for (String model : parser.getModels()) {
+                providers.add(endpoint.withModel(model));
+            }
+        }
+        Duration deadline = ResiliencePolicy.DEFAULT.getDeadline();
+        return parser.getFanOutPolicy() == FanOut.Policy.ENSEMBLE
+            ? FanOut.ensemble(providers, deadline)
+            : FanOut.fastest(providers, deadline);
+    }
+    
+    /**
+     * Returns the shared client, recording or replaying HTTP exchanges if asked to
+     */
+    private static HttpClient createClient(CommandLineParser parser) throws IOException {
+        if (parser.getReplayFile() != null) {
+            HttpArchive archive = HttpArchive.open(Path.of(parser.getReplayFile()));
+            return new ReplayHttpClient(archive, parser.getReplayLatency());
+        }
+        HttpClient client = HttpClientFactory.create();
+        if (parser.getRecordFile() == null) {
+            return client;
+        }
+        RecordingHttpClient recorder = new RecordingHttpClient(client,
+            HttpArchiveWriter.create(Path.of(parser.getRecordFile())));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                recorder.commit();
+            } catch (IOException e) {
+                System.err.println("Recording not saved: " + e.getMessage());
+            }
+        }));
+        return recorder;
+    }
+    
+    /**
+     * Builds the offline gazetteer from a GeoNames dump into the cache directory
+     */
+    private static void buildGazetteer(Path dump) throws IOException {
+        Path output = CacheDirectory.resolve().resolve(GAZETTEER_FILE);
+        int places = GazetteerBuilder.build(dump, output);
+        System.err.println("Wrote " + places + " places to " + output);
+    }
+    
+    /**
+     * Opens the cache file shared with other runs, or returns null if it cannot be used
+     */
+    private static MappedSharedCache openSharedCache() {
+        try {
+            return MappedSharedCache.open(CacheDirectory.resolve().resolve(SHARED_CACHE_FILE));
+        } catch (IOException e) {
+            System.err.println("Shared cache unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Parses "host:port" or ":port" (all interfaces)
+     */
+    private static InetSocketAddress parseAddress(String address) {
+        int colon = address.lastIndexOf(':');
+        int port = Integer.parseInt(address.substring(colon + 1));
+        String host = colon > 0 ? address.substring(0, colon) : "";
+        return host.isEmpty() ? new InetSocketAddress(port) : new InetSocketAddress(host, port);
+    }
+    
     /**
      * Resolves location based on command-line arguments or IP address
      */
@@ -79,4 +316,60 @@ public class App {
             return locationService.getLocationFromIp();
         }
     }
+    
+    /**
+     * Returns the text report display, or a machine-readable writer on standard output
+     */
+    private static ForecastWriter openWriter(CommandLineParser parser) throws IOException {
+        OutputFormat format = parser.getOutputFormat();
+        if (format == OutputFormat.TEXT) {
+            return new ConsoleWeatherDisplay(new WeatherFormatter(parser.getUnits()));
+        }
+        if (!parser.getUnits().isMetric()) {
+            System.err.println("Note: --output is always in metric units; -f, --wind and --precip are ignored");
+        }
+        return ForecastWriters.open(format, new FileOutputStream(FileDescriptor.out).getChannel());
+    }
+    
+    /**
+     * Resolves every requested location and fetches their forecasts in batched requests
+     *
+     * Locations, -l queries first and then the file's lines, are read, resolved,
+     * fetched and written {@value #LOCATIONS_PER_CHUNK} at a time, so each chunk's output appears as soon as it is fetched and
+     * memory does not grow with the length of the locations file.
+     */
+    private static void writeMultipleLocations(LocationService locationService, 
+            WeatherService weatherService, ForecastWriter writer, CommandLineParser parser) 
+            throws Exception {
+        Iterator<String> named = parser.getLocationQueries().iterator();
+        List<String> queries = new ArrayList<>(LOCATIONS_PER_CHUNK);
+        BufferedReader file = parser.getLocationsFile() != null
+            ? Files.newBufferedReader(Path.of(parser.getLocationsFile()))
+            : new BufferedReader(Reader.nullReader());
+        try (file) {
+            while (true) {
+                while (queries.size() < LOCATIONS_PER_CHUNK && named.hasNext()) {
+                    queries.add(named.next());
+                }
+                String line;
+                while (queries.size() < LOCATIONS_PER_CHUNK && (line = file.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        queries.add(line.trim());
+                    }
+                }
+                if (queries.isEmpty()) {
+                    return;
+                }
+                
+                List<Location> locations = locationService.geocodeLocations(queries);
+                
+                List<WeatherResponse> forecasts = weatherService.getWeather(locations);
+                for (int i = 0; i < locations.size(); i++) {
+                    writer.write(locations.get(i), forecasts.get(i));
+                }
+                writer.flush();
+                queries.clear();
+            }
+        }
+    }
 }
@@ -0,0 +1,27 @@
+package com.weather.analytics;
+
+/**
+ * How the rows of one location's series in a window are reduced to a value
+ */
+public enum Aggregate {
+    MIN,
+    MAX,
+    MEAN,
+    SUM,
+    COUNT;
+
+    double of(SeriesStats stats) {
+        switch (this) {
+            case MIN:
+                return stats.getMin();
+            case MAX:
+                return stats.getMax();
+            case MEAN:
+                return stats.getMean();
+            case SUM:
+                return stats.getCount() == 0 ? Double.NaN : stats.getSum();
+            default:
+                return stats.getCount();
+        }
+    }
+}
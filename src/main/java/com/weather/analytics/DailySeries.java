@@ -0,0 +1,47 @@
+package com.weather.analytics;
+
+import com.weather.model.DailyWeather;
+import com.weather.model.WeatherResponse;
+
+import java.util.function.Function;
+
+/**
+ * Daily forecast columns, in the API's metric units
+ */
+public enum DailySeries implements Series {
+    TEMPERATURE_MAX(daily -> daily.temperature_2m_max, null),
+    TEMPERATURE_MIN(daily -> daily.temperature_2m_min, null),
+    PRECIPITATION_SUM(daily -> daily.precipitation_sum, null),
+    WIND_SPEED_MAX(daily -> daily.wind_speed_10m_max, null),
+    UV_INDEX_MAX(daily -> daily.uv_index_max, null),
+    PRECIPITATION_PROBABILITY_MAX(null, daily -> daily.precipitation_probability_max),
+    WEATHER_CODE(null, daily -> daily.weathercode);
+
+    private final Function<DailyWeather, double[]> doubles;
+    private final Function<DailyWeather, int[]> ints;
+
+    DailySeries(Function<DailyWeather, double[]> doubles, Function<DailyWeather, int[]> ints) {
+        this.doubles = doubles;
+        this.ints = ints;
+    }
+
+    @Override
+    public long[] time(WeatherResponse forecast) {
+        return forecast.daily != null ? forecast.daily.time : null;
+    }
+
+    @Override
+    public double[] doubles(WeatherResponse forecast) {
+        return doubles != null && forecast.daily != null ? doubles.apply(forecast.daily) : null;
+    }
+
+    @Override
+    public int[] ints(WeatherResponse forecast) {
+        return ints != null && forecast.daily != null ? ints.apply(forecast.daily) : null;
+    }
+
+    @Override
+    public long rowSeconds() {
+        return 86_400;
+    }
+}
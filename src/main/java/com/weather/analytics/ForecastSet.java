@@ -0,0 +1,304 @@
+package com.weather.analytics;
+
+import com.weather.model.Location;
+import com.weather.model.MissingValues;
+import com.weather.model.WeatherResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.DoublePredicate;
+
+/**
+ * Filters, aggregates and ranks the forecasts of many locations in parallel
+ *
+ * Work runs on a fork-join pool, split by location until a task holds a
+ * few dozen sites, and a single site's window is split again by row range
+ * when it is long (archive-sized series rather than a 16-day forecast).
+ * Window bounds are found by binary search over each forecast's epoch-second
+ * timeline, and the columns are read as the primitive arrays the model
+ * already holds, so no query boxes or parses per row. Forecasts without the
+ * requested series count as having no rows.
+ */
+public class ForecastSet {
+
+    static final int LOCATIONS_PER_TASK = 32;
+    static final int ROWS_PER_TASK = 8192;
+
+    private final List<Location> locations;
+    private final List<WeatherResponse> forecasts;
+    private final ForkJoinPool pool;
+
+    public ForecastSet(List<Location> locations, List<WeatherResponse> forecasts) {
+        this(locations, forecasts, ForkJoinPool.commonPool());
+    }
+
+    public ForecastSet(List<Location> locations, List<WeatherResponse> forecasts, ForkJoinPool pool) {
+        if (locations.size() != forecasts.size()) {
+            throw new IllegalArgumentException("Expected one forecast per location");
+        }
+        this.locations = List.copyOf(locations);
+        this.forecasts = List.copyOf(forecasts);
+        this.pool = pool;
+    }
+
+    public int size() {
+        return locations.size();
+    }
+
+    public List<Location> getLocations() {
+        return locations;
+    }
+
+    /**
+     * Returns each location's aggregate of the series in the window, NaN where there were no rows
+     */
+    public double[] aggregate(Series series, TimeWindow window, Aggregate aggregate) {
+        double[] values = new double[forecasts.size()];
+        pool.invoke(new AggregateTask(series, window, aggregate, values, 0, values.length));
+        return values;
+    }
+
+    /**
+     * Returns the locations whose aggregate passes the filter, in set order
+     * For example, sites reaching 35°C in the next two days, given forecasts fetched over
+     * ForecastHorizon.FULL (the console report's 13-hour horizon would not reach that far):
+     * filter(HourlySeries.TEMPERATURE, TimeWindow.next(Duration.ofHours(48)), Aggregate.MAX, t -> t >= 35)
+     */
+    public List<SiteValue> filter(Series series, TimeWindow window, Aggregate aggregate, DoublePredicate filter) {
+        double[] values = aggregate(series, window, aggregate);
+        List<SiteValue> matches = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            if (!Double.isNaN(values[i]) && filter.test(values[i])) {
+                matches.add(new SiteValue(i, locations.get(i), values[i]));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the k locations with the highest aggregate, highest first
+     * Ties go to the location earlier in the set, and locations without rows are never ranked.
+     */
+    public List<SiteValue> top(Series series, TimeWindow window, Aggregate aggregate, int k) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        double[] values = aggregate(series, window, aggregate);
+        int[] best = pool.invoke(new TopTask(values, k, 0, values.length));
+        List<SiteValue> ranked = new ArrayList<>(best.length);
+        for (int i : best) {
+            ranked.add(new SiteValue(i, locations.get(i), values[i]));
+        }
+        return ranked;
+    }
+
+    /**
+     * Returns the statistics of the series over every location's rows in the window
+     */
+    public SeriesStats summarize(Series series, TimeWindow window) {
+        return pool.invoke(new SummaryTask(series, window, 0, forecasts.size()));
+    }
+
+    /**
+     * Statistics of one forecast's rows in the window, split by row range when long
+     */
+    private static SeriesStats stats(Series series, TimeWindow window, WeatherResponse forecast) {
+        long[] time = series.time(forecast);
+        if (time == null) {
+            return SeriesStats.EMPTY;
+        }
+        int from = window.firstRow(time, series.rowSeconds());
+        int to = window.endRow(time);
+        if (to - from > ROWS_PER_TASK) {
+            return new RowTask(series.doubles(forecast), series.ints(forecast), from, to).invoke();
+        }
+        return stats(series.doubles(forecast), series.ints(forecast), from, to);
+    }
+
+    private static SeriesStats stats(double[] doubles, int[] ints, int from, int to) {
+        long count = 0;
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        if (doubles != null) {
+            to = Math.min(to, doubles.length);
+            for (int i = from; i < to; i++) {
+                double value = doubles[i];
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                count++;
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        } else if (ints != null) {
+            to = Math.min(to, ints.length);
+            for (int i = from; i < to; i++) {
+                int value = ints[i];
+                if (MissingValues.isMissing(value)) {
+                    continue;
+                }
+                count++;
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        return count == 0 ? SeriesStats.EMPTY : new SeriesStats(count, sum, min, max);
+    }
+
+    private final class AggregateTask extends RecursiveAction {
+        private final Series series;
+        private final TimeWindow window;
+        private final Aggregate aggregate;
+        private final double[] values;
+        private final int from;
+        private final int to;
+
+        AggregateTask(Series series, TimeWindow window, Aggregate aggregate, double[] values, int from, int to) {
+            this.series = series;
+            this.window = window;
+            this.aggregate = aggregate;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LOCATIONS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new AggregateTask(series, window, aggregate, values, from, mid),
+                    new AggregateTask(series, window, aggregate, values, mid, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                values[i] = aggregate.of(stats(series, window, forecasts.get(i)));
+            }
+        }
+    }
+
+    private final class SummaryTask extends RecursiveTask<SeriesStats> {
+        private final Series series;
+        private final TimeWindow window;
+        private final int from;
+        private final int to;
+
+        SummaryTask(Series series, TimeWindow window, int from, int to) {
+            this.series = series;
+            this.window = window;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SeriesStats compute() {
+            if (to - from > LOCATIONS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                SummaryTask right = new SummaryTask(series, window, mid, to);
+                right.fork();
+                SeriesStats left = new SummaryTask(series, window, from, mid).compute();
+                return SeriesStats.merge(left, right.join());
+            }
+            SeriesStats result = SeriesStats.EMPTY;
+            for (int i = from; i < to; i++) {
+                result = SeriesStats.merge(result, stats(series, window, forecasts.get(i)));
+            }
+            return result;
+        }
+    }
+
+    private static final class RowTask extends RecursiveTask<SeriesStats> {
+        private final double[] doubles;
+        private final int[] ints;
+        private final int from;
+        private final int to;
+
+        RowTask(double[] doubles, int[] ints, int from, int to) {
+            this.doubles = doubles;
+            this.ints = ints;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SeriesStats compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                return stats(doubles, ints, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            RowTask right = new RowTask(doubles, ints, mid, to);
+            right.fork();
+            SeriesStats left = new RowTask(doubles, ints, from, mid).compute();
+            return SeriesStats.merge(left, right.join());
+        }
+    }
+
+    /**
+     * Finds the indexes of the k largest values in a range, best first
+     */
+    private static final class TopTask extends RecursiveTask<int[]> {
+        private final double[] values;
+        private final int k;
+        private final int from;
+        private final int to;
+
+        TopTask(double[] values, int k, int from, int to) {
+            this.values = values;
+            this.k = k;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from > LOCATIONS_PER_TASK * 32) {
+                int mid = (from + to) >>> 1;
+                TopTask right = new TopTask(values, k, mid, to);
+                right.fork();
+                int[] left = new TopTask(values, k, from, mid).compute();
+                return merge(left, right.join());
+            }
+            // Insertion into a sorted array of at most k, which beats a heap for the small k this is for
+            int[] best = new int[Math.min(k, to - from)];
+            int size = 0;
+            for (int i = from; i < to; i++) {
+                if (Double.isNaN(values[i])) {
+                    continue;
+                }
+                if (size == best.length && !better(i, best[size - 1])) {
+                    continue;
+                }
+                int at = size == best.length ? size - 1 : size++;
+                while (at > 0 && better(i, best[at - 1])) {
+                    best[at] = best[at - 1];
+                    at--;
+                }
+                best[at] = i;
+            }
+            return size == best.length ? best : Arrays.copyOf(best, size);
+        }
+
+        private int[] merge(int[] left, int[] right) {
+            int[] merged = new int[Math.min(k, left.length + right.length)];
+            int l = 0;
+            int r = 0;
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] = r == right.length || (l < left.length && !better(right[r], left[l]))
+                    ? left[l++]
+                    : right[r++];
+            }
+            return merged;
+        }
+
+        private boolean better(int a, int b) {
+            return values[a] > values[b] || (values[a] == values[b] && a < b);
+        }
+    }
+}
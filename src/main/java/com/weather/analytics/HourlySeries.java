@@ -0,0 +1,46 @@
+package com.weather.analytics;
+
+import com.weather.model.HourlyWeather;
+import com.weather.model.WeatherResponse;
+
+import java.util.function.Function;
+
+/**
+ * Hourly forecast columns, in the API's metric units
+ */
+public enum HourlySeries implements Series {
+    TEMPERATURE(hourly -> hourly.temperature_2m, null),
+    APPARENT_TEMPERATURE(hourly -> hourly.apparent_temperature, null),
+    WIND_SPEED(hourly -> hourly.wind_speed_10m, null),
+    PRECIPITATION_PROBABILITY(null, hourly -> hourly.precipitation_probability),
+    RELATIVE_HUMIDITY(null, hourly -> hourly.relative_humidity_2m),
+    WEATHER_CODE(null, hourly -> hourly.weathercode);
+
+    private final Function<HourlyWeather, double[]> doubles;
+    private final Function<HourlyWeather, int[]> ints;
+
+    HourlySeries(Function<HourlyWeather, double[]> doubles, Function<HourlyWeather, int[]> ints) {
+        this.doubles = doubles;
+        this.ints = ints;
+    }
+
+    @Override
+    public long[] time(WeatherResponse forecast) {
+        return forecast.hourly != null ? forecast.hourly.time : null;
+    }
+
+    @Override
+    public double[] doubles(WeatherResponse forecast) {
+        return doubles != null && forecast.hourly != null ? doubles.apply(forecast.hourly) : null;
+    }
+
+    @Override
+    public int[] ints(WeatherResponse forecast) {
+        return ints != null && forecast.hourly != null ? ints.apply(forecast.hourly) : null;
+    }
+
+    @Override
+    public long rowSeconds() {
+        return 3600;
+    }
+}
@@ -0,0 +1,26 @@
+package com.weather.analytics;
+
+import com.weather.model.WeatherResponse;
+
+/**
+ * A column of a forecast together with its timeline
+ *
+ * Exactly one of doubles() and ints() returns the column for a forecast that
+ * has it; both return null when the forecast lacks the series.
+ */
+public interface Series {
+
+    /**
+     * Returns the epoch-second start of each row, or null if the forecast has no such section
+     */
+    long[] time(WeatherResponse forecast);
+
+    double[] doubles(WeatherResponse forecast);
+
+    int[] ints(WeatherResponse forecast);
+
+    /**
+     * Returns the length of one row in seconds
+     */
+    long rowSeconds();
+}
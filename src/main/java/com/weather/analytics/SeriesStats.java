@@ -0,0 +1,61 @@
+package com.weather.analytics;
+
+/**
+ * Count, sum, min and max of a series over some rows
+ * Partial results from different locations or time ranges are combined with merge()
+ */
+public final class SeriesStats {
+
+    static final SeriesStats EMPTY = new SeriesStats(0, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+    private final long count;
+    private final double sum;
+    private final double min;
+    private final double max;
+
+    SeriesStats(long count, double sum, double min, double max) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    static SeriesStats merge(SeriesStats a, SeriesStats b) {
+        if (a.count == 0) {
+            return b;
+        }
+        if (b.count == 0) {
+            return a;
+        }
+        return new SeriesStats(a.count + b.count, a.sum + b.sum, Math.min(a.min, b.min), Math.max(a.max, b.max));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Returns the smallest value, or NaN if there were no rows
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * Returns the largest value, or NaN if there were no rows
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * Returns the mean value, or NaN if there were no rows
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+}
@@ -0,0 +1,36 @@
+package com.weather.analytics;
+
+import com.weather.model.Location;
+
+/**
+ * A location's aggregated value, with its position in the ForecastSet
+ */
+public final class SiteValue {
+
+    private final int index;
+    private final Location location;
+    private final double value;
+
+    SiteValue(int index, Location location, double value) {
+        this.index = index;
+        this.location = location;
+        this.value = value;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Location getLocation() {
+        return location;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return location.getFormattedLocation() + ": " + value;
+    }
+}
@@ -0,0 +1,67 @@
+package com.weather.analytics;
+
+import com.weather.model.ForecastView;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A half-open time range [from, to) in epoch seconds
+ *
+ * A row belongs to the window if any part of it does, so a daily row counts
+ * for a window starting in the middle of that day. Rows are found by binary
+ * search over the forecast's epoch-second timeline, as in ForecastView.
+ */
+public final class TimeWindow {
+
+    public static final TimeWindow ALL = new TimeWindow(Long.MIN_VALUE, Long.MAX_VALUE);
+
+    private final long from;
+    private final long to;
+
+    private TimeWindow(long from, long to) {
+        if (to < from) {
+            throw new IllegalArgumentException("Time window ends before it starts");
+        }
+        this.from = from;
+        this.to = to;
+    }
+
+    public static TimeWindow between(Instant from, Instant to) {
+        return new TimeWindow(from.getEpochSecond(), to.getEpochSecond());
+    }
+
+    /**
+     * Returns the window from the start of the current hour for the given length
+     */
+    public static TimeWindow next(Duration length) {
+        return next(length, Instant.now());
+    }
+
+    static TimeWindow next(Duration length, Instant now) {
+        long hour = Math.floorDiv(now.getEpochSecond(), 3600L) * 3600L;
+        return new TimeWindow(hour, hour + length.getSeconds());
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    /**
+     * Returns the first row overlapping the window
+     */
+    int firstRow(long[] time, long rowSeconds) {
+        return from == Long.MIN_VALUE ? 0 : ForecastView.lowerBound(time, from - rowSeconds + 1);
+    }
+
+    /**
+     * Returns one past the last row overlapping the window
+     */
+    int endRow(long[] time) {
+        return to == Long.MAX_VALUE ? time.length : ForecastView.lowerBound(time, to);
+    }
+}
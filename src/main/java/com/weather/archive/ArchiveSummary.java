@@ -0,0 +1,144 @@
+package com.weather.archive;
+
+import java.util.Arrays;
+
+/**
+ * Count, min, max, mean and percentiles of one variable over a time range
+ *
+ * Stored values are integers on a fixed scale, so the summary keeps a sorted
+ * table of distinct values and their counts instead of the rows themselves.
+ * Percentiles are exact (nearest rank) and the table stays small: a century
+ * of hourly temperatures has only a few thousand distinct values.
+ */
+public final class ArchiveSummary {
+
+    private final ArchiveVariable variable;
+    private final int[] values;
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+
+    private ArchiveSummary(ArchiveVariable variable, int[] values, long[] counts, long count, long sum) {
+        this.variable = variable;
+        this.values = values;
+        this.counts = counts;
+        this.count = count;
+        this.sum = sum;
+    }
+
+    static ArchiveSummary empty(ArchiveVariable variable) {
+        return new ArchiveSummary(variable, new int[0], new long[0], 0, 0);
+    }
+
+    /**
+     * Summarizes stored values[start, end), skipping missing hours
+     */
+    static ArchiveSummary of(ArchiveVariable variable, int[] stored, int start, int end) {
+        int[] sorted = new int[end - start];
+        int n = 0;
+        long sum = 0;
+        for (int i = start; i < end; i++) {
+            if (stored[i] != ArchiveVariable.MISSING) {
+                sorted[n++] = stored[i];
+                sum += stored[i];
+            }
+        }
+        Arrays.sort(sorted, 0, n);
+        int[] values = new int[n];
+        long[] counts = new long[n];
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct > 0 && values[distinct - 1] == sorted[i]) {
+                counts[distinct - 1]++;
+            } else {
+                values[distinct] = sorted[i];
+                counts[distinct++] = 1;
+            }
+        }
+        return new ArchiveSummary(variable, Arrays.copyOf(values, distinct), Arrays.copyOf(counts, distinct), n, sum);
+    }
+
+    /**
+     * Combines the summaries of two disjoint sets of hours
+     */
+    static ArchiveSummary merge(ArchiveSummary a, ArchiveSummary b) {
+        if (a.count == 0) {
+            return b;
+        }
+        if (b.count == 0) {
+            return a;
+        }
+        int[] values = new int[a.values.length + b.values.length];
+        long[] counts = new long[values.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < a.values.length || j < b.values.length) {
+            if (j == b.values.length || (i < a.values.length && a.values[i] < b.values[j])) {
+                values[k] = a.values[i];
+                counts[k++] = a.counts[i++];
+            } else if (i == a.values.length || b.values[j] < a.values[i]) {
+                values[k] = b.values[j];
+                counts[k++] = b.counts[j++];
+            } else {
+                values[k] = a.values[i];
+                counts[k++] = a.counts[i++] + b.counts[j++];
+            }
+        }
+        return new ArchiveSummary(a.variable, Arrays.copyOf(values, k), Arrays.copyOf(counts, k),
+            a.count + b.count, a.sum + b.sum);
+    }
+
+    public ArchiveVariable getVariable() {
+        return variable;
+    }
+
+    /**
+     * Returns the number of hours with data in the range
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the smallest value, or NaN if there is no data
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : variable.decode(values[0]);
+    }
+
+    /**
+     * Returns the largest value, or NaN if there is no data
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : variable.decode(values[values.length - 1]);
+    }
+
+    /**
+     * Returns the mean value, or NaN if there is no data
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : (double) sum / count / variable.scale();
+    }
+
+    /**
+     * Returns the nearest-rank percentile for p between 0 and 1, or NaN if there is no data
+     */
+    public double percentile(double p) {
+        if (p < 0 || p > 1) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 1");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p * count));
+        long seen = 0;
+        for (int i = 0; i < values.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return variable.decode(values[i]);
+            }
+        }
+        return getMax();
+    }
+}
@@ -0,0 +1,65 @@
+package com.weather.archive;
+
+/**
+ * Hourly variables kept in a columnar archive
+ *
+ * Every column is stored as integers: measured quantities in hundredths of
+ * their unit (the API reports at most one decimal), codes and percentages as
+ * they are. Missing hours are kept as MISSING and skipped by aggregates.
+ */
+public enum ArchiveVariable {
+    TEMPERATURE_2M("temperature_2m", 100),
+    RELATIVE_HUMIDITY_2M("relative_humidity_2m", 1),
+    PRECIPITATION("precipitation", 100),
+    WIND_SPEED_10M("wind_speed_10m", 100),
+    WEATHER_CODE("weather_code", 1);
+
+    /** Stored value of an hour without data */
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    private final String apiName;
+    private final int scale;
+
+    ArchiveVariable(String apiName, int scale) {
+        this.apiName = apiName;
+        this.scale = scale;
+    }
+
+    /**
+     * Returns the variable's name in the Open-Meteo API
+     */
+    public String apiName() {
+        return apiName;
+    }
+
+    /**
+     * Returns the number of stored units per unit of the value: 100 for a double column, 1 for an int column
+     */
+    public int scale() {
+        return scale;
+    }
+
+    public boolean isInteger() {
+        return scale == 1;
+    }
+
+    public static ArchiveVariable fromApiName(String name) {
+        for (ArchiveVariable variable : values()) {
+            if (variable.apiName.equals(name)) {
+                return variable;
+            }
+        }
+        throw new IllegalArgumentException("Unknown archive variable: " + name);
+    }
+
+    /**
+     * Converts a value (NaN for missing) to its stored form
+     */
+    int encode(double value) {
+        return Double.isNaN(value) ? MISSING : (int) Math.round(value * scale);
+    }
+
+    double decode(int stored) {
+        return stored == MISSING ? Double.NaN : (double) stored / scale;
+    }
+}
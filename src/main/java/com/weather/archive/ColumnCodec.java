@@ -0,0 +1,130 @@
+package com.weather.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses columns of one archive block
+ *
+ * Values are delta-encoded against the previous row, zigzag-mapped so small
+ * negative steps stay small, written as varints and deflated. Hourly weather
+ * changes little from one hour to the next, so most deltas take one byte
+ * before deflate, and regular timelines (a fixed step) compress to a few
+ * bytes.
+ */
+final class ColumnCodec {
+
+    private ColumnCodec() {
+    }
+
+    static byte[] encodeInts(int[] values, int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(count + 16);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            int delta = values[i] - previous;
+            writeVarLong(out, ((delta << 1) ^ (delta >> 31)) & 0xffffffffL);
+            previous = values[i];
+        }
+        return deflate(out.toByteArray());
+    }
+
+    static int[] decodeInts(byte[] compressed, int count) throws IOException {
+        byte[] raw = inflate(compressed, count + 16);
+        int[] values = new int[count];
+        int[] position = new int[1];
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            int zigzag = (int) readVarLong(raw, position);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    static byte[] encodeLongs(long[] values, int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(count + 16);
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = values[i] - previous;
+            writeVarLong(out, (delta << 1) ^ (delta >> 63));
+            previous = values[i];
+        }
+        return deflate(out.toByteArray());
+    }
+
+    static long[] decodeLongs(byte[] compressed, int count) throws IOException {
+        byte[] raw = inflate(compressed, count + 16);
+        long[] values = new long[count];
+        int[] position = new int[1];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long zigzag = readVarLong(raw, position);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] in, int[] position) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= in.length) {
+                throw new IOException("Truncated archive column");
+            }
+            byte b = in[position[0]++];
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed archive column");
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int sizeHint) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(sizeHint);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated archive column");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt archive column", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
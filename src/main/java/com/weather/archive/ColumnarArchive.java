@@ -0,0 +1,193 @@
+package com.weather.archive;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Local columnar store of hourly weather history for one site
+ *
+ * The file is a header naming the variables, a sequence of blocks (one per
+ * ingested chunk, a few months of hours each) and a footer indexing them.
+ * A block holds an epoch-second timeline and one compressed integer column
+ * per variable (see ColumnCodec and ArchiveVariable).
+ *
+ * Range queries look only at blocks overlapping the range and decode only the
+ * queried column of each. Blocks are summarized in parallel and the partial
+ * summaries merged, so no more than one block's rows per worker are ever
+ * decoded at once, whatever the length of the history.
+ */
+public final class ColumnarArchive implements Closeable {
+
+    static final int MAGIC = 0x4c4f4357; // "WCOL"
+    static final int VERSION = 1;
+    private static final int TRAILER_SIZE = 12;
+
+    private final FileChannel channel;
+    private final List<ArchiveVariable> variables;
+    private final Block[] blocks;
+
+    private ColumnarArchive(FileChannel channel, List<ArchiveVariable> variables, Block[] blocks) {
+        this.channel = channel;
+        this.variables = variables;
+        this.blocks = blocks;
+    }
+
+    public static ColumnarArchive open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = read(channel, 0, 12);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not an archive file: " + file);
+            }
+            int variableCount = header.getInt();
+            List<ArchiveVariable> variables = new ArrayList<>(variableCount);
+            long position = 12;
+            for (int i = 0; i < variableCount; i++) {
+                int length = read(channel, position, 2).getShort() & 0xffff;
+                ByteBuffer name = read(channel, position + 2, length);
+                variables.add(ArchiveVariable.fromApiName(
+                    new String(name.array(), 0, length, StandardCharsets.UTF_8)));
+                position += 2 + length;
+            }
+
+            ByteBuffer trailer = read(channel, channel.size() - TRAILER_SIZE, TRAILER_SIZE);
+            long footerOffset = trailer.getLong();
+            if (trailer.getInt() != MAGIC) {
+                throw new IOException("Incomplete archive file: " + file);
+            }
+            ByteBuffer footer = read(channel, footerOffset, (int) (channel.size() - TRAILER_SIZE - footerOffset));
+            Block[] blocks = new Block[footer.getInt()];
+            for (int b = 0; b < blocks.length; b++) {
+                Block block = new Block(footer.getInt(), footer.getLong(), footer.getLong(),
+                    footer.getLong(), footer.getInt(), variableCount);
+                for (int v = 0; v < variableCount; v++) {
+                    block.columnOffsets[v] = footer.getLong();
+                    block.columnLengths[v] = footer.getInt();
+                }
+                blocks[b] = block;
+            }
+            return new ColumnarArchive(channel, Collections.unmodifiableList(variables), blocks);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public List<ArchiveVariable> getVariables() {
+        return variables;
+    }
+
+    public long getRowCount() {
+        long rows = 0;
+        for (Block block : blocks) {
+            rows += block.rows;
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the first hour stored as epoch seconds, or Long.MIN_VALUE if empty
+     */
+    public long getFirstTime() {
+        return blocks.length > 0 ? blocks[0].firstTime : Long.MIN_VALUE;
+    }
+
+    /**
+     * Returns the last hour stored as epoch seconds, or Long.MIN_VALUE if empty
+     */
+    public long getLastTime() {
+        return blocks.length > 0 ? blocks[blocks.length - 1].lastTime : Long.MIN_VALUE;
+    }
+
+    /**
+     * Summarizes a variable over the hours in [fromEpochSecond, toEpochSecond)
+     */
+    public ArchiveSummary summarize(ArchiveVariable variable, long fromEpochSecond, long toEpochSecond)
+            throws IOException {
+        int column = variables.indexOf(variable);
+        if (column < 0) {
+            throw new IllegalArgumentException("Variable not in archive: " + variable.apiName());
+        }
+        try {
+            return IntStream.range(0, blocks.length)
+                .parallel()
+                .filter(b -> blocks[b].lastTime >= fromEpochSecond && blocks[b].firstTime < toEpochSecond)
+                .mapToObj(b -> summarizeBlock(blocks[b], variable, column, fromEpochSecond, toEpochSecond))
+                .reduce(ArchiveSummary.empty(variable), ArchiveSummary::merge);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ArchiveSummary summarizeBlock(Block block, ArchiveVariable variable, int column, long from, long to) {
+        try {
+            int[] values = ColumnCodec.decodeInts(
+                read(channel, block.columnOffsets[column], block.columnLengths[column]).array(), block.rows);
+            int start = 0;
+            int end = block.rows;
+            if (block.firstTime < from || block.lastTime >= to) {
+                long[] time = ColumnCodec.decodeLongs(
+                    read(channel, block.timelineOffset, block.timelineLength).array(), block.rows);
+                while (start < end && time[start] < from) {
+                    start++;
+                }
+                while (end > start && time[end - 1] >= to) {
+                    end--;
+                }
+            }
+            return ArchiveSummary.of(variable, values, start, end);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads exactly length bytes at the position; safe for concurrent use of one channel
+     */
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Truncated archive file");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static final class Block {
+        final int rows;
+        final long firstTime;
+        final long lastTime;
+        final long timelineOffset;
+        final int timelineLength;
+        final long[] columnOffsets;
+        final int[] columnLengths;
+
+        Block(int rows, long firstTime, long lastTime, long timelineOffset, int timelineLength, int columns) {
+            this.rows = rows;
+            this.firstTime = firstTime;
+            this.lastTime = lastTime;
+            this.timelineOffset = timelineOffset;
+            this.timelineLength = timelineLength;
+            this.columnOffsets = new long[columns];
+            this.columnLengths = new int[columns];
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.weather.archive;
+
+import com.weather.model.ArchiveResponse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a ColumnarArchive file one block at a time
+ *
+ * Each appended chunk of hourly rows becomes a block: its timeline and one
+ * compressed column per variable are written straight to disk, and only the
+ * block's offsets are kept for the footer. Memory use therefore does not grow
+ * with the number of years ingested. The file is written next to the target
+ * and moved into place by commit(); closing without committing deletes it.
+ */
+public final class ColumnarArchiveWriter implements Closeable {
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final List<ArchiveVariable> variables;
+    private final List<BlockIndex> blocks = new ArrayList<>();
+    private long rowCount;
+    private long lastTime = Long.MIN_VALUE;
+    private boolean committed;
+
+    private ColumnarArchiveWriter(Path target, Path temp, FileChannel channel, List<ArchiveVariable> variables) {
+        this.target = target;
+        this.temp = temp;
+        this.channel = channel;
+        this.variables = variables;
+    }
+
+    /**
+     * Starts a new archive that will replace the target file on commit
+     */
+    public static ColumnarArchiveWriter create(Path target, List<ArchiveVariable> variables) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ColumnarArchiveWriter writer = new ColumnarArchiveWriter(target, temp, channel, List.copyOf(variables));
+        try {
+            writer.writeHeader();
+        } catch (IOException e) {
+            writer.close();
+            throw e;
+        }
+        return writer;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Appends the hourly rows of one API response as a block
+     * Rows must come after every row already written; a variable the response lacks is stored as missing
+     */
+    public void append(ArchiveResponse chunk) throws IOException {
+        int rows = chunk.size();
+        if (rows == 0) {
+            return;
+        }
+        long[] time = chunk.time;
+        for (int i = 0; i < rows; i++) {
+            if (time[i] <= (i == 0 ? lastTime : time[i - 1])) {
+                throw new IllegalArgumentException("Archive rows must be in increasing time order");
+            }
+        }
+
+        BlockIndex block = new BlockIndex(rows, time[0], time[rows - 1], variables.size());
+        byte[] timeline = ColumnCodec.encodeLongs(time, rows);
+        block.timelineOffset = channel.position();
+        block.timelineLength = timeline.length;
+        writeFully(ByteBuffer.wrap(timeline));
+
+        int[] stored = new int[rows];
+        for (int v = 0; v < variables.size(); v++) {
+            ArchiveVariable variable = variables.get(v);
+            double[] values = chunk.hourly.get(variable.apiName());
+            for (int i = 0; i < rows; i++) {
+                stored[i] = values != null && i < values.length ? variable.encode(values[i]) : ArchiveVariable.MISSING;
+            }
+            byte[] column = ColumnCodec.encodeInts(stored, rows);
+            block.columnOffsets[v] = channel.position();
+            block.columnLengths[v] = column.length;
+            writeFully(ByteBuffer.wrap(column));
+        }
+
+        blocks.add(block);
+        rowCount += rows;
+        lastTime = time[rows - 1];
+    }
+
+    /**
+     * Writes the block index and moves the file into place
+     */
+    public void commit() throws IOException {
+        long footerOffset = channel.position();
+        int footerSize = 4 + blocks.size() * (4 + 8 + 8 + 8 + 4 + variables.size() * (8 + 4)) + 8 + 4;
+        ByteBuffer footer = ByteBuffer.allocate(footerSize).order(ByteOrder.LITTLE_ENDIAN);
+        footer.putInt(blocks.size());
+        for (BlockIndex block : blocks) {
+            footer.putInt(block.rows);
+            footer.putLong(block.firstTime);
+            footer.putLong(block.lastTime);
+            footer.putLong(block.timelineOffset);
+            footer.putInt(block.timelineLength);
+            for (int v = 0; v < variables.size(); v++) {
+                footer.putLong(block.columnOffsets[v]);
+                footer.putInt(block.columnLengths[v]);
+            }
+        }
+        footer.putLong(footerOffset);
+        footer.putInt(ColumnarArchive.MAGIC);
+        footer.flip();
+        writeFully(footer);
+        channel.force(true);
+        channel.close();
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            channel.close();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        List<byte[]> names = new ArrayList<>();
+        int size = 12;
+        for (ArchiveVariable variable : variables) {
+            byte[] name = variable.apiName().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            size += 2 + name.length;
+        }
+        ByteBuffer header = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(ColumnarArchive.MAGIC);
+        header.putInt(ColumnarArchive.VERSION);
+        header.putInt(variables.size());
+        for (byte[] name : names) {
+            header.putShort((short) name.length);
+            header.put(name);
+        }
+        header.flip();
+        writeFully(header);
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static final class BlockIndex {
+        final int rows;
+        final long firstTime;
+        final long lastTime;
+        long timelineOffset;
+        int timelineLength;
+        final long[] columnOffsets;
+        final int[] columnLengths;
+
+        BlockIndex(int rows, long firstTime, long lastTime, int columns) {
+            this.rows = rows;
+            this.firstTime = firstTime;
+            this.lastTime = lastTime;
+            this.columnOffsets = new long[columns];
+            this.columnLengths = new int[columns];
+        }
+    }
+}
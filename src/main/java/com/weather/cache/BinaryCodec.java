@@ -0,0 +1,253 @@
+package com.weather.cache;
+
+import com.weather.model.DailyWeather;
+import com.weather.model.HourlyWeather;
+import com.weather.model.Location;
+import com.weather.model.WeatherResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of forecasts and locations
+ *
+ * Columns are written as a length followed by their values. Evenly spaced
+ * timelines are stored as start and step, and double columns whose values all
+ * have at most two decimals (as the API sends them) are stored as int32
+ * hundredths. Both encodings round-trip exactly. Writing into a buffer that is
+ * too small throws BufferOverflowException.
+ */
+final class BinaryCodec {
+
+    private static final int NULL_LENGTH = -1;
+    private static final byte RAW = 0;
+    private static final byte COMPACT = 1;
+    private static final double CENTI = 100.0;
+
+    private BinaryCodec() {
+    }
+
+    static void writeForecast(ByteBuffer out, WeatherResponse forecast) {
+        writeString(out, forecast.timezone);
+        out.putInt(forecast.utc_offset_seconds);
+
+        DailyWeather daily = forecast.daily;
+        out.put((byte) (daily != null ? 1 : 0));
+        if (daily != null) {
+            writeTimes(out, daily.time);
+            writeDoubles(out, daily.temperature_2m_max);
+            writeDoubles(out, daily.temperature_2m_min);
+            writeInts(out, daily.weathercode);
+            writeDoubles(out, daily.precipitation_sum);
+            writeInts(out, daily.precipitation_probability_max);
+            writeDoubles(out, daily.wind_speed_10m_max);
+            writeInts(out, daily.wind_direction_10m_dominant);
+            writeDoubles(out, daily.uv_index_max);
+            writeTimes(out, daily.sunrise);
+            writeTimes(out, daily.sunset);
+        }
+
+        HourlyWeather hourly = forecast.hourly;
+        out.put((byte) (hourly != null ? 1 : 0));
+        if (hourly != null) {
+            writeTimes(out, hourly.time);
+            writeDoubles(out, hourly.temperature_2m);
+            writeDoubles(out, hourly.apparent_temperature);
+            writeInts(out, hourly.weathercode);
+            writeInts(out, hourly.precipitation_probability);
+            writeInts(out, hourly.relative_humidity_2m);
+            writeDoubles(out, hourly.wind_speed_10m);
+        }
+    }
+
+    static WeatherResponse readForecast(ByteBuffer in) {
+        WeatherResponse forecast = new WeatherResponse();
+        forecast.timezone = readString(in);
+        forecast.utc_offset_seconds = in.getInt();
+
+        if (in.get() != 0) {
+            DailyWeather daily = new DailyWeather();
+            daily.time = readTimes(in);
+            daily.temperature_2m_max = readDoubles(in);
+            daily.temperature_2m_min = readDoubles(in);
+            daily.weathercode = readInts(in);
+            daily.precipitation_sum = readDoubles(in);
+            daily.precipitation_probability_max = readInts(in);
+            daily.wind_speed_10m_max = readDoubles(in);
+            daily.wind_direction_10m_dominant = readInts(in);
+            daily.uv_index_max = readDoubles(in);
+            daily.sunrise = readTimes(in);
+            daily.sunset = readTimes(in);
+            forecast.daily = daily;
+        }
+
+        if (in.get() != 0) {
+            HourlyWeather hourly = new HourlyWeather();
+            hourly.time = readTimes(in);
+            hourly.temperature_2m = readDoubles(in);
+            hourly.apparent_temperature = readDoubles(in);
+            hourly.weathercode = readInts(in);
+            hourly.precipitation_probability = readInts(in);
+            hourly.relative_humidity_2m = readInts(in);
+            hourly.wind_speed_10m = readDoubles(in);
+            forecast.hourly = hourly;
+        }
+        return forecast;
+    }
+
+    static void writeLocation(ByteBuffer out, Location location) {
+        out.putDouble(location.getLatitude());
+        out.putDouble(location.getLongitude());
+        writeString(out, location.getCity());
+        writeString(out, location.getRegion());
+        writeString(out, location.getCountry());
+    }
+
+    static Location readLocation(ByteBuffer in) {
+        double latitude = in.getDouble();
+        double longitude = in.getDouble();
+        return new Location(latitude, longitude, readString(in), readString(in), readString(in));
+    }
+
+    static void writeString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.putInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length);
+        out.put(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static void writeTimes(ByteBuffer out, long[] values) {
+        if (values == null) {
+            out.putInt(NULL_LENGTH);
+            return;
+        }
+        out.putInt(values.length);
+        if (isEvenlySpaced(values)) {
+            out.put(COMPACT);
+            out.putLong(values[0]);
+            out.putLong(values[1] - values[0]);
+        } else {
+            out.put(RAW);
+            for (long value : values) {
+                out.putLong(value);
+            }
+        }
+    }
+
+    private static long[] readTimes(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        long[] values = new long[length];
+        if (in.get() == COMPACT) {
+            long start = in.getLong();
+            long step = in.getLong();
+            for (int i = 0; i < length; i++) {
+                values[i] = start + step * i;
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                values[i] = in.getLong();
+            }
+        }
+        return values;
+    }
+
+    private static boolean isEvenlySpaced(long[] values) {
+        if (values.length < 2) {
+            return false;
+        }
+        long step = values[1] - values[0];
+        for (int i = 2; i < values.length; i++) {
+            if (values[i] - values[i - 1] != step) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeDoubles(ByteBuffer out, double[] values) {
+        if (values == null) {
+            out.putInt(NULL_LENGTH);
+            return;
+        }
+        out.putInt(values.length);
+        if (hasCentiPrecision(values)) {
+            out.put(COMPACT);
+            for (double value : values) {
+                out.putInt((int) Math.round(value * CENTI));
+            }
+        } else {
+            out.put(RAW);
+            for (double value : values) {
+                out.putDouble(value);
+            }
+        }
+    }
+
+    private static double[] readDoubles(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        double[] values = new double[length];
+        if (in.get() == COMPACT) {
+            for (int i = 0; i < length; i++) {
+                // Dividing exact hundredths is correctly rounded, so this yields the original double
+                values[i] = in.getInt() / CENTI;
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                values[i] = in.getDouble();
+            }
+        }
+        return values;
+    }
+
+    private static boolean hasCentiPrecision(double[] values) {
+        for (double value : values) {
+            double scaled = value * CENTI;
+            if (Math.abs(scaled) > Integer.MAX_VALUE || Math.round(scaled) / CENTI != value) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeInts(ByteBuffer out, int[] values) {
+        if (values == null) {
+            out.putInt(NULL_LENGTH);
+            return;
+        }
+        out.putInt(values.length);
+        for (int value : values) {
+            out.putInt(value);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = in.getInt();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,25 @@
+package com.weather.cache;
+
+import java.nio.file.Path;
+
+/**
+ * Resolves the per-user directory for files cached between runs
+ */
+public final class CacheDirectory {
+
+    private static final String APP_DIR = "weather-app";
+
+    private CacheDirectory() {
+    }
+
+    /**
+     * Returns $XDG_CACHE_HOME/weather-app, falling back to ~/.cache/weather-app
+     */
+    public static Path resolve() {
+        String xdgCache = System.getenv("XDG_CACHE_HOME");
+        if (xdgCache != null && !xdgCache.isBlank()) {
+            return Path.of(xdgCache, APP_DIR);
+        }
+        return Path.of(System.getProperty("user.home"), ".cache", APP_DIR);
+    }
+}
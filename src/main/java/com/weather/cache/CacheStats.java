@@ -0,0 +1,55 @@
+package com.weather.cache;
+
+import java.util.Locale;
+
+/**
+ * Immutable snapshot of cache counters
+ */
+public final class CacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long rejections;
+
+    public CacheStats(long hits, long misses, long evictions) {
+        this(hits, misses, evictions, 0);
+    }
+
+    /**
+     * @param rejections Forecasts the cache declined to store, which are not evictions
+     */
+    public CacheStats(long hits, long misses, long evictions, long rejections) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.rejections = rejections;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getRejections() {
+        return rejections;
+    }
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "hits=%d misses=%d evictions=%d rejections=%d hitRate=%.2f", 
+            hits, misses, evictions, rejections, getHitRate());
+    }
+}
@@ -0,0 +1,43 @@
+package com.weather.cache;
+
+import com.weather.model.WeatherResponse;
+
+/**
+ * Cache of weather forecasts keyed on coordinates, units and requested variables
+ */
+public interface ForecastCache {
+
+    /**
+     * Cache that never stores anything, every lookup is a miss
+     */
+    ForecastCache NONE = new ForecastCache() {
+        @Override
+        public WeatherResponse get(ForecastKey key) {
+            return null;
+        }
+
+        @Override
+        public void put(ForecastKey key, WeatherResponse forecast) {
+        }
+
+        @Override
+        public CacheStats stats() {
+            return new CacheStats(0, 0, 0);
+        }
+    };
+
+    /**
+     * Returns the cached forecast for the key, or null if absent or expired
+     */
+    WeatherResponse get(ForecastKey key);
+
+    /**
+     * Offers a freshly fetched forecast to the cache
+     */
+    void put(ForecastKey key, WeatherResponse forecast);
+
+    /**
+     * Returns a snapshot of the hit, miss and eviction counters
+     */
+    CacheStats stats();
+}
@@ -0,0 +1,56 @@
+package com.weather.cache;
+
+import com.weather.model.Location;
+
+import java.util.Objects;
+
+/**
+ * Identifies a forecast request by its coordinates, units and requested variables
+ */
+public final class ForecastKey {
+
+    private final long latitudeMicros;
+    private final long longitudeMicros;
+    private final String units;
+    private final String variables;
+
+    public ForecastKey(double latitude, double longitude, String units, String variables) {
+        // Coordinates are sent with six decimals, so that is also the key resolution
+        this.latitudeMicros = Math.round(latitude * 1_000_000);
+        this.longitudeMicros = Math.round(longitude * 1_000_000);
+        this.units = units;
+        this.variables = variables;
+    }
+
+    public static ForecastKey of(Location location, String units, String variables) {
+        return new ForecastKey(location.getLatitude(), location.getLongitude(), units, variables);
+    }
+
+    /**
+     * Returns a stable textual form of the key, used to address entries outside this JVM
+     */
+    public String id() {
+        return latitudeMicros + "," + longitudeMicros + "|" + units + "|" + variables;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ForecastKey)) return false;
+        ForecastKey other = (ForecastKey) o;
+        return latitudeMicros == other.latitudeMicros
+            && longitudeMicros == other.longitudeMicros
+            && units.equals(other.units)
+            && variables.equals(other.variables);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(latitudeMicros, longitudeMicros, units, variables);
+    }
+
+    @Override
+    public String toString() {
+        return latitudeMicros / 1e6 + "," + longitudeMicros / 1e6 + " [" + units + "]";
+    }
+}
@@ -0,0 +1,256 @@
+package com.weather.cache;
+
+import com.weather.model.LocationResult;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Persistent local index of geocoding results
+ *
+ * Every geocoding response is recorded under its normalized query, keeping the
+ * API's ranking, and every returned place can be found by a prefix of its
+ * normalized name. The index is an append-only binary file that is read
+ * lazily on the first lookup; it holds only queries this user has made, so
+ * reading it costs far less than the request it saves. The sorted name index
+ * for prefix lookups is built only when one is first made. If the file cannot
+ * be read or written the index keeps working in memory only.
+ */
+public class GeocodingIndex {
+
+    private static final int MAGIC = 0x57474958; // "WGIX"
+    private static final int VERSION = 1;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Path file;
+    private final Map<String, List<LocationResult>> queries = new HashMap<>();
+    private TreeMap<String, List<LocationResult>> names;
+    private final Map<String, String> stringPool = new HashMap<>();
+
+    private boolean loaded;
+    private boolean discardExisting;
+    private DataOutputStream out;
+
+    public GeocodingIndex(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Normalizes a place query: strips diacritics, lowercases and collapses whitespace
+     */
+    public static String normalize(String query) {
+        String decomposed = Normalizer.normalize(query, Normalizer.Form.NFD);
+        String stripped = DIACRITICS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Returns the results previously recorded for this query, best match first, or null
+     */
+    public synchronized List<LocationResult> lookup(String query) {
+        ensureLoaded();
+        List<LocationResult> results = queries.get(normalize(query));
+        return results != null ? Collections.unmodifiableList(results) : null;
+    }
+
+    /**
+     * Returns every known place whose normalized name starts with the given prefix
+     */
+    public synchronized List<LocationResult> findByPrefix(String prefix) {
+        ensureLoaded();
+        if (names == null) {
+            names = new TreeMap<>();
+            for (List<LocationResult> results : queries.values()) {
+                indexNames(results);
+            }
+        }
+        String key = normalize(prefix);
+        List<LocationResult> matches = new ArrayList<>();
+        for (List<LocationResult> places : names.subMap(key, true, key + Character.MAX_VALUE, false).values()) {
+            matches.addAll(places);
+        }
+        return matches;
+    }
+
+    /**
+     * Records the results of a geocoding request and appends them to the index file
+     */
+    public synchronized void record(String query, List<LocationResult> results) {
+        ensureLoaded();
+        String key = normalize(query);
+        List<LocationResult> interned = new ArrayList<>(results.size());
+        for (LocationResult result : results) {
+            interned.add(intern(result));
+        }
+        add(key, interned);
+        append(key, interned);
+    }
+
+    /**
+     * Returns the number of queries recorded
+     */
+    public synchronized int size() {
+        ensureLoaded();
+        return queries.size();
+    }
+
+    private void add(String key, List<LocationResult> results) {
+        queries.put(key, results);
+        if (names != null) {
+            indexNames(results);
+        }
+    }
+
+    private void indexNames(List<LocationResult> results) {
+        for (LocationResult result : results) {
+            List<LocationResult> places = names.computeIfAbsent(normalize(result.name), k -> new ArrayList<>(1));
+            if (!containsPlace(places, result)) {
+                places.add(result);
+            }
+        }
+    }
+
+    private static boolean containsPlace(List<LocationResult> places, LocationResult result) {
+        for (LocationResult place : places) {
+            if (place.latitude == result.latitude && place.longitude == result.longitude) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private LocationResult intern(LocationResult result) {
+        LocationResult copy = new LocationResult();
+        copy.name = pooled(result.name);
+        copy.latitude = result.latitude;
+        copy.longitude = result.longitude;
+        copy.admin1 = pooled(result.admin1);
+        copy.country = pooled(result.country);
+        return copy;
+    }
+
+    private String pooled(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = stringPool.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                discardExisting = true;
+                return;
+            }
+            while (true) {
+                // Only the end of the file between records is a clean end; anywhere else it is a truncated tail
+                in.mark(1);
+                if (in.read() < 0) {
+                    break;
+                }
+                in.reset();
+                add(in.readUTF(), readResults(in));
+            }
+        } catch (IOException e) {
+            // A truncated tail from an interrupted write is dropped and the file rewritten on next append
+            discardExisting = true;
+        }
+    }
+
+    private List<LocationResult> readResults(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        List<LocationResult> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocationResult result = new LocationResult();
+            result.name = pooled(in.readUTF());
+            result.latitude = in.readDouble();
+            result.longitude = in.readDouble();
+            result.admin1 = pooled(readNullableUTF(in));
+            result.country = pooled(readNullableUTF(in));
+            results.add(result);
+        }
+        return results;
+    }
+
+    private void append(String key, List<LocationResult> results) {
+        try {
+            if (out == null) {
+                out = openForAppend();
+                if (discardExisting) {
+                    // Rewrite everything still held in memory, which already includes this record
+                    for (Map.Entry<String, List<LocationResult>> query : queries.entrySet()) {
+                        writeRecord(query.getKey(), query.getValue());
+                    }
+                    discardExisting = false;
+                    out.flush();
+                    return;
+                }
+            }
+            writeRecord(key, results);
+            out.flush();
+        } catch (IOException e) {
+            // Persisting is best effort; the in-memory index already has the results
+        }
+    }
+
+    private void writeRecord(String key, List<LocationResult> results) throws IOException {
+        out.writeUTF(key);
+        out.writeShort(results.size());
+        for (LocationResult result : results) {
+            out.writeUTF(result.name != null ? result.name : "");
+            out.writeDouble(result.latitude);
+            out.writeDouble(result.longitude);
+            writeNullableUTF(out, result.admin1);
+            writeNullableUTF(out, result.country);
+        }
+    }
+
+    private DataOutputStream openForAppend() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        boolean isNew = discardExisting || !Files.exists(file) || Files.size(file) == 0;
+        OutputStream stream = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            discardExisting ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND);
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(stream));
+        if (isNew) {
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+        }
+        return data;
+    }
+
+    private static void writeNullableUTF(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableUTF(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.weather.cache;
+
+import com.weather.model.Location;
+
+import java.time.Duration;
+
+/**
+ * Cache of resolved locations keyed on the lookup that produced them
+ */
+public interface LocationCache {
+
+    /**
+     * Cache that never stores anything, every lookup is a miss
+     */
+    LocationCache NONE = new LocationCache() {
+        @Override
+        public Location getLocation(String key) {
+            return null;
+        }
+
+        @Override
+        public void putLocation(String key, Location location, Duration ttl) {
+        }
+    };
+
+    /**
+     * Returns the cached location for the key, or null if absent or expired
+     */
+    Location getLocation(String key);
+
+    /**
+     * Offers a freshly resolved location to the cache for at most the given time
+     */
+    void putLocation(String key, Location location, Duration ttl);
+}
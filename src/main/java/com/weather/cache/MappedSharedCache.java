@@ -0,0 +1,381 @@
+package com.weather.cache;
+
+import com.weather.model.Location;
+import com.weather.model.WeatherResponse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Forecast and location cache shared by every process on the host
+ *
+ * The cache is a fixed-size file mapped into memory. It holds a small header
+ * followed by fixed-size slots; a key hashes to a group of adjacent slots.
+ * Each slot starts with a sequence number that is odd while the slot is being
+ * written, so readers never lock: they copy the slot and retry if the
+ * sequence changed underneath them. Writers take an exclusive file lock on
+ * the slot area, so processes never write concurrently. Entries are stored in
+ * BinaryCodec's compact encoding, so a hit costs neither a request nor JSON
+ * parsing.
+ *
+ * A file that is not a readable cache, e.g. left behind by an older version
+ * or cut short, is reset to an empty cache, and an entry that fails to
+ * decode is treated as a miss.
+ *
+ * Slot layout: seq (8) | expiresAt millis (8) | key hash (8) | key length (4)
+ * | value length (4) | key bytes | value bytes
+ */
+public class MappedSharedCache implements ForecastCache, LocationCache, Closeable {
+
+    private static final int MAGIC = 0x57534843; // "WSHC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_HEADER_SIZE = 32;
+    private static final int SEQ_OFFSET = 0;
+    private static final int EXPIRES_OFFSET = 8;
+    private static final int HASH_OFFSET = 16;
+    private static final int KEY_LENGTH_OFFSET = 24;
+    private static final int VALUE_LENGTH_OFFSET = 28;
+    private static final int PROBES = 4;
+    private static final int READ_ATTEMPTS = 4;
+    private static final long MODEL_UPDATE_INTERVAL_MILLIS = Duration.ofHours(1).toMillis();
+
+    public static final int DEFAULT_SLOTS = 256;
+    public static final int DEFAULT_SLOT_SIZE = 16 * 1024;
+    public static final Duration DEFAULT_FORECAST_TTL = Duration.ofMinutes(30);
+
+    private static final VarHandle SEQ =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int slotCount;
+    private final int slotSize;
+    private final long forecastTtlMillis;
+    private final Clock clock;
+    private final ThreadLocal<ByteBuffer> scratch;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private MappedSharedCache(FileChannel channel, MappedByteBuffer map, int slotCount, int slotSize,
+            Duration forecastTtl, Clock clock) {
+        this.channel = channel;
+        this.map = map;
+        this.slotCount = slotCount;
+        this.slotSize = slotSize;
+        this.forecastTtlMillis = forecastTtl.toMillis();
+        this.clock = clock;
+        this.scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocate(slotSize - SLOT_HEADER_SIZE));
+    }
+
+    /**
+     * Opens or creates the cache file with the default layout
+     */
+    public static MappedSharedCache open(Path file) throws IOException {
+        return open(file, DEFAULT_SLOTS, DEFAULT_SLOT_SIZE, DEFAULT_FORECAST_TTL, Clock.systemUTC());
+    }
+
+    /**
+     * @param slotCount Number of slots; an existing file keeps the layout it was created with
+     * @param slotSize Bytes per slot, a multiple of 64; larger entries are not cached
+     * @param forecastTtl Maximum time a forecast is served from the cache
+     */
+    public static MappedSharedCache open(Path file, int slotCount, int slotSize, Duration forecastTtl,
+            Clock clock) throws IOException {
+        if (slotCount <= 0 || slotSize <= SLOT_HEADER_SIZE || slotSize % 64 != 0) {
+            throw new IllegalArgumentException("Invalid slot layout: " + slotCount + " x " + slotSize);
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            int[] layout = initialize(channel, slotCount, slotSize);
+            long size = HEADER_SIZE + (long) layout[0] * layout[1];
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            return new MappedSharedCache(channel, map, layout[0], layout[1], forecastTtl, clock);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the header of a new file, or reads the layout of an existing one
+     * An unreadable file is reset; no process can be using it, since none could open it.
+     */
+    private static int[] initialize(FileChannel channel, int slotCount, int slotSize) throws IOException {
+        FileLock lock = channel.lock(0, HEADER_SIZE, false);
+        try {
+            if (channel.size() > 0) {
+                int[] layout = readLayout(channel);
+                if (layout != null) {
+                    return layout;
+                }
+                channel.truncate(0);
+            }
+            // Extending the file leaves every slot zeroed, i.e. empty
+            long size = HEADER_SIZE + (long) slotCount * slotSize;
+            channel.write(ByteBuffer.allocate(1), size - 1);
+            ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(slotCount).putInt(slotSize).flip();
+            channel.write(header, 0);
+            return new int[] {slotCount, slotSize};
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Returns the slot count and size of an existing file, or null if it is not a complete cache file
+     */
+    private static int[] readLayout(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < 16 || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            return null;
+        }
+        int existingSlots = header.getInt();
+        int existingSlotSize = header.getInt();
+        if (existingSlots <= 0 || existingSlotSize <= SLOT_HEADER_SIZE || existingSlotSize % 64 != 0
+                || channel.size() < HEADER_SIZE + (long) existingSlots * existingSlotSize) {
+            return null;
+        }
+        return new int[] {existingSlots, existingSlotSize};
+    }
+
+    @Override
+    public WeatherResponse get(ForecastKey key) {
+        ByteBuffer value = read("F|" + key.id());
+        WeatherResponse forecast = value != null ? decode(value, BinaryCodec::readForecast) : null;
+        if (forecast == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return forecast;
+    }
+
+    @Override
+    public void put(ForecastKey key, WeatherResponse forecast) {
+        long now = clock.millis();
+        long nextModelUpdate = (now / MODEL_UPDATE_INTERVAL_MILLIS + 1) * MODEL_UPDATE_INTERVAL_MILLIS;
+        write("F|" + key.id(), Math.min(now + forecastTtlMillis, nextModelUpdate), forecast,
+            BinaryCodec::writeForecast);
+    }
+
+    @Override
+    public Location getLocation(String key) {
+        ByteBuffer value = read("L|" + key);
+        return value != null ? decode(value, BinaryCodec::readLocation) : null;
+    }
+
+    @Override
+    public void putLocation(String key, Location location, Duration ttl) {
+        write("L|" + key, clock.millis() + ttl.toMillis(), location, BinaryCodec::writeLocation);
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Decodes a stored value, or returns null if its bytes are damaged
+     */
+    private static <T> T decode(ByteBuffer value, Function<ByteBuffer, T> decoder) {
+        try {
+            return decoder.apply(value);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the value stored under the key, positioned at its first byte, or null
+     */
+    private ByteBuffer read(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(keyBytes);
+        int first = firstSlot(hash);
+        long now = clock.millis();
+        for (int probe = 0; probe < PROBES; probe++) {
+            int offset = slotOffset((first + probe) % slotCount);
+            for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+                long seq = (long) SEQ.getAcquire(map, offset + SEQ_OFFSET);
+                if ((seq & 1) != 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                if (seq == 0 || map.getLong(offset + HASH_OFFSET) != hash) {
+                    break;
+                }
+                long expiresAt = map.getLong(offset + EXPIRES_OFFSET);
+                int keyLength = map.getInt(offset + KEY_LENGTH_OFFSET);
+                int valueLength = map.getInt(offset + VALUE_LENGTH_OFFSET);
+                if (keyLength != keyBytes.length || valueLength < 0
+                        || keyLength + valueLength > slotSize - SLOT_HEADER_SIZE) {
+                    // Torn read of a slot being rewritten; the sequence check decides
+                    if ((long) SEQ.getAcquire(map, offset + SEQ_OFFSET) == seq) {
+                        break;
+                    }
+                    continue;
+                }
+                byte[] entry = new byte[keyLength + valueLength];
+                map.get(offset + SLOT_HEADER_SIZE, entry);
+                VarHandle.acquireFence();
+                if ((long) SEQ.getAcquire(map, offset + SEQ_OFFSET) != seq) {
+                    continue;
+                }
+                if (expiresAt <= now || !Arrays.equals(entry, 0, keyLength, keyBytes, 0, keyLength)) {
+                    break;
+                }
+                return ByteBuffer.wrap(entry, keyLength, valueLength).slice().order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Encodes the value and stores it in the key's slot group; entries too large for a slot are dropped
+     */
+    private <T> void write(String key, long expiresAt, T value, BiConsumer<ByteBuffer, T> encoder) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = scratch.get();
+        buffer.clear().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            buffer.put(keyBytes);
+            encoder.accept(buffer, value);
+        } catch (BufferOverflowException e) {
+            return;
+        }
+        buffer.flip();
+        int valueLength = buffer.remaining() - keyBytes.length;
+        long hash = hash(keyBytes);
+
+        // FileLock only excludes other processes, threads of this one are serialized here
+        synchronized (this) {
+            try {
+                FileLock lock = channel.lock(HEADER_SIZE, (long) slotCount * slotSize, false);
+                try {
+                    writeSlot(hash, keyBytes, expiresAt, buffer, valueLength);
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                // Sharing is best effort; the caller already has the value
+            }
+        }
+    }
+
+    /**
+     * Stores the encoded entry, bracketed by an odd sequence number; only called under the write lock
+     */
+    private void writeSlot(long hash, byte[] keyBytes, long expiresAt, ByteBuffer buffer, int valueLength) {
+        int offset = chooseSlot(hash, keyBytes);
+        long seq = (long) SEQ.getVolatile(map, offset + SEQ_OFFSET);
+        // An odd sequence under the lock was left by a writer that died mid-write
+        long writing = (seq & 1) != 0 ? seq : seq + 1;
+        SEQ.setVolatile(map, offset + SEQ_OFFSET, writing);
+        map.putLong(offset + EXPIRES_OFFSET, expiresAt);
+        map.putLong(offset + HASH_OFFSET, hash);
+        map.putInt(offset + KEY_LENGTH_OFFSET, keyBytes.length);
+        map.putInt(offset + VALUE_LENGTH_OFFSET, valueLength);
+        map.put(offset + SLOT_HEADER_SIZE, buffer.array(), 0, buffer.limit());
+        SEQ.setRelease(map, offset + SEQ_OFFSET, writing + 1);
+    }
+
+    /**
+     * Picks the slot holding this key, else an empty or expired slot, else the one expiring first
+     * Only called while holding the write lock, so slots are stable
+     */
+    private int chooseSlot(long hash, byte[] keyBytes) {
+        int first = firstSlot(hash);
+        long now = clock.millis();
+        int free = -1;
+        int victim = -1;
+        long victimExpiry = Long.MAX_VALUE;
+        for (int probe = 0; probe < PROBES; probe++) {
+            int offset = slotOffset((first + probe) % slotCount);
+            long seq = (long) SEQ.getVolatile(map, offset + SEQ_OFFSET);
+            if (seq == 0 || (seq & 1) != 0) {
+                if (free < 0) {
+                    free = offset;
+                }
+                continue;
+            }
+            if (map.getLong(offset + HASH_OFFSET) == hash && sameKey(offset, keyBytes)) {
+                return offset;
+            }
+            long expiresAt = map.getLong(offset + EXPIRES_OFFSET);
+            if (expiresAt <= now) {
+                if (free < 0) {
+                    free = offset;
+                }
+            } else if (expiresAt < victimExpiry) {
+                victim = offset;
+                victimExpiry = expiresAt;
+            }
+        }
+        if (free >= 0) {
+            return free;
+        }
+        evictions.increment();
+        return victim;
+    }
+
+    private boolean sameKey(int offset, byte[] keyBytes) {
+        if (map.getInt(offset + KEY_LENGTH_OFFSET) != keyBytes.length) {
+            return false;
+        }
+        byte[] stored = new byte[keyBytes.length];
+        map.get(offset + SLOT_HEADER_SIZE, stored);
+        return Arrays.equals(stored, keyBytes);
+    }
+
+    private int firstSlot(long hash) {
+        return (int) Long.remainderUnsigned(hash, slotCount);
+    }
+
+    private int slotOffset(int slot) {
+        return HEADER_SIZE + slot * slotSize;
+    }
+
+    /**
+     * 64-bit FNV-1a, stable across processes and JVM versions
+     */
+    private static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,211 @@
+package com.weather.cache;
+
+import com.weather.model.DailyWeather;
+import com.weather.model.HourlyWeather;
+import com.weather.model.WeatherResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded in-memory forecast cache with TTL expiry and TinyLFU admission
+ *
+ * Entries are kept in recency order. When the cache is full, a new forecast
+ * only replaces the least recently used entry if the key has been requested
+ * more often recently, so a burst of one-off lookups cannot flush the
+ * frequently used locations. Only lookups count towards a key's frequency;
+ * storing the forecast fetched after a miss does not count again. Entries expire at the earlier of the configured
+ * TTL and the next hourly model update.
+ */
+public class TinyLfuForecastCache implements ForecastCache {
+
+    private static final long MODEL_UPDATE_INTERVAL_MILLIS = Duration.ofHours(1).toMillis();
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final FrequencySketch sketch;
+    private final LinkedHashMap<ForecastKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+
+    /**
+     * @param maxEntries Maximum number of cached forecasts
+     * @param maxBytes Maximum estimated heap size of cached forecasts, or 0 for no byte limit
+     * @param ttl Maximum time a forecast is served from the cache
+     */
+    public TinyLfuForecastCache(int maxEntries, long maxBytes, Duration ttl) {
+        this(maxEntries, maxBytes, ttl, Clock.systemUTC());
+    }
+
+    public TinyLfuForecastCache(int maxEntries, long maxBytes, Duration ttl, Clock clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        this.sketch = new FrequencySketch(maxEntries);
+    }
+
+    @Override
+    public synchronized WeatherResponse get(ForecastKey key) {
+        sketch.increment(key);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.expiresAt <= clock.millis()) {
+            remove(key, entry);
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.forecast;
+    }
+
+    @Override
+    public synchronized void put(ForecastKey key, WeatherResponse forecast) {
+        long now = clock.millis();
+        Entry candidate = new Entry(forecast, estimateBytes(forecast), expiryFor(now));
+
+        if (maxBytes > 0 && candidate.bytes > maxBytes) {
+            // Rejected before anything is touched, so an older forecast for the key stays
+            rejections++;
+            return;
+        }
+
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            totalBytes -= previous.bytes;
+        }
+
+        if (isOverBudget(entries.size(), totalBytes, candidate.bytes)) {
+            removeExpired(now);
+        }
+
+        // Choose every victim before evicting any, so a rejected key leaves the cache as it was
+        int candidateFrequency = sketch.frequency(key);
+        List<ForecastKey> victims = new ArrayList<>();
+        int remaining = entries.size();
+        long remainingBytes = totalBytes;
+        Iterator<Map.Entry<ForecastKey, Entry>> lru = entries.entrySet().iterator();
+        while (isOverBudget(remaining, remainingBytes, candidate.bytes) && lru.hasNext()) {
+            Map.Entry<ForecastKey, Entry> victim = lru.next();
+            if (previous == null && sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                // The resident entry is at least as popular, so the new key is not admitted
+                rejections++;
+                return;
+            }
+            victims.add(victim.getKey());
+            remaining--;
+            remainingBytes -= victim.getValue().bytes;
+        }
+        for (ForecastKey victim : victims) {
+            totalBytes -= entries.remove(victim).bytes;
+            evictions++;
+        }
+
+        entries.put(key, candidate);
+        totalBytes += candidate.bytes;
+    }
+
+    @Override
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, rejections);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long estimatedBytes() {
+        return totalBytes;
+    }
+
+    private boolean isOverBudget(int size, long bytes, long incomingBytes) {
+        return size + 1 > maxEntries
+            || (maxBytes > 0 && bytes + incomingBytes > maxBytes);
+    }
+
+    private void removeExpired(long now) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.expiresAt <= now) {
+                it.remove();
+                totalBytes -= entry.bytes;
+                evictions++;
+            }
+        }
+    }
+
+    private void remove(ForecastKey key, Entry entry) {
+        entries.remove(key);
+        totalBytes -= entry.bytes;
+    }
+
+    private long expiryFor(long now) {
+        long nextModelUpdate = (now / MODEL_UPDATE_INTERVAL_MILLIS + 1) * MODEL_UPDATE_INTERVAL_MILLIS;
+        return Math.min(now + ttlMillis, nextModelUpdate);
+    }
+
+    /**
+     * Rough heap footprint of a forecast, used for the byte budget
+     */
+    static long estimateBytes(WeatherResponse forecast) {
+        long bytes = 64;
+        DailyWeather daily = forecast.daily;
+        if (daily != null) {
+            bytes += seriesBytes(daily.time) + seriesBytes(daily.sunrise) + seriesBytes(daily.sunset)
+                + seriesBytes(daily.temperature_2m_max) + seriesBytes(daily.temperature_2m_min)
+                + seriesBytes(daily.weathercode) + seriesBytes(daily.precipitation_probability_max)
+                + seriesBytes(daily.wind_speed_10m_max) + seriesBytes(daily.wind_direction_10m_dominant)
+                + seriesBytes(daily.uv_index_max);
+        }
+        HourlyWeather hourly = forecast.hourly;
+        if (hourly != null) {
+            bytes += seriesBytes(hourly.time) + seriesBytes(hourly.temperature_2m)
+                + seriesBytes(hourly.apparent_temperature) + seriesBytes(hourly.weathercode)
+                + seriesBytes(hourly.precipitation_probability) + seriesBytes(hourly.relative_humidity_2m)
+                + seriesBytes(hourly.wind_speed_10m);
+        }
+        return bytes;
+    }
+
+    private static long seriesBytes(long[] series) {
+        return series == null ? 0 : 16 + 8L * series.length;
+    }
+
+    private static long seriesBytes(double[] series) {
+        return series == null ? 0 : 16 + 8L * series.length;
+    }
+
+    private static long seriesBytes(int[] series) {
+        return series == null ? 0 : 16 + 4L * series.length;
+    }
+
+    private static final class Entry {
+        final WeatherResponse forecast;
+        final long bytes;
+        final long expiresAt;
+
+        Entry(WeatherResponse forecast, long bytes, long expiresAt) {
+            this.forecast = forecast;
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,34 +1,124 @@
 package com.weather.cli;
 
+import com.weather.formatter.Units;
+import com.weather.output.OutputFormat;
+import com.weather.service.FanOut;
+import com.weather.transport.ReplayLatency;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Parses command-line arguments for the weather application
  */
 public class CommandLineParser {
-    
+
     private boolean useFahrenheit = false;
     private List<String> locationArgs = new ArrayList<>();
+    private List<String> extraLocations = new ArrayList<>();
+    private String locationsFile;
+    private String serveAddress;
+    private boolean sharedCache = false;
+    private String gazetteerDump;
+    private boolean fastStart = false;
+    private boolean timings = false;
+    private boolean watch = false;
+    private boolean hedge = false;
+    private OutputFormat outputFormat = OutputFormat.TEXT;
+    private String recordFile;
+    private String replayFile;
+    private ReplayLatency replayLatency = ReplayLatency.NONE;
+    private List<String> providerUrls = new ArrayList<>();
+    private List<String> models = new ArrayList<>();
+    private FanOut.Policy fanOutPolicy = FanOut.Policy.FASTEST;
+    private Units.WindSpeed windSpeedUnit = Units.WindSpeed.KMH;
+    private Units.Precipitation precipitationUnit = Units.Precipitation.MM;
 
     public CommandLineParser(String[] args) {
         parse(args);
     }
 
     private void parse(String[] args) {
-        for (String arg : args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
             if (arg.equals("-f") || arg.equals("--fahrenheit")) {
                 useFahrenheit = true;
+            } else if ((arg.equals("-l") || arg.equals("--location")) && i + 1 < args.length) {
+                extraLocations.add(args[++i]);
+            } else if (arg.equals("--file") && i + 1 < args.length) {
+                locationsFile = args[++i];
+            } else if (arg.equals("--serve") && i + 1 < args.length) {
+                serveAddress = args[++i];
+            } else if (arg.equals("--build-gazetteer") && i + 1 < args.length) {
+                gazetteerDump = args[++i];
+            } else if (arg.equals("--fast-start")) {
+                fastStart = true;
+            } else if (arg.equals("--watch")) {
+                watch = true;
+            } else if (arg.equals("--hedge")) {
+                hedge = true;
+            } else if (arg.equals("--timings")) {
+                timings = true;
+            } else if (arg.equals("--shared-cache")) {
+                sharedCache = true;
+            } else if (arg.equals("--output") && i + 1 < args.length) {
+                outputFormat = OutputFormat.parse(args[++i]);
+            } else if (arg.equals("--record") && i + 1 < args.length) {
+                recordFile = args[++i];
+            } else if (arg.equals("--replay") && i + 1 < args.length) {
+                replayFile = args[++i];
+            } else if (arg.equals("--replay-latency") && i + 1 < args.length) {
+                replayLatency = ReplayLatency.parse(args[++i]);
+            } else if (arg.equals("--provider") && i + 1 < args.length) {
+                providerUrls.add(args[++i]);
+            } else if (arg.equals("--models") && i + 1 < args.length) {
+                for (String model : args[++i].split(",")) {
+                    if (!model.isBlank()) {
+                        models.add(model.trim());
+                    }
+                }
+            } else if (arg.equals("--fan-out") && i + 1 < args.length) {
+                fanOutPolicy = parseFanOutPolicy(args[++i]);
+            } else if (arg.equals("--wind") && i + 1 < args.length) {
+                windSpeedUnit = Units.WindSpeed.parse(args[++i]);
+            } else if (arg.equals("--precip") && i + 1 < args.length) {
+                precipitationUnit = Units.Precipitation.parse(args[++i]);
             } else if (!arg.startsWith("-")) {
                 locationArgs.add(arg);
             }
         }
+        if (watch && hasMultipleLocations()) {
+            throw new IllegalArgumentException("--watch shows a single location");
+        }
+        if (watch && outputFormat != OutputFormat.TEXT) {
+            throw new IllegalArgumentException("--watch shows the text report only");
+        }
+        if (recordFile != null && replayFile != null) {
+            throw new IllegalArgumentException("--record and --replay cannot be combined");
+        }
+    }
+
+    private static FanOut.Policy parseFanOutPolicy(String value) {
+        try {
+            return FanOut.Policy.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown fan-out policy: " + value + " (use fastest or ensemble)");
+        }
     }
 
     public boolean isUseFahrenheit() {
         return useFahrenheit;
     }
 
+    /**
+     * Returns the display units chosen with -f, --wind and --precip
+     */
+    public Units getUnits() {
+        Units.Temperature temperature = useFahrenheit ? Units.Temperature.FAHRENHEIT : Units.Temperature.CELSIUS;
+        return new Units(temperature, windSpeedUnit, precipitationUnit);
+    }
+
     public boolean hasLocationArgs() {
         return !locationArgs.isEmpty();
     }
@@ -36,5 +126,130 @@ public class CommandLineParser {
     public String getLocationQuery() {
         return String.join(" ", locationArgs);
     }
-}
 
+    /**
+     * Returns true when more than the single positional location was requested
+     */
+    public boolean hasMultipleLocations() {
+        return !extraLocations.isEmpty() || locationsFile != null;
+    }
+
+    /**
+     * Returns every location query given on the command line, in order:
+     * the positional query (if any) followed by each -l/--location value
+     */
+    public List<String> getLocationQueries() {
+        List<String> queries = new ArrayList<>();
+        if (hasLocationArgs()) {
+            queries.add(getLocationQuery());
+        }
+        queries.addAll(extraLocations);
+        return queries;
+    }
+
+    /**
+     * Returns the path of a file with one location query per line, or null
+     */
+    public String getLocationsFile() {
+        return locationsFile;
+    }
+
+    /**
+     * Returns true when forecasts and locations should be shared with other processes via the cache file
+     */
+    public boolean isSharedCache() {
+        return sharedCache;
+    }
+
+    /**
+     * Returns true when responses should be decoded with the hand-written model deserializers
+     */
+    public boolean isFastStart() {
+        return fastStart;
+    }
+
+    /**
+     * Returns true when the forecast should stay on screen and refresh itself
+     */
+    public boolean isWatch() {
+        return watch;
+    }
+
+    /**
+     * Returns the format chosen with --output, TEXT unless given
+     */
+    public OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    /**
+     * Returns the file to record every HTTP exchange into, or null
+     */
+    public String getRecordFile() {
+        return recordFile;
+    }
+
+    /**
+     * Returns the recording to answer HTTP requests from instead of the network, or null
+     */
+    public String getReplayFile() {
+        return replayFile;
+    }
+
+    /**
+     * Returns the delay added to replayed responses, none unless given with --replay-latency
+     */
+    public ReplayLatency getReplayLatency() {
+        return replayLatency;
+    }
+
+    /**
+     * Returns the forecast endpoints given with --provider, empty for the public API alone
+     * "open-meteo" stands for the public API, to combine it with other endpoints.
+     */
+    public List<String> getProviderUrls() {
+        return providerUrls;
+    }
+
+    /**
+     * Returns the weather models given with --models, empty for each endpoint's best match
+     */
+    public List<String> getModels() {
+        return models;
+    }
+
+    /**
+     * Returns how answers of several providers are combined, FASTEST unless given with --fan-out
+     */
+    public FanOut.Policy getFanOutPolicy() {
+        return fanOutPolicy;
+    }
+
+    /**
+     * Returns true when slow forecast requests should be sent again, see ResiliencePolicy
+     */
+    public boolean isHedge() {
+        return hedge;
+    }
+
+    /**
+     * Returns true when a per-phase timing report should be printed to stderr on exit
+     */
+    public boolean isTimings() {
+        return timings;
+    }
+
+    /**
+     * Returns the GeoNames dump to build the offline gazetteer from, or null
+     */
+    public String getGazetteerDump() {
+        return gazetteerDump;
+    }
+
+    /**
+     * Returns the [host]:port to serve HTTP requests on, or null for a one-shot run
+     */
+    public String getServeAddress() {
+        return serveAddress;
+    }
+}
@@ -3,25 +3,62 @@ package com.weather.display;
 import com.weather.formatter.WeatherFormatter;
 import com.weather.model.Location;
 import com.weather.model.WeatherResponse;
+import com.weather.output.ForecastWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Displays weather information to the console
  * This class handles I/O operations (System.out)
+ *
+ * The formatter writes into a buffered UTF-8 writer that is flushed once per
+ * report, so no intermediate String is built for the whole report.
  */
-public class ConsoleWeatherDisplay {
-    
+public class ConsoleWeatherDisplay implements ForecastWriter {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
     private final WeatherFormatter formatter;
+    private final Writer out;
 
     public ConsoleWeatherDisplay(WeatherFormatter formatter) {
+        this(formatter, new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), BUFFER_SIZE));
+    }
+
+    public ConsoleWeatherDisplay(WeatherFormatter formatter, Writer out) {
         this.formatter = formatter;
+        this.out = out;
     }
 
     /**
      * Displays weather forecast to console
      */
     public void display(Location location, WeatherResponse weatherData) {
-        String formattedWeather = formatter.formatWeather(location, weatherData);
-        System.out.print(formattedWeather);
+        try {
+            formatter.formatWeather(location, weatherData, out);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
-}
 
+    @Override
+    public void write(Location location, WeatherResponse weatherData) throws IOException {
+        formatter.formatWeather(location, weatherData, out);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,74 @@
+package com.weather.display;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Keeps a full-screen text report on an ANSI terminal, redrawing only changed lines
+ *
+ * The first frame clears the screen. After that each line that differs from
+ * the previous frame is rewritten in place (cursor to row, write, erase to end
+ * of line) and rows the new frame no longer uses are erased, so a report
+ * where only the clock moved costs one line of output.
+ */
+public class TerminalScreen {
+
+    private static final String ESC = "\u001b[";
+
+    private final Writer out;
+    private String[] lines;
+
+    public TerminalScreen(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Shows the frame, writing only the lines that changed since the last one
+     *
+     * @return Number of lines written
+     */
+    public int show(String frame) {
+        String[] next = frame.split("\n", -1);
+        if (next.length > 0 && next[next.length - 1].isEmpty()) {
+            next = Arrays.copyOf(next, next.length - 1);
+        }
+        try {
+            int written = 0;
+            if (lines == null) {
+                out.write(ESC + "?25l" + ESC + "H" + ESC + "2J");
+            }
+            for (int row = 0; row < next.length; row++) {
+                if (lines != null && row < lines.length && lines[row].equals(next[row])) {
+                    continue;
+                }
+                out.write(ESC + (row + 1) + ";1H");
+                out.write(next[row]);
+                out.write(ESC + "K");
+                written++;
+            }
+            if (lines != null && next.length < lines.length) {
+                out.write(ESC + (next.length + 1) + ";1H" + ESC + "J");
+            }
+            out.write(ESC + (next.length + 1) + ";1H");
+            out.flush();
+            lines = next;
+            return written;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Shows the cursor again, leaving the last frame on screen
+     */
+    public void close() {
+        try {
+            out.write(ESC + "?25h");
+            out.flush();
+        } catch (IOException e) {
+            // The terminal is gone
+        }
+    }
+}
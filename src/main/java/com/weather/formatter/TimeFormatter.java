@@ -10,8 +10,13 @@ public class TimeFormatter {
      */
     public static String format24To12Hour(String time24) {
         String[] parts = time24.split(":");
-        int hour = Integer.parseInt(parts[0]);
-        int minute = Integer.parseInt(parts[1]);
+        return format12Hour(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    /**
+     * Formats an hour (0-23) and minute as 12-hour time with AM/PM
+     */
+    public static String format12Hour(int hour, int minute) {
         String period = hour >= 12 ? "PM" : "AM";
         int hour12 = hour % 12;
         if (hour12 == 0) hour12 = 12;
@@ -0,0 +1,243 @@
+package com.weather.formatter;
+
+import com.weather.model.DailyWeather;
+import com.weather.model.HourlyWeather;
+import com.weather.model.WeatherResponse;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Display units for temperature, wind speed and precipitation
+ *
+ * Forecasts are always fetched in metric units (°C, km/h, mm), so one upstream
+ * response serves every unit choice. Conversion happens locally when a value
+ * is rendered; each conversion is a single multiply-add.
+ */
+public final class Units {
+
+    /**
+     * Temperature units, converted from °C
+     */
+    public enum Temperature {
+        CELSIUS("°C", 1.0, 0.0),
+        FAHRENHEIT("°F", 1.8, 32.0);
+
+        private final String symbol;
+        private final double scale;
+        private final double offset;
+
+        Temperature(String symbol, double scale, double offset) {
+            this.symbol = symbol;
+            this.scale = scale;
+            this.offset = offset;
+        }
+
+        public String symbol() {
+            return symbol;
+        }
+
+        public double fromCelsius(double celsius) {
+            return celsius * scale + offset;
+        }
+
+        public static Temperature parse(String name) {
+            switch (name.toLowerCase(Locale.ROOT)) {
+                case "c": case "celsius": return CELSIUS;
+                case "f": case "fahrenheit": return FAHRENHEIT;
+                default: throw new IllegalArgumentException("Unknown temperature unit: " + name);
+            }
+        }
+    }
+
+    /**
+     * Wind speed units, converted from km/h
+     */
+    public enum WindSpeed {
+        KMH("km/h", 1.0),
+        MPH("mph", 1 / 1.609344),
+        KNOTS("kn", 1 / 1.852),
+        MS("m/s", 1 / 3.6);
+
+        private final String symbol;
+        private final double scale;
+
+        WindSpeed(String symbol, double scale) {
+            this.symbol = symbol;
+            this.scale = scale;
+        }
+
+        public String symbol() {
+            return symbol;
+        }
+
+        public double fromKmh(double kmh) {
+            return kmh * scale;
+        }
+
+        public static WindSpeed parse(String name) {
+            switch (name.toLowerCase(Locale.ROOT)) {
+                case "kmh": case "km/h": return KMH;
+                case "mph": return MPH;
+                case "kn": case "kt": case "knots": return KNOTS;
+                case "ms": case "m/s": return MS;
+                default: throw new IllegalArgumentException("Unknown wind speed unit: " + name);
+            }
+        }
+    }
+
+    /**
+     * Precipitation units, converted from millimetres
+     */
+    public enum Precipitation {
+        MM("mm", 1.0, 1),
+        INCH("in", 1 / 25.4, 2);
+
+        private final String symbol;
+        private final double scale;
+        private final int decimals;
+
+        Precipitation(String symbol, double scale, int decimals) {
+            this.symbol = symbol;
+            this.scale = scale;
+            this.decimals = decimals;
+        }
+
+        public String symbol() {
+            return symbol;
+        }
+
+        /**
+         * Number of decimals shown; inches need more resolution than millimetres
+         */
+        public int decimals() {
+            return decimals;
+        }
+
+        public double fromMm(double mm) {
+            return mm * scale;
+        }
+
+        public static Precipitation parse(String name) {
+            switch (name.toLowerCase(Locale.ROOT)) {
+                case "mm": return MM;
+                case "in": case "inch": case "inches": return INCH;
+                default: throw new IllegalArgumentException("Unknown precipitation unit: " + name);
+            }
+        }
+    }
+
+    public static final Units METRIC = new Units(Temperature.CELSIUS, WindSpeed.KMH, Precipitation.MM);
+    public static final Units IMPERIAL = new Units(Temperature.FAHRENHEIT, WindSpeed.MPH, Precipitation.INCH);
+
+    public final Temperature temperature;
+    public final WindSpeed windSpeed;
+    public final Precipitation precipitation;
+
+    public Units(Temperature temperature, WindSpeed windSpeed, Precipitation precipitation) {
+        this.temperature = temperature;
+        this.windSpeed = windSpeed;
+        this.precipitation = precipitation;
+    }
+
+    public boolean isMetric() {
+        return equals(METRIC);
+    }
+
+    /**
+     * Returns a copy of the metric forecast with every measured value in these units
+     * The given response is left untouched, so cached forecasts can be converted safely
+     */
+    public WeatherResponse convert(WeatherResponse metric) {
+        if (isMetric()) {
+            return metric;
+        }
+        WeatherResponse converted = new WeatherResponse();
+        converted.timezone = metric.timezone;
+        converted.utc_offset_seconds = metric.utc_offset_seconds;
+        converted.daily = metric.daily != null ? convert(metric.daily) : null;
+        converted.hourly = metric.hourly != null ? convert(metric.hourly) : null;
+        return converted;
+    }
+
+    private DailyWeather convert(DailyWeather metric) {
+        DailyWeather daily = new DailyWeather();
+        daily.time = metric.time;
+        daily.temperature_2m_max = temperatures(metric.temperature_2m_max);
+        daily.temperature_2m_min = temperatures(metric.temperature_2m_min);
+        daily.weathercode = metric.weathercode;
+        daily.precipitation_sum = precipitations(metric.precipitation_sum);
+        daily.precipitation_probability_max = metric.precipitation_probability_max;
+        daily.wind_speed_10m_max = windSpeeds(metric.wind_speed_10m_max);
+        daily.wind_direction_10m_dominant = metric.wind_direction_10m_dominant;
+        daily.uv_index_max = metric.uv_index_max;
+        daily.sunrise = metric.sunrise;
+        daily.sunset = metric.sunset;
+        return daily;
+    }
+
+    private HourlyWeather convert(HourlyWeather metric) {
+        HourlyWeather hourly = new HourlyWeather();
+        hourly.time = metric.time;
+        hourly.temperature_2m = temperatures(metric.temperature_2m);
+        hourly.apparent_temperature = temperatures(metric.apparent_temperature);
+        hourly.weathercode = metric.weathercode;
+        hourly.precipitation_probability = metric.precipitation_probability;
+        hourly.relative_humidity_2m = metric.relative_humidity_2m;
+        hourly.wind_speed_10m = windSpeeds(metric.wind_speed_10m);
+        return hourly;
+    }
+
+    private double[] temperatures(double[] celsius) {
+        if (celsius == null || temperature == Temperature.CELSIUS) {
+            return celsius;
+        }
+        double[] values = new double[celsius.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = temperature.fromCelsius(celsius[i]);
+        }
+        return values;
+    }
+
+    private double[] windSpeeds(double[] kmh) {
+        if (kmh == null || windSpeed == WindSpeed.KMH) {
+            return kmh;
+        }
+        double[] values = new double[kmh.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = windSpeed.fromKmh(kmh[i]);
+        }
+        return values;
+    }
+
+    private double[] precipitations(double[] mm) {
+        if (mm == null || precipitation == Precipitation.MM) {
+            return mm;
+        }
+        double[] values = new double[mm.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = precipitation.fromMm(mm[i]);
+        }
+        return values;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Units)) return false;
+        Units other = (Units) o;
+        return temperature == other.temperature
+            && windSpeed == other.windSpeed
+            && precipitation == other.precipitation;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(temperature, windSpeed, precipitation);
+    }
+
+    @Override
+    public String toString() {
+        return temperature.symbol() + ", " + windSpeed.symbol() + ", " + precipitation.symbol();
+    }
+}
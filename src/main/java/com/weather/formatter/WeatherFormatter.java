@@ -1,234 +1,383 @@
 package com.weather.formatter;
 
 import com.weather.model.DailyWeather;
+import com.weather.model.ForecastView;
 import com.weather.model.HourlyWeather;
 import com.weather.model.Location;
+import com.weather.model.MissingValues;
 import com.weather.model.WeatherResponse;
 import com.weather.mapper.UvIndexMapper;
 import com.weather.mapper.WeatherCodeMapper;
 import com.weather.mapper.WindDirectionMapper;
+import com.weather.timing.CountingAppendable;
+import com.weather.timing.FormatEvent;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Formats weather information into string output
  * This class is pure formatting logic - no I/O operations
+ *
+ * Reports are written straight into a caller-supplied Appendable. Numbers,
+ * temperatures, percentages and hour labels come from preformatted tables and
+ * columns are padded by hand, so rendering a report does not create a String
+ * per cell. Forecasts arrive in metric units and are converted to the display
+ * Units value by value while rendering. Values the API left out (see
+ * MissingValues) are shown as "--". The current time, which picks the hours
+ * shown, comes from the formatter's Clock.
  */
 public class WeatherFormatter {
-    
-    private static final DateTimeFormatter DATE_FORMATTER = 
-        DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final DateTimeFormatter FULL_DATE_FORMATTER = 
+
+    private static final DateTimeFormatter FULL_DATE_FORMATTER =
         DateTimeFormatter.ofPattern("EEEE, MMMM d, yyyy", Locale.ENGLISH);
-    private static final DateTimeFormatter HOUR_FORMATTER = 
-        DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
-    private static final DateTimeFormatter TIME_FORMATTER = 
+    private static final DateTimeFormatter TIME_FORMATTER =
         DateTimeFormatter.ofPattern("h:mm a", Locale.ENGLISH);
-    private static final DateTimeFormatter COMPACT_TIME_FORMATTER = 
-        DateTimeFormatter.ofPattern("ha", Locale.ENGLISH);
-    private static final DateTimeFormatter DAY_OF_WEEK_FORMATTER = 
+    private static final DateTimeFormatter DAY_OF_WEEK_FORMATTER =
         DateTimeFormatter.ofPattern("EEEE, MMMM d", Locale.ENGLISH);
-    
-    private final boolean useFahrenheit;
+
+    private static final String SEPARATOR =
+        "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n";
+    private static final int HOURS_SHOWN = 12;
+    private static final int COLUMN_WIDTH = 7;
+    private static final String MISSING = "--";
+
+    // Preformatted values for the ranges that occur in real forecasts
+    private static final int MIN_TABLE_VALUE = -100;
+    private static final int MAX_TABLE_VALUE = 400;
+    private static final String[] NUMBERS = new String[MAX_TABLE_VALUE - MIN_TABLE_VALUE + 1];
+    private static final String[] PERCENTAGES = new String[101];
+    private static final String[] HOUR_LABELS = new String[24];
+    private static final Map<String, ZoneId> ZONES = new ConcurrentHashMap<>();
+
+    static {
+        for (int i = 0; i < NUMBERS.length; i++) {
+            NUMBERS[i] = Integer.toString(i + MIN_TABLE_VALUE);
+        }
+        for (int i = 0; i < PERCENTAGES.length; i++) {
+            PERCENTAGES[i] = i + "%";
+        }
+        for (int hour = 0; hour < 24; hour++) {
+            int hour12 = hour % 12 == 0 ? 12 : hour % 12;
+            HOUR_LABELS[hour] = hour12 + (hour < 12 ? "AM" : "PM");
+        }
+    }
+
+    private final Units units;
+    private final Clock clock;
     private final String tempSymbol;
+    private final String windSuffix;
+    private final String[] temperatures;
 
     public WeatherFormatter(boolean useFahrenheit) {
-        this.useFahrenheit = useFahrenheit;
-        this.tempSymbol = useFahrenheit ? "°F" : "°C";
+        this(useFahrenheit
+            ? new Units(Units.Temperature.FAHRENHEIT, Units.WindSpeed.KMH, Units.Precipitation.MM)
+            : Units.METRIC);
+    }
+
+    public WeatherFormatter(Units units) {
+        this(units, Clock.systemDefaultZone());
+    }
+
+    public WeatherFormatter(Units units, Clock clock) {
+        this.units = units;
+        this.clock = clock;
+        this.tempSymbol = units.temperature.symbol();
+        this.windSuffix = " " + units.windSpeed.symbol() + " ";
+        this.temperatures = new String[NUMBERS.length];
+        for (int i = 0; i < temperatures.length; i++) {
+            temperatures[i] = NUMBERS[i] + tempSymbol;
+        }
+    }
+
+    public Units getUnits() {
+        return units;
     }
 
     /**
      * Formats complete weather forecast as a string
      */
     public String formatWeather(Location location, WeatherResponse weatherData) {
-        StringBuilder sb = new StringBuilder();
-        
-        sb.append(formatHeader(location));
-        sb.append(formatTodayWeather(weatherData.daily, weatherData.timezone));
-        sb.append(formatHourlyForecast(weatherData.hourly, weatherData.timezone));
-        sb.append(formatWeeklyForecast(weatherData.daily));
-        
+        StringBuilder sb = new StringBuilder(4096);
+        try {
+            formatWeather(location, weatherData, sb);
+        } catch (IOException e) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
         return sb.toString();
     }
 
-    private String formatHeader(Location location) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("╔═══════════════════════════════════════════════════════╗\n");
-        sb.append("║           WEATHER FORECAST                            ║\n");
-        sb.append("╚═══════════════════════════════════════════════════════╝\n");
-        sb.append("\n");
-        sb.append("📍 Location: ").append(location.getFormattedLocation()).append("\n");
-        sb.append("\n");
-        sb.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-        sb.append("\n");
-        return sb.toString();
+    /**
+     * Writes the complete weather forecast into the given output
+     */
+    public void formatWeather(Location location, WeatherResponse weatherData, Appendable out)
+            throws IOException {
+        FormatEvent event = new FormatEvent();
+        event.start();
+        CountingAppendable counter = event.isActive() ? new CountingAppendable(out) : null;
+        Appendable target = counter != null ? counter : out;
+        try {
+            ZoneId zoneId = zoneOf(weatherData.timezone);
+            appendHeader(location, target);
+            appendTodayWeather(weatherData.daily, zoneId, target);
+            appendHourlyForecast(weatherData.hourly, zoneId, target);
+            appendWeeklyForecast(weatherData.daily, zoneId, target);
+        } catch (IOException | RuntimeException e) {
+            event.failed = true;
+            throw e;
+        } finally {
+            if (counter != null) {
+                event.characters = counter.getCount();
+            }
+            event.finish();
+        }
+    }
+
+    /**
+     * Writes the report header with the location name
+     */
+    public void appendHeader(Location location, Appendable out) throws IOException {
+        out.append("╔═══════════════════════════════════════════════════════╗\n");
+        out.append("║           WEATHER FORECAST                            ║\n");
+        out.append("╚═══════════════════════════════════════════════════════╝\n");
+        out.append('\n');
+        out.append("📍 Location: ").append(location.getFormattedLocation()).append('\n');
+        out.append('\n');
+        out.append(SEPARATOR);
+        out.append('\n');
     }
 
-    private String formatTodayWeather(DailyWeather daily, String timezone) {
-        StringBuilder sb = new StringBuilder();
-        
-        double todayLow = daily.temperature_2m_min.get(0);
-        double todayHigh = daily.temperature_2m_max.get(0);
-        int todayCode = daily.weathercode.get(0);
-        String todayCondition = WeatherCodeMapper.getCondition(todayCode);
-        String todayEmoji = WeatherCodeMapper.getWeatherEmoji(todayCode);
-        
-        LocalDate today = LocalDate.parse(daily.time.get(0), DATE_FORMATTER);
-        String todayFormatted = today.format(FULL_DATE_FORMATTER);
-        
+    /**
+     * Writes today's summary from the first daily row
+     */
+    public void appendTodayWeather(DailyWeather daily, ZoneId zoneId, Appendable out) throws IOException {
+        int todayCode = daily.weathercode[0];
+        String todayFormatted = localDate(daily.time[0], zoneId).format(FULL_DATE_FORMATTER);
+
         // Get current time in location's timezone
-        ZoneId zoneId = ZoneId.of(timezone);
-        ZonedDateTime now = ZonedDateTime.now(zoneId);
-        String currentTime = now.format(TIME_FORMATTER);
-        
+        String currentTime = clock.instant().atZone(zoneId).format(TIME_FORMATTER);
+
         // Sunrise/Sunset
-        String sunrise = daily.sunrise.get(0).substring(11, 16); // Extract HH:MM
-        String sunset = daily.sunset.get(0).substring(11, 16);
-        
-        // Today's additional details
-        int precipProb = daily.precipitation_probability_max.get(0);
-        double windSpeed = daily.wind_speed_10m_max.get(0);
-        int windDir = daily.wind_direction_10m_dominant.get(0);
-        double uvIndex = daily.uv_index_max.get(0);
-        
-        sb.append("🗓️  TODAY (").append(todayFormatted).append(" - ").append(currentTime).append(")\n");
-        sb.append(String.format("    🌡️  Low: %.0f%s  |  High: %.0f%s%n", 
-            todayLow, tempSymbol, todayHigh, tempSymbol));
-        sb.append(String.format("    %s  %s", todayEmoji, todayCondition));
+        LocalTime sunrise = localTime(daily.sunrise[0], zoneId);
+        LocalTime sunset = localTime(daily.sunset[0], zoneId);
+
+        int precipProb = daily.precipitation_probability_max[0];
+        double uvIndex = daily.uv_index_max[0];
+
+        out.append("🗓️  TODAY (").append(todayFormatted).append(" - ").append(currentTime).append(")\n");
+        out.append("    🌡️  Low: ").append(temperature(daily.temperature_2m_min[0]))
+            .append("  |  High: ").append(temperature(daily.temperature_2m_max[0])).append('\n');
+        out.append("    ").append(WeatherCodeMapper.getWeatherEmoji(todayCode))
+            .append("  ").append(WeatherCodeMapper.getCondition(todayCode));
         if (precipProb > 0) {
-            sb.append(String.format(" (💧 %d%% chance)", precipProb));
-        }
-        sb.append("\n");
-        sb.append(String.format("    💨 Wind: %.0f km/h %s%n", 
-            windSpeed, WindDirectionMapper.getWindDirection(windDir)));
-        sb.append(String.format("    ☀️  UV Index: %.0f (%s)%n", 
-            uvIndex, UvIndexMapper.getUvLevel(uvIndex)));
-        sb.append(String.format("    🌅 Sunrise: %s  |  🌇 Sunset: %s%n", 
-            TimeFormatter.format24To12Hour(sunrise), 
-            TimeFormatter.format24To12Hour(sunset)));
-        sb.append("\n");
-        
-        return sb.toString();
+            out.append(" (💧 ").append(percentage(precipProb)).append(" chance");
+            appendPrecipitationAmount(daily, 0, out);
+            out.append(')');
+        }
+        out.append('\n');
+        out.append("    💨 Wind: ").append(number(units.windSpeed.fromKmh(daily.wind_speed_10m_max[0]))).append(windSuffix)
+            .append(WindDirectionMapper.getWindDirection(daily.wind_direction_10m_dominant[0])).append('\n');
+        out.append("    ☀️  UV Index: ").append(number(uvIndex));
+        if (!MissingValues.isMissing(uvIndex)) {
+            out.append(" (").append(UvIndexMapper.getUvLevel(uvIndex)).append(')');
+        }
+        out.append('\n');
+        out.append("    🌅 Sunrise: ").append(TimeFormatter.format12Hour(sunrise.getHour(), sunrise.getMinute()))
+            .append("  |  🌇 Sunset: ").append(TimeFormatter.format12Hour(sunset.getHour(), sunset.getMinute()))
+            .append('\n');
+        out.append('\n');
     }
 
-    private String formatHourlyForecast(HourlyWeather hourly, String timezone) {
-        StringBuilder sb = new StringBuilder();
-        
-        sb.append("⏰ HOURLY FORECAST (Next 12 hours)\n");
-        sb.append("\n");
-        
-        // Get current time in the location's timezone
-        ZoneId zoneId = ZoneId.of(timezone);
-        ZonedDateTime now = ZonedDateTime.now(zoneId);
-        
-        // Collect data for next 12 hours
-        String[] times = new String[12];
-        String[] emojis = new String[12];
-        String[] temps = new String[12];
-        String[] feelsLikes = new String[12];
-        String[] precips = new String[12];
-        String[] humidities = new String[12];
-        
-        int hourCount = 0;
-        for (int i = 0; i < hourly.time.size() && hourCount < 12; i++) {
-            LocalDateTime localHourTime = LocalDateTime.parse(hourly.time.get(i), HOUR_FORMATTER);
-            ZonedDateTime hourTime = localHourTime.atZone(zoneId);
-            
-            if (hourTime.isAfter(now) || hourTime.isEqual(now)) {
-                times[hourCount] = hourTime.format(COMPACT_TIME_FORMATTER);
-                emojis[hourCount] = WeatherCodeMapper.getWeatherEmoji(hourly.weathercode.get(i));
-                temps[hourCount] = String.format("%.0f%s", hourly.temperature_2m.get(i), tempSymbol);
-                feelsLikes[hourCount] = String.format("%.0f%s", hourly.apparent_temperature.get(i), tempSymbol);
-                precips[hourCount] = String.format("%d%%", hourly.precipitation_probability.get(i));
-                humidities[hourCount] = String.format("%d%%", hourly.relative_humidity_2m.get(i));
-                hourCount++;
+    /**
+     * Writes the next twelve hours as a table with one column per hour
+     */
+    public void appendHourlyForecast(HourlyWeather hourly, ZoneId zoneId, Appendable out) throws IOException {
+        out.append("⏰ HOURLY FORECAST (Next 12 hours)\n");
+        out.append('\n');
+
+        // Find the first hour that has not started yet
+        int first = ForecastView.lowerBound(hourly.time, clock.instant().getEpochSecond());
+        int end = Math.min(first + HOURS_SHOWN, hourly.size());
+
+        out.append("Time:   ");
+        ZoneRules rules = zoneId.getRules();
+        int offset = 0;
+        long offsetValidUntil = Long.MIN_VALUE;
+        for (int i = first; i < end; i++) {
+            long time = hourly.time[i];
+            if (time >= offsetValidUntil) {
+                // Re-resolve the offset only when crossing a DST transition
+                Instant instant = Instant.ofEpochSecond(time);
+                offset = rules.getOffset(instant).getTotalSeconds();
+                ZoneOffsetTransition next = rules.nextTransition(instant);
+                offsetValidUntil = next != null ? next.toEpochSecond() : Long.MAX_VALUE;
             }
+            appendPadded(out, HOUR_LABELS[(int) Math.floorMod(time + offset, 86_400L) / 3600]);
         }
-        
-        // Build horizontal display with fixed column width
-        int colWidth = 7;
-        
-        // Time row
-        sb.append("Time:   ");
-        for (int i = 0; i < hourCount; i++) {
-            sb.append(String.format("%" + colWidth + "s", times[i]));
-        }
-        sb.append("\n");
-        
-        // Weather emoji row
-        sb.append("Weather:");
-        for (int i = 0; i < hourCount; i++) {
-            sb.append(String.format("%" + colWidth + "s", emojis[i]));
-        }
-        sb.append("\n");
-        
-        // Temperature row
-        sb.append("Temp:   ");
-        for (int i = 0; i < hourCount; i++) {
-            sb.append(String.format("%" + colWidth + "s", temps[i]));
-        }
-        sb.append("\n");
-        
-        // Feels like row
-        sb.append("Feels:  ");
-        for (int i = 0; i < hourCount; i++) {
-            sb.append(String.format("%" + colWidth + "s", feelsLikes[i]));
-        }
-        sb.append("\n");
-        
-        // Precipitation row
-        sb.append("Precip: ");
-        for (int i = 0; i < hourCount; i++) {
-            sb.append(String.format("%" + colWidth + "s", precips[i]));
-        }
-        sb.append("\n");
-        
-        // Humidity row
-        sb.append("Humid:  ");
-        for (int i = 0; i < hourCount; i++) {
-            sb.append(String.format("%" + colWidth + "s", humidities[i]));
-        }
-        sb.append("\n");
-        
-        sb.append("\n");
-        sb.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
-        sb.append("\n");
-        
-        return sb.toString();
+        out.append('\n');
+
+        out.append("Weather:");
+        for (int i = first; i < end; i++) {
+            appendPadded(out, WeatherCodeMapper.getWeatherEmoji(hourly.weathercode[i]));
+        }
+        out.append('\n');
+
+        out.append("Temp:   ");
+        for (int i = first; i < end; i++) {
+            appendPadded(out, temperature(hourly.temperature_2m[i]));
+        }
+        out.append('\n');
+
+        out.append("Feels:  ");
+        for (int i = first; i < end; i++) {
+            appendPadded(out, temperature(hourly.apparent_temperature[i]));
+        }
+        out.append('\n');
+
+        out.append("Precip: ");
+        for (int i = first; i < end; i++) {
+            appendPadded(out, percentage(hourly.precipitation_probability[i]));
+        }
+        out.append('\n');
+
+        out.append("Humid:  ");
+        for (int i = first; i < end; i++) {
+            appendPadded(out, percentage(hourly.relative_humidity_2m[i]));
+        }
+        out.append('\n');
+
+        out.append('\n');
+        out.append(SEPARATOR);
+        out.append('\n');
     }
 
-    private String formatWeeklyForecast(DailyWeather daily) {
-        StringBuilder sb = new StringBuilder();
-        
-        sb.append("📅 7-DAY FORECAST\n");
-        sb.append("\n");
-
-        for (int i = 1; i < 7; i++) {
-            double low = daily.temperature_2m_min.get(i);
-            double high = daily.temperature_2m_max.get(i);
-            int code = daily.weathercode.get(i);
-            String condition = WeatherCodeMapper.getCondition(code);
-            String emoji = WeatherCodeMapper.getWeatherEmoji(code);
-            int precip = daily.precipitation_probability_max.get(i);
-            
-            LocalDate date = LocalDate.parse(daily.time.get(i), DATE_FORMATTER);
-            String dayOfWeek = date.format(DAY_OF_WEEK_FORMATTER);
-            
-            sb.append("📆 ").append(dayOfWeek).append("\n");
-            sb.append(String.format("    🌡️  %.0f%s - %.0f%s  |  %s  %s", 
-                low, tempSymbol, high, tempSymbol, emoji, condition));
+    /**
+     * Writes the outlook for the six days after today
+     */
+    public void appendWeeklyForecast(DailyWeather daily, ZoneId zoneId, Appendable out) throws IOException {
+        out.append("📅 7-DAY FORECAST\n");
+        out.append('\n');
+
+        for (int i = 1; i < Math.min(7, daily.size()); i++) {
+            int code = daily.weathercode[i];
+            int precip = daily.precipitation_probability_max[i];
+
+            out.append("📆 ").append(localDate(daily.time[i], zoneId).format(DAY_OF_WEEK_FORMATTER)).append('\n');
+            out.append("    🌡️  ").append(temperature(daily.temperature_2m_min[i]))
+                .append(" - ").append(temperature(daily.temperature_2m_max[i]))
+                .append("  |  ").append(WeatherCodeMapper.getWeatherEmoji(code))
+                .append("  ").append(WeatherCodeMapper.getCondition(code));
             if (precip > 0) {
-                sb.append(String.format("  (💧 %d%%)", precip));
+                out.append("  (💧 ").append(percentage(precip));
+                appendPrecipitationAmount(daily, i, out);
+                out.append(')');
             }
-            sb.append("\n");
-            sb.append("\n");
+            out.append('\n');
+            out.append('\n');
         }
-        
-        return sb.toString();
+    }
+
+    /**
+     * Returns the cached ZoneId for an IANA zone name
+     */
+    public static ZoneId zoneOf(String timezone) {
+        return ZONES.computeIfAbsent(timezone, ZoneId::of);
+    }
+
+    private String temperature(double celsius) {
+        if (MissingValues.isMissing(celsius)) {
+            return MISSING;
+        }
+        long rounded = round(units.temperature.fromCelsius(celsius));
+        if (rounded >= MIN_TABLE_VALUE && rounded <= MAX_TABLE_VALUE) {
+            return temperatures[(int) rounded - MIN_TABLE_VALUE];
+        }
+        return rounded + tempSymbol;
+    }
+
+    private static String number(double value) {
+        if (MissingValues.isMissing(value)) {
+            return MISSING;
+        }
+        long rounded = round(value);
+        if (rounded >= MIN_TABLE_VALUE && rounded <= MAX_TABLE_VALUE) {
+            return NUMBERS[(int) rounded - MIN_TABLE_VALUE];
+        }
+        return Long.toString(rounded);
+    }
+
+    private static String percentage(int value) {
+        if (MissingValues.isMissing(value)) {
+            return MISSING;
+        }
+        return value >= 0 && value < PERCENTAGES.length ? PERCENTAGES[value] : value + "%";
+    }
+
+    /**
+     * Appends ", 2.5 mm" style totals; older responses without the column show nothing
+     */
+    private void appendPrecipitationAmount(DailyWeather daily, int day, Appendable out) throws IOException {
+        if (daily.precipitation_sum == null || !(daily.precipitation_sum[day] > 0)) {
+            return;
+        }
+        Units.Precipitation unit = units.precipitation;
+        out.append(", ");
+        appendDecimal(out, unit.fromMm(daily.precipitation_sum[day]), unit.decimals());
+        out.append(' ').append(unit.symbol());
+    }
+
+    /**
+     * Appends a non-negative value with a fixed number of decimals, like %.1f
+     */
+    private static void appendDecimal(Appendable out, double value, int decimals) throws IOException {
+        long scale = decimals == 1 ? 10 : decimals == 2 ? 100 : (long) Math.pow(10, decimals);
+        long scaled = round(value * scale);
+        out.append(Long.toString(scaled / scale));
+        if (decimals > 0) {
+            out.append('.');
+            String fraction = Long.toString(scaled % scale);
+            for (int i = fraction.length(); i < decimals; i++) {
+                out.append('0');
+            }
+            out.append(fraction);
+        }
+    }
+
+    /**
+     * Rounds half away from zero, matching %.0f
+     */
+    private static long round(double value) {
+        long magnitude = (long) Math.floor(Math.abs(value) + 0.5);
+        return value < 0 ? -magnitude : magnitude;
+    }
+
+    /**
+     * Right-aligns a cell in a fixed-width column, like %7s
+     */
+    private static void appendPadded(Appendable out, String cell) throws IOException {
+        for (int i = cell.length(); i < COLUMN_WIDTH; i++) {
+            out.append(' ');
+        }
+        out.append(cell);
+    }
+
+    private static LocalDate localDate(long epochSecond, ZoneId zoneId) {
+        return Instant.ofEpochSecond(epochSecond).atZone(zoneId).toLocalDate();
+    }
+
+    private static LocalTime localTime(long epochSecond, ZoneId zoneId) {
+        return Instant.ofEpochSecond(epochSecond).atZone(zoneId).toLocalTime();
     }
 }
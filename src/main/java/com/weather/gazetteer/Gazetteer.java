@@ -0,0 +1,243 @@
+package com.weather.gazetteer;
+
+import com.weather.cache.GeocodingIndex;
+import com.weather.model.LocationResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Offline dataset of populated places for geocoding without a request
+ *
+ * The file is built by GazetteerBuilder and memory-mapped read-only, so
+ * opening it costs nothing beyond the mapping. It holds fixed-size place
+ * records sorted by population, a table of deduplicated strings, and a trie
+ * over normalized place names whose nodes list the matching places, largest
+ * first. A lookup walks one trie node per byte of the name.
+ *
+ * Queries such as "Springfield Illinois" or "Paris, France" are split into a
+ * place name and a qualifier: the longest leading run of words that names a
+ * place is taken as the name, and every remaining word must start a word of
+ * the place's region, country or country code.
+ *
+ * The header's sections are checked against the file size when it is opened.
+ * A lookup that still runs off the mapping, because the file was damaged
+ * after it was built, finds nothing, so the caller falls back to the API.
+ */
+public class Gazetteer implements Closeable {
+
+    static final int MAGIC = 0x57474154; // "WGAT"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 36;
+    static final int NO_STRING = -1;
+
+    // Offsets within a place record
+    private static final int LATITUDE = 0;
+    private static final int LONGITUDE = 8;
+    // 16: population (int), already reflected in the record order
+    private static final int NAME = 20;
+    private static final int ADMIN1 = 24;
+    private static final int COUNTRY = 28;
+    private static final int COUNTRY_CODE = 32;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int placeCount;
+    private final int recordsOffset;
+    private final int stringsOffset;
+    private final int rootOffset;
+
+    private Gazetteer(FileChannel channel, MappedByteBuffer map) throws IOException {
+        this.channel = channel;
+        this.map = map;
+        if (map.capacity() < HEADER_SIZE || map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+            throw new IOException("Not a gazetteer file");
+        }
+        this.placeCount = map.getInt(8);
+        this.recordsOffset = map.getInt(12);
+        this.stringsOffset = map.getInt(16);
+        this.rootOffset = map.getInt(20);
+        // Records, strings and the trie follow each other; the root node is at least a posting and child count
+        if (placeCount < 0 || recordsOffset < HEADER_SIZE
+                || (long) recordsOffset + (long) placeCount * RECORD_SIZE > stringsOffset
+                || stringsOffset > rootOffset || (long) rootOffset + 6 > map.capacity()) {
+            throw new IOException("Corrupt gazetteer header");
+        }
+    }
+
+    /**
+     * Maps the gazetteer file read-only
+     */
+    public static Gazetteer open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            return new Gazetteer(channel, map);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the gazetteer if the file exists and is valid, otherwise returns null
+     */
+    public static Gazetteer openIfPresent(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return open(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public int size() {
+        return placeCount;
+    }
+
+    /**
+     * Returns the most populous place matching the query, or null
+     */
+    public LocationResult find(String query) {
+        List<LocationResult> matches = search(query, 1);
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    /**
+     * Returns up to limit places matching the query, most populous first
+     * A damaged file yields no places rather than an exception.
+     */
+    public List<LocationResult> search(String query, int limit) {
+        try {
+            return searchMapped(query, limit);
+        } catch (RuntimeException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    private List<LocationResult> searchMapped(String query, int limit) {
+        String[] words = GeocodingIndex.normalize(query.replace(',', ' ')).split(" ");
+        List<LocationResult> matches = new ArrayList<>();
+        if (words.length == 0 || words[0].isEmpty()) {
+            return matches;
+        }
+        for (int nameWords = words.length; nameWords > 0 && matches.isEmpty(); nameWords--) {
+            int node = findNode(String.join(" ", Arrays.copyOfRange(words, 0, nameWords)));
+            if (node < 0) {
+                continue;
+            }
+            int postingCount = map.getInt(node);
+            for (int i = 0; i < postingCount && matches.size() < limit; i++) {
+                int record = recordsOffset + map.getInt(node + 4 + 4 * i) * RECORD_SIZE;
+                if (matchesQualifier(record, words, nameWords)) {
+                    matches.add(toResult(record));
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Walks the trie along the UTF-8 bytes of the name; returns the node offset, or -1
+     */
+    private int findNode(String name) {
+        int node = rootOffset;
+        for (byte label : name.getBytes(StandardCharsets.UTF_8)) {
+            int postingCount = map.getInt(node);
+            int childCountAt = node + 4 + 4 * postingCount;
+            int childCount = map.getShort(childCountAt) & 0xffff;
+            int labelsAt = childCountAt + 2;
+            int child = findLabel(labelsAt, childCount, label);
+            if (child < 0) {
+                return -1;
+            }
+            node = map.getInt(labelsAt + childCount + 4 * child);
+        }
+        return node;
+    }
+
+    private int findLabel(int labelsAt, int count, byte label) {
+        int target = label & 0xff;
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = map.get(labelsAt + mid) & 0xff;
+            if (value < target) {
+                low = mid + 1;
+            } else if (value > target) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matchesQualifier(int record, String[] words, int nameWords) {
+        if (nameWords == words.length) {
+            return true;
+        }
+        String[] placeWords = GeocodingIndex.normalize(string(map.getInt(record + ADMIN1)) + " "
+            + string(map.getInt(record + COUNTRY)) + " " + string(map.getInt(record + COUNTRY_CODE))).split(" ");
+        for (int i = nameWords; i < words.length; i++) {
+            if (!startsAnyWord(placeWords, words[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsAnyWord(String[] words, String prefix) {
+        for (String word : words) {
+            if (word.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private LocationResult toResult(int record) {
+        LocationResult result = new LocationResult();
+        result.name = string(map.getInt(record + NAME));
+        result.latitude = map.getDouble(record + LATITUDE);
+        result.longitude = map.getDouble(record + LONGITUDE);
+        result.admin1 = nullIfEmpty(string(map.getInt(record + ADMIN1)));
+        result.country = nullIfEmpty(string(map.getInt(record + COUNTRY)));
+        return result;
+    }
+
+    private String string(int ref) {
+        if (ref == NO_STRING) {
+            return "";
+        }
+        int at = stringsOffset + ref;
+        int length = map.getShort(at) & 0xffff;
+        byte[] bytes = new byte[length];
+        map.get(at + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String nullIfEmpty(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,329 @@
+package com.weather.gazetteer;
+
+import com.weather.cache.GeocodingIndex;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a Gazetteer file from a GeoNames dump
+ *
+ * The dump is a tab-separated GeoNames "geoname" table such as cities500.txt
+ * or cities15000.txt; only populated places (feature class P) are kept.
+ * admin1CodesASCII.txt and countryInfo.txt, when present next to the dump,
+ * supply region and country names; otherwise their codes are used.
+ */
+public final class GazetteerBuilder {
+
+    public static final String ADMIN1_FILE = "admin1CodesASCII.txt";
+    public static final String COUNTRY_FILE = "countryInfo.txt";
+
+    // Columns of the GeoNames geoname table
+    private static final int NAME = 1;
+    private static final int ASCII_NAME = 2;
+    private static final int LATITUDE = 4;
+    private static final int LONGITUDE = 5;
+    private static final int FEATURE_CLASS = 6;
+    private static final int COUNTRY_CODE = 8;
+    private static final int ADMIN1_CODE = 10;
+    private static final int POPULATION = 14;
+
+    private GazetteerBuilder() {
+    }
+
+    /**
+     * Reads the dump and writes the gazetteer, replacing the output file atomically
+     *
+     * @return Number of places written
+     */
+    public static int build(Path dump, Path output) throws IOException {
+        Path dir = dump.toAbsolutePath().getParent();
+        Map<String, String> admin1Names = readCodes(dir.resolve(ADMIN1_FILE), 0, 1);
+        Map<String, String> countryNames = readCodes(dir.resolve(COUNTRY_FILE), 0, 4);
+
+        List<Place> places = readPlaces(dump);
+        // Postings are written in place order, so every name lists its largest place first
+        places.sort(Comparator.comparingLong((Place place) -> place.population).reversed()
+            .thenComparing(place -> place.name));
+
+        StringTable strings = new StringTable();
+        TrieNode root = new TrieNode();
+        ByteBuffer records = ByteBuffer.allocate(places.size() * Gazetteer.RECORD_SIZE)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        for (int id = 0; id < places.size(); id++) {
+            Place place = places.get(id);
+            String admin1 = admin1Names.getOrDefault(place.countryCode + "." + place.admin1Code, place.admin1Code);
+            String country = countryNames.getOrDefault(place.countryCode, place.countryCode);
+            records.putDouble(place.latitude);
+            records.putDouble(place.longitude);
+            records.putInt((int) Math.min(place.population, Integer.MAX_VALUE));
+            records.putInt(strings.add(place.name));
+            records.putInt(strings.add(admin1));
+            records.putInt(strings.add(country));
+            records.putInt(strings.add(place.countryCode));
+
+            String name = GeocodingIndex.normalize(place.name);
+            root.insert(name.getBytes(StandardCharsets.UTF_8), id);
+            String asciiName = GeocodingIndex.normalize(place.asciiName);
+            if (!asciiName.equals(name)) {
+                root.insert(asciiName.getBytes(StandardCharsets.UTF_8), id);
+            }
+        }
+
+        byte[] stringBytes = strings.toByteArray();
+        int recordsOffset = Gazetteer.HEADER_SIZE;
+        int stringsOffset = recordsOffset + records.capacity();
+        int trieOffset = stringsOffset + stringBytes.length;
+        GrowableBuffer trie = new GrowableBuffer(1 << 20);
+        root.write(trie, trieOffset);
+
+        ByteBuffer header = ByteBuffer.allocate(Gazetteer.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(Gazetteer.MAGIC).putInt(Gazetteer.VERSION).putInt(places.size())
+            .putInt(recordsOffset).putInt(stringsOffset).putInt(trieOffset);
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(output.toAbsolutePath().getParent(), "gazetteer", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            out.write(header.array());
+            out.write(records.array());
+            out.write(stringBytes);
+            out.write(trie.bytes, 0, trie.size);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return places.size();
+    }
+
+    private static List<Place> readPlaces(Path dump) throws IOException {
+        List<Place> places = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(dump, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split("\t", -1);
+                if (columns.length <= POPULATION || !"P".equals(columns[FEATURE_CLASS])) {
+                    continue;
+                }
+                Place place = new Place();
+                place.name = columns[NAME];
+                place.asciiName = columns[ASCII_NAME].isEmpty() ? columns[NAME] : columns[ASCII_NAME];
+                place.latitude = Double.parseDouble(columns[LATITUDE]);
+                place.longitude = Double.parseDouble(columns[LONGITUDE]);
+                place.countryCode = columns[COUNTRY_CODE];
+                place.admin1Code = columns[ADMIN1_CODE];
+                place.population = columns[POPULATION].isEmpty() ? 0 : Long.parseLong(columns[POPULATION]);
+                places.add(place);
+            }
+        }
+        return places;
+    }
+
+    /**
+     * Reads a tab-separated code table into code -> name, skipping # comments; a missing file is empty
+     */
+    private static Map<String, String> readCodes(Path file, int codeColumn, int nameColumn) throws IOException {
+        Map<String, String> codes = new HashMap<>();
+        if (!Files.exists(file)) {
+            return codes;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t", -1);
+                if (columns.length > Math.max(codeColumn, nameColumn)) {
+                    codes.put(columns[codeColumn], columns[nameColumn]);
+                }
+            }
+        }
+        return codes;
+    }
+
+    private static final class Place {
+        String name;
+        String asciiName;
+        double latitude;
+        double longitude;
+        String countryCode;
+        String admin1Code;
+        long population;
+    }
+
+    /**
+     * Deduplicated UTF-8 strings, each stored as an unsigned 16-bit length and its bytes
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private final GrowableBuffer bytes = new GrowableBuffer(1 << 16);
+
+        int add(String value) {
+            if (value == null || value.isEmpty()) {
+                return Gazetteer.NO_STRING;
+            }
+            Integer existing = offsets.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            int length = Math.min(encoded.length, 0xffff);
+            int offset = bytes.size;
+            bytes.putShort(length);
+            bytes.put(encoded, length);
+            offsets.put(value, offset);
+            return offset;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes.bytes, bytes.size);
+        }
+    }
+
+    /**
+     * Byte-labelled trie node; children are kept sorted by label
+     */
+    private static final class TrieNode {
+        private static final byte[] NO_LABELS = new byte[0];
+        private static final TrieNode[] NO_CHILDREN = new TrieNode[0];
+
+        byte[] labels = NO_LABELS;
+        TrieNode[] children = NO_CHILDREN;
+        int[] postings;
+        int postingCount;
+
+        void insert(byte[] key, int placeId) {
+            TrieNode node = this;
+            for (byte label : key) {
+                node = node.child(label);
+            }
+            node.addPosting(placeId);
+        }
+
+        private TrieNode child(byte label) {
+            int index = indexOf(labels, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            TrieNode child = new TrieNode();
+            byte[] newLabels = new byte[labels.length + 1];
+            TrieNode[] newChildren = new TrieNode[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = child;
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+
+        private void addPosting(int placeId) {
+            if (postings == null) {
+                postings = new int[1];
+            } else if (postingCount > 0 && postings[postingCount - 1] == placeId) {
+                return;
+            } else if (postingCount == postings.length) {
+                postings = Arrays.copyOf(postings, postingCount * 2);
+            }
+            postings[postingCount++] = placeId;
+        }
+
+        /**
+         * Writes this node and its subtree in pre-order, patching child offsets as they are known
+         * Node: int postingCount, int[postingCount], u16 childCount, byte[childCount], int[childCount]
+         */
+        void write(GrowableBuffer out, int baseOffset) {
+            out.putInt(postingCount);
+            for (int i = 0; i < postingCount; i++) {
+                out.putInt(postings[i]);
+            }
+            out.putShort(labels.length);
+            out.put(labels, labels.length);
+            int offsetsAt = out.size;
+            for (int i = 0; i < children.length; i++) {
+                out.putInt(0);
+            }
+            for (int i = 0; i < children.length; i++) {
+                out.patchInt(offsetsAt + 4 * i, baseOffset + out.size);
+                children[i].write(out, baseOffset);
+            }
+        }
+
+        private static int indexOf(byte[] labels, byte label) {
+            int low = 0;
+            int high = labels.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = Integer.compare(labels[mid] & 0xff, label & 0xff);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+
+    /**
+     * Little-endian byte sink that grows as needed and allows patching earlier ints
+     */
+    private static final class GrowableBuffer {
+        byte[] bytes;
+        int size;
+
+        GrowableBuffer(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            patchInt(size, value);
+            size += 4;
+        }
+
+        void putShort(int value) {
+            ensure(2);
+            bytes[size++] = (byte) value;
+            bytes[size++] = (byte) (value >>> 8);
+        }
+
+        void put(byte[] values, int length) {
+            ensure(length);
+            System.arraycopy(values, 0, bytes, size, length);
+            size += length;
+        }
+
+        void patchInt(int at, int value) {
+            bytes[at] = (byte) value;
+            bytes[at + 1] = (byte) (value >>> 8);
+            bytes[at + 2] = (byte) (value >>> 16);
+            bytes[at + 3] = (byte) (value >>> 24);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.weather.mapper;
 
+import com.weather.model.MissingValues;
+
 /**
  * Maps weather codes to human-readable conditions and emojis
  */
@@ -20,6 +22,7 @@ public class WeatherCodeMapper {
             case 80, 81, 82 -> "Showers";
             case 85, 86 -> "Snow showers";
             case 95, 96, 99 -> "Thunderstorm";
+            case MissingValues.INT -> "Unknown";
             default -> "Unknown (" + code + ")";
         };
     }
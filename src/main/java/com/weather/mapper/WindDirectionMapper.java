@@ -1,5 +1,7 @@
 package com.weather.mapper;
 
+import com.weather.model.MissingValues;
+
 /**
  * Converts wind direction in degrees to compass direction
  */
@@ -10,8 +12,14 @@ public class WindDirectionMapper {
         "S", "SSW", "SW", "WSW", "W", "WNW", "NW", "NNW"
     };
     
+    /**
+     * Returns the compass point for any degrees, or "?" for a missing value
+     */
     public static String getWindDirection(int degrees) {
-        int index = (int) Math.round(((degrees % 360) / 22.5));
+        if (MissingValues.isMissing(degrees)) {
+            return "?";
+        }
+        int index = (int) Math.round(Math.floorMod(degrees, 360) / 22.5);
         return DIRECTIONS[index % 16];
     }
 }
@@ -0,0 +1,82 @@
+package com.weather.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Model class for an Open-Meteo archive API response
+ * Each hourly variable is a primitive column; row i of every column belongs to time[i]
+ *
+ * Unlike forecasts, history has gaps, so missing hours are read as NaN
+ * rather than 0. Columns are keyed by the API's variable name.
+ */
+@JsonDeserialize(using = ArchiveResponse.Deserializer.class)
+public class ArchiveResponse {
+    /** Start of each hour as epoch seconds */
+    public long[] time;
+
+    public Map<String, double[]> hourly = new LinkedHashMap<>();
+
+    /**
+     * Returns the number of hourly rows
+     */
+    public int size() {
+        return time != null ? time.length : 0;
+    }
+
+    static final class Deserializer extends JsonDeserializer<ArchiveResponse> {
+        private static final EpochSecondsDeserializer EPOCH_SECONDS = new EpochSecondsDeserializer();
+
+        @Override
+        public ArchiveResponse deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            ArchiveResponse response = new ArchiveResponse();
+            if (!p.isExpectedStartObjectToken()) {
+                return (ArchiveResponse) ctxt.handleUnexpectedToken(ArchiveResponse.class, p);
+            }
+            for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+                JsonToken token = p.nextToken();
+                if (field.equals("hourly") && token == JsonToken.START_OBJECT) {
+                    readHourly(p, ctxt, response);
+                } else {
+                    p.skipChildren();
+                }
+            }
+            return response;
+        }
+
+        private static void readHourly(JsonParser p, DeserializationContext ctxt, ArchiveResponse response)
+                throws IOException {
+            for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+                JsonToken token = p.nextToken();
+                if (token != JsonToken.START_ARRAY) {
+                    p.skipChildren();
+                } else if (field.equals("time")) {
+                    response.time = EPOCH_SECONDS.deserialize(p, ctxt);
+                } else {
+                    response.hourly.put(field, readColumn(p));
+                }
+            }
+        }
+
+        private static double[] readColumn(JsonParser p) throws IOException {
+            double[] values = new double[2048];
+            int count = 0;
+            JsonToken token;
+            while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = token == JsonToken.VALUE_NULL ? Double.NaN : p.getValueAsDouble();
+            }
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+    }
+}
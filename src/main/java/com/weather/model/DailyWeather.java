@@ -2,36 +2,70 @@ package com.weather.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import java.util.List;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 /**
  * Model class for daily weather data
+ * Each series is a primitive column; row i of every column belongs to time[i]
+ * A value the API left out is NaN or MissingValues.INT, see MissingValues
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class DailyWeather {
-    public List<String> time;
+    /** Local midnight of each day as epoch seconds */
+    @JsonDeserialize(using = EpochSecondsDeserializer.class)
+    public long[] time;
     
     @JsonProperty("temperature_2m_max")
-    public List<Double> temperature_2m_max;
+    @JsonDeserialize(using = MissingValues.DoublesDeserializer.class)
+    @JsonSerialize(using = MissingValues.DoublesSerializer.class)
+    public double[] temperature_2m_max;
     
     @JsonProperty("temperature_2m_min")
-    public List<Double> temperature_2m_min;
+    @JsonDeserialize(using = MissingValues.DoublesDeserializer.class)
+    @JsonSerialize(using = MissingValues.DoublesSerializer.class)
+    public double[] temperature_2m_min;
     
-    public List<Integer> weathercode;
+    @JsonDeserialize(using = MissingValues.IntsDeserializer.class)
+    @JsonSerialize(using = MissingValues.IntsSerializer.class)
+    public int[] weathercode;
+    
+    /** Total precipitation of each day in millimetres */
+    @JsonProperty("precipitation_sum")
+    @JsonDeserialize(using = MissingValues.DoublesDeserializer.class)
+    @JsonSerialize(using = MissingValues.DoublesSerializer.class)
+    public double[] precipitation_sum;
     
     @JsonProperty("precipitation_probability_max")
-    public List<Integer> precipitation_probability_max;
+    @JsonDeserialize(using = MissingValues.IntsDeserializer.class)
+    @JsonSerialize(using = MissingValues.IntsSerializer.class)
+    public int[] precipitation_probability_max;
     
     @JsonProperty("wind_speed_10m_max")
-    public List<Double> wind_speed_10m_max;
+    @JsonDeserialize(using = MissingValues.DoublesDeserializer.class)
+    @JsonSerialize(using = MissingValues.DoublesSerializer.class)
+    public double[] wind_speed_10m_max;
     
     @JsonProperty("wind_direction_10m_dominant")
-    public List<Integer> wind_direction_10m_dominant;
+    @JsonDeserialize(using = MissingValues.IntsDeserializer.class)
+    @JsonSerialize(using = MissingValues.IntsSerializer.class)
+    public int[] wind_direction_10m_dominant;
     
     @JsonProperty("uv_index_max")
-    public List<Double> uv_index_max;
+    @JsonDeserialize(using = MissingValues.DoublesDeserializer.class)
+    @JsonSerialize(using = MissingValues.DoublesSerializer.class)
+    public double[] uv_index_max;
     
-    public List<String> sunrise;
-    public List<String> sunset;
-}
+    @JsonDeserialize(using = EpochSecondsDeserializer.class)
+    public long[] sunrise;
+    
+    @JsonDeserialize(using = EpochSecondsDeserializer.class)
+    public long[] sunset;
 
+    /**
+     * Returns the number of daily rows
+     */
+    public int size() {
+        return time != null ? time.length : 0;
+    }
+}
@@ -0,0 +1,76 @@
+package com.weather.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Reads a JSON array of timestamps straight into a long[] of epoch seconds
+ *
+ * Numbers are taken as Unix time (timeformat=unixtime). ISO-8601 strings
+ * such as "2024-01-01T13:00" or "2024-01-01" are the location's local time,
+ * as the API sends them, and are shifted by the enclosing response's
+ * utc_offset_seconds (which the API sends before the columns); outside a
+ * WeatherResponse they are taken as UTC. A null timestamp is rejected.
+ */
+public class EpochSecondsDeserializer extends JsonDeserializer<long[]> {
+
+    @Override
+    public long[] deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (!p.isExpectedStartArrayToken()) {
+            return (long[]) ctxt.handleUnexpectedToken(long[].class, p);
+        }
+        
+        long[] values = new long[192];
+        int count = 0;
+        Integer offsetSeconds = null;
+        JsonToken token;
+        while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            if (token == JsonToken.VALUE_NUMBER_INT) {
+                values[count++] = p.getLongValue();
+            } else if (token == JsonToken.VALUE_STRING) {
+                if (offsetSeconds == null) {
+                    offsetSeconds = utcOffsetSeconds(p);
+                }
+                values[count++] = parseIso(p.getText()) - offsetSeconds;
+            } else {
+                // A null time has no place in the sorted timeline that lookups binary-search
+                return (long[]) ctxt.handleUnexpectedToken(long[].class, p);
+            }
+        }
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    /**
+     * Returns the utc_offset_seconds of the response being read, or 0 if there is none
+     */
+    private static int utcOffsetSeconds(JsonParser p) {
+        for (JsonStreamContext context = p.getParsingContext(); context != null; context = context.getParent()) {
+            if (context.getCurrentValue() instanceof WeatherResponse) {
+                return ((WeatherResponse) context.getCurrentValue()).utc_offset_seconds;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the wall-clock time as if it were UTC
+     */
+    private static long parseIso(String text) {
+        if (text.length() == 10) {
+            return LocalDate.parse(text).toEpochDay() * 86_400L;
+        }
+        return LocalDateTime.parse(text).toEpochSecond(ZoneOffset.UTC);
+    }
+}
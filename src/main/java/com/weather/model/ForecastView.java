@@ -0,0 +1,206 @@
+package com.weather.model;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Answers time-window questions about a forecast by binary search over its timelines
+ *
+ * Hourly and daily times are sorted epoch seconds, so every query is a pair
+ * of O(log n) searches that returns a RowRange of indexes into the forecast's
+ * columns. Nothing is parsed or allocated per row; local calendar windows
+ * (tonight, the weekend) are resolved once per query in the forecast's zone.
+ */
+public final class ForecastView {
+
+    private static final LocalTime EVENING = LocalTime.of(18, 0);
+    private static final LocalTime MORNING = LocalTime.of(6, 0);
+    private static final long[] NO_TIMES = new long[0];
+
+    private final WeatherResponse forecast;
+    private final ZoneId zone;
+    private final long[] hours;
+    private final long[] days;
+
+    public ForecastView(WeatherResponse forecast) {
+        this(forecast, zoneOf(forecast));
+    }
+
+    public ForecastView(WeatherResponse forecast, ZoneId zone) {
+        this.forecast = forecast;
+        this.zone = zone;
+        this.hours = forecast.hourly != null && forecast.hourly.time != null ? forecast.hourly.time : NO_TIMES;
+        this.days = forecast.daily != null && forecast.daily.time != null ? forecast.daily.time : NO_TIMES;
+    }
+
+    public WeatherResponse getForecast() {
+        return forecast;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Returns the hourly row containing the instant, or -1 if it is outside the forecast
+     */
+    public int hourContaining(long epochSecond) {
+        int row = lowerBound(hours, epochSecond + 1) - 1;
+        return row >= 0 && epochSecond < hours[row] + 3600 ? row : -1;
+    }
+
+    /**
+     * Returns the daily row of the local day containing the instant, or -1 if it is outside the forecast
+     */
+    public int dayContaining(long epochSecond) {
+        int row = lowerBound(days, epochSecond + 1) - 1;
+        if (row < 0) {
+            return -1;
+        }
+        long end = row + 1 < days.length ? days[row + 1] : startOfNextDay(days[row]);
+        return epochSecond < end ? row : -1;
+    }
+
+    /**
+     * Returns the hourly rows starting in [from, to)
+     */
+    public RowRange hours(long from, long to) {
+        return new RowRange(lowerBound(hours, from), lowerBound(hours, to));
+    }
+
+    public RowRange hours(Instant from, Instant to) {
+        return hours(from.getEpochSecond(), to.getEpochSecond());
+    }
+
+    /**
+     * Returns the daily rows starting in [from, to)
+     */
+    public RowRange days(long from, long to) {
+        return new RowRange(lowerBound(days, from), lowerBound(days, to));
+    }
+
+    /**
+     * Returns up to count hourly rows that have not started yet
+     */
+    public RowRange upcomingHours(Instant now, int count) {
+        int start = lowerBound(hours, now.getEpochSecond());
+        return new RowRange(start, Math.min(start + count, hours.length));
+    }
+
+    /**
+     * Returns the hours overlapping [now, now + length): the hour in progress and those starting before the end
+     */
+    public RowRange next(Duration length, Instant now) {
+        return fromNow(now, now.getEpochSecond() + length.getSeconds());
+    }
+
+    /**
+     * Returns the hours of tonight, 18:00 to 06:00 local time
+     * Before 06:00 this is the night already under way; hours that have ended are left out.
+     */
+    public RowRange tonight(Instant now) {
+        ZonedDateTime local = now.atZone(zone);
+        LocalDate evening = local.toLocalTime().isBefore(MORNING)
+            ? local.toLocalDate().minusDays(1)
+            : local.toLocalDate();
+        long from = evening.atTime(EVENING).atZone(zone).toEpochSecond();
+        long to = evening.plusDays(1).atTime(MORNING).atZone(zone).toEpochSecond();
+        return clipToNow(now, from, to);
+    }
+
+    /**
+     * Returns the hours of the coming weekend, or what is left of the current one
+     */
+    public RowRange weekend(Instant now) {
+        LocalDate today = now.atZone(zone).toLocalDate();
+        LocalDate saturday = today.getDayOfWeek() == DayOfWeek.SUNDAY
+            ? today.minusDays(1)
+            : today.with(TemporalAdjusters.nextOrSame(DayOfWeek.SATURDAY));
+        long from = saturday.atStartOfDay(zone).toEpochSecond();
+        long to = saturday.plusDays(2).atStartOfDay(zone).toEpochSecond();
+        return clipToNow(now, from, to);
+    }
+
+    private RowRange clipToNow(Instant now, long from, long to) {
+        return now.getEpochSecond() > from ? fromNow(now, to) : hours(from, to);
+    }
+
+    private RowRange fromNow(Instant now, long to) {
+        int current = hourContaining(now.getEpochSecond());
+        int start = current >= 0 ? current : lowerBound(hours, now.getEpochSecond());
+        return new RowRange(start, Math.max(start, lowerBound(hours, to)));
+    }
+
+    private long startOfNextDay(long midnight) {
+        return Instant.ofEpochSecond(midnight).atZone(zone).toLocalDate().plusDays(1)
+            .atStartOfDay(zone).toEpochSecond();
+    }
+
+    /**
+     * Returns the index of the first time not before the given one, or times.length if there is none
+     */
+    public static int lowerBound(long[] times, long epochSecond) {
+        int low = 0;
+        int high = times.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] < epochSecond) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The forecast's IANA zone, or its fixed UTC offset if the name is missing or unknown
+     */
+    private static ZoneId zoneOf(WeatherResponse forecast) {
+        if (forecast.timezone != null) {
+            try {
+                return ZoneId.of(forecast.timezone);
+            } catch (DateTimeException e) {
+                // Fall back to the offset the response was computed with
+            }
+        }
+        return ZoneOffset.ofTotalSeconds(forecast.utc_offset_seconds);
+    }
+
+    /**
+     * Row indexes [start, end) into one section's columns
+     */
+    public static final class RowRange {
+        private final int start;
+        private final int end;
+
+        RowRange(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public int size() {
+            return end - start;
+        }
+
+        public boolean isEmpty() {
+            return end <= start;
+        }
+    }
+}
@@ -2,30 +2,53 @@ package com.weather.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import java.util.List;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 /**
  * Model class for hourly weather data
+ * Each series is a primitive column; row i of every column belongs to time[i]
+ * A value the API left out is NaN or MissingValues.INT, see MissingValues
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class HourlyWeather {
-    public List<String> time;
+    /** Start of each hour as epoch seconds */
+    @JsonDeserialize(using = EpochSecondsDeserializer.class)
+    public long[] time;
     
     @JsonProperty("temperature_2m")
-    public List<Double> temperature_2m;
+    @JsonDeserialize(using = MissingValues.DoublesDeserializer.class)
+    @JsonSerialize(using = MissingValues.DoublesSerializer.class)
+    public double[] temperature_2m;
     
     @JsonProperty("apparent_temperature")
-    public List<Double> apparent_temperature;
+    @JsonDeserialize(using = MissingValues.DoublesDeserializer.class)
+    @JsonSerialize(using = MissingValues.DoublesSerializer.class)
+    public double[] apparent_temperature;
     
-    public List<Integer> weathercode;
+    @JsonDeserialize(using = MissingValues.IntsDeserializer.class)
+    @JsonSerialize(using = MissingValues.IntsSerializer.class)
+    public int[] weathercode;
     
     @JsonProperty("precipitation_probability")
-    public List<Integer> precipitation_probability;
+    @JsonDeserialize(using = MissingValues.IntsDeserializer.class)
+    @JsonSerialize(using = MissingValues.IntsSerializer.class)
+    public int[] precipitation_probability;
     
     @JsonProperty("relative_humidity_2m")
-    public List<Integer> relative_humidity_2m;
+    @JsonDeserialize(using = MissingValues.IntsDeserializer.class)
+    @JsonSerialize(using = MissingValues.IntsSerializer.class)
+    public int[] relative_humidity_2m;
     
     @JsonProperty("wind_speed_10m")
-    public List<Double> wind_speed_10m;
-}
+    @JsonDeserialize(using = MissingValues.DoublesDeserializer.class)
+    @JsonSerialize(using = MissingValues.DoublesSerializer.class)
+    public double[] wind_speed_10m;
 
+    /**
+     * Returns the number of hourly rows
+     */
+    public int size() {
+        return time != null ? time.length : 0;
+    }
+}
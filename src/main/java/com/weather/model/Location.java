@@ -1,5 +1,7 @@
 package com.weather.model;
 
+import java.util.Locale;
+
 /**
  * Represents a geographic location with coordinates and address information
  */
@@ -38,8 +40,28 @@ public class Location {
         return country;
     }
 
+    /**
+     * Returns "city, region, country", leaving out empty parts, or the
+     * coordinates when all three are empty
+     */
     public String getFormattedLocation() {
-        return city + ", " + region + ", " + country;
+        StringBuilder sb = new StringBuilder();
+        append(sb, city);
+        append(sb, region);
+        append(sb, country);
+        if (sb.length() == 0) {
+            sb.append(String.format(Locale.ROOT, "%.4f, %.4f", latitude, longitude));
+        }
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, String part) {
+        if (part != null && !part.isEmpty()) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(part);
+        }
     }
 }
 
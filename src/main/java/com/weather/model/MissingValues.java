@@ -0,0 +1,118 @@
+package com.weather.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * How the forecast columns hold values the API left out
+ *
+ * The API sends null where a model does not provide a variable for a row.
+ * Double columns hold NaN there and int columns hold {@link #INT}, so a
+ * missing value is never mistaken for 0. The serializers write both back as null.
+ */
+public final class MissingValues {
+
+    /** A missing value in an int column */
+    public static final int INT = Integer.MIN_VALUE;
+
+    private MissingValues() {
+    }
+
+    public static boolean isMissing(int value) {
+        return value == INT;
+    }
+
+    public static boolean isMissing(double value) {
+        return Double.isNaN(value);
+    }
+
+    /**
+     * Reads a JSON array of numbers into a double[], null as NaN
+     */
+    public static final class DoublesDeserializer extends JsonDeserializer<double[]> {
+        @Override
+        public double[] deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (!p.isExpectedStartArrayToken()) {
+                return (double[]) ctxt.handleUnexpectedToken(double[].class, p);
+            }
+            double[] values = new double[192];
+            int count = 0;
+            JsonToken token;
+            while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = token == JsonToken.VALUE_NULL ? Double.NaN : p.getValueAsDouble();
+            }
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+    }
+
+    /**
+     * Reads a JSON array of numbers into an int[], null as {@link #INT}
+     */
+    public static final class IntsDeserializer extends JsonDeserializer<int[]> {
+        @Override
+        public int[] deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (!p.isExpectedStartArrayToken()) {
+                return (int[]) ctxt.handleUnexpectedToken(int[].class, p);
+            }
+            int[] values = new int[192];
+            int count = 0;
+            JsonToken token;
+            while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = token == JsonToken.VALUE_NULL ? INT : p.getValueAsInt();
+            }
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+    }
+
+    /**
+     * Writes a double[] as a JSON array, NaN as null
+     */
+    public static final class DoublesSerializer extends JsonSerializer<double[]> {
+        @Override
+        public void serialize(double[] values, JsonGenerator gen, SerializerProvider serializers)
+                throws IOException {
+            gen.writeStartArray(values, values.length);
+            for (double value : values) {
+                if (isMissing(value)) {
+                    gen.writeNull();
+                } else {
+                    gen.writeNumber(value);
+                }
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    /**
+     * Writes an int[] as a JSON array, {@link #INT} as null
+     */
+    public static final class IntsSerializer extends JsonSerializer<int[]> {
+        @Override
+        public void serialize(int[] values, JsonGenerator gen, SerializerProvider serializers)
+                throws IOException {
+            gen.writeStartArray(values, values.length);
+            for (int value : values) {
+                if (isMissing(value)) {
+                    gen.writeNull();
+                } else {
+                    gen.writeNumber(value);
+                }
+            }
+            gen.writeEndArray();
+        }
+    }
+}
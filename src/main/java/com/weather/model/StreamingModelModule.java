@@ -0,0 +1,292 @@
+package com.weather.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written deserializers for the response models
+ *
+ * Registering this module replaces Jackson's bean deserializers for
+ * WeatherResponse, DailyWeather, HourlyWeather, GeocodingResponse,
+ * LocationResult and IpLocationResponse. Each one reads the token stream
+ * directly, so Jackson never introspects the model classes; in a one-shot run
+ * that introspection costs more than decoding the response itself. Unknown
+ * fields are skipped, and columns are read with the same deserializers the
+ * models declare for databind, so nulls in them are missing values (see
+ * MissingValues) rather than 0.
+ */
+public class StreamingModelModule extends SimpleModule {
+
+    private static final EpochSecondsDeserializer EPOCH_SECONDS = new EpochSecondsDeserializer();
+    private static final MissingValues.DoublesDeserializer DOUBLES = new MissingValues.DoublesDeserializer();
+    private static final MissingValues.IntsDeserializer INTS = new MissingValues.IntsDeserializer();
+
+    public StreamingModelModule() {
+        super("StreamingModelModule");
+        addDeserializer(WeatherResponse.class, new WeatherResponseDeserializer());
+        addDeserializer(DailyWeather.class, new DailyWeatherDeserializer());
+        addDeserializer(HourlyWeather.class, new HourlyWeatherDeserializer());
+        addDeserializer(GeocodingResponse.class, new GeocodingResponseDeserializer());
+        addDeserializer(LocationResult.class, new LocationResultDeserializer());
+        addDeserializer(IpLocationResponse.class, new IpLocationResponseDeserializer());
+    }
+
+    /**
+     * Returns a mapper using these deserializers, or plain databinding when streaming is false
+     */
+    public static ObjectMapper newMapper(boolean streaming) {
+        ObjectMapper mapper = new ObjectMapper();
+        if (streaming) {
+            mapper.registerModule(new StreamingModelModule());
+        }
+        return mapper;
+    }
+
+    static final class WeatherResponseDeserializer extends JsonDeserializer<WeatherResponse> {
+        @Override
+        public WeatherResponse deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            WeatherResponse response = new WeatherResponse();
+            // Lets timestamp columns find utc_offset_seconds, as databind does for bean properties
+            p.assignCurrentValue(response);
+            for (String field = firstField(p, ctxt); field != null; field = p.nextFieldName()) {
+                p.nextToken();
+                switch (field) {
+                    case "timezone":
+                        response.timezone = p.getValueAsString();
+                        break;
+                    case "utc_offset_seconds":
+                        response.utc_offset_seconds = p.getValueAsInt();
+                        break;
+                    case "daily":
+                        response.daily = p.currentToken() == JsonToken.VALUE_NULL
+                            ? null : readDaily(p, ctxt);
+                        break;
+                    case "hourly":
+                        response.hourly = p.currentToken() == JsonToken.VALUE_NULL
+                            ? null : readHourly(p, ctxt);
+                        break;
+                    default:
+                        p.skipChildren();
+                }
+            }
+            return response;
+        }
+    }
+
+    static final class DailyWeatherDeserializer extends JsonDeserializer<DailyWeather> {
+        @Override
+        public DailyWeather deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return readDaily(p, ctxt);
+        }
+    }
+
+    static final class HourlyWeatherDeserializer extends JsonDeserializer<HourlyWeather> {
+        @Override
+        public HourlyWeather deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return readHourly(p, ctxt);
+        }
+    }
+
+    static final class GeocodingResponseDeserializer extends JsonDeserializer<GeocodingResponse> {
+        @Override
+        public GeocodingResponse deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            GeocodingResponse response = new GeocodingResponse();
+            for (String field = firstField(p, ctxt); field != null; field = p.nextFieldName()) {
+                JsonToken token = p.nextToken();
+                if (field.equals("results") && token == JsonToken.START_ARRAY) {
+                    List<LocationResult> results = new ArrayList<>();
+                    while (p.nextToken() != JsonToken.END_ARRAY) {
+                        results.add(p.currentToken() == JsonToken.VALUE_NULL ? null : readLocationResult(p, ctxt));
+                    }
+                    response.results = results;
+                } else {
+                    p.skipChildren();
+                }
+            }
+            return response;
+        }
+    }
+
+    static final class LocationResultDeserializer extends JsonDeserializer<LocationResult> {
+        @Override
+        public LocationResult deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return readLocationResult(p, ctxt);
+        }
+    }
+
+    static final class IpLocationResponseDeserializer extends JsonDeserializer<IpLocationResponse> {
+        @Override
+        public IpLocationResponse deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            IpLocationResponse response = new IpLocationResponse();
+            for (String field = firstField(p, ctxt); field != null; field = p.nextFieldName()) {
+                p.nextToken();
+                switch (field) {
+                    case "status":
+                        response.status = p.getValueAsString();
+                        break;
+                    case "lat":
+                        response.lat = p.getValueAsDouble();
+                        break;
+                    case "lon":
+                        response.lon = p.getValueAsDouble();
+                        break;
+                    case "city":
+                        response.city = p.getValueAsString();
+                        break;
+                    case "regionName":
+                        response.regionName = p.getValueAsString();
+                        break;
+                    case "country":
+                        response.country = p.getValueAsString();
+                        break;
+                    default:
+                        p.skipChildren();
+                }
+            }
+            return response;
+        }
+    }
+
+    private static DailyWeather readDaily(JsonParser p, DeserializationContext ctxt) throws IOException {
+        DailyWeather daily = new DailyWeather();
+        for (String field = firstField(p, ctxt); field != null; field = p.nextFieldName()) {
+            p.nextToken();
+            switch (field) {
+                case "time":
+                    daily.time = readTimes(p, ctxt);
+                    break;
+                case "temperature_2m_max":
+                    daily.temperature_2m_max = readDoubles(p, ctxt);
+                    break;
+                case "temperature_2m_min":
+                    daily.temperature_2m_min = readDoubles(p, ctxt);
+                    break;
+                case "weathercode":
+                    daily.weathercode = readInts(p, ctxt);
+                    break;
+                case "precipitation_sum":
+                    daily.precipitation_sum = readDoubles(p, ctxt);
+                    break;
+                case "precipitation_probability_max":
+                    daily.precipitation_probability_max = readInts(p, ctxt);
+                    break;
+                case "wind_speed_10m_max":
+                    daily.wind_speed_10m_max = readDoubles(p, ctxt);
+                    break;
+                case "wind_direction_10m_dominant":
+                    daily.wind_direction_10m_dominant = readInts(p, ctxt);
+                    break;
+                case "uv_index_max":
+                    daily.uv_index_max = readDoubles(p, ctxt);
+                    break;
+                case "sunrise":
+                    daily.sunrise = readTimes(p, ctxt);
+                    break;
+                case "sunset":
+                    daily.sunset = readTimes(p, ctxt);
+                    break;
+                default:
+                    p.skipChildren();
+            }
+        }
+        return daily;
+    }
+
+    private static HourlyWeather readHourly(JsonParser p, DeserializationContext ctxt) throws IOException {
+        HourlyWeather hourly = new HourlyWeather();
+        for (String field = firstField(p, ctxt); field != null; field = p.nextFieldName()) {
+            p.nextToken();
+            switch (field) {
+                case "time":
+                    hourly.time = readTimes(p, ctxt);
+                    break;
+                case "temperature_2m":
+                    hourly.temperature_2m = readDoubles(p, ctxt);
+                    break;
+                case "apparent_temperature":
+                    hourly.apparent_temperature = readDoubles(p, ctxt);
+                    break;
+                case "weathercode":
+                    hourly.weathercode = readInts(p, ctxt);
+                    break;
+                case "precipitation_probability":
+                    hourly.precipitation_probability = readInts(p, ctxt);
+                    break;
+                case "relative_humidity_2m":
+                    hourly.relative_humidity_2m = readInts(p, ctxt);
+                    break;
+                case "wind_speed_10m":
+                    hourly.wind_speed_10m = readDoubles(p, ctxt);
+                    break;
+                default:
+                    p.skipChildren();
+            }
+        }
+        return hourly;
+    }
+
+    private static LocationResult readLocationResult(JsonParser p, DeserializationContext ctxt) throws IOException {
+        LocationResult result = new LocationResult();
+        for (String field = firstField(p, ctxt); field != null; field = p.nextFieldName()) {
+            p.nextToken();
+            switch (field) {
+                case "name":
+                    result.name = p.getValueAsString();
+                    break;
+                case "latitude":
+                    result.latitude = p.getValueAsDouble();
+                    break;
+                case "longitude":
+                    result.longitude = p.getValueAsDouble();
+                    break;
+                case "admin1":
+                    result.admin1 = p.getValueAsString();
+                    break;
+                case "country":
+                    result.country = p.getValueAsString();
+                    break;
+                default:
+                    p.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the first field name of the object at the current token, or null if it is empty
+     */
+    private static String firstField(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            return p.nextFieldName();
+        }
+        if (token == JsonToken.FIELD_NAME) {
+            return p.currentName();
+        }
+        if (token == JsonToken.END_OBJECT) {
+            return null;
+        }
+        ctxt.handleUnexpectedToken(Object.class, p);
+        return null;
+    }
+
+    private static long[] readTimes(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return p.currentToken() == JsonToken.VALUE_NULL ? null : EPOCH_SECONDS.deserialize(p, ctxt);
+    }
+
+    private static double[] readDoubles(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return p.currentToken() == JsonToken.VALUE_NULL ? null : DOUBLES.deserialize(p, ctxt);
+    }
+
+    private static int[] readInts(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return p.currentToken() == JsonToken.VALUE_NULL ? null : INTS.deserialize(p, ctxt);
+    }
+}
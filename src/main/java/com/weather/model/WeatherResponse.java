@@ -1,6 +1,7 @@
 package com.weather.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
  * Model class for weather API response
@@ -8,7 +9,10 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class WeatherResponse {
     public String timezone;
+    
+    @JsonProperty("utc_offset_seconds")
+    public int utc_offset_seconds;
+    
     public DailyWeather daily;
     public HourlyWeather hourly;
 }
-
@@ -0,0 +1,66 @@
+package com.weather.output;
+
+import com.weather.model.DailyWeather;
+import com.weather.model.HourlyWeather;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A named forecast column, read as the long[], double[] or int[] the model holds
+ * Names follow the Open-Meteo API, values are in its metric units.
+ */
+final class Column<S> {
+
+    static final List<Column<HourlyWeather>> HOURLY = List.of(
+        new Column<HourlyWeather>("time", hourly -> hourly.time),
+        new Column<HourlyWeather>("temperature_2m", hourly -> hourly.temperature_2m),
+        new Column<HourlyWeather>("apparent_temperature", hourly -> hourly.apparent_temperature),
+        new Column<HourlyWeather>("weathercode", hourly -> hourly.weathercode),
+        new Column<HourlyWeather>("precipitation_probability", hourly -> hourly.precipitation_probability),
+        new Column<HourlyWeather>("relative_humidity_2m", hourly -> hourly.relative_humidity_2m),
+        new Column<HourlyWeather>("wind_speed_10m", hourly -> hourly.wind_speed_10m));
+
+    static final List<Column<DailyWeather>> DAILY = List.of(
+        new Column<DailyWeather>("time", daily -> daily.time),
+        new Column<DailyWeather>("temperature_2m_max", daily -> daily.temperature_2m_max),
+        new Column<DailyWeather>("temperature_2m_min", daily -> daily.temperature_2m_min),
+        new Column<DailyWeather>("weathercode", daily -> daily.weathercode),
+        new Column<DailyWeather>("precipitation_sum", daily -> daily.precipitation_sum),
+        new Column<DailyWeather>("precipitation_probability_max", daily -> daily.precipitation_probability_max),
+        new Column<DailyWeather>("wind_speed_10m_max", daily -> daily.wind_speed_10m_max),
+        new Column<DailyWeather>("wind_direction_10m_dominant", daily -> daily.wind_direction_10m_dominant),
+        new Column<DailyWeather>("uv_index_max", daily -> daily.uv_index_max),
+        new Column<DailyWeather>("sunrise", daily -> daily.sunrise),
+        new Column<DailyWeather>("sunset", daily -> daily.sunset));
+
+    private final String name;
+    private final Function<S, Object> values;
+
+    private Column(String name, Function<S, Object> values) {
+        this.name = name;
+        this.values = values;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the column's primitive array, or null if the response did not include it
+     */
+    Object values(S section) {
+        return values.apply(section);
+    }
+
+    /**
+     * Returns the arrays of every column for one section, in column order
+     */
+    static <S> Object[] values(List<Column<S>> columns, S section) {
+        Object[] arrays = new Object[columns.size()];
+        for (int i = 0; i < arrays.length; i++) {
+            arrays[i] = columns.get(i).values(section);
+        }
+        return arrays;
+    }
+}
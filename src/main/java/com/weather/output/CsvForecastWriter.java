@@ -0,0 +1,149 @@
+package com.weather.output;
+
+import com.weather.model.Location;
+import com.weather.model.MissingValues;
+import com.weather.model.WeatherResponse;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes one CSV row per hourly and daily forecast row, with the location repeated on each
+ *
+ * The header is the location fields, a section column ("hourly" or
+ * "daily") and the union of both sections' columns; a row leaves the
+ * other section's columns, and any missing value, empty. Quoting follows
+ * RFC 4180.
+ */
+final class CsvForecastWriter implements ForecastWriter {
+
+    static final List<String> HEADER;
+
+    private static final int[] HOURLY_POSITIONS;
+    private static final int[] DAILY_POSITIONS;
+
+    static {
+        Set<String> series = new LinkedHashSet<>();
+        Column.HOURLY.forEach(column -> series.add(column.getName()));
+        Column.DAILY.forEach(column -> series.add(column.getName()));
+        List<String> header = new ArrayList<>(List.of("latitude", "longitude", "city", "region", "country",
+            "section"));
+        header.addAll(series);
+        HEADER = List.copyOf(header);
+        HOURLY_POSITIONS = positions(Column.HOURLY);
+        DAILY_POSITIONS = positions(Column.DAILY);
+    }
+
+    private final Writer out;
+    private final Object[] row = new Object[HEADER.size()];
+    private boolean headerWritten;
+
+    CsvForecastWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(Location location, WeatherResponse forecast) throws IOException {
+        if (!headerWritten) {
+            writeHeader();
+        }
+        StringBuilder prefix = new StringBuilder();
+        prefix.append(location.getLatitude()).append(',')
+            .append(location.getLongitude()).append(',');
+        appendField(prefix, location.getCity());
+        prefix.append(',');
+        appendField(prefix, location.getRegion());
+        prefix.append(',');
+        appendField(prefix, location.getCountry());
+        prefix.append(',');
+        String locationFields = prefix.toString();
+
+        if (forecast.hourly != null) {
+            writeRows(locationFields, "hourly", Column.values(Column.HOURLY, forecast.hourly), HOURLY_POSITIONS);
+        }
+        if (forecast.daily != null) {
+            writeRows(locationFields, "daily", Column.values(Column.DAILY, forecast.daily), DAILY_POSITIONS);
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        out.write(String.join(",", HEADER));
+        out.write("\r\n");
+        headerWritten = true;
+    }
+
+    private void writeRows(String locationFields, String section, Object[] arrays, int[] positions)
+            throws IOException {
+        long[] time = (long[]) arrays[0];
+        int rows = time != null ? time.length : 0;
+        int first = HEADER.indexOf("time");
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < arrays.length; c++) {
+                row[positions[c]] = arrays[c];
+            }
+            out.write(locationFields);
+            out.write(section);
+            for (int c = first; c < row.length; c++) {
+                out.write(',');
+                if (row[c] != null) {
+                    writeValue(row[c], r);
+                }
+                row[c] = null;
+            }
+            out.write("\r\n");
+        }
+    }
+
+    private void writeValue(Object array, int row) throws IOException {
+        if (array instanceof double[]) {
+            double[] values = (double[]) array;
+            if (row < values.length && !MissingValues.isMissing(values[row])) {
+                out.write(Double.toString(values[row]));
+            }
+        } else if (array instanceof int[]) {
+            int[] values = (int[]) array;
+            if (row < values.length && !MissingValues.isMissing(values[row])) {
+                out.write(Integer.toString(values[row]));
+            }
+        } else {
+            long[] values = (long[]) array;
+            if (row < values.length) {
+                out.write(Long.toString(values[row]));
+            }
+        }
+    }
+
+    private static void appendField(StringBuilder sb, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            sb.append(value);
+            return;
+        }
+        sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static <S> int[] positions(List<Column<S>> columns) {
+        int[] positions = new int[columns.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = HEADER.indexOf(columns.get(i).getName());
+        }
+        return positions;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+}
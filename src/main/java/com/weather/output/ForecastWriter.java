@@ -0,0 +1,21 @@
+package com.weather.output;
+
+import com.weather.model.Location;
+import com.weather.model.WeatherResponse;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes one location's forecast after another to an output
+ *
+ * Writes are buffered; flush() pushes what has been written so far to the
+ * output, and close() finishes the document and flushes without closing the
+ * underlying output.
+ */
+public interface ForecastWriter extends Closeable {
+
+    void write(Location location, WeatherResponse forecast) throws IOException;
+
+    void flush() throws IOException;
+}
@@ -0,0 +1,42 @@
+package com.weather.output;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Creates the machine-readable writers
+ *
+ * Every writer encodes UTF-8 into a fixed {@value #BUFFER_SIZE}-byte buffer
+ * that is written to the channel whenever it fills, so memory stays the same
+ * however many locations pass through. Values are always in the API's metric
+ * units, whatever display units were chosen for the text report.
+ */
+public final class ForecastWriters {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private ForecastWriters() {
+    }
+
+    /**
+     * Opens a writer for NDJSON, CSV or JSON output; the text report is written by ConsoleWeatherDisplay
+     */
+    public static ForecastWriter open(OutputFormat format, WritableByteChannel channel) throws IOException {
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+        switch (format) {
+            case NDJSON:
+                return new JsonForecastWriter(out, true);
+            case JSON:
+                return new JsonForecastWriter(out, false);
+            case CSV:
+                return new CsvForecastWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            default:
+                throw new IllegalArgumentException("No machine-readable writer for " + format);
+        }
+    }
+}
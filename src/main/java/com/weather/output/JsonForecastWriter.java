@@ -0,0 +1,123 @@
+package com.weather.output;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.weather.model.Location;
+import com.weather.model.MissingValues;
+import com.weather.model.WeatherResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes each location as a compact JSON object, either one per line (NDJSON)
+ * or as the elements of one array
+ *
+ * Each object holds the location, timezone and the hourly and daily rows as
+ * arrays of objects keyed by API field name; missing values are null.
+ */
+final class JsonForecastWriter implements ForecastWriter {
+
+    private static final JsonFactory FACTORY = JsonFactory.builder()
+        .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+        .disable(StreamWriteFeature.FLUSH_PASSED_TO_STREAM)
+        .build();
+
+    private final OutputStream out;
+    private final JsonGenerator generator;
+    private final boolean lines;
+
+    JsonForecastWriter(OutputStream out, boolean lines) throws IOException {
+        this.out = out;
+        this.generator = FACTORY.createGenerator(out);
+        this.lines = lines;
+        if (lines) {
+            generator.setRootValueSeparator(null);
+        } else {
+            generator.writeStartArray();
+        }
+    }
+
+    @Override
+    public void write(Location location, WeatherResponse forecast) throws IOException {
+        generator.writeStartObject();
+        generator.writeObjectFieldStart("location");
+        generator.writeNumberField("latitude", location.getLatitude());
+        generator.writeNumberField("longitude", location.getLongitude());
+        generator.writeStringField("city", location.getCity());
+        generator.writeStringField("region", location.getRegion());
+        generator.writeStringField("country", location.getCountry());
+        generator.writeEndObject();
+        generator.writeStringField("timezone", forecast.timezone);
+        generator.writeNumberField("utc_offset_seconds", forecast.utc_offset_seconds);
+        if (forecast.hourly != null) {
+            writeRows("hourly", Column.HOURLY, Column.values(Column.HOURLY, forecast.hourly));
+        }
+        if (forecast.daily != null) {
+            writeRows("daily", Column.DAILY, Column.values(Column.DAILY, forecast.daily));
+        }
+        generator.writeEndObject();
+        if (lines) {
+            generator.writeRaw('\n');
+        }
+    }
+
+    private <S> void writeRows(String name, List<Column<S>> columns, Object[] arrays) throws IOException {
+        long[] time = (long[]) arrays[0];
+        int rows = time != null ? time.length : 0;
+        generator.writeArrayFieldStart(name);
+        for (int row = 0; row < rows; row++) {
+            generator.writeStartObject();
+            for (int c = 0; c < arrays.length; c++) {
+                if (arrays[c] != null) {
+                    generator.writeFieldName(columns.get(c).getName());
+                    writeValue(arrays[c], row);
+                }
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeValue(Object array, int row) throws IOException {
+        if (array instanceof double[]) {
+            double[] values = (double[]) array;
+            if (row >= values.length || MissingValues.isMissing(values[row])) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(values[row]);
+            }
+        } else if (array instanceof int[]) {
+            int[] values = (int[]) array;
+            if (row >= values.length || MissingValues.isMissing(values[row])) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(values[row]);
+            }
+        } else {
+            long[] values = (long[]) array;
+            if (row < values.length) {
+                generator.writeNumber(values[row]);
+            } else {
+                generator.writeNull();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!lines) {
+            generator.writeEndArray();
+        }
+        generator.close();
+        out.flush();
+    }
+}
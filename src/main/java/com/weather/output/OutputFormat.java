@@ -0,0 +1,27 @@
+package com.weather.output;
+
+import java.util.Locale;
+
+/**
+ * How forecasts are written to standard output
+ */
+public enum OutputFormat {
+    /** The formatted report for people */
+    TEXT,
+    /** One JSON object per location per line */
+    NDJSON,
+    /** One row per hourly or daily forecast row, with the location repeated */
+    CSV,
+    /** A single compact JSON array of location objects */
+    JSON;
+
+    public static OutputFormat parse(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "text": return TEXT;
+            case "ndjson": case "jsonl": return NDJSON;
+            case "csv": return CSV;
+            case "json": return JSON;
+            default: throw new IllegalArgumentException("Unknown output format: " + name);
+        }
+    }
+}
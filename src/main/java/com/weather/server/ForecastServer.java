@@ -0,0 +1,228 @@
+package com.weather.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.weather.formatter.Units;
+import com.weather.formatter.WeatherFormatter;
+import com.weather.model.Location;
+import com.weather.model.WeatherResponse;
+import com.weather.service.HttpClientFactory;
+import com.weather.service.LocationService;
+import com.weather.service.WeatherService;
+import com.weather.timing.Timings;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Long-running HTTP server answering forecast queries
+ *
+ * One set of services and formatters is shared by all requests, so repeated
+ * queries pay neither JVM startup nor client setup. Endpoints:
+ *
+ *   GET /forecast?q=London[&unit=f][&wind=mph][&precip=in][&format=json]
+ *   GET /forecast?lat=51.5&lon=-0.12[&unit=f][&wind=mph][&precip=in][&format=json]
+ *   GET /timings   (per-phase latency histograms, with --timings)
+ *
+ * Text is returned by default; JSON is returned for format=json or when the
+ * Accept header asks for application/json. Units only affect rendering, so
+ * the same place in any units is served from one cached forecast.
+ */
+public class ForecastServer {
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_BAD_REQUEST = 400;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_BAD_METHOD = 405;
+    private static final int HTTP_BAD_GATEWAY = 502;
+
+    private final LocationService locationService;
+    private final WeatherService weatherService;
+    private final ObjectMapper mapper;
+    private final Map<Units, WeatherFormatter> formatters = new ConcurrentHashMap<>();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public ForecastServer(LocationService locationService, WeatherService weatherService, ObjectMapper mapper) {
+        this.locationService = locationService;
+        this.weatherService = weatherService;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Starts serving on the given address; requests are handled on the shared service executor
+     */
+    public void start(InetSocketAddress address) throws IOException {
+        executor = HttpClientFactory.newExecutor();
+        server = HttpServer.create(address, 0);
+        server.createContext("/forecast", this::handleForecast);
+        server.createContext("/timings", this::handleTimings);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    private void handleForecast(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, HTTP_BAD_METHOD, "Only GET is supported");
+                return;
+            }
+
+            Map<String, String> params;
+            Units units;
+            Location location;
+            WeatherResponse weatherData;
+            try {
+                params = parseQuery(exchange.getRequestURI().getRawQuery());
+                units = parseUnits(params);
+                location = resolveLocation(params);
+                weatherData = weatherService.getWeather(location);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, HTTP_BAD_REQUEST, e.getMessage());
+                return;
+            } catch (LocationService.LocationNotFoundException e) {
+                sendError(exchange, HTTP_NOT_FOUND, e.getMessage());
+                return;
+            } catch (Exception e) {
+                String reason = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                sendError(exchange, HTTP_BAD_GATEWAY, "Upstream request failed: " + reason);
+                return;
+            }
+
+            if (wantsJson(exchange, params)) {
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("location", location);
+                body.put("forecast", units.convert(weatherData));
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(HTTP_OK, 0);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    mapper.writeValue(out, body);
+                }
+            } else {
+                WeatherFormatter formatter = formatters.computeIfAbsent(units, WeatherFormatter::new);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+                exchange.sendResponseHeaders(HTTP_OK, 0);
+                try (Writer out = new BufferedWriter(
+                        new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+                    formatter.formatWeather(location, weatherData, out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the --timings report, if enabled
+     */
+    private void handleTimings(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!Timings.isEnabled()) {
+                sendError(exchange, HTTP_NOT_FOUND, "Start the server with --timings to collect timings");
+                return;
+            }
+            byte[] body = Timings.report().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(HTTP_OK, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private static Units parseUnits(Map<String, String> params) {
+        String temperature = params.get("unit");
+        String windSpeed = params.get("wind");
+        String precipitation = params.get("precip");
+        return new Units(
+            temperature != null ? Units.Temperature.parse(temperature) : Units.Temperature.CELSIUS,
+            windSpeed != null ? Units.WindSpeed.parse(windSpeed) : Units.WindSpeed.KMH,
+            precipitation != null ? Units.Precipitation.parse(precipitation) : Units.Precipitation.MM);
+    }
+
+    private Location resolveLocation(Map<String, String> params) throws Exception {
+        String query = params.get("q");
+        if (query != null && !query.isBlank()) {
+            return locationService.geocodeLocation(query);
+        }
+
+        String lat = params.get("lat");
+        String lon = params.get("lon");
+        if (lat == null || lon == null) {
+            throw new IllegalArgumentException("Specify q=<place> or lat=<latitude>&lon=<longitude>");
+        }
+        double latitude;
+        double longitude;
+        try {
+            latitude = Double.parseDouble(lat);
+            longitude = Double.parseDouble(lon);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid coordinates: " + lat + ", " + lon);
+        }
+        // Rules out NaN and infinities too
+        if (!(Math.abs(latitude) <= 90) || !(Math.abs(longitude) <= 180)) {
+            throw new IllegalArgumentException("Coordinates out of range: " + lat + ", " + lon);
+        }
+        return new Location(latitude, longitude, lat + ", " + lon, "", "");
+    }
+
+    private static boolean wantsJson(HttpExchange exchange, Map<String, String> params) {
+        String format = params.get("format");
+        if (format != null) {
+            return "json".equalsIgnoreCase(format);
+        }
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        return accept != null && accept.contains("application/json");
+    }
+
+    /**
+     * Decodes the query parameters; a malformed %-escape is an IllegalArgumentException
+     */
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            try {
+                params.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Malformed query parameter: " + pair);
+            }
+        }
+        return params;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = ((message != null ? message : "Error") + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
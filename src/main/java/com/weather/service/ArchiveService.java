@@ -0,0 +1,132 @@
+package com.weather.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather.archive.ArchiveVariable;
+import com.weather.archive.ColumnarArchiveWriter;
+import com.weather.model.ArchiveResponse;
+import com.weather.model.Location;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * Service for ingesting hourly weather history from the Open-Meteo archive API
+ *
+ * A date range is split into chunks of {@value #CHUNK_DAYS} days. Chunks are
+ * fetched over at most {@value #MAX_CONCURRENT_CHUNKS} concurrent lanes and
+ * appended to a ColumnarArchive file in date order as they arrive; a lane
+ * only starts its next chunk once its previous one has been written, so at
+ * most that many chunks are held in memory whatever the length of the range.
+ */
+public class ArchiveService extends BaseHttpService {
+
+    private static final String ARCHIVE_BASE_URL = "https://archive-api.open-meteo.com/v1/archive";
+    static final int CHUNK_DAYS = 90;
+    static final int MAX_CONCURRENT_CHUNKS = 4;
+
+    private final String baseUrl;
+
+    public ArchiveService(HttpClient client, ObjectMapper mapper) {
+        this(client, mapper, ARCHIVE_BASE_URL);
+    }
+
+    /**
+     * @param baseUrl Archive endpoint, e.g. a self-hosted instance
+     */
+    public ArchiveService(HttpClient client, ObjectMapper mapper, String baseUrl) {
+        super(client, mapper);
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Fetches every hour from start to end (inclusive, UTC days) and writes them to the archive file
+     *
+     * @return Number of hourly rows written
+     */
+    public long ingest(Location location, LocalDate start, LocalDate end, Path file) throws Exception {
+        return await(ingestAsync(location, start, end, file, Arrays.asList(ArchiveVariable.values())));
+    }
+
+    /**
+     * Fetches the variables for every hour from start to end without blocking
+     * The file is replaced only once every chunk has been written
+     */
+    public CompletableFuture<Long> ingestAsync(Location location, LocalDate start, LocalDate end, Path file,
+            List<ArchiveVariable> variables) {
+        if (end.isBefore(start)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("End date is before start date"));
+        }
+        ColumnarArchiveWriter writer;
+        try {
+            writer = ColumnarArchiveWriter.create(file, variables);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        String hourly = variables.stream().map(ArchiveVariable::apiName).collect(Collectors.joining(","));
+
+        List<LocalDate> chunkStarts = new ArrayList<>();
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(CHUNK_DAYS)) {
+            chunkStarts.add(day);
+        }
+
+        // written.get(i) completes once chunk i is on disk; chunks are written strictly in order
+        List<CompletableFuture<Void>> written = new ArrayList<>(chunkStarts.size());
+        CompletableFuture<Void> previous = CompletableFuture.completedFuture(null);
+        for (int i = 0; i < chunkStarts.size(); i++) {
+            LocalDate chunkStart = chunkStarts.get(i);
+            LocalDate lastDay = chunkStart.plusDays(CHUNK_DAYS - 1L);
+            LocalDate chunkEnd = lastDay.isAfter(end) ? end : lastDay;
+            String url = buildArchiveUrl(location, chunkStart, chunkEnd, hourly);
+            CompletableFuture<Void> laneFree = i < MAX_CONCURRENT_CHUNKS
+                ? CompletableFuture.completedFuture(null)
+                : written.get(i - MAX_CONCURRENT_CHUNKS);
+            CompletableFuture<ArchiveResponse> fetched = laneFree.thenCompose(ignored ->
+                performGetRequestAsync(url, ArchiveResponse.class,
+                    "Failed to get weather history from " + chunkStart + " to " + chunkEnd));
+            previous = previous.thenCombine(fetched, (ignored, chunk) -> {
+                try {
+                    writer.append(chunk);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+                return null;
+            });
+            written.add(previous);
+        }
+
+        return previous.handle((ignored, failure) -> {
+            try {
+                if (failure != null) {
+                    writer.close();
+                    throw failure instanceof CompletionException
+                        ? (CompletionException) failure : new CompletionException(failure);
+                }
+                writer.commit();
+                return writer.getRowCount();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private String buildArchiveUrl(Location location, LocalDate start, LocalDate end, String hourly) {
+        return String.format(Locale.ROOT,
+            "%s?latitude=%f&longitude=%f&start_date=%s&end_date=%s&hourly=%s&timezone=GMT&timeformat=unixtime",
+            baseUrl,
+            location.getLatitude(),
+            location.getLongitude(),
+            start,
+            end,
+            hourly
+        );
+    }
+}
@@ -1,53 +1,125 @@
 package com.weather.service;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.weather.timing.CountingInputStream;
+import com.weather.timing.DecodeEvent;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Base class for HTTP-based services
  * Provides common HTTP request functionality
+ *
+ * Every request is sent asynchronously; the blocking methods wait for the
+ * asynchronous variant and rethrow its failure unchanged.
+ *
+ * Requests advertise gzip and deflate. Compressed bodies are inflated while
+ * they are read, so the decoder still consumes the response as a stream.
+ * Reading blocks until the body has arrived, so it runs on a decode executor
+ * of its own rather than on the HttpClient's threads, which deliver the body.
+ *
+ * Requests go through a ResilientSender, which applies the host's timeouts,
+ * retries, hedging and circuit breaker before a status is checked here.
+ * The client is the transport: a RecordingHttpClient or ReplayHttpClient
+ * (com.weather.transport) records every exchange or replays them offline.
+ *
+ * warmUp() opens a connection to a host before the first real request:
+ * DNS, TCP, TLS and the HTTP/2 preface happen behind whatever the caller
+ * does meanwhile, and requests to that host wait for it rather than racing
+ * a second handshake, then share the pooled connection.
  */
 public abstract class BaseHttpService {
-    
+
     protected static final int HTTP_OK = 200;
-    
+    protected static final int HTTP_NOT_MODIFIED = 304;
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
+    private static final int INFLATE_BUFFER_SIZE = 8192;
+    private static final Executor DECODE_EXECUTOR = HttpClientFactory.newExecutor();
+
     protected final HttpClient client;
     protected final ObjectMapper mapper;
+    protected final ResilientSender sender;
+    private final Executor decodeExecutor;
+    private final Map<String, CompletableFuture<Void>> warmUps = new ConcurrentHashMap<>();
 
     protected BaseHttpService(HttpClient client, ObjectMapper mapper) {
+        this(client, mapper, new ResilientSender(client));
+    }
+
+    protected BaseHttpService(HttpClient client, ObjectMapper mapper, ResilientSender sender) {
+        this(client, mapper, sender, DECODE_EXECUTOR);
+    }
+
+    /**
+     * @param decodeExecutor Runs the blocking read and decode of response bodies
+     */
+    protected BaseHttpService(HttpClient client, ObjectMapper mapper, ResilientSender sender,
+            Executor decodeExecutor) {
         this.client = client;
         this.mapper = mapper;
+        this.sender = sender;
+        this.decodeExecutor = decodeExecutor;
+    }
+
+    /**
+     * Returns the sender, to adjust a host's policy or inspect its circuit
+     */
+    public ResilientSender getSender() {
+        return sender;
+    }
+
+    /**
+     * Opens a connection to the URL's host with a HEAD request whose answer is discarded
+     *
+     * @return Future completed when the connection is ready or the attempt failed; it never fails itself
+     */
+    protected CompletableFuture<Void> warmUp(String url) {
+        URI uri = URI.create(url);
+        return warmUps.computeIfAbsent(uri.getHost(), host -> {
+            HttpRequest head = HttpRequest.newBuilder(uri)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(sender.getPolicy(host).getRequestTimeout())
+                .build();
+            return client.sendAsync(head, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> null);
+        });
     }
 
     /**
      * Performs a GET request and returns the response body as string
-     * 
+     *
      * @param url The URL to request
      * @param errorMessage Error message if request fails
      * @return Response body as string
      * @throws Exception if request fails or returns non-200 status
      */
     protected String performGetRequest(String url, String errorMessage) throws Exception {
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(url))
-            .build();
-            
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        
-        if (response.statusCode() != HTTP_OK) {
-            throw new Exception(errorMessage + " (HTTP " + response.statusCode() + ")");
-        }
-        
-        return response.body();
+        return await(performGetRequestAsync(url, errorMessage));
     }
 
     /**
      * Performs a GET request and parses JSON response into given class
-     * 
+     *
      * @param url The URL to request
      * @param responseClass The class to deserialize response into
      * @param errorMessage Error message if request fails
@@ -55,8 +127,240 @@ public abstract class BaseHttpService {
      * @throws Exception if request fails or JSON parsing fails
      */
     protected <T> T performGetRequest(String url, Class<T> responseClass, String errorMessage) throws Exception {
-        String responseBody = performGetRequest(url, errorMessage);
-        return mapper.readValue(responseBody, responseClass);
+        return await(performGetRequestAsync(url, responseClass, errorMessage));
+    }
+
+    /**
+     * Performs a GET request and parses a JSON array response into a list
+     * A single JSON object is accepted as a one-element list
+     *
+     * @param url The URL to request
+     * @param elementClass The class to deserialize each element into
+     * @param errorMessage Error message if request fails
+     * @return Deserialized response objects in response order
+     * @throws Exception if request fails or JSON parsing fails
+     */
+    protected <T> List<T> performGetListRequest(String url, Class<T> elementClass, String errorMessage)
+            throws Exception {
+        return await(performGetListRequestAsync(url, elementClass, errorMessage));
+    }
+
+    /**
+     * Sends a GET request without blocking and completes with the response body
+     *
+     * @param url The URL to request
+     * @param errorMessage Error message if request fails
+     * @return Future completed with the response body, or exceptionally if the status is not 200
+     */
+    protected CompletableFuture<String> performGetRequestAsync(String url, String errorMessage) {
+        return performGetStreamAsync(newGetRequest(url).build(), errorMessage,
+            (response, in) -> new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends a GET request without blocking and parses the JSON response into given class
+     * The body is decoded straight from the response stream without building a String
+     */
+    protected <T> CompletableFuture<T> performGetRequestAsync(String url, Class<T> responseClass,
+            String errorMessage) {
+        ObjectReader reader = mapper.readerFor(responseClass);
+        return performGetStreamAsync(newGetRequest(url).build(), errorMessage,
+            (response, in) -> reader.readValue(in));
+    }
+
+    /**
+     * Sends a GET request without blocking and parses a JSON array (or single object) into a list
+     */
+    protected <T> CompletableFuture<List<T>> performGetListRequestAsync(String url, Class<T> elementClass,
+            String errorMessage) {
+        ObjectReader reader = mapper.readerForListOf(elementClass)
+            .with(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
+        return performGetStreamAsync(newGetRequest(url).build(), errorMessage,
+            (response, in) -> reader.readValue(in));
+    }
+
+    /**
+     * Sends a conditional GET request without blocking, revalidating a previous response
+     *
+     * The request carries the validators (ETag, Last-Modified) of the previous
+     * response, if any. A 304 answer completes with the previous value and
+     * refreshed freshness information without reading a body.
+     *
+     * @param previous The response being revalidated, or null to fetch unconditionally
+     */
+    protected <T> CompletableFuture<ValidatedResponse<T>> performValidatedGetAsync(String url,
+            Class<T> responseClass, String errorMessage, ValidatedResponse<T> previous) {
+        HttpRequest.Builder builder = newGetRequest(url);
+        if (previous != null && previous.getETag() != null) {
+            builder.header("If-None-Match", previous.getETag());
+        }
+        if (previous != null && previous.getLastModified() != null) {
+            builder.header("If-Modified-Since", previous.getLastModified());
+        }
+        ObjectReader reader = mapper.readerFor(responseClass);
+        return performGetStreamAsync(builder.build(), errorMessage, (response, in) -> {
+            Instant now = Instant.now();
+            if (response.statusCode() == HTTP_NOT_MODIFIED) {
+                return previous.revalidated(response.headers(), now);
+            }
+            T value = reader.readValue(in);
+            return ValidatedResponse.of(value, response.headers(), now);
+        });
     }
-}
 
+    private static HttpRequest.Builder newGetRequest(String url) {
+        return HttpRequest.newBuilder()
+            .uri(URI.create(url))
+            .header("Accept-Encoding", ACCEPT_ENCODING);
+    }
+
+    /**
+     * Sends a GET request without blocking and reads the decompressed response body with the given reader
+     * Reading is recorded as a DecodeEvent with the status and body size. Only 200 is accepted,
+     * and 304 for a conditional request. Cancelling the returned future cancels the exchange.
+     */
+    private <T> CompletableFuture<T> performGetStreamAsync(HttpRequest request, String errorMessage,
+            BodyReader<T> reader) {
+        boolean conditional = request.headers().firstValue("If-None-Match").isPresent()
+            || request.headers().firstValue("If-Modified-Since").isPresent();
+        CompletableFuture<Void> warmUp = warmUps.get(request.uri().getHost());
+        CompletableFuture<HttpResponse<InputStream>> sent = warmUp == null || warmUp.isDone()
+            ? sender.send(request)
+            : sendAfter(warmUp, request);
+        CompletableFuture<T> decoded = sent
+            .thenApplyAsync(response -> {
+                DecodeEvent event = new DecodeEvent();
+                event.start();
+                event.host = request.uri().getHost();
+                event.httpStatus = response.statusCode();
+                CountingInputStream counter = null;
+                try {
+                    int status = response.statusCode();
+                    if (status != HTTP_OK && !(conditional && status == HTTP_NOT_MODIFIED)) {
+                        closeQuietly(response.body());
+                        event.failed = true;
+                        throw new CompletionException(
+                            new Exception(errorMessage + " (HTTP " + response.statusCode() + ")"));
+                    }
+                    InputStream body;
+                    try {
+                        // A 304 has no body to decode, whatever its Content-Encoding says
+                        body = status == HTTP_NOT_MODIFIED ? response.body() : decompress(response);
+                    } catch (IOException e) {
+                        closeQuietly(response.body());
+                        event.failed = true;
+                        throw new CompletionException(e);
+                    }
+                    if (event.isActive()) {
+                        event.contentEncoding = response.headers().firstValue("Content-Encoding").orElse("identity");
+                        body = counter = new CountingInputStream(body);
+                    }
+                    try (InputStream in = body) {
+                        return reader.read(response, in);
+                    } catch (IOException e) {
+                        event.failed = true;
+                        throw new CompletionException(e);
+                    }
+                } finally {
+                    if (counter != null) {
+                        event.bytes = counter.getCount();
+                    }
+                    event.finish();
+                }
+            }, decodeExecutor);
+        decoded.whenComplete((value, failure) -> {
+            if (decoded.isCancelled() && !sent.cancel(true) && !sent.isCompletedExceptionally()) {
+                // The response arrived first; nobody will read its body now
+                closeQuietly(sent.join().body());
+            }
+        });
+        return decoded;
+    }
+
+    /**
+     * Sends the request once the host's warm-up has finished, unless it was cancelled while waiting
+     */
+    private CompletableFuture<HttpResponse<InputStream>> sendAfter(CompletableFuture<Void> warmUp,
+            HttpRequest request) {
+        CompletableFuture<HttpResponse<InputStream>> sent = new CompletableFuture<>();
+        warmUp.thenRun(() -> {
+            if (sent.isDone()) {
+                return;
+            }
+            CompletableFuture<HttpResponse<InputStream>> inner = sender.send(request);
+            sent.whenComplete((response, failure) -> {
+                if (sent.isCancelled()) {
+                    inner.cancel(true);
+                }
+            });
+            inner.whenComplete((response, failure) -> {
+                if (failure != null) {
+                    sent.completeExceptionally(failure);
+                } else if (!sent.complete(response)) {
+                    closeQuietly(response.body());
+                }
+            });
+        });
+        return sent;
+    }
+
+    /**
+     * Wraps the body in an inflating stream matching its Content-Encoding
+     */
+    private static InputStream decompress(HttpResponse<InputStream> response) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("")
+            .trim().toLowerCase(Locale.ROOT);
+        switch (encoding) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(response.body(), INFLATE_BUFFER_SIZE);
+            case "deflate":
+                // HTTP deflate is zlib-wrapped, which is what Inflater expects by default
+                Inflater inflater = new Inflater();
+                return new InflaterInputStream(response.body(), inflater, INFLATE_BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        // A caller-supplied Inflater is not released by InflaterInputStream itself
+                        try {
+                            super.close();
+                        } finally {
+                            inflater.end();
+                        }
+                    }
+                };
+            default:
+                return response.body();
+        }
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            // Nothing left to read from a failed response
+        }
+    }
+
+    /**
+     * Reads a response body; the stream is closed by the caller
+     */
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(HttpResponse<InputStream> response, InputStream in) throws IOException;
+    }
+
+    /**
+     * Waits for an asynchronous result and rethrows the original failure
+     */
+    protected static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+}
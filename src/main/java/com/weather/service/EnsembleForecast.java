@@ -0,0 +1,298 @@
+package com.weather.service;
+
+import com.weather.model.DailyWeather;
+import com.weather.model.ForecastView;
+import com.weather.model.HourlyWeather;
+import com.weather.model.MissingValues;
+import com.weather.model.WeatherResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Per-variable statistics over forecasts of one location from several providers
+ *
+ * Members are aligned by time on the first member's rows; a row another
+ * member lacks, or a value it left out (see MissingValues), is left out of
+ * that row's statistics. A row no member has a value for stays missing. Each statistic is a
+ * WeatherResponse of its own, so it can be formatted, cached and written
+ * like any single forecast.
+ *
+ * Weather codes are combined by their most frequent value (the more severe
+ * code on a tie) for the mean, and wind directions by their circular mean.
+ * Sunrise and sunset are taken from the first member.
+ */
+public final class EnsembleForecast {
+
+    private final List<ForecastProvider> providers;
+    private final List<WeatherResponse> members;
+    private final WeatherResponse mean;
+    private final WeatherResponse min;
+    private final WeatherResponse max;
+
+    private EnsembleForecast(List<ForecastProvider> providers, List<WeatherResponse> members) {
+        this.providers = List.copyOf(providers);
+        this.members = List.copyOf(members);
+        this.mean = merge(members, Statistic.MEAN);
+        this.min = merge(members, Statistic.MIN);
+        this.max = merge(members, Statistic.MAX);
+    }
+
+    /**
+     * @param providers The provider each member came from, in the same order
+     * @param members At least one forecast of the same location
+     */
+    public static EnsembleForecast of(List<ForecastProvider> providers, List<WeatherResponse> members) {
+        if (members.isEmpty() || providers.size() != members.size()) {
+            throw new IllegalArgumentException("One provider per member and at least one member are required");
+        }
+        return new EnsembleForecast(providers, members);
+    }
+
+    public List<ForecastProvider> getProviders() {
+        return providers;
+    }
+
+    public List<WeatherResponse> getMembers() {
+        return members;
+    }
+
+    public WeatherResponse getMean() {
+        return mean;
+    }
+
+    public WeatherResponse getMin() {
+        return min;
+    }
+
+    public WeatherResponse getMax() {
+        return max;
+    }
+
+    private enum Statistic {
+        MEAN,
+        MIN,
+        MAX
+    }
+
+    private static WeatherResponse merge(List<WeatherResponse> members, Statistic statistic) {
+        WeatherResponse reference = members.get(0);
+        WeatherResponse merged = new WeatherResponse();
+        merged.timezone = reference.timezone;
+        merged.utc_offset_seconds = reference.utc_offset_seconds;
+        if (reference.hourly != null) {
+            merged.hourly = mergeHourly(members, statistic);
+        }
+        if (reference.daily != null) {
+            merged.daily = mergeDaily(members, statistic);
+        }
+        return merged;
+    }
+
+    private static HourlyWeather mergeHourly(List<WeatherResponse> members, Statistic statistic) {
+        HourlyWeather reference = members.get(0).hourly;
+        List<HourlyWeather> sections = new ArrayList<>(members.size());
+        for (WeatherResponse member : members) {
+            sections.add(member.hourly);
+        }
+        int[][] rows = align(reference.time, column(sections, h -> h.time));
+        HourlyWeather merged = new HourlyWeather();
+        merged.time = reference.time;
+        merged.temperature_2m = doubles(rows, statistic, column(sections, h -> h.temperature_2m));
+        merged.apparent_temperature = doubles(rows, statistic, column(sections, h -> h.apparent_temperature));
+        merged.wind_speed_10m = doubles(rows, statistic, column(sections, h -> h.wind_speed_10m));
+        merged.weathercode = codes(rows, statistic, column(sections, h -> h.weathercode));
+        merged.precipitation_probability = ints(rows, statistic, column(sections, h -> h.precipitation_probability));
+        merged.relative_humidity_2m = ints(rows, statistic, column(sections, h -> h.relative_humidity_2m));
+        return merged;
+    }
+
+    private static DailyWeather mergeDaily(List<WeatherResponse> members, Statistic statistic) {
+        DailyWeather reference = members.get(0).daily;
+        List<DailyWeather> sections = new ArrayList<>(members.size());
+        for (WeatherResponse member : members) {
+            sections.add(member.daily);
+        }
+        int[][] rows = align(reference.time, column(sections, d -> d.time));
+        DailyWeather merged = new DailyWeather();
+        merged.time = reference.time;
+        merged.temperature_2m_max = doubles(rows, statistic, column(sections, d -> d.temperature_2m_max));
+        merged.temperature_2m_min = doubles(rows, statistic, column(sections, d -> d.temperature_2m_min));
+        merged.precipitation_sum = doubles(rows, statistic, column(sections, d -> d.precipitation_sum));
+        merged.wind_speed_10m_max = doubles(rows, statistic, column(sections, d -> d.wind_speed_10m_max));
+        merged.uv_index_max = doubles(rows, statistic, column(sections, d -> d.uv_index_max));
+        merged.weathercode = codes(rows, statistic, column(sections, d -> d.weathercode));
+        merged.precipitation_probability_max = ints(rows, statistic, column(sections, d -> d.precipitation_probability_max));
+        merged.wind_direction_10m_dominant = directions(rows, column(sections, d -> d.wind_direction_10m_dominant));
+        merged.sunrise = reference.sunrise;
+        merged.sunset = reference.sunset;
+        return merged;
+    }
+
+    /**
+     * Returns one column of every member, null for a member without the section
+     */
+    private static <S, C> List<C> column(List<S> sections, Function<S, C> getter) {
+        List<C> columns = new ArrayList<>(sections.size());
+        for (S section : sections) {
+            columns.add(section != null ? getter.apply(section) : null);
+        }
+        return columns;
+    }
+
+    /**
+     * Returns, per member, the row matching each reference row or -1 where the member has none
+     */
+    private static int[][] align(long[] reference, List<long[]> times) {
+        int length = reference != null ? reference.length : 0;
+        int[][] rows = new int[times.size()][length];
+        for (int m = 0; m < times.size(); m++) {
+            long[] time = times.get(m);
+            for (int i = 0; i < length; i++) {
+                int row = time != null ? ForecastView.lowerBound(time, reference[i]) : -1;
+                rows[m][i] = row >= 0 && row < time.length && time[row] == reference[i] ? row : -1;
+            }
+        }
+        return rows;
+    }
+
+    private static double[] doubles(int[][] rows, Statistic statistic, List<double[]> columns) {
+        if (columns.get(0) == null) {
+            return null;
+        }
+        double[] merged = new double[rows[0].length];
+        for (int i = 0; i < merged.length; i++) {
+            int count = 0;
+            double sum = 0;
+            double low = Double.POSITIVE_INFINITY;
+            double high = Double.NEGATIVE_INFINITY;
+            for (int m = 0; m < columns.size(); m++) {
+                double[] column = columns.get(m);
+                int row = rows[m][i];
+                if (column == null || row < 0 || row >= column.length || MissingValues.isMissing(column[row])) {
+                    continue;
+                }
+                double value = column[row];
+                count++;
+                sum += value;
+                low = Math.min(low, value);
+                high = Math.max(high, value);
+            }
+            if (count == 0) {
+                merged[i] = Double.NaN;
+            } else {
+                merged[i] = statistic == Statistic.MIN ? low : statistic == Statistic.MAX ? high : sum / count;
+            }
+        }
+        return merged;
+    }
+
+    private static int[] ints(int[][] rows, Statistic statistic, List<int[]> columns) {
+        if (columns.get(0) == null) {
+            return null;
+        }
+        int[] merged = new int[rows[0].length];
+        for (int i = 0; i < merged.length; i++) {
+            int count = 0;
+            long sum = 0;
+            int low = Integer.MAX_VALUE;
+            int high = Integer.MIN_VALUE;
+            for (int m = 0; m < columns.size(); m++) {
+                int[] column = columns.get(m);
+                int row = rows[m][i];
+                if (!hasValue(column, row)) {
+                    continue;
+                }
+                count++;
+                sum += column[row];
+                low = Math.min(low, column[row]);
+                high = Math.max(high, column[row]);
+            }
+            if (count == 0) {
+                merged[i] = MissingValues.INT;
+            } else {
+                merged[i] = statistic == Statistic.MIN ? low
+                    : statistic == Statistic.MAX ? high : (int) Math.round((double) sum / count);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Weather codes are categories, so the mean is their mode; higher codes are the more severe weather
+     */
+    private static int[] codes(int[][] rows, Statistic statistic, List<int[]> columns) {
+        if (statistic != Statistic.MEAN) {
+            return ints(rows, statistic, columns);
+        }
+        if (columns.get(0) == null) {
+            return null;
+        }
+        int[] merged = new int[rows[0].length];
+        int[] votes = new int[columns.size()];
+        for (int i = 0; i < merged.length; i++) {
+            int count = 0;
+            for (int m = 0; m < columns.size(); m++) {
+                int[] column = columns.get(m);
+                int row = rows[m][i];
+                if (hasValue(column, row)) {
+                    votes[count++] = column[row];
+                }
+            }
+            int best = MissingValues.INT;
+            int bestCount = 0;
+            for (int a = 0; a < count; a++) {
+                int frequency = 0;
+                for (int b = 0; b < count; b++) {
+                    if (votes[b] == votes[a]) {
+                        frequency++;
+                    }
+                }
+                if (frequency > bestCount || (frequency == bestCount && votes[a] > best)) {
+                    best = votes[a];
+                    bestCount = frequency;
+                }
+            }
+            merged[i] = best;
+        }
+        return merged;
+    }
+
+    /**
+     * Directions in degrees are averaged as unit vectors, so 350 and 10 give 0 rather than 180
+     * Every statistic uses the circular mean: the smallest and largest direction have no meaning.
+     */
+    private static int[] directions(int[][] rows, List<int[]> columns) {
+        if (columns.get(0) == null) {
+            return null;
+        }
+        int[] merged = new int[rows[0].length];
+        for (int i = 0; i < merged.length; i++) {
+            int count = 0;
+            double x = 0;
+            double y = 0;
+            for (int m = 0; m < columns.size(); m++) {
+                int[] column = columns.get(m);
+                int row = rows[m][i];
+                if (hasValue(column, row)) {
+                    double radians = Math.toRadians(column[row]);
+                    x += Math.cos(radians);
+                    y += Math.sin(radians);
+                    count++;
+                }
+            }
+            if (count == 0) {
+                merged[i] = MissingValues.INT;
+                continue;
+            }
+            int degrees = (int) Math.round(Math.toDegrees(Math.atan2(y, x)));
+            merged[i] = Math.floorMod(degrees, 360);
+        }
+        return merged;
+    }
+
+    private static boolean hasValue(int[] column, int row) {
+        return column != null && row >= 0 && row < column.length && !MissingValues.isMissing(column[row]);
+    }
+}
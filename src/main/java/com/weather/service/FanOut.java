@@ -0,0 +1,92 @@
+package com.weather.service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Which forecast providers WeatherService asks, and how their answers are combined
+ *
+ * FASTEST sends every request to all providers and keeps the first complete
+ * response, cutting tail latency with mirrors or self-hosted instances.
+ * ENSEMBLE waits for all of them and merges the responses into an
+ * EnsembleForecast, typically across models. Either way the whole fan-out
+ * shares one deadline: FASTEST fails if nothing arrived by then, ENSEMBLE
+ * merges whatever has arrived. A single provider is asked directly and is
+ * bounded by its ResilientSender deadline alone.
+ */
+public final class FanOut {
+
+    public enum Policy {
+        FASTEST,
+        ENSEMBLE
+    }
+
+    /**
+     * The public Open-Meteo API alone, which is the same as no fan-out
+     */
+    public static final FanOut DEFAULT = single(ForecastProvider.OPEN_METEO);
+
+    private final List<ForecastProvider> providers;
+    private final Policy policy;
+    private final Duration deadline;
+
+    private FanOut(List<ForecastProvider> providers, Policy policy, Duration deadline) {
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("At least one forecast provider is required");
+        }
+        this.providers = List.copyOf(providers);
+        this.policy = policy;
+        this.deadline = deadline;
+    }
+
+    public static FanOut single(ForecastProvider provider) {
+        return new FanOut(List.of(provider), Policy.FASTEST, ResiliencePolicy.DEFAULT.getDeadline());
+    }
+
+    public static FanOut fastest(List<ForecastProvider> providers, Duration deadline) {
+        return new FanOut(providers, Policy.FASTEST, deadline);
+    }
+
+    public static FanOut ensemble(List<ForecastProvider> providers, Duration deadline) {
+        return new FanOut(providers, Policy.ENSEMBLE, deadline);
+    }
+
+    public List<ForecastProvider> getProviders() {
+        return providers;
+    }
+
+    /**
+     * Returns the provider used where only one can be, such as conditional revalidation
+     */
+    public ForecastProvider getPrimary() {
+        return providers.get(0);
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public Duration getDeadline() {
+        return deadline;
+    }
+
+    public boolean isSingle() {
+        return providers.size() == 1;
+    }
+
+    /**
+     * Returns a cache key part telling apart forecasts that may differ, empty for the API's default model
+     * Mirrors raced under FASTEST serve the same forecast, so only their models count there.
+     */
+    String cacheKey() {
+        StringBuilder key = new StringBuilder();
+        for (ForecastProvider provider : providers) {
+            if (policy == Policy.ENSEMBLE) {
+                key.append(key.length() == 0 ? "ensemble:" : ",").append(provider);
+            } else if (provider.getModel() != null) {
+                key.append(key.length() == 0 ? "models:" : ",").append(provider.getModel());
+            }
+        }
+        return key.toString();
+    }
+}
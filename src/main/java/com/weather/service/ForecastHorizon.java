@@ -0,0 +1,81 @@
+package com.weather.service;
+
+import java.util.Objects;
+
+/**
+ * How much of the forecast timeline to request
+ *
+ * Open-Meteo returns 7 days of hourly rows by default. Most views need far
+ * less, and the size of the response (and the time to parse it) grows with
+ * every hour requested. Only the console report is trimmed; everything that
+ * hands the forecast on (the server, machine output, analytics) uses FULL.
+ */
+public final class ForecastHorizon {
+
+    /**
+     * A week of hours from the current hour, and seven days
+     */
+    public static final ForecastHorizon FULL = new ForecastHorizon(168, 7, 0);
+
+    /**
+     * The console report: the current hour and the twelve after it, and seven days
+     */
+    public static final ForecastHorizon REPORT = new ForecastHorizon(13, 7, 0);
+
+    private final int forecastHours;
+    private final int forecastDays;
+    private final int pastHours;
+
+    /**
+     * @param forecastHours Hourly rows from the start of the current hour
+     * @param forecastDays Daily rows from today
+     * @param pastHours Hourly rows before the current hour
+     */
+    public ForecastHorizon(int forecastHours, int forecastDays, int pastHours) {
+        if (forecastHours <= 0 || forecastDays <= 0 || pastHours < 0) {
+            throw new IllegalArgumentException("Invalid forecast horizon");
+        }
+        this.forecastHours = forecastHours;
+        this.forecastDays = forecastDays;
+        this.pastHours = pastHours;
+    }
+
+    public int getForecastHours() {
+        return forecastHours;
+    }
+
+    public int getForecastDays() {
+        return forecastDays;
+    }
+
+    public int getPastHours() {
+        return pastHours;
+    }
+
+    /**
+     * Returns the query parameters selecting this horizon
+     */
+    public String toQuery() {
+        return "&forecast_days=" + forecastDays + "&forecast_hours=" + forecastHours + "&past_hours=" + pastHours;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ForecastHorizon)) return false;
+        ForecastHorizon other = (ForecastHorizon) o;
+        return forecastHours == other.forecastHours
+            && forecastDays == other.forecastDays
+            && pastHours == other.pastHours;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(forecastHours, forecastDays, pastHours);
+    }
+
+    @Override
+    public String toString() {
+        return forecastHours + "h/" + forecastDays + "d/-" + pastHours + "h";
+    }
+}
@@ -0,0 +1,83 @@
+package com.weather.service;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * An Open-Meteo compatible forecast endpoint, optionally pinned to one weather model
+ *
+ * Mirrors and self-hosted instances serve the same API under another base
+ * URL; a model name is passed as the models= parameter.
+ */
+public final class ForecastProvider {
+
+    public static final ForecastProvider OPEN_METEO = new ForecastProvider("https://api.open-meteo.com/v1/forecast", null);
+
+    private final String baseUrl;
+    private final String model;
+
+    private ForecastProvider(String baseUrl, String model) {
+        URI uri = URI.create(baseUrl);
+        if (uri.getHost() == null || uri.getQuery() != null) {
+            throw new IllegalArgumentException("Invalid forecast URL: " + baseUrl);
+        }
+        this.baseUrl = baseUrl;
+        this.model = model;
+    }
+
+    /**
+     * Returns a provider for the forecast endpoint at the URL, e.g. http://weather.internal:8080/v1/forecast
+     */
+    public static ForecastProvider of(String baseUrl) {
+        return new ForecastProvider(baseUrl, null);
+    }
+
+    /**
+     * Returns this endpoint restricted to one model, e.g. "ecmwf_ifs025"
+     */
+    public ForecastProvider withModel(String model) {
+        return new ForecastProvider(baseUrl, model);
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    String getHost() {
+        return URI.create(baseUrl).getHost();
+    }
+
+    /**
+     * Returns the model requested, or null for the endpoint's best match
+     */
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the query parameters this provider adds to every request
+     */
+    String toQuery() {
+        return model != null ? "&models=" + URLEncoder.encode(model, StandardCharsets.UTF_8) : "";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ForecastProvider)) return false;
+        ForecastProvider other = (ForecastProvider) o;
+        return baseUrl.equals(other.baseUrl) && Objects.equals(model, other.model);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(baseUrl, model);
+    }
+
+    @Override
+    public String toString() {
+        return model != null ? baseUrl + "#" + model : baseUrl;
+    }
+}
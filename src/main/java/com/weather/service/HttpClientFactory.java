@@ -0,0 +1,56 @@
+package com.weather.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the HttpClient shared by all services
+ *
+ * Requests are sent with sendAsync, so no thread waits on a response. The
+ * client's executor only runs response handling and dependent stages. It uses
+ * virtual threads when the runtime provides them (Java 21+) and a pool of
+ * daemon threads otherwise.
+ *
+ * HTTP/2 is requested explicitly: every service shares this client, so all
+ * requests to a host are multiplexed over one pooled connection instead of
+ * each paying its own handshake.
+ *
+ * The connect timeout belongs to the client rather than a request, so it is
+ * taken from the default ResiliencePolicy.
+ */
+public final class HttpClientFactory {
+
+    private HttpClientFactory() {
+    }
+
+    public static HttpClient create() {
+        return HttpClient.newBuilder()
+            .executor(newExecutor())
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(ResiliencePolicy.DEFAULT.getConnectTimeout())
+            .build();
+    }
+
+    /**
+     * Returns a virtual-thread-per-task executor if available, otherwise a cached daemon pool
+     */
+    public static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class))
+                .invoke();
+        } catch (Throwable e) {
+            AtomicInteger threadCount = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "weather-http-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.weather.service;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of recent response latencies for one host
+ *
+ * Keeps the last {@value #WINDOW} samples in a ring buffer. Percentiles are
+ * computed on demand by sorting a copy, which is cheap at this size.
+ */
+public class LatencyTracker {
+
+    static final int WINDOW = 128;
+    static final int MIN_SAMPLES = 16;
+
+    private final long[] samples = new long[WINDOW];
+    private int count;
+    private int next;
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % WINDOW;
+        if (count < WINDOW) {
+            count++;
+        }
+    }
+
+    /**
+     * Returns the latency at the given percentile in nanoseconds, or -1 with too few samples
+     */
+    public synchronized long percentile(double percentile) {
+        if (count < MIN_SAMPLES) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * count) - 1;
+        return sorted[Math.max(0, Math.min(index, count - 1))];
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+}
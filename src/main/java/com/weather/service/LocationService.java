@@ -1,15 +1,24 @@
 package com.weather.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather.cache.GeocodingIndex;
+import com.weather.cache.LocationCache;
+import com.weather.gazetteer.Gazetteer;
 import com.weather.model.GeocodingResponse;
 import com.weather.model.IpLocationResponse;
 import com.weather.model.Location;
 import com.weather.model.LocationResult;
+import com.weather.timing.GeocodeEvent;
+import com.weather.timing.IpLookupEvent;
 
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Service for resolving locations via IP geolocation or geocoding
@@ -19,60 +28,235 @@ public class LocationService extends BaseHttpService {
     private static final String IP_LOCATION_URL = "http://ip-api.com/json";
     private static final String GEOCODING_BASE_URL = "https://geocoding-api.open-meteo.com/v1/search";
     private static final String GEOCODING_PARAMS = "&count=10&language=en&format=json";
+    private static final String IP_LOCATION_KEY = "ip";
+    // A machine can move between networks, places cannot
+    private static final Duration IP_LOCATION_TTL = Duration.ofMinutes(10);
+    private static final Duration GEOCODE_TTL = Duration.ofDays(30);
+    // Shorter prefixes match too many places to stand for one
+    private static final int MIN_PREFIX_LENGTH = 3;
+    // Geocoding requests in flight for one multi-location lookup
+    private static final int MAX_CONCURRENT_GEOCODES = 8;
+
+    private final GeocodingIndex geocodingIndex;
+    private final LocationCache locationCache;
+    private final Gazetteer gazetteer;
+    private final RequestCoalescer<String, Location> geocodeCoalescer = new RequestCoalescer<>();
+    private final RequestCoalescer<Boolean, Location> ipLocationCoalescer = new RequestCoalescer<>();
 
     public LocationService(HttpClient client, ObjectMapper mapper) {
+        this(client, mapper, null);
+    }
+
+    /**
+     * @param geocodingIndex Local index answering repeated queries, or null to always use the API
+     */
+    public LocationService(HttpClient client, ObjectMapper mapper, GeocodingIndex geocodingIndex) {
+        this(client, mapper, geocodingIndex, LocationCache.NONE);
+    }
+
+    /**
+     * @param geocodingIndex Local index answering repeated queries, or null to always use the API
+     * @param locationCache Cache of resolved locations consulted before the index and the APIs
+     */
+    public LocationService(HttpClient client, ObjectMapper mapper, GeocodingIndex geocodingIndex,
+            LocationCache locationCache) {
+        this(client, mapper, geocodingIndex, locationCache, null);
+    }
+
+    /**
+     * @param gazetteer Offline place dataset tried before the API, or null to skip it
+     */
+    public LocationService(HttpClient client, ObjectMapper mapper, GeocodingIndex geocodingIndex,
+            LocationCache locationCache, Gazetteer gazetteer) {
         super(client, mapper);
+        this.geocodingIndex = geocodingIndex;
+        this.locationCache = locationCache;
+        this.gazetteer = gazetteer;
+    }
+
+    /**
+     * Returns the counters of geocoding requests sent versus joined while in flight
+     */
+    public RequestCoalescer<String, Location> getGeocodeCoalescer() {
+        return geocodeCoalescer;
+    }
+
+    /**
+     * Returns the counters of IP location requests sent versus joined while in flight
+     */
+    public RequestCoalescer<Boolean, Location> getIpLocationCoalescer() {
+        return ipLocationCoalescer;
     }
 
     /**
      * Gets location based on the user's IP address
      */
     public Location getLocationFromIp() throws Exception {
-        IpLocationResponse locData = performGetRequest(
+        return await(getLocationFromIpAsync());
+    }
+
+    /**
+     * Gets location based on the user's IP address without blocking
+     */
+    public CompletableFuture<Location> getLocationFromIpAsync() {
+        IpLookupEvent event = new IpLookupEvent();
+        event.start();
+        Location cached = locationCache.getLocation(IP_LOCATION_KEY);
+        if (cached != null) {
+            event.source = "cache";
+            event.finish();
+            return CompletableFuture.completedFuture(cached);
+        }
+        
+        event.source = "network";
+        return ipLocationCoalescer.execute(Boolean.TRUE, () -> performGetRequestAsync(
             IP_LOCATION_URL, 
             IpLocationResponse.class, 
             "Failed to get location from IP"
-        );
-        
-        if (!"success".equals(locData.status)) {
-            throw new LocationServiceException("Location service error");
-        }
-        
-        return new Location(
-            locData.lat,
-            locData.lon,
-            locData.city,
-            locData.regionName,
-            locData.country
-        );
+        ).thenApply(locData -> {
+            if (!"success".equals(locData.status)) {
+                throw new CompletionException(new LocationServiceException("Location service error"));
+            }
+            
+            Location location = new Location(
+                locData.lat,
+                locData.lon,
+                locData.city,
+                locData.regionName,
+                locData.country
+            );
+            locationCache.putLocation(IP_LOCATION_KEY, location, IP_LOCATION_TTL);
+            return location;
+        })).whenComplete((location, failure) -> {
+            event.failed = failure != null;
+            event.finish();
+        });
     }
 
     /**
      * Geocodes a location query string to get coordinates and location details
+     * Queries matching the offline gazetteer or already in the geocoding index,
+     * or a prefix of exactly one place in the index, are answered without a request
      */
     public Location geocodeLocation(String locationQuery) throws Exception {
+        return await(geocodeLocationAsync(locationQuery));
+    }
+
+    /**
+     * Geocodes a location query string without blocking
+     */
+    public CompletableFuture<Location> geocodeLocationAsync(String locationQuery) {
+        GeocodeEvent event = new GeocodeEvent();
+        event.start();
+        event.query = locationQuery;
+        String cacheKey = "q:" + GeocodingIndex.normalize(locationQuery);
+        Location cached = locationCache.getLocation(cacheKey);
+        if (cached != null) {
+            return completed(event, "cache", cached);
+        }
+        
+        if (gazetteer != null) {
+            LocationResult place = gazetteer.find(locationQuery);
+            if (place != null) {
+                Location location = toLocation(place);
+                locationCache.putLocation(cacheKey, location, GEOCODE_TTL);
+                return completed(event, "gazetteer", location);
+            }
+        }
+        
+        if (geocodingIndex != null) {
+            List<LocationResult> indexed = geocodingIndex.lookup(locationQuery);
+            if (indexed != null && !indexed.isEmpty()) {
+                Location location = toLocation(indexed.get(0));
+                locationCache.putLocation(cacheKey, location, GEOCODE_TTL);
+                return completed(event, "index", location);
+            }
+            // A partial name that fits exactly one place seen before needs no request either
+            if (GeocodingIndex.normalize(locationQuery).length() >= MIN_PREFIX_LENGTH) {
+                List<LocationResult> prefixed = geocodingIndex.findByPrefix(locationQuery);
+                if (prefixed.size() == 1) {
+                    Location location = toLocation(prefixed.get(0));
+                    locationCache.putLocation(cacheKey, location, GEOCODE_TTL);
+                    return completed(event, "index", location);
+                }
+            }
+        }
+        
+        event.source = "network";
         String geocodeUrl = GEOCODING_BASE_URL + "?name=" + 
             URLEncoder.encode(locationQuery, StandardCharsets.UTF_8) + 
             GEOCODING_PARAMS;
         
-        GeocodingResponse geoData = performGetRequest(
+        // Concurrent lookups of the same normalized query share one request
+        return geocodeCoalescer.execute(GeocodingIndex.normalize(locationQuery), () -> performGetRequestAsync(
             geocodeUrl, 
             GeocodingResponse.class, 
             "Failed to geocode location: " + locationQuery
-        );
-        
-        List<LocationResult> results = geoData.results;
-        
-        if (results == null || results.isEmpty()) {
-            throw new LocationNotFoundException(
-                "Location not found: " + locationQuery + "\n" +
-                "Try a different format, e.g., 'Pomona' or 'London'\n" +
-                "For US cities with common names, try: 'CityName StateName'"
-            );
+        ).thenApply(geoData -> {
+            List<LocationResult> results = geoData.results;
+            
+            if (results == null || results.isEmpty()) {
+                throw new CompletionException(new LocationNotFoundException(
+                    "Location not found: " + locationQuery + "\n" +
+                    "Try a different format, e.g., 'Pomona' or 'London'\n" +
+                    "For US cities with common names, try: 'CityName StateName'"
+                ));
+            }
+            
+            if (geocodingIndex != null) {
+                geocodingIndex.record(locationQuery, results);
+            }
+            
+            // Use the first result (best match)
+            Location location = toLocation(results.get(0));
+            locationCache.putLocation(cacheKey, location, GEOCODE_TTL);
+            return location;
+        })).whenComplete((location, failure) -> {
+            event.failed = failure != null;
+            event.finish();
+        });
+    }
+
+    /**
+     * Geocodes many queries without blocking, returning locations in query order
+     *
+     * Queries answered locally complete at once; the rest are sent over at most
+     * {@value #MAX_CONCURRENT_GEOCODES} concurrent lanes, each lane sending its
+     * next query when the previous one completes. The first failure fails the whole lookup.
+     */
+    public CompletableFuture<List<Location>> geocodeLocationsAsync(List<String> queries) {
+        List<CompletableFuture<Location>> futures = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            CompletableFuture<?> previous = i < MAX_CONCURRENT_GEOCODES
+                ? CompletableFuture.completedFuture(null)
+                : futures.get(i - MAX_CONCURRENT_GEOCODES).handle((location, failure) -> null);
+            String query = queries.get(i);
+            futures.add(previous.thenCompose(ignored -> geocodeLocationAsync(query)));
         }
-        
-        // Use the first result (best match)
-        LocationResult location = results.get(0);
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+            .thenApply(ignored -> {
+                List<Location> locations = new ArrayList<>(futures.size());
+                for (CompletableFuture<Location> future : futures) {
+                    locations.add(future.join());
+                }
+                return locations;
+            });
+    }
+
+    /**
+     * Geocodes many queries concurrently; see geocodeLocationsAsync
+     */
+    public List<Location> geocodeLocations(List<String> queries) throws Exception {
+        return await(geocodeLocationsAsync(queries));
+    }
+
+    private static CompletableFuture<Location> completed(GeocodeEvent event, String source, Location location) {
+        event.source = source;
+        event.finish();
+        return CompletableFuture.completedFuture(location);
+    }
+
+    private static Location toLocation(LocationResult location) {
         return new Location(
             location.latitude,
             location.longitude,
@@ -0,0 +1,71 @@
+package com.weather.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of concurrent identical requests
+ *
+ * While a request for a key is in flight, further callers with the same key
+ * share its result instead of starting their own. Every caller gets its own
+ * dependent future, so a caller that cancels or applies a timeout (orTimeout)
+ * does not affect the others, while the shared result or failure reaches all
+ * of them. The key is released as soon as the request completes, so later
+ * callers start a fresh request.
+ */
+public class RequestCoalescer<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder originated = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Joins the in-flight request for the key, or starts one with the given supplier
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> request) {
+        CompletableFuture<V> shared = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.copy();
+        }
+
+        originated.increment();
+        CompletableFuture<V> upstream;
+        try {
+            upstream = request.get();
+        } catch (RuntimeException e) {
+            upstream = CompletableFuture.failedFuture(e);
+        }
+        upstream.whenComplete((value, failure) -> {
+            // Release the key before completing so callbacks that retry start a new request
+            inFlight.remove(key, shared);
+            if (failure != null) {
+                shared.completeExceptionally(failure);
+            } else {
+                shared.complete(value);
+            }
+        });
+        return shared.copy();
+    }
+
+    /**
+     * Number of requests that were actually sent
+     */
+    public long getOriginatedCount() {
+        return originated.sum();
+    }
+
+    /**
+     * Number of calls that joined a request already in flight
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,202 @@
+package com.weather.service;
+
+import java.time.Duration;
+
+/**
+ * Timeouts, retries, hedging and circuit breaking for requests to one host
+ *
+ * Every request gets a per-attempt timeout (until response headers) and the
+ * whole call, retries included, a deadline. Failed attempts (I/O errors,
+ * timeouts, 408, 429 and 5xx) are retried with exponential backoff and full
+ * jitter. With hedging enabled, an attempt still unanswered after the host's
+ * recent latency percentile gets a duplicate, and the first good response
+ * wins; it is off by default since it can double the load on a slow host. After
+ * enough consecutive failures the host's circuit opens and calls fail fast
+ * until the open period has passed.
+ */
+public final class ResiliencePolicy {
+
+    public static final ResiliencePolicy DEFAULT = builder().build();
+
+    /**
+     * Default timeouts only: a single attempt and no circuit breaker
+     */
+    public static final ResiliencePolicy NONE = builder()
+        .maxAttempts(1)
+        .hedging(false)
+        .breakerFailureThreshold(0)
+        .build();
+
+    /**
+     * The default with hedging enabled
+     */
+    public static final ResiliencePolicy HEDGED = builder().hedging(true).build();
+
+    private final Duration connectTimeout;
+    private final Duration requestTimeout;
+    private final Duration deadline;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final boolean hedging;
+    private final double hedgePercentile;
+    private final Duration minHedgeDelay;
+    private final Duration initialHedgeDelay;
+    private final int breakerFailureThreshold;
+    private final Duration breakerOpenDuration;
+
+    private ResiliencePolicy(Builder builder) {
+        this.connectTimeout = builder.connectTimeout;
+        this.requestTimeout = builder.requestTimeout;
+        this.deadline = builder.deadline;
+        this.maxAttempts = builder.maxAttempts;
+        this.baseBackoff = builder.baseBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.hedging = builder.hedging;
+        this.hedgePercentile = builder.hedgePercentile;
+        this.minHedgeDelay = builder.minHedgeDelay;
+        this.initialHedgeDelay = builder.initialHedgeDelay;
+        this.breakerFailureThreshold = builder.breakerFailureThreshold;
+        this.breakerOpenDuration = builder.breakerOpenDuration;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public Duration getDeadline() {
+        return deadline;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public Duration getBaseBackoff() {
+        return baseBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public boolean isHedging() {
+        return hedging;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public Duration getMinHedgeDelay() {
+        return minHedgeDelay;
+    }
+
+    /**
+     * Hedge delay used until enough latencies have been observed for the percentile
+     */
+    public Duration getInitialHedgeDelay() {
+        return initialHedgeDelay;
+    }
+
+    /**
+     * Consecutive failures that open the circuit, or 0 to never open it
+     */
+    public int getBreakerFailureThreshold() {
+        return breakerFailureThreshold;
+    }
+
+    public Duration getBreakerOpenDuration() {
+        return breakerOpenDuration;
+    }
+
+    public static final class Builder {
+        private Duration connectTimeout = Duration.ofSeconds(3);
+        private Duration requestTimeout = Duration.ofSeconds(5);
+        private Duration deadline = Duration.ofSeconds(12);
+        private int maxAttempts = 3;
+        private Duration baseBackoff = Duration.ofMillis(200);
+        private Duration maxBackoff = Duration.ofSeconds(2);
+        private boolean hedging = false;
+        private double hedgePercentile = 0.95;
+        private Duration minHedgeDelay = Duration.ofMillis(50);
+        private Duration initialHedgeDelay = Duration.ofSeconds(1);
+        private int breakerFailureThreshold = 5;
+        private Duration breakerOpenDuration = Duration.ofSeconds(30);
+
+        private Builder() {
+        }
+
+        /**
+         * Applies to the shared HttpClient, see HttpClientFactory
+         */
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        public Builder deadline(Duration deadline) {
+            this.deadline = deadline;
+            return this;
+        }
+
+        public Builder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder backoff(Duration baseBackoff, Duration maxBackoff) {
+            this.baseBackoff = baseBackoff;
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        public Builder hedging(boolean hedging) {
+            this.hedging = hedging;
+            return this;
+        }
+
+        public Builder hedgeAfter(double percentile, Duration minDelay, Duration initialDelay) {
+            this.hedgePercentile = percentile;
+            this.minHedgeDelay = minDelay;
+            this.initialHedgeDelay = initialDelay;
+            return this;
+        }
+
+        public Builder breakerFailureThreshold(int breakerFailureThreshold) {
+            this.breakerFailureThreshold = breakerFailureThreshold;
+            return this;
+        }
+
+        public Builder breakerOpenDuration(Duration breakerOpenDuration) {
+            this.breakerOpenDuration = breakerOpenDuration;
+            return this;
+        }
+
+        public ResiliencePolicy build() {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be at least 1");
+            }
+            if (hedgePercentile <= 0 || hedgePercentile >= 1) {
+                throw new IllegalArgumentException("hedgePercentile must be between 0 and 1");
+            }
+            if (breakerFailureThreshold < 0) {
+                throw new IllegalArgumentException("breakerFailureThreshold must not be negative");
+            }
+            return new ResiliencePolicy(this);
+        }
+    }
+}
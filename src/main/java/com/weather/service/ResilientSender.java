@@ -0,0 +1,365 @@
+package com.weather.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends idempotent GET requests under each host's ResiliencePolicy
+ *
+ * Every host has its own policy (the default unless one is set), circuit
+ * breaker and latency window. A call is made of up to maxAttempts attempts
+ * within the policy's deadline, and its response body must be read by then
+ * too: reading it afterwards fails with HttpTimeoutException. When the policy
+ * enables hedging, if no usable response has arrived after the host's latency
+ * percentile, the same request is sent again and whichever good response
+ * arrives first is kept; the other is discarded when it arrives. The copy
+ * needs the circuit breaker's permission like any attempt. Responses
+ * with a retryable status are passed back unchanged once attempts run out, so
+ * callers still see the status. Running out of deadline is not held against
+ * the host's circuit breaker, and neither is a call its caller cancelled:
+ * cancelling the returned future aborts the exchanges still in flight and
+ * makes no further attempts.
+ */
+public class ResilientSender {
+
+    private final HttpClient client;
+    private final ResiliencePolicy defaultPolicy;
+    private final Clock clock;
+    private final Map<String, ResiliencePolicy> policies = new ConcurrentHashMap<>();
+    private final Map<String, HostState> hosts = new ConcurrentHashMap<>();
+
+    public ResilientSender(HttpClient client) {
+        this(client, ResiliencePolicy.DEFAULT, Clock.systemUTC());
+    }
+
+    public ResilientSender(HttpClient client, ResiliencePolicy defaultPolicy, Clock clock) {
+        this.client = client;
+        this.defaultPolicy = defaultPolicy;
+        this.clock = clock;
+    }
+
+    /**
+     * Sets the policy for one host, resetting its breaker and latency window
+     */
+    public void setPolicy(String host, ResiliencePolicy policy) {
+        policies.put(host, policy);
+        hosts.remove(host);
+    }
+
+    public ResiliencePolicy getPolicy(String host) {
+        return policies.getOrDefault(host, defaultPolicy);
+    }
+
+    public CircuitBreaker.State getCircuitState(String host) {
+        return state(host).breaker.getState();
+    }
+
+    public LatencyTracker getLatencies(String host) {
+        return state(host).latencies;
+    }
+
+    /**
+     * Sends the request and completes with the first usable response, or the last failure
+     */
+    public CompletableFuture<HttpResponse<InputStream>> send(HttpRequest request) {
+        String host = request.uri().getHost();
+        HostState state = state(host);
+        long deadline = System.nanoTime() + state.policy.getDeadline().toNanos();
+        Call call = new Call();
+        attempt(request, host, state, 1, deadline, call).whenComplete((response, failure) -> {
+            if (failure != null) {
+                call.outcome.completeExceptionally(unwrap(failure));
+            } else if (!call.outcome.complete(response)) {
+                // Cancelled while the response arrived
+                closeQuietly(response.body());
+            }
+        });
+        return call.outcome;
+    }
+
+    private HostState state(String host) {
+        return hosts.computeIfAbsent(host, h -> new HostState(getPolicy(h), clock));
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> attempt(HttpRequest request, String host,
+            HostState state, int attempt, long deadline, Call call) {
+        ResiliencePolicy policy = state.policy;
+        if (call.isCancelled()) {
+            return CompletableFuture.failedFuture(new CancellationException());
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return CompletableFuture.failedFuture(new HttpTimeoutException("Deadline exceeded for " + host));
+        }
+        if (!state.breaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new CircuitBreaker.OpenException(host));
+        }
+        // A timeout cut short by the deadline says more about the caller's budget than the host
+        boolean clipped = remaining < policy.getRequestTimeout().toNanos();
+        Duration timeout = Duration.ofNanos(Math.min(policy.getRequestTimeout().toNanos(), remaining));
+        HttpRequest timed = HttpRequest.newBuilder(request, (name, value) -> true).timeout(timeout).build();
+
+        return hedged(timed, state, deadline, call).handle((response, failure) -> {
+            Throwable cause = unwrap(failure);
+            boolean retryable = cause != null ? cause instanceof IOException : isRetryable(response.statusCode());
+            if (!retryable && cause == null) {
+                // Any other status means the host is up and answering
+                state.breaker.onSuccess();
+                return CompletableFuture.completedFuture(response);
+            }
+            if (call.isCancelled()) {
+                state.breaker.onAbandoned();
+                if (response != null) {
+                    closeQuietly(response.body());
+                }
+                return CompletableFuture.<HttpResponse<InputStream>>failedFuture(new CancellationException());
+            }
+            if (clipped && cause instanceof HttpTimeoutException) {
+                state.breaker.onAbandoned();
+            } else {
+                state.breaker.onFailure();
+            }
+            long backoff = backoffNanos(policy, attempt);
+            if (!retryable || attempt >= policy.getMaxAttempts() || System.nanoTime() + backoff >= deadline) {
+                return cause != null
+                    ? CompletableFuture.<HttpResponse<InputStream>>failedFuture(cause)
+                    : CompletableFuture.completedFuture(response);
+            }
+            if (response != null) {
+                closeQuietly(response.body());
+            }
+            return CompletableFuture.runAsync(() -> { },
+                    CompletableFuture.delayedExecutor(backoff, TimeUnit.NANOSECONDS))
+                .thenCompose(ignored -> attempt(request, host, state, attempt + 1, deadline, call));
+        }).thenCompose(next -> next);
+    }
+
+    /**
+     * Sends the request, and again if no usable response has arrived after the hedge delay
+     */
+    private CompletableFuture<HttpResponse<InputStream>> hedged(HttpRequest request, HostState state,
+            long deadline, Call call) {
+        ResiliencePolicy policy = state.policy;
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<InputStream>> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        HttpResponse.BodyHandler<InputStream> bodyHandler = info -> HttpResponse.BodySubscribers.mapping(
+            HttpResponse.BodySubscribers.ofInputStream(), body -> new DeadlineInputStream(body, deadline));
+
+        sendOnce(request, bodyHandler, state, start, result, pending, call);
+        if (policy.isHedging()) {
+            CompletableFuture.delayedExecutor(hedgeDelayNanos(state), TimeUnit.NANOSECONDS).execute(() -> {
+                // A half-open circuit lets only the first copy through as its trial
+                if (result.isDone() || call.isCancelled() || !state.breaker.tryAcquire()) {
+                    return;
+                }
+                // Counted only once it is sent, so a refused hedge cannot swallow the first copy's failure
+                pending.incrementAndGet();
+                sendOnce(request, bodyHandler, state, start, result, pending, call);
+            });
+        }
+        return result;
+    }
+
+    private void sendOnce(HttpRequest request, HttpResponse.BodyHandler<InputStream> bodyHandler,
+            HostState state, long start, CompletableFuture<HttpResponse<InputStream>> result,
+            AtomicInteger pending, Call call) {
+        call.track(client.sendAsync(request, bodyHandler)).whenComplete((response, failure) -> {
+            boolean usable = failure == null && !isRetryable(response.statusCode());
+            if (usable) {
+                if (result.complete(response)) {
+                    state.latencies.record(System.nanoTime() - start);
+                } else {
+                    // A hedge lost the race
+                    closeQuietly(response.body());
+                }
+                return;
+            }
+            if (pending.decrementAndGet() > 0 || result.isDone()) {
+                // Another copy of the request may still succeed
+                if (response != null) {
+                    closeQuietly(response.body());
+                }
+                return;
+            }
+            if (failure != null) {
+                result.completeExceptionally(unwrap(failure));
+            } else if (!result.complete(response)) {
+                closeQuietly(response.body());
+            }
+        });
+    }
+
+    private long hedgeDelayNanos(HostState state) {
+        ResiliencePolicy policy = state.policy;
+        long observed = state.latencies.percentile(policy.getHedgePercentile());
+        if (observed < 0) {
+            return policy.getInitialHedgeDelay().toNanos();
+        }
+        return Math.max(observed, policy.getMinHedgeDelay().toNanos());
+    }
+
+    /**
+     * Exponential backoff with full jitter: uniform in [0, min(max, base * 2^(attempt - 1))]
+     */
+    private static long backoffNanos(ResiliencePolicy policy, int attempt) {
+        long base = policy.getBaseBackoff().toNanos();
+        long cap = policy.getMaxBackoff().toNanos();
+        long ceiling = attempt >= 32 ? cap : Math.min(cap, base << (attempt - 1));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Request timeout, throttling and server errors are worth another attempt
+     */
+    static boolean isRetryable(int status) {
+        return status == 408 || status == 429 || status >= 500;
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        while (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        return failure;
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            // Discarded response
+        }
+    }
+
+    /**
+     * Response body that is closed when the call's deadline passes, failing any read still in progress
+     */
+    private static final class DeadlineInputStream extends FilterInputStream {
+        private volatile boolean expired;
+        private volatile boolean done;
+
+        DeadlineInputStream(InputStream in, long deadline) {
+            super(in);
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                expire();
+            } else {
+                CompletableFuture.delayedExecutor(remaining, TimeUnit.NANOSECONDS).execute(this::expire);
+            }
+        }
+
+        private void expire() {
+            if (!done) {
+                expired = true;
+                closeQuietly(in);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            check();
+            try {
+                return finished(in.read());
+            } catch (IOException e) {
+                throw expired ? timeout() : e;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            check();
+            try {
+                return finished(in.read(b, off, len));
+            } catch (IOException e) {
+                throw expired ? timeout() : e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            done = true;
+            super.close();
+        }
+
+        /**
+         * Marks a clean end of the body; a stream closed mid-read may report one instead of failing
+         */
+        private int finished(int read) throws IOException {
+            if (read < 0) {
+                if (expired) {
+                    throw timeout();
+                }
+                done = true;
+            }
+            return read;
+        }
+
+        private void check() throws IOException {
+            if (expired) {
+                throw timeout();
+            }
+        }
+
+        private static HttpTimeoutException timeout() {
+            return new HttpTimeoutException("Response body not read by the deadline");
+        }
+    }
+
+    /**
+     * One call to send: cancelling its outcome cancels the exchanges it still has in flight
+     */
+    private static final class Call {
+        final CompletableFuture<HttpResponse<InputStream>> outcome = new CompletableFuture<>();
+        private final Set<CompletableFuture<?>> exchanges = ConcurrentHashMap.newKeySet();
+
+        Call() {
+            outcome.whenComplete((response, failure) -> {
+                if (outcome.isCancelled()) {
+                    exchanges.forEach(exchange -> exchange.cancel(true));
+                }
+            });
+        }
+
+        boolean isCancelled() {
+            return outcome.isCancelled();
+        }
+
+        <T> CompletableFuture<T> track(CompletableFuture<T> exchange) {
+            exchanges.add(exchange);
+            exchange.whenComplete((response, failure) -> exchanges.remove(exchange));
+            if (outcome.isCancelled()) {
+                // Cancelled before the exchange was registered
+                exchange.cancel(true);
+            }
+            return exchange;
+        }
+    }
+
+    private static final class HostState {
+        final ResiliencePolicy policy;
+        final CircuitBreaker breaker;
+        final LatencyTracker latencies = new LatencyTracker();
+
+        HostState(ResiliencePolicy policy, Clock clock) {
+            this.policy = policy;
+            this.breaker = new CircuitBreaker(policy.getBreakerFailureThreshold(),
+                policy.getBreakerOpenDuration().toMillis(), clock);
+        }
+    }
+}
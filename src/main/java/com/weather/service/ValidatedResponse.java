@@ -0,0 +1,131 @@
+package com.weather.service;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * A decoded response with the cache validators and freshness its headers gave
+ *
+ * Freshness follows HTTP caching: Cache-Control max-age (less Age) wins over
+ * Expires, which is taken relative to the response's Date so a skewed local
+ * clock does not matter. no-cache and no-store make the response stale at
+ * once. Without any of these the freshness is unknown and getFreshUntil()
+ * returns null, leaving the refresh schedule to the caller.
+ */
+public final class ValidatedResponse<T> {
+
+    private final T value;
+    private final String eTag;
+    private final String lastModified;
+    private final Instant freshUntil;
+    private final boolean notModified;
+
+    private ValidatedResponse(T value, String eTag, String lastModified, Instant freshUntil, boolean notModified) {
+        this.value = value;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+        this.freshUntil = freshUntil;
+        this.notModified = notModified;
+    }
+
+    /**
+     * Wraps a freshly received value
+     */
+    public static <T> ValidatedResponse<T> of(T value, HttpHeaders headers, Instant now) {
+        return new ValidatedResponse<>(value,
+            headers.firstValue("ETag").orElse(null),
+            headers.firstValue("Last-Modified").orElse(null),
+            freshUntil(headers, now),
+            false);
+    }
+
+    /**
+     * Returns this value confirmed by a 304 response, with any validators it sent replacing the old ones
+     */
+    public ValidatedResponse<T> revalidated(HttpHeaders headers, Instant now) {
+        return new ValidatedResponse<>(value,
+            headers.firstValue("ETag").orElse(eTag),
+            headers.firstValue("Last-Modified").orElse(lastModified),
+            freshUntil(headers, now),
+            true);
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns when the response stops being fresh, or null if the headers did not say
+     */
+    public Instant getFreshUntil() {
+        return freshUntil;
+    }
+
+    /**
+     * Returns true if the server answered 304 and the value is the one already held
+     */
+    public boolean isNotModified() {
+        return notModified;
+    }
+
+    static Instant freshUntil(HttpHeaders headers, Instant now) {
+        Optional<String> cacheControl = headers.firstValue("Cache-Control");
+        if (cacheControl.isPresent()) {
+            Long maxAge = null;
+            for (String directive : cacheControl.get().toLowerCase(Locale.ROOT).split(",")) {
+                directive = directive.trim();
+                if (directive.equals("no-cache") || directive.equals("no-store")) {
+                    return now;
+                }
+                if (directive.startsWith("max-age=")) {
+                    maxAge = parseSeconds(directive.substring("max-age=".length()));
+                }
+            }
+            if (maxAge != null) {
+                long age = headers.firstValue("Age").map(ValidatedResponse::parseSeconds).orElse(0L);
+                return now.plusSeconds(Math.max(0, maxAge - age));
+            }
+        }
+        Instant expires = headers.firstValue("Expires").map(ValidatedResponse::parseDate).orElse(null);
+        if (expires == null) {
+            return headers.firstValue("Expires").isPresent() ? now : null;
+        }
+        Instant date = headers.firstValue("Date").map(ValidatedResponse::parseDate).orElse(null);
+        if (date == null) {
+            return expires.isBefore(now) ? now : expires;
+        }
+        Duration lifetime = Duration.between(date, expires);
+        return lifetime.isNegative() ? now : now.plus(lifetime);
+    }
+
+    private static Long parseSeconds(String value) {
+        try {
+            return Long.parseLong(value.trim().replace("\"", ""));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    private static Instant parseDate(String value) {
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        } catch (DateTimeParseException e) {
+            // An invalid Expires means already expired
+            return null;
+        }
+    }
+}
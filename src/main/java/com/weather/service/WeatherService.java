@@ -1,42 +1,478 @@
 package com.weather.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather.cache.CacheStats;
+import com.weather.cache.ForecastCache;
+import com.weather.cache.ForecastKey;
 import com.weather.model.Location;
 import com.weather.model.WeatherResponse;
+import com.weather.timing.ForecastEvent;
 
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * Service for fetching weather data from Open-Meteo API
+ *
+ * Forecasts are always requested in the API's metric defaults (°C, km/h, mm);
+ * display units are applied locally by the formatter, so one response and one
+ * cache entry serve every unit choice.
+ *
+ * Only the variables the report and machine output use, over the configured
+ * ForecastHorizon, are requested; the API's defaults carry many more.
+ *
+ * Requests go to the providers of the configured FanOut: the public API by
+ * default, or several mirrors, self-hosted instances or models at once. With
+ * more than one provider every request (single or batch) is sent to all of
+ * them under the fan-out's deadline, and either the first complete answer is
+ * used or all answers are merged into their ensemble mean.
  */
 public class WeatherService extends BaseHttpService {
-    
-    private static final String WEATHER_BASE_URL = "https://api.open-meteo.com/v1/forecast";
+
+    private static final String DAILY_VARIABLES = 
+        "temperature_2m_max,temperature_2m_min,weathercode,precipitation_sum,precipitation_probability_max," +
+        "wind_speed_10m_max,wind_direction_10m_dominant,uv_index_max,sunrise,sunset";
+    private static final String HOURLY_VARIABLES = 
+        "temperature_2m,apparent_temperature,weathercode,precipitation_probability,relative_humidity_2m," +
+        "wind_speed_10m";
+    private static final String CANONICAL_UNITS = "metric";
+
+    // Coordinates per multi-location request, keeps URLs well below common length limits
+    private static final int BATCH_SIZE = 50;
+    private static final int MAX_CONCURRENT_BATCHES = 4;
+
+    private static final HttpHeaders NO_HEADERS = HttpHeaders.of(Map.of(), (name, value) -> true);
+
+    private final ForecastCache cache;
+    private final ForecastHorizon horizon;
+    private final FanOut fanOut;
+    private final String cacheVariables;
+    private final RequestCoalescer<ForecastKey, WeatherResponse> coalescer = new RequestCoalescer<>();
 
     public WeatherService(HttpClient client, ObjectMapper mapper) {
+        this(client, mapper, ForecastCache.NONE);
+    }
+
+    public WeatherService(HttpClient client, ObjectMapper mapper, ForecastCache cache) {
+        this(client, mapper, cache, ForecastHorizon.FULL);
+    }
+
+    /**
+     * @param horizon Hours and days of forecast to request
+     */
+    public WeatherService(HttpClient client, ObjectMapper mapper, ForecastCache cache, ForecastHorizon horizon) {
+        this(client, mapper, cache, horizon, FanOut.DEFAULT);
+    }
+
+    /**
+     * @param horizon Hours and days of forecast to request
+     * @param fanOut Providers to request forecasts from and how to combine their answers
+     */
+    public WeatherService(HttpClient client, ObjectMapper mapper, ForecastCache cache, ForecastHorizon horizon,
+            FanOut fanOut) {
         super(client, mapper);
+        this.cache = cache;
+        this.horizon = horizon;
+        this.fanOut = fanOut;
+        String providers = fanOut.cacheKey();
+        this.cacheVariables = DAILY_VARIABLES + "|" + HOURLY_VARIABLES + "|" + horizon
+            + (providers.isEmpty() ? "" : "|" + providers);
+    }
+
+    public ForecastHorizon getHorizon() {
+        return horizon;
+    }
+
+    public FanOut getFanOut() {
+        return fanOut;
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the forecast cache
+     */
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Returns the counters of forecast requests sent versus joined while in flight
+     */
+    public RequestCoalescer<ForecastKey, WeatherResponse> getCoalescer() {
+        return coalescer;
+    }
+
+    /**
+     * Connects to every provider ahead of the first forecast, e.g. while the location is being resolved
+     */
+    public CompletableFuture<Void> warmUp() {
+        List<CompletableFuture<Void>> warmUps = new ArrayList<>();
+        for (ForecastProvider provider : fanOut.getProviders()) {
+            warmUps.add(warmUp(provider.getBaseUrl()));
+        }
+        return CompletableFuture.allOf(warmUps.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Sends requests to every provider's host under the policy, e.g. ResiliencePolicy.HEDGED
+     */
+    public void setProviderPolicy(ResiliencePolicy policy) {
+        for (ForecastProvider provider : fanOut.getProviders()) {
+            sender.setPolicy(provider.getHost(), policy);
+        }
     }
 
     /**
      * Fetches comprehensive weather data for the given location
      */
-    public WeatherResponse getWeather(Location location, boolean useFahrenheit) throws Exception {
-        String tempUnit = useFahrenheit ? "fahrenheit" : "celsius";
+    public WeatherResponse getWeather(Location location) throws Exception {
+        return await(getWeatherAsync(location));
+    }
+
+    /**
+     * Fetches comprehensive weather data for the given location without blocking
+     */
+    public CompletableFuture<WeatherResponse> getWeatherAsync(Location location) {
+        ForecastEvent event = new ForecastEvent();
+        event.start();
+        event.locations = 1;
+        ForecastKey key = cacheKey(location);
+        WeatherResponse cached = cache.get(key);
+        if (cached != null) {
+            event.cached = 1;
+            event.finish();
+            return CompletableFuture.completedFuture(cached);
+        }
+        
+        // Concurrent callers asking for the same forecast share one request
+        return coalescer.execute(key, () -> 
+            fanOut(provider -> fetchAsync(provider, location), (providers, members) ->
+                    EnsembleForecast.of(providers, members).getMean())
+                .thenApply(forecast -> {
+                    cache.put(key, forecast);
+                    return forecast;
+                })).whenComplete((forecast, failure) -> finish(event, failure));
+    }
+
+    /**
+     * Fetches the forecast of one location from every provider and keeps each answer
+     *
+     * Whatever the fan-out's policy, all providers are asked and the members are
+     * the answers that arrived by its deadline. The forecast cache is not used.
+     */
+    public CompletableFuture<EnsembleForecast> getEnsembleAsync(Location location) {
+        return collect(provider -> fetchAsync(provider, location), EnsembleForecast::of);
+    }
+
+    /**
+     * Fetches the forecast for one location with a conditional request
+     *
+     * The forecast cache is not consulted, but a forecast that changed is
+     * offered to it. If the previous response carried an ETag or Last-Modified
+     * and the forecast has not changed, the server answers 304 and the
+     * previous forecast is returned without a body being sent or decoded.
+     *
+     * Mirrors serve the same forecast, so only the primary provider is asked.
+     * An ensemble has no single validator and is fetched again in full.
+     *
+     * @param previous The last response for this location, or null
+     */
+    public CompletableFuture<ValidatedResponse<WeatherResponse>> revalidateAsync(Location location,
+            ValidatedResponse<WeatherResponse> previous) {
+        ForecastEvent event = new ForecastEvent();
+        event.start();
+        event.locations = 1;
+        ForecastKey key = cacheKey(location);
+        if (fanOut.getPolicy() == FanOut.Policy.ENSEMBLE) {
+            return getEnsembleAsync(location).thenApply(ensemble -> {
+                cache.put(key, ensemble.getMean());
+                return ValidatedResponse.of(ensemble.getMean(), NO_HEADERS, Instant.now());
+            }).whenComplete((response, failure) -> finish(event, failure));
+        }
+        String weatherUrl = buildWeatherUrl(fanOut.getPrimary(),
+            coordinate(location.getLatitude()),
+            coordinate(location.getLongitude())
+        );
+        return performValidatedGetAsync(weatherUrl, WeatherResponse.class, "Failed to get weather", previous)
+            .thenApply(response -> {
+                if (response.isNotModified()) {
+                    event.cached = 1;
+                } else {
+                    cache.put(key, response.getValue());
+                }
+                return response;
+            }).whenComplete((response, failure) -> finish(event, failure));
+    }
+
+    /**
+     * Fetches weather data for many locations using multi-coordinate requests
+     *
+     * Locations are split into batches of up to {@value #BATCH_SIZE} coordinates,
+     * batches are fetched concurrently and the results are returned in the same
+     * order as the given locations. Cached forecasts are served without a request.
+     */
+    public List<WeatherResponse> getWeather(List<Location> locations) throws Exception {
+        return await(getWeatherAsync(locations));
+    }
+
+    /**
+     * Fetches weather data for many locations without blocking
+     */
+    public CompletableFuture<List<WeatherResponse>> getWeatherAsync(List<Location> locations) {
+        ForecastEvent event = new ForecastEvent();
+        event.start();
+        WeatherResponse[] results = new WeatherResponse[locations.size()];
+        List<Location> misses = new ArrayList<>();
+        List<Integer> missIndexes = new ArrayList<>();
+        for (int i = 0; i < locations.size(); i++) {
+            results[i] = cache.get(cacheKey(locations.get(i)));
+            if (results[i] == null) {
+                misses.add(locations.get(i));
+                missIndexes.add(i);
+            }
+        }
+        
+        event.locations = locations.size();
+        event.cached = locations.size() - misses.size();
         
-        String weatherUrl = String.format(
-            "%s?latitude=%f&longitude=%f" +
-            "&daily=temperature_2m_max,temperature_2m_min,weathercode,precipitation_probability_max," +
-            "wind_speed_10m_max,wind_direction_10m_dominant,uv_index_max,sunrise,sunset" +
-            "&hourly=temperature_2m,apparent_temperature,weathercode,precipitation_probability," +
-            "relative_humidity_2m,wind_speed_10m" +
-            "&timezone=auto&temperature_unit=%s",
-            WEATHER_BASE_URL,
-            location.getLatitude(),
-            location.getLongitude(),
-            tempUnit
+        return fetchBatchesAsync(misses).<List<WeatherResponse>>thenApply(fetched -> {
+            for (int i = 0; i < fetched.size(); i++) {
+                WeatherResponse forecast = fetched.get(i);
+                cache.put(cacheKey(misses.get(i)), forecast);
+                results[missIndexes.get(i)] = forecast;
+            }
+            return new ArrayList<>(Arrays.asList(results));
+        }).whenComplete((forecasts, failure) -> finish(event, failure));
+    }
+
+    private CompletableFuture<WeatherResponse> fetchAsync(ForecastProvider provider, Location location) {
+        String weatherUrl = buildWeatherUrl(provider,
+            coordinate(location.getLatitude()),
+            coordinate(location.getLongitude())
         );
+        return performGetRequestAsync(weatherUrl, WeatherResponse.class, "Failed to get weather");
+    }
+
+    private static void finish(ForecastEvent event, Throwable failure) {
+        event.failed = failure != null;
+        event.finish();
+    }
+
+    /**
+     * Fetches batches over at most {@value #MAX_CONCURRENT_BATCHES} concurrent lanes,
+     * each lane sending its next batch when the previous one completes
+     */
+    private CompletableFuture<List<WeatherResponse>> fetchBatchesAsync(List<Location> locations) {
+        List<List<Location>> batches = new ArrayList<>();
+        for (int start = 0; start < locations.size(); start += BATCH_SIZE) {
+            batches.add(locations.subList(start, Math.min(start + BATCH_SIZE, locations.size())));
+        }
+        
+        List<CompletableFuture<List<WeatherResponse>>> futures = new ArrayList<>(batches.size());
+        for (int i = 0; i < batches.size(); i++) {
+            CompletableFuture<List<WeatherResponse>> previous = i < MAX_CONCURRENT_BATCHES
+                ? CompletableFuture.completedFuture(null)
+                : futures.get(i - MAX_CONCURRENT_BATCHES);
+            List<Location> batch = batches.get(i);
+            futures.add(previous.thenCompose(ignored -> fanOut(
+                provider -> getWeatherBatchAsync(provider, batch), WeatherService::mergeBatches)));
+        }
+        
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+            .thenApply(ignored -> {
+                List<WeatherResponse> results = new ArrayList<>(locations.size());
+                for (CompletableFuture<List<WeatherResponse>> future : futures) {
+                    results.addAll(future.join());
+                }
+                return results;
+            });
+    }
+
+    /**
+     * Merges the answers of several providers to one batch location by location
+     */
+    private static List<WeatherResponse> mergeBatches(List<ForecastProvider> providers,
+            List<List<WeatherResponse>> answers) {
+        List<WeatherResponse> merged = new ArrayList<>(answers.get(0).size());
+        for (int i = 0; i < answers.get(0).size(); i++) {
+            List<WeatherResponse> members = new ArrayList<>(answers.size());
+            for (List<WeatherResponse> answer : answers) {
+                members.add(answer.get(i));
+            }
+            merged.add(EnsembleForecast.of(providers, members).getMean());
+        }
+        return merged;
+    }
+
+    /**
+     * Sends a request to the fan-out's providers and combines their answers according to its policy
+     *
+     * A single provider is asked directly. FASTEST completes with the first
+     * answer and fails only when every provider failed or none answered by the
+     * deadline; ENSEMBLE merges the answers that arrived by the deadline.
+     * Requests whose answers are no longer needed are cancelled.
+     */
+    private <T> CompletableFuture<T> fanOut(Function<ForecastProvider, CompletableFuture<T>> fetch,
+            BiFunction<List<ForecastProvider>, List<T>, T> merge) {
+        if (fanOut.isSingle()) {
+            return fetch.apply(fanOut.getPrimary());
+        }
+        if (fanOut.getPolicy() == FanOut.Policy.ENSEMBLE) {
+            return collect(fetch, merge);
+        }
+        CompletableFuture<T> first = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(fanOut.getProviders().size());
+        List<CompletableFuture<T>> answers = new ArrayList<>(fanOut.getProviders().size());
+        for (ForecastProvider provider : fanOut.getProviders()) {
+            CompletableFuture<T> answer = fetch.apply(provider);
+            answers.add(answer);
+            answer.whenComplete((value, failure) -> {
+                if (failure == null) {
+                    first.complete(value);
+                } else if (pending.decrementAndGet() == 0) {
+                    first.completeExceptionally(failure);
+                }
+            });
+        }
+        return withDeadline(first).whenComplete((value, failure) -> cancelAll(answers));
+    }
+
+    /**
+     * Asks every provider and combines the answers that arrived by the deadline
+     * Fails with the last failure when no provider answered at all.
+     */
+    private <T, R> CompletableFuture<R> collect(Function<ForecastProvider, CompletableFuture<T>> fetch,
+            BiFunction<List<ForecastProvider>, List<T>, R> merge) {
+        List<ForecastProvider> providers = fanOut.getProviders();
+        List<CompletableFuture<T>> answers = new ArrayList<>(providers.size());
+        for (ForecastProvider provider : providers) {
+            answers.add(fetch.apply(provider));
+        }
+        CompletableFuture<Void> settled = CompletableFuture.allOf(answers.stream()
+            .map(answer -> answer.handle((value, failure) -> null))
+            .toArray(CompletableFuture[]::new));
+        return settled.completeOnTimeout(null, fanOut.getDeadline().toMillis(), TimeUnit.MILLISECONDS)
+            .thenApply(ignored -> {
+                // Whatever is still out missed the deadline
+                cancelAll(answers);
+                List<ForecastProvider> answered = new ArrayList<>();
+                List<T> members = new ArrayList<>();
+                CompletionException failure = null;
+                for (int i = 0; i < answers.size(); i++) {
+                    CompletableFuture<T> answer = answers.get(i);
+                    if (answer.isCancelled()) {
+                        continue;
+                    }
+                    try {
+                        members.add(answer.join());
+                        answered.add(providers.get(i));
+                    } catch (CompletionException e) {
+                        failure = e;
+                    }
+                }
+                if (members.isEmpty()) {
+                    throw failure != null ? failure : deadlineExceeded();
+                }
+                return merge.apply(answered, members);
+            });
+    }
+
+    /**
+     * Cancels the requests that have not finished; finished ones are left alone
+     */
+    private static void cancelAll(List<? extends CompletableFuture<?>> futures) {
+        for (CompletableFuture<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private <T> CompletableFuture<T> withDeadline(CompletableFuture<T> future) {
+        return future.orTimeout(fanOut.getDeadline().toMillis(), TimeUnit.MILLISECONDS)
+            .exceptionally(failure -> {
+                if (failure instanceof TimeoutException) {
+                    throw deadlineExceeded();
+                }
+                throw failure instanceof CompletionException
+                    ? (CompletionException) failure : new CompletionException(failure);
+            });
+    }
+
+    private CompletionException deadlineExceeded() {
+        return new CompletionException(new WeatherServiceException(
+            "No forecast provider answered within " + fanOut.getDeadline().toMillis() + " ms"));
+    }
+
+    /**
+     * Fetches one batch of locations from one provider with a single request
+     */
+    private CompletableFuture<List<WeatherResponse>> getWeatherBatchAsync(ForecastProvider provider,
+            List<Location> batch) {
+        StringBuilder latitudes = new StringBuilder();
+        StringBuilder longitudes = new StringBuilder();
+        for (Location location : batch) {
+            if (latitudes.length() > 0) {
+                latitudes.append(',');
+                longitudes.append(',');
+            }
+            latitudes.append(coordinate(location.getLatitude()));
+            longitudes.append(coordinate(location.getLongitude()));
+        }
         
-        return performGetRequest(weatherUrl, WeatherResponse.class, "Failed to get weather");
+        CompletableFuture<List<WeatherResponse>> received = performGetListRequestAsync(
+            buildWeatherUrl(provider, latitudes.toString(), longitudes.toString()),
+            WeatherResponse.class,
+            "Failed to get weather"
+        );
+        CompletableFuture<List<WeatherResponse>> checked = received.thenApply(responses -> {
+            if (responses.size() != batch.size()) {
+                throw new CompletionException(new WeatherServiceException(
+                    "Expected " + batch.size() + " forecasts but received " + responses.size()));
+            }
+            return responses;
+        });
+        // A fan-out that no longer needs this batch cancels the request itself
+        checked.whenComplete((responses, failure) -> {
+            if (checked.isCancelled()) {
+                received.cancel(true);
+            }
+        });
+        return checked;
+    }
+
+    private ForecastKey cacheKey(Location location) {
+        return ForecastKey.of(location, CANONICAL_UNITS, cacheVariables);
+    }
+
+    /**
+     * Formats a coordinate with a decimal point whatever the default locale, since lists are comma-separated
+     */
+    private static String coordinate(double degrees) {
+        return String.format(Locale.ROOT, "%f", degrees);
+    }
+
+    private String buildWeatherUrl(ForecastProvider provider, String latitudes, String longitudes) {
+        return String.format(
+            "%s?latitude=%s&longitude=%s&daily=%s&hourly=%s&timezone=auto&timeformat=unixtime%s%s",
+            provider.getBaseUrl(),
+            latitudes,
+            longitudes,
+            DAILY_VARIABLES,
+            HOURLY_VARIABLES,
+            horizon.toQuery(),
+            provider.toQuery()
+        );
     }
 
     /**
@@ -48,4 +484,3 @@ public class WeatherService extends BaseHttpService {
         }
     }
 }
-
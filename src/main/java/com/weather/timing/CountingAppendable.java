@@ -0,0 +1,43 @@
+package com.weather.timing;
+
+import java.io.IOException;
+
+/**
+ * Counts the characters appended through it
+ */
+public final class CountingAppendable implements Appendable {
+
+    private final Appendable out;
+    private long count;
+
+    public CountingAppendable(Appendable out) {
+        this.out = out;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+        CharSequence text = csq != null ? csq : "null";
+        count += text.length();
+        out.append(text);
+        return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        CharSequence text = csq != null ? csq : "null";
+        count += end - start;
+        out.append(text, start, end);
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+        count++;
+        out.append(c);
+        return this;
+    }
+}
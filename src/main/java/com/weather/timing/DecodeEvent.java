@@ -0,0 +1,36 @@
+package com.weather.timing;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.weather.Decode")
+@Label("Decode Response")
+@Description("Reading and deserializing an HTTP response body")
+public class DecodeEvent extends PhaseEvent {
+
+    @Label("Host")
+    public String host;
+
+    @Label("HTTP Status")
+    public int httpStatus;
+
+    @Label("Content Encoding")
+    public String contentEncoding;
+
+    @Label("Bytes")
+    @Description("Body bytes after decompression")
+    @DataAmount
+    public long bytes;
+
+    @Override
+    protected Phase phase() {
+        return Phase.DECODE;
+    }
+
+    @Override
+    protected long bytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,23 @@
+package com.weather.timing;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.weather.Forecast")
+@Label("Forecast Fetch")
+@Description("Getting forecasts for one or more locations")
+public class ForecastEvent extends PhaseEvent {
+
+    @Label("Locations")
+    public int locations;
+
+    @Label("Cached")
+    @Description("Locations answered from the forecast cache")
+    public int cached;
+
+    @Override
+    protected Phase phase() {
+        return Phase.FORECAST;
+    }
+}
@@ -0,0 +1,24 @@
+package com.weather.timing;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.weather.Format")
+@Label("Format Report")
+@Description("Rendering a forecast report")
+public class FormatEvent extends PhaseEvent {
+
+    @Label("Characters")
+    public long characters;
+
+    @Override
+    protected Phase phase() {
+        return Phase.FORMAT;
+    }
+
+    @Override
+    protected long bytes() {
+        return characters;
+    }
+}
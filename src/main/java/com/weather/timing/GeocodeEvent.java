@@ -0,0 +1,23 @@
+package com.weather.timing;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.weather.Geocode")
+@Label("Geocode")
+@Description("Resolving a place name to coordinates")
+public class GeocodeEvent extends PhaseEvent {
+
+    @Label("Query")
+    public String query;
+
+    @Label("Source")
+    @Description("cache, gazetteer, index or network")
+    public String source;
+
+    @Override
+    protected Phase phase() {
+        return Phase.GEOCODE;
+    }
+}
@@ -0,0 +1,20 @@
+package com.weather.timing;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.weather.IpLookup")
+@Label("IP Lookup")
+@Description("Resolving the current location from the public IP address")
+public class IpLookupEvent extends PhaseEvent {
+
+    @Label("Source")
+    @Description("cache or network")
+    public String source;
+
+    @Override
+    protected Phase phase() {
+        return Phase.IP_LOOKUP;
+    }
+}
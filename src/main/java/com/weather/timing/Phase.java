@@ -0,0 +1,22 @@
+package com.weather.timing;
+
+/**
+ * Stages of a forecast request, in the order a one-shot run goes through them
+ */
+public enum Phase {
+    IP_LOOKUP("IP lookup"),
+    GEOCODE("Geocode"),
+    FORECAST("Forecast fetch"),
+    DECODE("Decode"),
+    FORMAT("Format");
+
+    private final String label;
+
+    Phase(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+}
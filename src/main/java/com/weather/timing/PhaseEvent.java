@@ -0,0 +1,58 @@
+package com.weather.timing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning one phase, also fed to Timings when enabled
+ *
+ * Call start() before the phase and finish() after it, on any thread. With
+ * recording and --timings both off, begin() and commit() do nothing and the
+ * event costs its allocation and one volatile read in start(); callers skip
+ * work that only exists to fill fields (such as counting bytes) by checking
+ * isActive(). A phase is reported to Timings only if it was enabled when the
+ * phase started.
+ */
+@Category("Weather App")
+@StackTrace(false)
+public abstract class PhaseEvent extends Event {
+
+    @Label("Failed")
+    public boolean failed;
+
+    private transient boolean timed;
+    private transient long startNanos;
+
+    protected abstract Phase phase();
+
+    /**
+     * Returns true if the fields of this event will be recorded or reported
+     */
+    public boolean isActive() {
+        return isEnabled() || Timings.isEnabled();
+    }
+
+    public void start() {
+        begin();
+        timed = Timings.isEnabled();
+        if (timed) {
+            startNanos = System.nanoTime();
+        }
+    }
+
+    public void finish() {
+        if (timed) {
+            Timings.record(phase(), System.nanoTime() - startNanos, bytes(), failed);
+        }
+        commit();
+    }
+
+    /**
+     * Bytes moved by the phase, for the --timings report
+     */
+    protected long bytes() {
+        return 0;
+    }
+}
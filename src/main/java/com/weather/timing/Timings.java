@@ -0,0 +1,75 @@
+package com.weather.timing;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-process per-phase latency histograms behind the --timings flag
+ *
+ * Disabled by default, in which case PhaseEvent never reads the clock for it.
+ * Once enabled every finished phase is added to its histogram, so the report
+ * covers a single run as well as hours of server traffic. Decode time is part
+ * of the fetch phase that triggered it, and phases of concurrent requests
+ * overlap, so the totals do not add up to wall-clock time.
+ */
+public final class Timings {
+
+    private static final Map<Phase, PhaseHistogram> HISTOGRAMS = new EnumMap<>(Phase.class);
+    private static volatile boolean enabled;
+
+    static {
+        for (Phase phase : Phase.values()) {
+            HISTOGRAMS.put(phase, new PhaseHistogram());
+        }
+    }
+
+    private Timings() {
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static PhaseHistogram get(Phase phase) {
+        return HISTOGRAMS.get(phase);
+    }
+
+    static void record(Phase phase, long nanos, long bytes, boolean failed) {
+        HISTOGRAMS.get(phase).record(nanos, bytes, failed);
+    }
+
+    /**
+     * Returns a table with one line per phase that ran
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-15s %7s %6s %10s %9s %9s %9s %9s %12s%n",
+            "Phase", "Count", "Failed", "Total ms", "p50 ms", "p90 ms", "p99 ms", "Max ms", "Bytes"));
+        for (Phase phase : Phase.values()) {
+            PhaseHistogram histogram = HISTOGRAMS.get(phase);
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            sb.append(String.format(Locale.ROOT, "%-15s %7d %6d %10.1f %9.1f %9.1f %9.1f %9.1f %12d%n",
+                phase.label(),
+                histogram.getCount(),
+                histogram.getFailures(),
+                millis(histogram.getTotalNanos()),
+                millis(histogram.percentile(0.50)),
+                millis(histogram.percentile(0.90)),
+                millis(histogram.percentile(0.99)),
+                millis(histogram.getMaxNanos()),
+                histogram.getTotalBytes()));
+        }
+        return sb.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
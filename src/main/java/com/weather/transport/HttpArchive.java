@@ -0,0 +1,209 @@
+package com.weather.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Recorded HTTP responses keyed by method and URI, read from a memory-mapped file
+ *
+ * The file is a header, the entries in the order they were recorded and an
+ * index of (key hash, entry offset) pairs sorted by hash, located by the
+ * trailer. A lookup is a binary search over the mapped index and a key
+ * comparison; bodies are served as read-only slices of the mapping, so
+ * nothing is copied until the caller reads the body. Written by
+ * HttpArchiveWriter.
+ *
+ * Entry layout (little-endian): key length and UTF-8 key, status, recorded
+ * latency in milliseconds, header count and each name and value, body
+ * length and body bytes as received (still compressed if they were).
+ */
+public final class HttpArchive implements Closeable {
+
+    static final int MAGIC = 0x52414857; // "WHAR"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int TRAILER_SIZE = 12;
+    static final int INDEX_ENTRY_SIZE = 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer file;
+    private final int indexOffset;
+    private final int size;
+
+    private HttpArchive(FileChannel channel, ByteBuffer file, int indexOffset, int size) {
+        this.channel = channel;
+        this.file = file;
+        this.indexOffset = indexOffset;
+        this.size = size;
+    }
+
+    public static HttpArchive open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Recording too large to map: " + path);
+            }
+            if (length < HEADER_SIZE + TRAILER_SIZE) {
+                throw new IOException("Not a recording file: " + path);
+            }
+            ByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+            if (file.getInt(0) != MAGIC || file.getInt(4) != VERSION) {
+                throw new IOException("Not a recording file: " + path);
+            }
+            int trailer = (int) length - TRAILER_SIZE;
+            if (file.getInt(trailer + 8) != MAGIC) {
+                throw new IOException("Incomplete recording file: " + path);
+            }
+            int indexOffset = (int) file.getLong(trailer);
+            int size = file.getInt(indexOffset);
+            return new HttpArchive(channel, file, indexOffset + 4, size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of recorded responses
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the response recorded for the key, or null if there is none
+     */
+    public Entry find(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(keyBytes);
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(file.getLong(indexOffset + mid * INDEX_ENTRY_SIZE), hash) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < size && file.getLong(indexOffset + i * INDEX_ENTRY_SIZE) == hash; i++) {
+            int offset = (int) file.getLong(indexOffset + i * INDEX_ENTRY_SIZE + 8);
+            if (keyEquals(offset, keyBytes)) {
+                return readEntry(offset + 4 + keyBytes.length);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the key a request is recorded under
+     */
+    public static String key(HttpRequest request) {
+        return request.method() + " " + request.uri();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean keyEquals(int offset, byte[] key) {
+        if (file.getInt(offset) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (file.get(offset + 4 + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Entry readEntry(int offset) {
+        ByteBuffer in = file.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        in.position(offset);
+        int status = in.getShort() & 0xffff;
+        int latencyMillis = in.getInt();
+        int headerCount = in.getShort() & 0xffff;
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < headerCount; i++) {
+            String name = readString(in);
+            String value = readString(in);
+            headers.computeIfAbsent(name, n -> new ArrayList<>()).add(value);
+        }
+        int bodyLength = in.getInt();
+        ByteBuffer body = in.slice().limit(bodyLength).asReadOnlyBuffer();
+        return new Entry(status, latencyMillis, HttpHeaders.of(headers, (name, value) -> true), body);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getShort() & 0xffff;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 64-bit FNV-1a
+     */
+    static long hash(byte[] key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * One recorded response
+     */
+    public static final class Entry {
+        private final int status;
+        private final int latencyMillis;
+        private final HttpHeaders headers;
+        private final ByteBuffer body;
+
+        Entry(int status, int latencyMillis, HttpHeaders headers, ByteBuffer body) {
+            this.status = status;
+            this.latencyMillis = latencyMillis;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * Returns how long the response took when it was recorded, body included
+         */
+        public int getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        /**
+         * Returns a new read-only view of the body bytes
+         */
+        public ByteBuffer getBody() {
+            return body.duplicate();
+        }
+    }
+}
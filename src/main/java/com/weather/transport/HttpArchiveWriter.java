@@ -0,0 +1,152 @@
+package com.weather.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes an HttpArchive one response at a time
+ *
+ * Entries go straight to disk as they are added and only their offsets are
+ * kept for the index. A key recorded more than once is indexed with its
+ * latest response. The file is written next to the target and moved into
+ * place by commit(); closing without committing deletes it.
+ */
+public final class HttpArchiveWriter implements Closeable {
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final Map<String, Long> offsets = new LinkedHashMap<>();
+    private boolean committed;
+
+    private HttpArchiveWriter(Path target, Path temp, FileChannel channel) {
+        this.target = target;
+        this.temp = temp;
+        this.channel = channel;
+    }
+
+    /**
+     * Starts a new recording that will replace the target file on commit
+     */
+    public static HttpArchiveWriter create(Path target) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        HttpArchiveWriter writer = new HttpArchiveWriter(target, temp, channel);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HttpArchive.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(HttpArchive.MAGIC);
+            header.putInt(HttpArchive.VERSION);
+            header.flip();
+            writer.writeFully(header);
+        } catch (IOException e) {
+            writer.close();
+            throw e;
+        }
+        return writer;
+    }
+
+    /**
+     * Appends a response; pseudo-headers such as :status are left out
+     */
+    public synchronized void add(String key, int status, HttpHeaders headers, int latencyMillis, byte[] body)
+            throws IOException {
+        if (committed) {
+            throw new IllegalStateException("Recording already committed");
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        List<byte[]> fields = new ArrayList<>();
+        int size = 4 + keyBytes.length + 2 + 4 + 2 + 4 + body.length;
+        for (Map.Entry<String, List<String>> header : headers.map().entrySet()) {
+            if (header.getKey().startsWith(":")) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                byte[] name = header.getKey().getBytes(StandardCharsets.UTF_8);
+                byte[] text = value.getBytes(StandardCharsets.UTF_8);
+                if (name.length > 0xffff || text.length > 0xffff) {
+                    continue;
+                }
+                fields.add(name);
+                fields.add(text);
+                size += 4 + name.length + text.length;
+            }
+        }
+
+        ByteBuffer entry = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        entry.putInt(keyBytes.length).put(keyBytes);
+        entry.putShort((short) status);
+        entry.putInt(latencyMillis);
+        entry.putShort((short) (fields.size() / 2));
+        for (byte[] field : fields) {
+            entry.putShort((short) field.length).put(field);
+        }
+        entry.putInt(body.length).put(body);
+        entry.flip();
+
+        long offset = channel.position();
+        writeFully(entry);
+        offsets.remove(key);
+        offsets.put(key, offset);
+    }
+
+    /**
+     * Writes the index and moves the file into place
+     */
+    public synchronized void commit() throws IOException {
+        if (committed) {
+            return;
+        }
+        List<long[]> index = new ArrayList<>(offsets.size());
+        for (Map.Entry<String, Long> entry : offsets.entrySet()) {
+            index.add(new long[] {HttpArchive.hash(entry.getKey().getBytes(StandardCharsets.UTF_8)), entry.getValue()});
+        }
+        index.sort(Comparator.comparing((long[] e) -> e[0], Long::compareUnsigned));
+
+        long indexOffset = channel.position();
+        ByteBuffer footer = ByteBuffer.allocate(4 + index.size() * HttpArchive.INDEX_ENTRY_SIZE
+            + HttpArchive.TRAILER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        footer.putInt(index.size());
+        for (long[] entry : index) {
+            footer.putLong(entry[0]);
+            footer.putLong(entry[1]);
+        }
+        footer.putLong(indexOffset);
+        footer.putInt(HttpArchive.MAGIC);
+        footer.flip();
+        writeFully(footer);
+        channel.force(true);
+        channel.close();
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!committed) {
+            channel.close();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.weather.transport;
+
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+
+/**
+ * Sends requests through another client and records every response into an HttpArchive
+ *
+ * Bodies are received in full before the caller's BodyHandler sees them,
+ * so recording gives up streaming; the recorded latency covers the whole
+ * exchange. commit() must be called to make the recording readable.
+ */
+public class RecordingHttpClient extends HttpClient {
+
+    private final HttpClient delegate;
+    private final HttpArchiveWriter writer;
+
+    public RecordingHttpClient(HttpClient delegate, HttpArchiveWriter writer) {
+        this.delegate = delegate;
+        this.writer = writer;
+    }
+
+    /**
+     * Writes the index and moves the recording into place
+     */
+    public void commit() throws IOException {
+        writer.commit();
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+            HttpResponse.BodyHandler<T> handler) {
+        long start = System.nanoTime();
+        return delegate.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+            .thenCompose(response -> {
+                int latencyMillis = (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                try {
+                    writer.add(HttpArchive.key(request), response.statusCode(), response.headers(),
+                        latencyMillis, response.body());
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+                return StoredResponse.deliver(request, response.statusCode(), response.headers(),
+                    ByteBuffer.wrap(response.body()), handler);
+            });
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+            HttpResponse.BodyHandler<T> handler, HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        return sendAsync(request, handler);
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        return StoredResponse.await(sendAsync(request, handler));
+    }
+
+    @Override
+    public Optional<CookieHandler> cookieHandler() {
+        return delegate.cookieHandler();
+    }
+
+    @Override
+    public Optional<Duration> connectTimeout() {
+        return delegate.connectTimeout();
+    }
+
+    @Override
+    public Redirect followRedirects() {
+        return delegate.followRedirects();
+    }
+
+    @Override
+    public Optional<ProxySelector> proxy() {
+        return delegate.proxy();
+    }
+
+    @Override
+    public SSLContext sslContext() {
+        return delegate.sslContext();
+    }
+
+    @Override
+    public SSLParameters sslParameters() {
+        return delegate.sslParameters();
+    }
+
+    @Override
+    public Optional<Authenticator> authenticator() {
+        return delegate.authenticator();
+    }
+
+    @Override
+    public Version version() {
+        return delegate.version();
+    }
+
+    @Override
+    public Optional<Executor> executor() {
+        return delegate.executor();
+    }
+}
@@ -0,0 +1,129 @@
+package com.weather.transport;
+
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.ConnectException;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+
+/**
+ * Answers requests from an HttpArchive instead of the network
+ *
+ * A request is matched on method and URI. Unrecorded requests fail with a
+ * ConnectException, as an unreachable host would. Responses are held back
+ * by the configured ReplayLatency; one that would take longer than the
+ * request's timeout fails with HttpTimeoutException once the timeout has
+ * passed, so timeouts and hedging behave as they would live.
+ */
+public class ReplayHttpClient extends HttpClient {
+
+    private final HttpArchive archive;
+    private final ReplayLatency latency;
+
+    public ReplayHttpClient(HttpArchive archive) {
+        this(archive, ReplayLatency.NONE);
+    }
+
+    public ReplayHttpClient(HttpArchive archive, ReplayLatency latency) {
+        this.archive = archive;
+        this.latency = latency;
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+            HttpResponse.BodyHandler<T> handler) {
+        HttpArchive.Entry entry = archive.find(HttpArchive.key(request));
+        if (entry == null) {
+            return CompletableFuture.failedFuture(
+                new ConnectException("No recorded response for " + HttpArchive.key(request)));
+        }
+        long delay = latency.delayMillis(entry.getLatencyMillis());
+        Optional<Duration> timeout = request.timeout();
+        if (timeout.isPresent() && delay > timeout.get().toMillis()) {
+            CompletableFuture<HttpResponse<T>> timedOut = new CompletableFuture<>();
+            CompletableFuture.delayedExecutor(timeout.get().toMillis(), TimeUnit.MILLISECONDS).execute(() ->
+                timedOut.completeExceptionally(new HttpTimeoutException("request timed out")));
+            return timedOut;
+        }
+        if (delay <= 0) {
+            return StoredResponse.deliver(request, entry.getStatus(), entry.getHeaders(), entry.getBody(), handler);
+        }
+        return CompletableFuture.supplyAsync(() -> entry,
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+            .thenCompose(delayed -> StoredResponse.deliver(request, delayed.getStatus(), delayed.getHeaders(),
+                delayed.getBody(), handler));
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+            HttpResponse.BodyHandler<T> handler, HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        return sendAsync(request, handler);
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        return StoredResponse.await(sendAsync(request, handler));
+    }
+
+    @Override
+    public Optional<CookieHandler> cookieHandler() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<Duration> connectTimeout() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Redirect followRedirects() {
+        return Redirect.NEVER;
+    }
+
+    @Override
+    public Optional<ProxySelector> proxy() {
+        return Optional.empty();
+    }
+
+    @Override
+    public SSLContext sslContext() {
+        try {
+            return SSLContext.getDefault();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public SSLParameters sslParameters() {
+        return sslContext().getDefaultSSLParameters();
+    }
+
+    @Override
+    public Optional<Authenticator> authenticator() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Version version() {
+        return Version.HTTP_1_1;
+    }
+
+    @Override
+    public Optional<Executor> executor() {
+        return Optional.empty();
+    }
+}
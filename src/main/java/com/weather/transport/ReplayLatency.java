@@ -0,0 +1,65 @@
+package com.weather.transport;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * How long a replayed response is held back: the recorded latency times a factor, plus a fixed delay
+ */
+public final class ReplayLatency {
+
+    /** Responses are served as soon as they are requested */
+    public static final ReplayLatency NONE = new ReplayLatency(0, 0);
+
+    /** Responses take as long as they did when recorded */
+    public static final ReplayLatency RECORDED = new ReplayLatency(1, 0);
+
+    private final double factor;
+    private final long fixedMillis;
+
+    private ReplayLatency(double factor, long fixedMillis) {
+        this.factor = factor;
+        this.fixedMillis = fixedMillis;
+    }
+
+    public static ReplayLatency fixed(Duration delay) {
+        return new ReplayLatency(0, delay.toMillis());
+    }
+
+    public static ReplayLatency scaled(double factor) {
+        if (factor < 0) {
+            throw new IllegalArgumentException("Latency factor must not be negative");
+        }
+        return new ReplayLatency(factor, 0);
+    }
+
+    /**
+     * Parses "none", "recorded", a fixed delay like "50ms" or a factor of the recorded latency like "0.5x"
+     */
+    public static ReplayLatency parse(String value) {
+        String text = value.trim().toLowerCase(Locale.ROOT);
+        try {
+            switch (text) {
+                case "none": return NONE;
+                case "recorded": return RECORDED;
+                default:
+                    if (text.endsWith("ms")) {
+                        return fixed(Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2))));
+                    }
+                    if (text.endsWith("x")) {
+                        return scaled(Double.parseDouble(text.substring(0, text.length() - 1)));
+                    }
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Unknown replay latency: " + value);
+    }
+
+    /**
+     * Returns the delay for a response that took the given time when recorded
+     */
+    public long delayMillis(int recordedMillis) {
+        return Math.round(recordedMillis * factor) + fixedMillis;
+    }
+}
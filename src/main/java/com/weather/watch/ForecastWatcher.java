@@ -0,0 +1,161 @@
+package com.weather.watch;
+
+import com.weather.display.TerminalScreen;
+import com.weather.formatter.WeatherFormatter;
+import com.weather.model.Location;
+import com.weather.model.WeatherResponse;
+import com.weather.service.ForecastHorizon;
+import com.weather.service.ValidatedResponse;
+import com.weather.service.WeatherService;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Keeps one location's forecast on screen, for wall displays
+ *
+ * The location is resolved once by the caller. The report is re-rendered
+ * every minute, so the clock and the hourly window (which starts at the
+ * current hour) move forward locally from the hours already fetched; only
+ * lines that changed are redrawn.
+ *
+ * The forecast is refetched shortly after the next hourly model update, but
+ * never before the freshness the response headers allowed. Refetches are
+ * conditional, so an unchanged forecast costs a 304 and no decoding. When a
+ * refetch fails, is cancelled or returns a forecast that cannot be decoded or
+ * rendered, the last report stays up, the error is shown on the status line
+ * and the fetch is retried with backoff.
+ */
+public class ForecastWatcher {
+
+    /**
+     * Enough hours to keep the 12-hour window full for a day without a refetch
+     */
+    public static final ForecastHorizon HORIZON = new ForecastHorizon(36, 7, 0);
+
+    private static final Duration MODEL_UPDATE_DELAY = Duration.ofMinutes(5);
+    private static final Duration MIN_RETRY_DELAY = Duration.ofMinutes(1);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(15);
+    private static final DateTimeFormatter STATUS_TIME_FORMATTER =
+        DateTimeFormatter.ofPattern("h:mm a", Locale.ENGLISH);
+
+    private final WeatherService weatherService;
+    private final WeatherFormatter formatter;
+    private final TerminalScreen screen;
+    private final Clock clock;
+
+    private ValidatedResponse<WeatherResponse> current;
+    private String report = "";
+    private Instant nextFetch = Instant.MIN;
+    private int failures;
+    private String status = "";
+
+    public ForecastWatcher(WeatherService weatherService, WeatherFormatter formatter, TerminalScreen screen) {
+        this(weatherService, formatter, screen, Clock.systemDefaultZone());
+    }
+
+    public ForecastWatcher(WeatherService weatherService, WeatherFormatter formatter, TerminalScreen screen,
+            Clock clock) {
+        this.weatherService = weatherService;
+        this.formatter = formatter;
+        this.screen = screen;
+        this.clock = clock;
+    }
+
+    /**
+     * Refreshes the screen until the thread is interrupted
+     */
+    public void run(Location location) throws InterruptedException {
+        while (!Thread.currentThread().isInterrupted()) {
+            Instant wake = tick(location);
+            long millis = Duration.between(clock.instant(), wake).toMillis();
+            if (millis > 0) {
+                Thread.sleep(millis);
+            }
+        }
+        throw new InterruptedException();
+    }
+
+    /**
+     * Refetches if due, redraws, and returns when the next tick is due
+     */
+    Instant tick(Location location) throws InterruptedException {
+        Instant now = clock.instant();
+        boolean fetched = !now.isBefore(nextFetch) && fetch(location, now);
+        if (current != null) {
+            try {
+                report = formatter.formatWeather(location, current.getValue());
+                if (fetched) {
+                    failures = 0;
+                }
+            } catch (RuntimeException e) {
+                // Keep the last report and fetch the forecast again in full, not conditionally
+                current = null;
+                failed(now, "Display failed", e);
+            }
+        }
+        screen.show(report + status + "\n");
+
+        Instant nextMinute = clock.instant().truncatedTo(ChronoUnit.MINUTES).plus(Duration.ofMinutes(1));
+        return nextFetch.isBefore(nextMinute) ? nextFetch : nextMinute;
+    }
+
+    /**
+     * Returns true if a forecast arrived; failures count towards the retry backoff until it is shown
+     */
+    private boolean fetch(Location location, Instant now) throws InterruptedException {
+        try {
+            current = weatherService.revalidateAsync(location, current).get();
+            nextFetch = nextFetchAfter(now, current.getFreshUntil());
+            status = "Updated " + time(now) + (current.isNotModified() ? " (unchanged)" : "")
+                + ", next check " + time(nextFetch);
+            return true;
+        } catch (ExecutionException e) {
+            failed(now, "Update failed", e.getCause() != null ? e.getCause() : e);
+        } catch (RuntimeException e) {
+            // Cancelled, or failed before the request was sent
+            failed(now, "Update failed", e);
+        }
+        return false;
+    }
+
+    /**
+     * Shows the error on the status line and schedules the next fetch with backoff
+     */
+    private void failed(Instant now, String what, Throwable cause) {
+        failures++;
+        nextFetch = now.plus(retryDelay(failures));
+        String reason = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        status = what + " (" + reason + "), retrying at " + time(nextFetch);
+    }
+
+    /**
+     * Returns a few minutes past the next hour, or the end of freshness if that is later
+     */
+    static Instant nextFetchAfter(Instant now, Instant freshUntil) {
+        Instant modelUpdate = now.truncatedTo(ChronoUnit.HOURS).plus(MODEL_UPDATE_DELAY);
+        if (!modelUpdate.isAfter(now)) {
+            modelUpdate = modelUpdate.plus(Duration.ofHours(1));
+        }
+        return freshUntil != null && freshUntil.isAfter(modelUpdate) ? freshUntil : modelUpdate;
+    }
+
+    /**
+     * Doubles from one minute per consecutive failure, up to fifteen minutes
+     */
+    static Duration retryDelay(int failures) {
+        Duration delay = MIN_RETRY_DELAY.multipliedBy(1L << Math.min(failures - 1, 4));
+        return delay.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : delay;
+    }
+
+    private String time(Instant instant) {
+        ZoneId zone = clock.getZone();
+        return STATUS_TIME_FORMATTER.format(instant.atZone(zone));
+    }
+}
@@ -0,0 +1,173 @@
+package com.weather.analytics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.weather.model.DailyWeather;
+import com.weather.model.HourlyWeather;
+import com.weather.model.Location;
+import com.weather.model.WeatherResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs queries over enough synthetic sites and rows that every task splits,
+ * checking the results against a plain loop
+ */
+public class ForecastSetTest {
+
+    private static final long START = Instant.parse("2024-07-01T00:00:00Z").getEpochSecond();
+    private static final int SITES = 1000;
+    private static final int HOURS = 48;
+    private static final int MISSING_WIND_HOUR = 5;
+
+    private ForkJoinPool pool;
+    private List<WeatherResponse> forecasts;
+    private ForecastSet set;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+        List<Location> locations = new ArrayList<>();
+        forecasts = new ArrayList<>();
+        for (int site = 0; site < SITES; site++) {
+            locations.add(new Location(0, 0, "Site " + site, null, null));
+            forecasts.add(forecast(site));
+        }
+        set = new ForecastSet(locations, forecasts, pool);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void aggregatesOnlyTheRowsInTheWindow() {
+        TimeWindow window = TimeWindow.between(Instant.ofEpochSecond(START + 6 * 3600),
+            Instant.ofEpochSecond(START + 12 * 3600));
+        double[] max = set.aggregate(HourlySeries.TEMPERATURE, window, Aggregate.MAX);
+        double[] count = set.aggregate(HourlySeries.TEMPERATURE, window, Aggregate.COUNT);
+        for (int site = 0; site < SITES; site++) {
+            assertEquals(temperature(site, 11), max[site], 0);
+            assertEquals(6, count[site], 0);
+        }
+    }
+
+    @Test
+    public void dailyRowsOverlappingTheWindowAreIncluded() {
+        TimeWindow window = TimeWindow.between(Instant.ofEpochSecond(START + 20 * 3600),
+            Instant.ofEpochSecond(START + 26 * 3600));
+        double[] count = set.aggregate(DailySeries.WIND_SPEED_MAX, window, Aggregate.COUNT);
+        assertEquals(2, count[0], 0);
+    }
+
+    @Test
+    public void hourlyWindSkipsMissingRows() {
+        double[] max = set.aggregate(HourlySeries.WIND_SPEED, TimeWindow.ALL, Aggregate.MAX);
+        double[] count = set.aggregate(HourlySeries.WIND_SPEED, TimeWindow.ALL, Aggregate.COUNT);
+        for (int site = 0; site < SITES; site++) {
+            assertEquals(windSpeed(site, HOURS - 1), max[site], 0);
+            assertEquals(HOURS - 1, count[site], 0);
+        }
+    }
+
+    @Test
+    public void missingSeriesHasNoRows() {
+        double[] mean = set.aggregate(HourlySeries.APPARENT_TEMPERATURE, TimeWindow.ALL, Aggregate.MEAN);
+        assertTrue(Double.isNaN(mean[0]));
+        assertEquals(0, set.summarize(HourlySeries.APPARENT_TEMPERATURE, TimeWindow.ALL).getCount());
+    }
+
+    @Test
+    public void filterKeepsSetOrder() {
+        List<SiteValue> hot = set.filter(HourlySeries.TEMPERATURE, TimeWindow.ALL, Aggregate.MAX, t -> t >= 35);
+        int expected = 0;
+        for (int site = 0; site < SITES; site++) {
+            if (temperature(site, HOURS - 1) >= 35) {
+                assertEquals(site, hot.get(expected++).getIndex());
+            }
+        }
+        assertEquals(expected, hot.size());
+    }
+
+    @Test
+    public void topRanksHighestFirstWithTiesInSetOrder() {
+        List<SiteValue> top = set.top(DailySeries.WIND_SPEED_MAX, TimeWindow.ALL, Aggregate.MAX, 5);
+        assertEquals(5, top.size());
+        // Wind peaks at site % 100 == 99, so sites 99, 199, ... tie for first
+        assertEquals(99, top.get(0).getIndex());
+        assertEquals(199, top.get(1).getIndex());
+        assertEquals(499, top.get(4).getIndex());
+        assertEquals(set.top(DailySeries.WIND_SPEED_MAX, TimeWindow.ALL, Aggregate.MAX, SITES * 2).size(), SITES);
+    }
+
+    @Test
+    public void summaryMatchesSequentialLoop() {
+        SeriesStats stats = set.summarize(HourlySeries.TEMPERATURE, TimeWindow.ALL);
+        double sum = 0;
+        for (WeatherResponse forecast : forecasts) {
+            for (double t : forecast.hourly.temperature_2m) {
+                sum += t;
+            }
+        }
+        assertEquals((long) SITES * HOURS, stats.getCount());
+        assertEquals(sum / stats.getCount(), stats.getMean(), 1e-9);
+        assertEquals(temperature(0, 0), stats.getMin(), 0);
+        assertEquals(temperature(SITES - 1, HOURS - 1), stats.getMax(), 0);
+    }
+
+    @Test
+    public void longSeriesAreSplitByRows() {
+        int rows = ForecastSet.ROWS_PER_TASK * 5 + 3;
+        WeatherResponse forecast = new WeatherResponse();
+        forecast.hourly = new HourlyWeather();
+        forecast.hourly.time = new long[rows];
+        forecast.hourly.relative_humidity_2m = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            forecast.hourly.time[i] = START + i * 3600L;
+            forecast.hourly.relative_humidity_2m[i] = i % 101;
+        }
+        ForecastSet history = new ForecastSet(List.of(new Location(0, 0, "Archive", null, null)),
+            List.of(forecast), pool);
+        SeriesStats stats = history.summarize(HourlySeries.RELATIVE_HUMIDITY, TimeWindow.ALL);
+        assertEquals(rows, stats.getCount());
+        assertEquals(0, stats.getMin(), 0);
+        assertEquals(100, stats.getMax(), 0);
+    }
+
+    private static double temperature(int site, int hour) {
+        return site * 0.03 + hour * 0.1;
+    }
+
+    private static double windSpeed(int site, int hour) {
+        // The API left one hour out for every site
+        return hour == MISSING_WIND_HOUR ? Double.NaN : site % 10 + hour;
+    }
+
+    private static WeatherResponse forecast(int site) {
+        HourlyWeather hourly = new HourlyWeather();
+        hourly.time = new long[HOURS];
+        hourly.temperature_2m = new double[HOURS];
+        hourly.wind_speed_10m = new double[HOURS];
+        for (int hour = 0; hour < HOURS; hour++) {
+            hourly.time[hour] = START + hour * 3600L;
+            hourly.temperature_2m[hour] = temperature(site, hour);
+            hourly.wind_speed_10m[hour] = windSpeed(site, hour);
+        }
+        DailyWeather daily = new DailyWeather();
+        daily.time = new long[] {START, START + 86_400, START + 2 * 86_400};
+        daily.wind_speed_10m_max = new double[] {1, site % 100, 2};
+
+        WeatherResponse forecast = new WeatherResponse();
+        forecast.hourly = hourly;
+        forecast.daily = daily;
+        return forecast;
+    }
+}
@@ -0,0 +1,98 @@
+package com.weather.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.weather.model.LocationResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Records geocoding results, looks them up by query and prefix, and reloads them from disk
+ */
+public class GeocodingIndexTest {
+
+    private Path dir;
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("geocoding-index-test");
+        file = dir.resolve("geocoding.idx");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+        Files.delete(dir);
+    }
+
+    @Test
+    public void looksUpNormalizedQueries() {
+        GeocodingIndex index = new GeocodingIndex(file);
+        index.record("São Paulo", List.of(place("São Paulo", -23.55, -46.63)));
+
+        assertEquals("São Paulo", index.lookup("  sao   PAULO ").get(0).name);
+        assertNull(index.lookup("Sao"));
+    }
+
+    @Test
+    public void findsPlacesByNamePrefix() {
+        GeocodingIndex index = new GeocodingIndex(file);
+        index.record("Portland Oregon", List.of(place("Portland", 45.52, -122.68)));
+        index.record("Portland Maine", List.of(place("Portland", 43.66, -70.26)));
+        index.record("Reykjavik", List.of(place("Reykjavík", 64.15, -21.94)));
+
+        assertEquals(1, index.findByPrefix("reykj").size());
+        assertEquals(2, index.findByPrefix("Port").size());
+        assertEquals(0, index.findByPrefix("Lima").size());
+
+        // Places recorded after the name index was built are found too
+        index.record("Lima", List.of(place("Lima", -12.05, -77.04)));
+        assertEquals(1, index.findByPrefix("Lim").size());
+    }
+
+    @Test
+    public void reloadsRecordsFromFile() {
+        new GeocodingIndex(file).record("Oslo", List.of(place("Oslo", 59.91, 10.75)));
+        new GeocodingIndex(file).record("Lima", List.of(place("Lima", -12.05, -77.04)));
+
+        GeocodingIndex reloaded = new GeocodingIndex(file);
+        assertEquals(2, reloaded.size());
+        assertEquals(59.91, reloaded.lookup("oslo").get(0).latitude, 0.0);
+        assertEquals(1, reloaded.findByPrefix("lim").size());
+    }
+
+    @Test
+    public void dropsTruncatedTailAndRewrites() throws Exception {
+        new GeocodingIndex(file).record("Oslo", List.of(place("Oslo", 59.91, 10.75)));
+        try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.APPEND)) {
+            // Start of a record cut off by an interrupted write
+            out.write(new byte[] {0, 4, 'L', 'i'});
+        }
+
+        GeocodingIndex recovered = new GeocodingIndex(file);
+        assertEquals(1, recovered.size());
+        recovered.record("Lima", List.of(place("Lima", -12.05, -77.04)));
+
+        GeocodingIndex reloaded = new GeocodingIndex(file);
+        assertEquals(2, reloaded.size());
+        assertEquals(-12.05, reloaded.lookup("lima").get(0).latitude, 0.0);
+    }
+
+    private static LocationResult place(String name, double latitude, double longitude) {
+        LocationResult place = new LocationResult();
+        place.name = name;
+        place.latitude = latitude;
+        place.longitude = longitude;
+        place.country = "Somewhere";
+        return place;
+    }
+}
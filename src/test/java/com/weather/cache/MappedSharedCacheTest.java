@@ -0,0 +1,149 @@
+package com.weather.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.weather.model.HourlyWeather;
+import com.weather.model.Location;
+import com.weather.model.WeatherResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+/**
+ * Stores and reads entries through separate mappings of one cache file, and survives damaged files
+ */
+public class MappedSharedCacheTest {
+
+    // Just past a model update, so nothing expires during a test
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-10-17T12:00:01Z"), ZoneOffset.UTC);
+    private static final ForecastKey OSLO = new ForecastKey(59.91, 10.75, "metric", "test");
+    // Tests that poke at the file use a single slot, so every key lives at the same offset
+    private static final int SLOT_SIZE = 4096;
+    private static final long SLOT_OFFSET = 64;
+
+    private Path dir;
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("shared-cache-test");
+        file = dir.resolve("shared.cache");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+        Files.delete(dir);
+    }
+
+    @Test
+    public void readsWhatAnotherMappingWrote() throws Exception {
+        try (MappedSharedCache writer = open(16); MappedSharedCache reader = open(16)) {
+            writer.put(OSLO, forecast(21.5));
+            writer.putLocation("oslo", new Location(59.91, 10.75, "Oslo", null, "Norway"), Duration.ofDays(1));
+
+            assertEquals(21.5, reader.get(OSLO).hourly.temperature_2m[0], 0.0);
+            assertEquals("Oslo, Norway", reader.getLocation("oslo").getFormattedLocation());
+            assertNull(reader.get(new ForecastKey(-12.05, -77.04, "metric", "test")));
+            assertEquals(1, reader.stats().getHits());
+            assertEquals(1, reader.stats().getMisses());
+        }
+    }
+
+    @Test
+    public void slotLeftMidWriteIsAMissUntilRewritten() throws Exception {
+        try (MappedSharedCache cache = open()) {
+            cache.put(OSLO, forecast(21.5));
+            // A writer that died after marking the slot busy leaves an odd sequence
+            writeLong(SLOT_OFFSET, 3);
+
+            assertNull(cache.get(OSLO));
+
+            cache.put(OSLO, forecast(22.0));
+            assertEquals(22.0, cache.get(OSLO).hourly.temperature_2m[0], 0.0);
+            assertEquals(4, readLong(SLOT_OFFSET));
+        }
+    }
+
+    @Test
+    public void damagedEntryIsAMiss() throws Exception {
+        try (MappedSharedCache cache = open()) {
+            cache.put(OSLO, forecast(21.5));
+            // The value starts with the timezone's length; claim more bytes than the slot holds
+            int keyLength = ("F|" + OSLO.id()).length();
+            writeInt(SLOT_OFFSET + 32 + keyLength, Integer.MAX_VALUE);
+
+            assertNull(cache.get(OSLO));
+            assertEquals(1, cache.stats().getMisses());
+        }
+    }
+
+    @Test
+    public void resetsFileThatIsNotACache() throws Exception {
+        Files.write(file, "not a cache file".getBytes());
+        try (MappedSharedCache cache = open()) {
+            assertNull(cache.get(OSLO));
+            cache.put(OSLO, forecast(21.5));
+            assertNotNull(cache.get(OSLO));
+        }
+
+        // A valid header over a file cut short
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(SLOT_OFFSET + 10);
+        }
+        try (MappedSharedCache cache = open()) {
+            assertNull(cache.get(OSLO));
+            assertEquals(SLOT_OFFSET + SLOT_SIZE, Files.size(file));
+        }
+    }
+
+    private MappedSharedCache open() throws Exception {
+        return open(1);
+    }
+
+    private MappedSharedCache open(int slots) throws Exception {
+        return MappedSharedCache.open(file, slots, SLOT_SIZE, Duration.ofMinutes(30), CLOCK);
+    }
+
+    private void writeLong(long position, long value) throws Exception {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, value), position);
+        }
+    }
+
+    private void writeInt(long position, int value) throws Exception {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, value), position);
+        }
+    }
+
+    private long readLong(long position) throws Exception {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(buffer, position);
+            return buffer.getLong(0);
+        }
+    }
+
+    private static WeatherResponse forecast(double temperature) {
+        WeatherResponse forecast = new WeatherResponse();
+        forecast.timezone = "Europe/Oslo";
+        forecast.hourly = new HourlyWeather();
+        forecast.hourly.time = new long[] {1_700_000_000L};
+        forecast.hourly.temperature_2m = new double[] {temperature};
+        return forecast;
+    }
+}
@@ -0,0 +1,151 @@
+package com.weather.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.weather.model.HourlyWeather;
+import com.weather.model.WeatherResponse;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+/**
+ * Admission, rejection and eviction of the bounded forecast cache
+ */
+public class TinyLfuForecastCacheTest {
+
+    // Just past a model update, so nothing expires during a test
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-10-17T12:00:01Z"), ZoneOffset.UTC);
+
+    @Test
+    public void storesAndServesWithinCapacity() {
+        TinyLfuForecastCache cache = cache(2, 0);
+        WeatherResponse oslo = forecast(24);
+
+        assertNull(cache.get(key(1)));
+        cache.put(key(1), oslo);
+
+        assertSame(oslo, cache.get(key(1)));
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0, stats.getEvictions());
+        assertEquals(0, stats.getRejections());
+    }
+
+    @Test
+    public void rejectsNewKeyNoMorePopularThanTheVictim() {
+        TinyLfuForecastCache cache = cache(2, 0);
+        fill(cache, key(1), key(2));
+
+        // Looked up once, like each resident: a tie keeps the residents
+        assertNull(cache.get(key(3)));
+        cache.put(key(3), forecast(24));
+
+        assertNull(cache.get(key(3)));
+        assertNotNull(cache.get(key(1)));
+        assertNotNull(cache.get(key(2)));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.stats().getRejections());
+        assertEquals(0, cache.stats().getEvictions());
+    }
+
+    @Test
+    public void admitsPopularKeyByEvictingLeastRecentlyUsed() {
+        TinyLfuForecastCache cache = cache(2, 0);
+        fill(cache, key(1), key(2));
+        for (int i = 0; i < 3; i++) {
+            cache.get(key(3));
+        }
+        cache.put(key(3), forecast(24));
+
+        assertNotNull(cache.get(key(3)));
+        assertNull(cache.get(key(1)));
+        assertNotNull(cache.get(key(2)));
+        assertEquals(1, cache.stats().getEvictions());
+        assertEquals(0, cache.stats().getRejections());
+    }
+
+    @Test
+    public void evictsBySizeWhenOverByteBudget() {
+        long entryBytes = TinyLfuForecastCache.estimateBytes(forecast(24));
+        TinyLfuForecastCache cache = cache(100, entryBytes * 2);
+        fill(cache, key(1), key(2));
+        for (int i = 0; i < 3; i++) {
+            cache.get(key(3));
+        }
+        cache.put(key(3), forecast(24));
+
+        assertEquals(2, cache.size());
+        assertEquals(entryBytes * 2, cache.estimatedBytes());
+        assertEquals(1, cache.stats().getEvictions());
+
+        // Larger than the whole budget: never stored, and nothing is evicted for it
+        cache.get(key(4));
+        cache.put(key(4), forecast(1000));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.stats().getRejections());
+        assertEquals(1, cache.stats().getEvictions());
+
+        // Too large to replace a resident forecast either: the old one stays
+        WeatherResponse resident = cache.get(key(3));
+        cache.put(key(3), forecast(1000));
+        assertSame(resident, cache.get(key(3)));
+        assertEquals(entryBytes * 2, cache.estimatedBytes());
+    }
+
+    @Test
+    public void rejectedKeyEvictsNothing() {
+        long entryBytes = TinyLfuForecastCache.estimateBytes(forecast(24));
+        TinyLfuForecastCache cache = cache(100, entryBytes * 2);
+        fill(cache, key(1));
+        for (int i = 0; i < 5; i++) {
+            cache.get(key(2));
+        }
+        cache.put(key(2), forecast(24));
+
+        // Needs both slots: more popular than the cold entry, less than the hot one behind it
+        cache.get(key(3));
+        cache.get(key(3));
+        cache.put(key(3), forecast(48));
+
+        assertEquals(2, cache.size());
+        assertEquals(entryBytes * 2, cache.estimatedBytes());
+        assertEquals(0, cache.stats().getEvictions());
+        assertEquals(1, cache.stats().getRejections());
+        assertNotNull(cache.get(key(1)));
+        assertNotNull(cache.get(key(2)));
+        assertNull(cache.get(key(3)));
+    }
+
+    private static TinyLfuForecastCache cache(int maxEntries, long maxBytes) {
+        return new TinyLfuForecastCache(maxEntries, maxBytes, Duration.ofMinutes(30), CLOCK);
+    }
+
+    /**
+     * Looks each key up once and stores it, as WeatherService does on a miss
+     */
+    private static void fill(TinyLfuForecastCache cache, ForecastKey... keys) {
+        for (ForecastKey key : keys) {
+            cache.get(key);
+            cache.put(key, forecast(24));
+        }
+    }
+
+    private static ForecastKey key(int site) {
+        return new ForecastKey(site, site, "metric", "test");
+    }
+
+    private static WeatherResponse forecast(int hours) {
+        WeatherResponse forecast = new WeatherResponse();
+        forecast.hourly = new HourlyWeather();
+        forecast.hourly.time = new long[hours];
+        forecast.hourly.temperature_2m = new double[hours];
+        return forecast;
+    }
+}
@@ -0,0 +1,54 @@
+package com.weather.display;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+/**
+ * Redraws only the lines of a frame that changed
+ */
+public class TerminalScreenTest {
+
+    private static final String ESC = "\u001b[";
+
+    private final StringWriter out = new StringWriter();
+    private final TerminalScreen screen = new TerminalScreen(out);
+
+    @Test
+    public void firstFrameClearsTheScreen() {
+        assertEquals(2, screen.show("12:00 PM\nSunny\n"));
+        assertTrue(out.toString().startsWith(ESC + "?25l" + ESC + "H" + ESC + "2J"));
+        assertTrue(out.toString().contains(ESC + "1;1H12:00 PM" + ESC + "K"));
+    }
+
+    @Test
+    public void redrawsOnlyChangedLines() {
+        screen.show("12:00 PM\nSunny\n");
+        out.getBuffer().setLength(0);
+
+        assertEquals(1, screen.show("12:01 PM\nSunny\n"));
+        assertEquals(ESC + "1;1H12:01 PM" + ESC + "K" + ESC + "3;1H", out.toString());
+
+        out.getBuffer().setLength(0);
+        assertEquals(0, screen.show("12:01 PM\nSunny\n"));
+    }
+
+    @Test
+    public void erasesRowsNoLongerUsed() {
+        screen.show("12:00 PM\nSunny\nUpdate failed\n");
+        out.getBuffer().setLength(0);
+
+        assertEquals(0, screen.show("12:00 PM\nSunny\n"));
+        assertEquals(ESC + "3;1H" + ESC + "J" + ESC + "3;1H", out.toString());
+    }
+
+    @Test
+    public void closeShowsTheCursor() {
+        screen.show("12:00 PM\n");
+        screen.close();
+        assertTrue(out.toString().endsWith(ESC + "?25h"));
+    }
+}
@@ -0,0 +1,83 @@
+package com.weather.formatter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.weather.model.DailyWeather;
+import com.weather.model.HourlyWeather;
+import com.weather.model.WeatherResponse;
+import org.junit.Test;
+
+/**
+ * Conversions from the metric units forecasts are fetched in, and parsing of unit names
+ */
+public class UnitsTest {
+
+    @Test
+    public void convertsTemperature() {
+        assertEquals(32.0, Units.Temperature.FAHRENHEIT.fromCelsius(0), 1e-9);
+        assertEquals(212.0, Units.Temperature.FAHRENHEIT.fromCelsius(100), 1e-9);
+        assertEquals(-40.0, Units.Temperature.FAHRENHEIT.fromCelsius(-40), 1e-9);
+        assertEquals(21.5, Units.Temperature.CELSIUS.fromCelsius(21.5), 0.0);
+    }
+
+    @Test
+    public void convertsWindSpeed() {
+        assertEquals(62.137, Units.WindSpeed.MPH.fromKmh(100), 1e-3);
+        assertEquals(10.0, Units.WindSpeed.MS.fromKmh(36), 1e-9);
+        assertEquals(1.0, Units.WindSpeed.KNOTS.fromKmh(1.852), 1e-9);
+        assertEquals(36.0, Units.WindSpeed.KMH.fromKmh(36), 0.0);
+    }
+
+    @Test
+    public void convertsPrecipitation() {
+        assertEquals(1.0, Units.Precipitation.INCH.fromMm(25.4), 1e-9);
+        assertEquals(2.3, Units.Precipitation.MM.fromMm(2.3), 0.0);
+    }
+
+    @Test
+    public void parsesNamesAndRejectsUnknownOnes() {
+        assertSame(Units.Temperature.FAHRENHEIT, Units.Temperature.parse("F"));
+        assertSame(Units.WindSpeed.KNOTS, Units.WindSpeed.parse("kt"));
+        assertSame(Units.WindSpeed.MS, Units.WindSpeed.parse("m/s"));
+        assertSame(Units.Precipitation.INCH, Units.Precipitation.parse("Inches"));
+        assertRejected(() -> Units.Temperature.parse("kelvin"), "kelvin");
+        assertRejected(() -> Units.WindSpeed.parse("beaufort"), "beaufort");
+        assertRejected(() -> Units.Precipitation.parse("cm"), "cm");
+    }
+
+    @Test
+    public void convertLeavesMissingValuesMissing() {
+        WeatherResponse metric = new WeatherResponse();
+        metric.timezone = "UTC";
+        metric.hourly = new HourlyWeather();
+        metric.hourly.time = new long[] {0, 3600};
+        metric.hourly.temperature_2m = new double[] {Double.NaN, 10.0};
+        metric.hourly.wind_speed_10m = new double[] {36.0, Double.NaN};
+        metric.daily = new DailyWeather();
+        metric.daily.time = new long[] {0};
+        metric.daily.precipitation_sum = new double[] {Double.NaN};
+
+        WeatherResponse imperial = Units.IMPERIAL.convert(metric);
+
+        assertTrue(Double.isNaN(imperial.hourly.temperature_2m[0]));
+        assertEquals(50.0, imperial.hourly.temperature_2m[1], 1e-9);
+        assertEquals(22.369, imperial.hourly.wind_speed_10m[0], 1e-3);
+        assertTrue(Double.isNaN(imperial.hourly.wind_speed_10m[1]));
+        assertTrue(Double.isNaN(imperial.daily.precipitation_sum[0]));
+        // The cached metric forecast is not touched
+        assertEquals(10.0, metric.hourly.temperature_2m[1], 0.0);
+        assertSame(metric, Units.METRIC.convert(metric));
+    }
+
+    private static void assertRejected(Runnable parse, String name) {
+        try {
+            parse.run();
+            fail("Expected " + name + " to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(name));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.weather.formatter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.weather.model.Location;
+import com.weather.model.StreamingModelModule;
+import com.weather.model.WeatherResponse;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+/**
+ * Renders the Tokyo benchmark fixture at a fixed time and compares it with the expected report
+ *
+ * The golden text is the StringBuilder formatter's output for the same input,
+ * plus the daily precipitation amounts added with local unit conversion.
+ */
+public class WeatherFormatterTest {
+
+    private static final String FIXTURE = "src/jmh/resources/fixtures/forecast-tokyo.json";
+    private static final String GOLDEN = "src/test/resources/golden/tokyo-report.txt";
+    private static final Location TOKYO = new Location(35.7, 139.6875, "Tokyo", "Tokyo", "Japan");
+
+    @Test
+    public void rendersTheGoldenReport() throws Exception {
+        // 12:30 PM in Tokyo, mid-way through the fixture's first day
+        String report = format(Units.METRIC, Instant.parse("2025-11-14T03:30:00Z"));
+
+        assertEquals(Files.readString(Paths.get(GOLDEN), StandardCharsets.UTF_8), report);
+    }
+
+    @Test
+    public void hourlyTableStartsAtTheFirstHourNotYetStarted() throws Exception {
+        // Exactly 1 PM: that hour is still shown
+        assertTrue(timeRow(Instant.parse("2025-11-14T04:00:00Z")).startsWith("Time:       1PM    2PM"));
+        assertTrue(timeRow(Instant.parse("2025-11-14T04:00:01Z")).startsWith("Time:       2PM    3PM"));
+        // Past the last hour the table has no columns
+        assertEquals("Time:   ", timeRow(Instant.parse("2025-11-22T00:00:00Z")));
+    }
+
+    @Test
+    public void convertsUnitsWhenRendering() throws Exception {
+        Units units = new Units(Units.Temperature.FAHRENHEIT, Units.WindSpeed.MPH, Units.Precipitation.INCH);
+        String report = format(units, Instant.parse("2025-11-14T03:30:00Z"));
+
+        assertTrue(report, report.contains("Low: 43°F  |  High: 63°F"));
+        assertTrue(report, report.contains("Wind: 11 mph NNW"));
+        assertTrue(report, report.contains("(💧 33% chance, 0.09 in)"));
+        assertTrue(report, report.contains("Temp:      63°F   61°F   62°F"));
+    }
+
+    private static String timeRow(Instant now) throws Exception {
+        for (String line : format(Units.METRIC, now).split("\n")) {
+            if (line.startsWith("Time:")) {
+                return line;
+            }
+        }
+        throw new AssertionError("No hourly table");
+    }
+
+    private static String format(Units units, Instant now) throws Exception {
+        WeatherResponse forecast = StreamingModelModule.newMapper(true)
+            .readValue(Paths.get(FIXTURE).toFile(), WeatherResponse.class);
+        return new WeatherFormatter(units, Clock.fixed(now, ZoneOffset.UTC)).formatWeather(TOKYO, forecast);
+    }
+}
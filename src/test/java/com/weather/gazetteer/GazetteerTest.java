@@ -0,0 +1,122 @@
+package com.weather.gazetteer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.weather.model.LocationResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Builds a gazetteer from a small GeoNames dump, looks places up, and rejects damaged files
+ */
+public class GazetteerTest {
+
+    private Path dir;
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("gazetteer-test");
+        file = dir.resolve("places.gaz");
+        Files.write(dir.resolve("cities.txt"), List.of(
+            place("Springfield", "Springfield", 39.80, -89.64, "US", "IL", 114_000),
+            place("Springfield", "Springfield", 37.21, -93.29, "US", "MO", 169_000),
+            place("Paris", "Paris", 48.85, 2.35, "FR", "11", 2_138_000),
+            place("Paris", "Paris", 33.66, -95.56, "US", "TX", 25_000),
+            place("São Paulo", "Sao Paulo", -23.55, -46.63, "BR", "27", 10_021_000)),
+            StandardCharsets.UTF_8);
+        Files.write(dir.resolve(GazetteerBuilder.ADMIN1_FILE), List.of(
+            "US.IL\tIllinois\tIllinois\t4896861", "US.MO\tMissouri\tMissouri\t4398678",
+            "US.TX\tTexas\tTexas\t4736286"), StandardCharsets.UTF_8);
+        Files.write(dir.resolve(GazetteerBuilder.COUNTRY_FILE), List.of(
+            "#ISO\tISO3\tISO-Numeric\tfips\tCountry", "US\tUSA\t840\tUS\tUnited States",
+            "FR\tFRA\t250\tFR\tFrance"), StandardCharsets.UTF_8);
+        assertEquals(5, GazetteerBuilder.build(dir.resolve("cities.txt"), file));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void findsLargestPlaceMatchingNameAndQualifier() throws Exception {
+        try (Gazetteer gazetteer = Gazetteer.open(file)) {
+            assertEquals(5, gazetteer.size());
+
+            LocationResult paris = gazetteer.find("Paris");
+            assertEquals("France", paris.country);
+            assertEquals(48.85, paris.latitude, 0.0);
+
+            assertEquals("Texas", gazetteer.find("paris, tex").admin1);
+            assertEquals("Illinois", gazetteer.find("Springfield Illinois").admin1);
+            assertEquals("São Paulo", gazetteer.find("sao paulo").name);
+            assertEquals(2, gazetteer.search("Springfield", 5).size());
+            assertNull(gazetteer.find("Springfield Texas"));
+            assertNull(gazetteer.find("Lima"));
+        }
+    }
+
+    @Test
+    public void rejectsHeaderPointingPastTheFile() throws Exception {
+        long size = Files.size(file);
+        writeInt(20, (int) size);
+
+        try {
+            Gazetteer.open(file).close();
+            fail("Expected the header to be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("Corrupt"));
+        }
+        assertNull(Gazetteer.openIfPresent(file));
+    }
+
+    @Test
+    public void damagedTrieFindsNothing() throws Exception {
+        // The root node's posting count, large enough to send the walk off the mapping
+        int root;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            root = header.getInt(20);
+        }
+        writeInt(root, Integer.MAX_VALUE / 8);
+
+        try (Gazetteer gazetteer = Gazetteer.open(file)) {
+            assertNull(gazetteer.find("Paris"));
+        }
+    }
+
+    private void writeInt(long position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, value), position);
+        }
+    }
+
+    private static String place(String name, String asciiName, double latitude, double longitude,
+            String country, String admin1, long population) {
+        return String.join("\t", "1", name, asciiName, "", Double.toString(latitude),
+            Double.toString(longitude), "P", "PPL", country, "", admin1, "", "", "", Long.toString(population),
+            "", "0", "UTC", "2024-01-01");
+    }
+}
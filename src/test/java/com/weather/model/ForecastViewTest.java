@@ -0,0 +1,95 @@
+package com.weather.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Window queries over a week of Oslo hours spanning the October DST change
+ */
+public class ForecastViewTest {
+
+    private static final ZoneId OSLO = ZoneId.of("Europe/Oslo");
+    // Thursday; clocks go back on Sunday 27 October
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 10, 24);
+    private static final int DAYS = 7;
+
+    private final ForecastView view = new ForecastView(forecast());
+
+    @Test
+    public void findsTheRowsContainingAnInstant() {
+        long midday = local(0, 12);
+        assertEquals(12, view.hourContaining(midday + 1800));
+        assertEquals(0, view.dayContaining(midday));
+        assertEquals(3, view.dayContaining(local(3, 23)));
+        assertEquals(-1, view.hourContaining(local(0, 0) - 1));
+        assertEquals(-1, view.dayContaining(local(DAYS, 0)));
+        assertEquals(DAYS - 1, view.dayContaining(local(DAYS, 0) - 1));
+    }
+
+    @Test
+    public void hoursStartingInRange() {
+        ForecastView.RowRange range = view.hours(Instant.ofEpochSecond(local(1, 6)),
+            Instant.ofEpochSecond(local(1, 9)));
+        assertEquals(30, range.getStart());
+        assertEquals(3, range.size());
+        assertTrue(view.hours(local(DAYS + 1, 0), local(DAYS + 2, 0)).isEmpty());
+    }
+
+    @Test
+    public void nextIncludesTheHourUnderWay() {
+        ForecastView.RowRange range = view.next(Duration.ofHours(48), Instant.ofEpochSecond(local(0, 10) + 1200));
+        assertEquals(10, range.getStart());
+        // 10:00 today up to the hour holding 10:20 two days later
+        assertEquals(49, range.size());
+        assertEquals(3, view.upcomingHours(Instant.ofEpochSecond(local(0, 10) + 1200), 3).size());
+        assertEquals(11, view.upcomingHours(Instant.ofEpochSecond(local(0, 10) + 1200), 3).getStart());
+    }
+
+    @Test
+    public void tonightRunsFromEveningToMorning() {
+        ForecastView.RowRange evening = view.tonight(Instant.ofEpochSecond(local(0, 14)));
+        assertEquals(18, evening.getStart());
+        assertEquals(12, evening.size());
+        ForecastView.RowRange lateNight = view.tonight(Instant.ofEpochSecond(local(1, 2) + 60));
+        assertEquals(24 + 2, lateNight.getStart());
+        assertEquals(4, lateNight.size());
+    }
+
+    @Test
+    public void weekendCoversSaturdayAndTheLongSunday() {
+        ForecastView.RowRange weekend = view.weekend(Instant.ofEpochSecond(local(0, 9)));
+        assertEquals(2 * 24, weekend.getStart());
+        // 24 hours on Saturday and 25 on Sunday when the clocks go back
+        assertEquals(49, weekend.size());
+    }
+
+    private static long local(int day, int hour) {
+        return FIRST_DAY.plusDays(day).atTime(hour, 0).atZone(OSLO).toEpochSecond();
+    }
+
+    private static WeatherResponse forecast() {
+        long start = local(0, 0);
+        long end = local(DAYS, 0);
+        int hours = (int) ((end - start) / 3600);
+        WeatherResponse forecast = new WeatherResponse();
+        forecast.timezone = OSLO.getId();
+        forecast.hourly = new HourlyWeather();
+        forecast.hourly.time = new long[hours];
+        for (int i = 0; i < hours; i++) {
+            forecast.hourly.time[i] = start + i * 3600L;
+        }
+        forecast.daily = new DailyWeather();
+        forecast.daily.time = new long[DAYS];
+        for (int i = 0; i < DAYS; i++) {
+            forecast.daily.time[i] = local(i, 0);
+        }
+        return forecast;
+    }
+}
@@ -0,0 +1,23 @@
+package com.weather.model;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Display names for locations with some or all address parts missing
+ */
+public class LocationTest {
+
+    @Test
+    public void leavesOutEmptyParts() {
+        assertEquals("Oslo, Norway", new Location(59.91, 10.75, "Oslo", "", "Norway").getFormattedLocation());
+        assertEquals("Oregon, United States",
+            new Location(45.52, -122.68, null, "Oregon", "United States").getFormattedLocation());
+    }
+
+    @Test
+    public void fallsBackToCoordinates() {
+        assertEquals("51.5000, -0.1200", new Location(51.5, -0.12, null, null, null).getFormattedLocation());
+    }
+}
@@ -0,0 +1,63 @@
+package com.weather.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.Test;
+
+/**
+ * Null column values and zone-less ISO times, read by the bean and the streaming deserializers
+ */
+public class MissingValuesTest {
+
+    // One hour ahead of UTC; 13:00 local is 12:00 UTC
+    private static final String BODY = "{\"timezone\":\"Europe/Oslo\",\"utc_offset_seconds\":3600,"
+        + "\"hourly\":{\"time\":[\"2024-01-01T13:00\",\"2024-01-01T14:00\"],"
+        + "\"temperature_2m\":[null,2.5],\"relative_humidity_2m\":[80,null]}}";
+
+    @Test
+    public void beanMapperReadsNullsAsMissing() throws Exception {
+        check(StreamingModelModule.newMapper(false));
+    }
+
+    @Test
+    public void streamingMapperReadsNullsAsMissing() throws Exception {
+        check(StreamingModelModule.newMapper(true));
+    }
+
+    @Test
+    public void writesMissingValuesBackAsNull() throws Exception {
+        ObjectMapper mapper = StreamingModelModule.newMapper(false);
+        String json = mapper.writeValueAsString(mapper.readValue(BODY, WeatherResponse.class).hourly);
+
+        assertTrue(json, json.contains("\"temperature_2m\":[null,2.5]"));
+        assertTrue(json, json.contains("\"relative_humidity_2m\":[80,null]"));
+    }
+
+    @Test
+    public void rejectsNullTimestamps() throws Exception {
+        String body = BODY.replace("\"2024-01-01T14:00\"", "null");
+        for (boolean streaming : new boolean[] {false, true}) {
+            try {
+                StreamingModelModule.newMapper(streaming).readValue(body, WeatherResponse.class);
+                fail("Expected a null time to be rejected");
+            } catch (MismatchedInputException e) {
+                // Expected
+            }
+        }
+    }
+
+    private static void check(ObjectMapper mapper) throws Exception {
+        HourlyWeather hourly = mapper.readValue(BODY, WeatherResponse.class).hourly;
+
+        assertEquals(1704110400L, hourly.time[0]);
+        assertEquals(1704114000L, hourly.time[1]);
+        assertTrue(MissingValues.isMissing(hourly.temperature_2m[0]));
+        assertEquals(2.5, hourly.temperature_2m[1], 0.0);
+        assertEquals(80, hourly.relative_humidity_2m[0]);
+        assertTrue(MissingValues.isMissing(hourly.relative_humidity_2m[1]));
+    }
+}
@@ -0,0 +1,80 @@
+package com.weather.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Decodes the same forecasts with the streaming deserializers and with plain databind, column by column
+ */
+public class StreamingModelModuleTest {
+
+    private static final String FIXTURE = "src/jmh/resources/fixtures/forecast-tokyo.json";
+
+    // Nulls in every column, a null column, a negative offset and fields neither mapper knows
+    private static final String WITH_NULLS = "{\"latitude\":40.71,\"elevation\":null,"
+        + "\"timezone\":\"America/New_York\",\"utc_offset_seconds\":-18000,\"timezone_abbreviation\":\"EST\","
+        + "\"hourly_units\":{\"time\":\"iso8601\",\"temperature_2m\":\"°C\"},"
+        + "\"hourly\":{\"time\":[\"2024-01-01T00:00\",\"2024-01-01T01:00\"],"
+        + "\"temperature_2m\":[null,-1.5],\"apparent_temperature\":[-4.0,null],\"weathercode\":[null,3],"
+        + "\"precipitation_probability\":[10,null],\"relative_humidity_2m\":[null,null],"
+        + "\"wind_speed_10m\":null,\"visibility\":[24140.0,null]},"
+        + "\"daily\":{\"time\":[\"2024-01-01\",\"2024-01-02\"],\"temperature_2m_max\":[2.1,null],"
+        + "\"temperature_2m_min\":[null,-3.4],\"weathercode\":[71,null],\"precipitation_sum\":[null,0.0],"
+        + "\"precipitation_probability_max\":[null,5],\"wind_speed_10m_max\":[12.2,null],"
+        + "\"wind_direction_10m_dominant\":[null,270],\"uv_index_max\":[null,null],"
+        + "\"sunrise\":[\"2024-01-01T07:20\",\"2024-01-02T07:20\"],"
+        + "\"sunset\":[\"2024-01-01T16:39\",\"2024-01-02T16:40\"]}}";
+
+    @Test
+    public void decodesTheFixtureLikeDatabind() throws Exception {
+        String body = Files.readString(Paths.get(FIXTURE));
+        WeatherResponse expected = decode(body, false);
+
+        // Every column is present, so none is trivially equal as null
+        assertNotNull(expected.daily.sunset);
+        assertNotNull(expected.hourly.wind_speed_10m);
+        assertSameForecast(expected, decode(body, true));
+    }
+
+    @Test
+    public void decodesNullsLikeDatabind() throws Exception {
+        WeatherResponse expected = decode(WITH_NULLS, false);
+
+        assertTrue(MissingValues.isMissing(expected.hourly.temperature_2m[0]));
+        assertTrue(MissingValues.isMissing(expected.daily.wind_direction_10m_dominant[0]));
+        assertSameForecast(expected, decode(WITH_NULLS, true));
+    }
+
+    private static WeatherResponse decode(String body, boolean streaming) throws Exception {
+        ObjectMapper mapper = StreamingModelModule.newMapper(streaming);
+        return mapper.readValue(body, WeatherResponse.class);
+    }
+
+    private static void assertSameForecast(WeatherResponse expected, WeatherResponse actual) throws Exception {
+        assertEquals(expected.timezone, actual.timezone);
+        assertEquals(expected.utc_offset_seconds, actual.utc_offset_seconds);
+        assertColumnsEqual(expected.hourly, actual.hourly);
+        assertColumnsEqual(expected.daily, actual.daily);
+    }
+
+    /**
+     * Compares every public column; primitive arrays compare by value, NaN equal to NaN
+     */
+    private static void assertColumnsEqual(Object expected, Object actual) throws Exception {
+        for (Field field : expected.getClass().getFields()) {
+            Object[] want = {field.get(expected)};
+            Object[] got = {field.get(actual)};
+            assertTrue(field.getName() + ": expected " + Arrays.deepToString(want) + " but was "
+                + Arrays.deepToString(got), Arrays.deepEquals(want, got));
+        }
+    }
+}
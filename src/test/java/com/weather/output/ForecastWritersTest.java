@@ -0,0 +1,92 @@
+package com.weather.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather.model.DailyWeather;
+import com.weather.model.HourlyWeather;
+import com.weather.model.Location;
+import com.weather.model.MissingValues;
+import com.weather.model.WeatherResponse;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes small forecasts in each machine-readable format and reads them back
+ */
+public class ForecastWritersTest {
+
+    private static final Location OSLO = new Location(59.91, 10.75, "Oslo", "Oslo", "Norway");
+    private static final Location QUOTED = new Location(1, 2, "Washington, \"D.C.\"", null, "United States");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void ndjsonWritesOneObjectPerLine() throws IOException {
+        String output = write(OutputFormat.NDJSON, OSLO, QUOTED);
+        String[] lines = output.split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = mapper.readTree(lines[0]);
+        assertEquals("Oslo", first.get("location").get("city").asText());
+        assertEquals(3, first.get("hourly").size());
+        assertEquals(1_700_003_600L, first.get("hourly").get(1).get("time").asLong());
+        assertTrue(first.get("hourly").get(2).get("temperature_2m").isNull());
+        assertTrue(first.get("hourly").get(1).get("relative_humidity_2m").isNull());
+        assertEquals(15.5, first.get("hourly").get(1).get("wind_speed_10m").asDouble(), 0.0);
+        assertEquals("Washington, \"D.C.\"", mapper.readTree(lines[1]).get("location").get("city").asText());
+    }
+
+    @Test
+    public void jsonWritesOneArray() throws IOException {
+        JsonNode array = mapper.readTree(write(OutputFormat.JSON, OSLO, QUOTED));
+        assertEquals(2, array.size());
+        assertEquals(1, array.get(0).get("daily").size());
+        assertEquals(0, mapper.readTree(write(OutputFormat.JSON)).size());
+    }
+
+    @Test
+    public void csvWritesOneLinePerRow() throws IOException {
+        String[] lines = write(OutputFormat.CSV, OSLO, QUOTED).split("\r\n");
+        assertEquals(1 + 2 * 4, lines.length);
+        assertEquals(String.join(",", CsvForecastWriter.HEADER), lines[0]);
+        assertEquals("59.91,10.75,Oslo,Oslo,Norway,hourly,1700000000,1.5,,,,80,12.0"
+            + ",,,,,,,,,", lines[1]);
+        assertEquals("59.91,10.75,Oslo,Oslo,Norway,hourly,1700003600,2.5,,,,,15.5"
+            + ",,,,,,,,,", lines[2]);
+        assertEquals("59.91,10.75,Oslo,Oslo,Norway,hourly,1700007200,,,,,75,9.0"
+            + ",,,,,,,,,", lines[3]);
+        assertTrue(lines[4].startsWith("59.91,10.75,Oslo,Oslo,Norway,daily,1700000000,,,,,,,4.0,"));
+        assertTrue(lines[5].startsWith("1.0,2.0,\"Washington, \"\"D.C.\"\"\",,United States,hourly,"));
+    }
+
+    private static String write(OutputFormat format, Location... locations) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ForecastWriter writer = ForecastWriters.open(format, Channels.newChannel(bytes))) {
+            for (Location location : locations) {
+                writer.write(location, forecast());
+            }
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static WeatherResponse forecast() {
+        WeatherResponse forecast = new WeatherResponse();
+        forecast.timezone = "Europe/Oslo";
+        forecast.utc_offset_seconds = 3600;
+        forecast.hourly = new HourlyWeather();
+        forecast.hourly.time = new long[] {1_700_000_000L, 1_700_003_600L, 1_700_007_200L};
+        forecast.hourly.temperature_2m = new double[] {1.5, 2.5, Double.NaN};
+        forecast.hourly.relative_humidity_2m = new int[] {80, MissingValues.INT, 75};
+        forecast.hourly.wind_speed_10m = new double[] {12.0, 15.5, 9.0};
+        forecast.daily = new DailyWeather();
+        forecast.daily.time = new long[] {1_700_000_000L};
+        forecast.daily.temperature_2m_max = new double[] {4.0};
+        return forecast;
+    }
+}
@@ -0,0 +1,175 @@
+package com.weather.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.weather.cache.ForecastCache;
+import com.weather.model.StreamingModelModule;
+import com.weather.service.FanOut;
+import com.weather.service.ForecastHorizon;
+import com.weather.service.ForecastProvider;
+import com.weather.service.LocationService;
+import com.weather.service.WeatherService;
+import com.weather.transport.HttpArchive;
+import com.weather.transport.HttpArchiveWriter;
+import com.weather.transport.ReplayHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves forecast queries on an ephemeral port, geocoding from recorded answers
+ */
+public class ForecastServerTest {
+
+    private static final String GEOCODING_URL = "https://geocoding-api.open-meteo.com/v1/search?name=";
+    private static final String GEOCODING_PARAMS = "&count=10&language=en&format=json";
+    private static final String FIXTURE = "src/jmh/resources/fixtures/forecast-tokyo.json";
+
+    private Path dir;
+    private HttpArchive archive;
+    private HttpServer upstream;
+    private ForecastServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("forecast-server-test");
+        Path recording = dir.resolve("geocode.rec");
+        try (HttpArchiveWriter writer = HttpArchiveWriter.create(recording)) {
+            recordGeocode(writer, "Tokyo", "{\"results\":[{\"name\":\"Tokyo\",\"latitude\":35.7,"
+                + "\"longitude\":139.6875,\"admin1\":\"Tokyo\",\"country\":\"Japan\"}]}");
+            recordGeocode(writer, "Nowhere", "{\"results\":[]}");
+            writer.commit();
+        }
+        archive = HttpArchive.open(recording);
+
+        // Every forecast request gets the Tokyo fixture
+        byte[] forecast = Files.readAllBytes(Paths.get(FIXTURE));
+        upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        upstream.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, forecast.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(forecast);
+            }
+        });
+        upstream.start();
+        ForecastProvider provider = ForecastProvider.of(
+            "http://127.0.0.1:" + upstream.getAddress().getPort() + "/v1/forecast");
+
+        ObjectMapper mapper = StreamingModelModule.newMapper(true);
+        server = new ForecastServer(
+            new LocationService(new ReplayHttpClient(archive), mapper),
+            new WeatherService(HttpClient.newHttpClient(), mapper, ForecastCache.NONE, ForecastHorizon.FULL,
+                FanOut.fastest(List.of(provider), Duration.ofSeconds(5))),
+            mapper);
+        server.start(new InetSocketAddress("127.0.0.1", 0));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+        upstream.stop(0);
+        archive.close();
+        try (var files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void servesTextForAPlace() throws Exception {
+        HttpResponse<String> response = get("/forecast?q=Tokyo&unit=f");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body(), response.body().contains("Location: Tokyo, Tokyo, Japan"));
+        assertTrue(response.body(), response.body().contains("°F"));
+    }
+
+    @Test
+    public void servesJsonForCoordinates() throws Exception {
+        HttpResponse<String> response = get("/forecast?lat=35.7&lon=139.69&format=json");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("application/json", response.headers().firstValue("Content-Type").orElse(null));
+        assertTrue(response.body(), response.body().contains("\"timezone\":\"Asia/Tokyo\""));
+    }
+
+    @Test
+    public void rejectsBadQueries() throws Exception {
+        assertEquals(400, get("/forecast").statusCode());
+        // HttpServer itself already turns down this request line
+        assertEquals("HTTP/1.1 400 Bad Request", rawStatusLine("/forecast?q=%ZZ"));
+        assertEquals(400, get("/forecast?lat=NaN&lon=0").statusCode());
+        assertEquals(400, get("/forecast?lat=0&lon=Infinity").statusCode());
+        assertEquals(400, get("/forecast?lat=91&lon=0").statusCode());
+        assertEquals(400, get("/forecast?q=Tokyo&unit=kelvin").statusCode());
+    }
+
+    @Test
+    public void malformedEscapeIsABadRequest() {
+        assertEquals("Oslo, NO", ForecastServer.parseQuery("q=Oslo%2C+NO&format=json").get("q"));
+        try {
+            ForecastServer.parseQuery("q=%E");
+            fail("Expected the truncated escape to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("q=%E"));
+        }
+    }
+
+    @Test
+    public void unknownPlaceIsNotFound() throws Exception {
+        HttpResponse<String> response = get("/forecast?q=Nowhere");
+
+        assertEquals(404, response.statusCode());
+        assertTrue(response.body(), response.body().contains("Location not found: Nowhere"));
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(10)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends a request line HttpClient would refuse to build, and returns the status line
+     */
+    private String rawStatusLine(String path) throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", server.getAddress().getPort())) {
+            socket.setSoTimeout(10_000);
+            socket.getOutputStream().write(("GET " + path + " HTTP/1.1\r\nHost: localhost\r\n"
+                + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            return in.readLine();
+        }
+    }
+
+    private static void recordGeocode(HttpArchiveWriter writer, String query, String body) throws Exception {
+        writer.add("GET " + GEOCODING_URL + query + GEOCODING_PARAMS, 200,
+            HttpHeaders.of(Map.of(), (name, value) -> true), 0, body.getBytes(StandardCharsets.UTF_8));
+    }
+}
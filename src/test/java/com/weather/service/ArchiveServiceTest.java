@@ -0,0 +1,250 @@
+package com.weather.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.weather.archive.ArchiveSummary;
+import com.weather.archive.ArchiveVariable;
+import com.weather.archive.ColumnarArchive;
+import com.weather.model.Location;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ingests history from a local fixture server that generates hourly data for any date range
+ */
+public class ArchiveServiceTest {
+
+    private static final Location SITE = new Location(59.91, 10.75, "Oslo", "Oslo", "Norway");
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private ArchiveService service;
+    private Path dir;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile LocalDate failingDay;
+
+    @Before
+    public void startServer() throws Exception {
+        serverThreads = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/v1/archive", exchange -> {
+            requests.incrementAndGet();
+            Map<String, String> params = new HashMap<>();
+            for (String pair : exchange.getRequestURI().getRawQuery().split("&")) {
+                String[] parts = pair.split("=", 2);
+                params.put(parts[0], parts[1]);
+            }
+            LocalDate start = LocalDate.parse(params.get("start_date"));
+            LocalDate end = LocalDate.parse(params.get("end_date"));
+            boolean fail = failingDay != null && !failingDay.isBefore(start) && !failingDay.isAfter(end);
+            byte[] body = (fail ? "{\"error\":true,\"reason\":\"Bad range\"}"
+                : fixture(start, end, params.get("hourly").split(","))).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(fail ? 400 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        service = new ArchiveService(client, new ObjectMapper(),
+            "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/archive");
+        dir = Files.createTempDirectory("archive-test");
+    }
+
+    @After
+    public void stopServer() throws IOException {
+        server.stop(0);
+        serverThreads.shutdownNow();
+        try (var files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void ingestsMultiYearRangeInChunks() throws Exception {
+        Path file = dir.resolve("oslo.wcol");
+        LocalDate start = LocalDate.of(2021, 1, 1);
+        LocalDate end = LocalDate.of(2023, 12, 31);
+
+        long rows = service.ingest(SITE, start, end, file);
+
+        long days = end.toEpochDay() - start.toEpochDay() + 1;
+        assertEquals(days * 24, rows);
+        assertEquals((days + ArchiveService.CHUNK_DAYS - 1) / ArchiveService.CHUNK_DAYS, requests.get());
+        try (ColumnarArchive archive = ColumnarArchive.open(file)) {
+            assertEquals(rows, archive.getRowCount());
+            assertEquals(epoch(start), archive.getFirstTime());
+            assertEquals(epoch(end.plusDays(1)) - 3600, archive.getLastTime());
+            assertEquals(Arrays.asList(ArchiveVariable.values()), archive.getVariables());
+        }
+    }
+
+    @Test
+    public void summarizesArbitraryRanges() throws Exception {
+        Path file = dir.resolve("oslo.wcol");
+        service.ingest(SITE, LocalDate.of(2022, 1, 1), LocalDate.of(2023, 6, 30), file);
+
+        try (ColumnarArchive archive = ColumnarArchive.open(file)) {
+            // Starts and ends inside chunks
+            long from = epoch(LocalDate.of(2022, 2, 10)) + 5 * 3600;
+            long to = epoch(LocalDate.of(2023, 3, 20)) + 17 * 3600;
+            for (ArchiveVariable variable : ArchiveVariable.values()) {
+                assertSummary(expected(variable, from, to), archive.summarize(variable, from, to));
+            }
+        }
+    }
+
+    @Test
+    public void skipsMissingHours() throws Exception {
+        Path file = dir.resolve("oslo.wcol");
+        service.ingest(SITE, LocalDate.of(2022, 1, 1), LocalDate.of(2022, 1, 7), file);
+
+        try (ColumnarArchive archive = ColumnarArchive.open(file)) {
+            long from = epoch(LocalDate.of(2022, 1, 1));
+            long to = epoch(LocalDate.of(2022, 1, 8));
+            ArchiveSummary precipitation = archive.summarize(ArchiveVariable.PRECIPITATION, from, to);
+            assertEquals(7 * 24 - 7 * 24 / 7, precipitation.getCount());
+            assertFalse(Double.isNaN(precipitation.getMean()));
+
+            ArchiveSummary none = archive.summarize(ArchiveVariable.TEMPERATURE_2M, to, to + 86_400);
+            assertEquals(0, none.getCount());
+            assertTrue(Double.isNaN(none.getMax()));
+        }
+    }
+
+    @Test
+    public void failedChunkLeavesNoFile() throws Exception {
+        Path file = dir.resolve("oslo.wcol");
+        failingDay = LocalDate.of(2022, 8, 1);
+
+        try {
+            service.ingest(SITE, LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31), file);
+            fail("Expected the ingest to fail");
+        } catch (Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("HTTP 400"));
+        }
+        assertFalse(Files.exists(file));
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static void assertSummary(Expected expected, ArchiveSummary actual) {
+        String name = actual.getVariable().apiName();
+        assertEquals(name, expected.values.length, actual.getCount());
+        assertEquals(name, expected.values[0], actual.getMin(), 1e-9);
+        assertEquals(name, expected.values[expected.values.length - 1], actual.getMax(), 1e-9);
+        assertEquals(name, expected.mean, actual.getMean(), 1e-9);
+        for (double p : new double[] {0.01, 0.5, 0.9, 0.99, 1.0}) {
+            int rank = (int) Math.max(1, Math.ceil(p * expected.values.length));
+            assertEquals(name + " p" + p, expected.values[rank - 1], actual.percentile(p), 1e-9);
+        }
+    }
+
+    private static Expected expected(ArchiveVariable variable, long from, long to) {
+        double[] values = new double[(int) ((to - from) / 3600)];
+        int n = 0;
+        long sum = 0;
+        for (long t = from; t < to; t += 3600) {
+            double value = value(variable, t);
+            if (!Double.isNaN(value)) {
+                values[n++] = value;
+                sum += Math.round(value * variable.scale());
+            }
+        }
+        values = Arrays.copyOf(values, n);
+        Arrays.sort(values);
+        return new Expected(values, (double) sum / n / variable.scale());
+    }
+
+    /**
+     * The fixture's value of a variable at an hour; every seventh hour has no precipitation reading
+     */
+    private static double value(ArchiveVariable variable, long t) {
+        double day = 2 * Math.PI * (t / 86_400 % 365) / 365.0;
+        double hour = 2 * Math.PI * (t / 3600 % 24) / 24.0;
+        switch (variable) {
+            case TEMPERATURE_2M:
+                return Math.round(10 * (5 - 12 * Math.cos(day) - 4 * Math.cos(hour))) / 10.0;
+            case RELATIVE_HUMIDITY_2M:
+                return Math.round(70 + 20 * Math.cos(hour));
+            case PRECIPITATION:
+                return t / 3600 % 7 == 0 ? Double.NaN : Math.round(10 * Math.max(0, 3 * Math.sin(day * 9))) / 10.0;
+            case WIND_SPEED_10M:
+                return Math.round(10 * (12 + 8 * Math.sin(day * 3 + hour))) / 10.0;
+            default:
+                return (t / 3600) % 4 * 20;
+        }
+    }
+
+    private static String fixture(LocalDate start, LocalDate end, String[] variables) {
+        long from = epoch(start);
+        long to = epoch(end.plusDays(1));
+        StringBuilder json = new StringBuilder("{\"latitude\":59.9,\"longitude\":10.75,\"hourly\":{\"time\":[");
+        for (long t = from; t < to; t += 3600) {
+            json.append(t == from ? "" : ",").append(t);
+        }
+        json.append(']');
+        for (String name : variables) {
+            ArchiveVariable variable = ArchiveVariable.fromApiName(name);
+            json.append(",\"").append(name).append("\":[");
+            for (long t = from; t < to; t += 3600) {
+                double value = value(variable, t);
+                json.append(t == from ? "" : ",");
+                if (Double.isNaN(value)) {
+                    json.append("null");
+                } else if (variable.isInteger()) {
+                    json.append((long) value);
+                } else {
+                    json.append(value);
+                }
+            }
+            json.append(']');
+        }
+        return json.append("}}").toString();
+    }
+
+    private static long epoch(LocalDate day) {
+        return day.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static final class Expected {
+        final double[] values;
+        final double mean;
+
+        Expected(double[] values, double mean) {
+            this.values = values;
+            this.mean = mean;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.weather.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.weather.model.StreamingModelModule;
+import com.weather.transport.HttpArchive;
+import com.weather.transport.HttpArchiveWriter;
+import com.weather.transport.ReplayHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Decodes recorded responses in each Content-Encoding the requests advertise,
+ * and orders requests after a connection warm-up
+ */
+public class BaseHttpServiceTest {
+
+    private static final String BASE_URL = "https://api.example.test/";
+
+    private Path dir;
+    private HttpArchive archive;
+    private String text;
+
+    @Before
+    public void setUp() throws Exception {
+        // Long enough to span several inflate buffers
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; body.length() < 100_000; i++) {
+            body.append("hour ").append(i).append(": 12.5 C\n");
+        }
+        text = body.toString();
+        byte[] plain = text.getBytes(StandardCharsets.UTF_8);
+
+        dir = Files.createTempDirectory("http-service-test");
+        Path recording = dir.resolve("encodings.rec");
+        try (HttpArchiveWriter writer = HttpArchiveWriter.create(recording)) {
+            writer.add("GET " + BASE_URL + "identity", 200, headers(Map.of()), 0, plain);
+            // Only this URL answers a warm-up HEAD
+            writer.add("HEAD " + BASE_URL + "identity", 200, headers(Map.of()), 0, new byte[0]);
+            writer.add("GET " + BASE_URL + "gzip", 200, headers(Map.of("Content-Encoding", "gzip")), 0,
+                compress(plain, out -> new GZIPOutputStream(out)));
+            writer.add("GET " + BASE_URL + "deflate", 200, headers(Map.of("Content-Encoding", "Deflate")), 0,
+                compress(plain, out -> new DeflaterOutputStream(out)));
+            // Some servers label even an empty 304 with the negotiated encoding
+            writer.add("GET " + BASE_URL + "unchanged", 304,
+                headers(Map.of("Content-Encoding", "gzip", "ETag", "\"v2\"")), 0, new byte[0]);
+            writer.commit();
+        }
+        archive = HttpArchive.open(recording);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        archive.close();
+        try (var files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void readsIdentityBody() throws Exception {
+        assertEquals(text, service().performGetRequest(BASE_URL + "identity", "failed"));
+    }
+
+    @Test
+    public void inflatesGzipBody() throws Exception {
+        assertEquals(text, service().performGetRequest(BASE_URL + "gzip", "failed"));
+    }
+
+    @Test
+    public void inflatesZlibWrappedDeflateBody() throws Exception {
+        assertEquals(text, service().performGetRequest(BASE_URL + "deflate", "failed"));
+    }
+
+    @Test
+    public void notModifiedWithEmptyBodyKeepsThePreviousValue() throws Exception {
+        ValidatedResponse<String> previous = ValidatedResponse.of("cached",
+            headers(Map.of("ETag", "\"v1\"")), Instant.now());
+
+        ValidatedResponse<String> revalidated = service()
+            .performValidatedGetAsync(BASE_URL + "unchanged", String.class, "failed", previous).get();
+
+        assertTrue(revalidated.isNotModified());
+        assertSame("cached", revalidated.getValue());
+        assertEquals("\"v2\"", revalidated.getETag());
+    }
+
+    @Test
+    public void requestWaitsForTheWarmUpInFlight() throws Exception {
+        GatedClient client = new GatedClient(archive);
+        TestService service = new TestService(client);
+
+        CompletableFuture<Void> warmUp = service.warmUp(BASE_URL + "identity");
+        CompletableFuture<String> body = service.performGetRequestAsync(BASE_URL + "identity", "failed");
+        Thread.sleep(100);
+        assertFalse(body.isDone());
+        assertEquals(List.of("HEAD"), client.sent);
+
+        client.heads.complete(null);
+        assertEquals(text, body.get(5, TimeUnit.SECONDS));
+        assertTrue(warmUp.isDone());
+        assertEquals(List.of("HEAD", "GET"), client.sent);
+    }
+
+    @Test
+    public void failedWarmUpDoesNotFailTheRequest() throws Exception {
+        GatedClient client = new GatedClient(archive);
+        TestService service = new TestService(client);
+
+        // No HEAD is recorded for this URL, so the warm-up fails with ConnectException
+        CompletableFuture<Void> warmUp = service.warmUp(BASE_URL + "gzip");
+        CompletableFuture<String> body = service.performGetRequestAsync(BASE_URL + "gzip", "failed");
+        client.heads.complete(null);
+
+        assertEquals(text, body.get(5, TimeUnit.SECONDS));
+        assertFalse(warmUp.isCompletedExceptionally());
+        assertEquals(List.of("HEAD", "GET"), client.sent);
+    }
+
+    private TestService service() {
+        return new TestService(new ReplayHttpClient(archive));
+    }
+
+    private static HttpHeaders headers(Map<String, String> values) {
+        Map<String, List<String>> map = new HashMap<>();
+        values.forEach((name, value) -> map.put(name, List.of(value)));
+        return HttpHeaders.of(map, (name, value) -> true);
+    }
+
+    private interface Compressor {
+        OutputStream wrap(OutputStream out) throws Exception;
+    }
+
+    private static byte[] compress(byte[] plain, Compressor compressor) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = compressor.wrap(bytes)) {
+            out.write(plain);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Holds every HEAD until the test releases them, and lists the methods sent
+     */
+    private static final class GatedClient extends ReplayHttpClient {
+        final CompletableFuture<Void> heads = new CompletableFuture<>();
+        final List<String> sent = new CopyOnWriteArrayList<>();
+
+        GatedClient(HttpArchive archive) {
+            super(archive);
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                HttpResponse.BodyHandler<T> handler) {
+            sent.add(request.method());
+            if (!request.method().equals("HEAD")) {
+                return super.sendAsync(request, handler);
+            }
+            return heads.thenCompose(released -> super.sendAsync(request, handler));
+        }
+    }
+
+    private static final class TestService extends BaseHttpService {
+        TestService(HttpClient client) {
+            super(client, StreamingModelModule.newMapper(false));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.weather.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.weather.model.Location;
+import com.weather.model.StreamingModelModule;
+import com.weather.transport.HttpArchive;
+import com.weather.transport.HttpArchiveWriter;
+import com.weather.transport.ReplayHttpClient;
+import com.weather.transport.ReplayLatency;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URLEncoder;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Geocodes many queries against recorded answers of the geocoding API
+ */
+public class LocationServiceTest {
+
+    private static final String GEOCODING_URL = "https://geocoding-api.open-meteo.com/v1/search?name=";
+    private static final String GEOCODING_PARAMS = "&count=10&language=en&format=json";
+    private static final int QUERIES = 20;
+
+    private Path dir;
+    private HttpArchive archive;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("location-test");
+        Path recording = dir.resolve("geocode.rec");
+        try (HttpArchiveWriter writer = HttpArchiveWriter.create(recording)) {
+            for (int i = 0; i < QUERIES; i++) {
+                record(writer, "Town " + i, "{\"results\":[{\"name\":\"Town " + i + "\",\"latitude\":" + i
+                    + ",\"longitude\":" + -i + ",\"country\":\"Testland\"}]}");
+            }
+            record(writer, "Nowhere", "{\"results\":[]}");
+            writer.commit();
+        }
+        archive = HttpArchive.open(recording);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        archive.close();
+        try (var files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void geocodesInQueryOrderOverEightLanes() throws Exception {
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add("Town " + i);
+        }
+
+        List<Location> locations = service().geocodeLocationsAsync(queries).get();
+
+        assertEquals(QUERIES, locations.size());
+        for (int i = 0; i < QUERIES; i++) {
+            assertEquals("Town " + i, locations.get(i).getCity());
+            assertEquals(i, locations.get(i).getLatitude(), 0.0);
+        }
+        assertTrue("max in flight " + maxInFlight.get(), maxInFlight.get() > 1 && maxInFlight.get() <= 8);
+    }
+
+    @Test
+    public void onePlaceNotFoundFailsTheLookup() throws Exception {
+        try {
+            service().geocodeLocationsAsync(List.of("Town 1", "Nowhere", "Town 2")).get();
+            fail("Expected the unknown place to fail the lookup");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof LocationService.LocationNotFoundException);
+            assertTrue(e.getCause().getMessage().contains("Nowhere"));
+        }
+    }
+
+    /**
+     * A service whose client answers from the recording after 30 ms, counting requests in flight
+     */
+    private LocationService service() {
+        ReplayHttpClient client = new ReplayHttpClient(archive, ReplayLatency.fixed(Duration.ofMillis(30))) {
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                    HttpResponse.BodyHandler<T> handler) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                return super.sendAsync(request, handler)
+                    .whenComplete((response, failure) -> inFlight.decrementAndGet());
+            }
+        };
+        return new LocationService(client, StreamingModelModule.newMapper(false));
+    }
+
+    private static void record(HttpArchiveWriter writer, String query, String body) throws Exception {
+        String uri = GEOCODING_URL + URLEncoder.encode(query, StandardCharsets.UTF_8) + GEOCODING_PARAMS;
+        writer.add("GET " + uri, 200, HttpHeaders.of(Map.of(), (name, value) -> true), 0,
+            body.getBytes(StandardCharsets.UTF_8));
+    }
+}
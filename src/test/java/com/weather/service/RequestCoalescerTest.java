@@ -0,0 +1,141 @@
+package com.weather.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Attaches several callers to one upstream future held open by the test
+ */
+public class RequestCoalescerTest {
+
+    private static final int CALLERS = 5;
+
+    private final RequestCoalescer<String, String> coalescer = new RequestCoalescer<>();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Test
+    public void callersShareOneRequestAndItsValue() throws Exception {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        List<CompletableFuture<String>> callers = attach("tokyo", upstream);
+
+        assertEquals(1, requests.get());
+        assertEquals(1, coalescer.getOriginatedCount());
+        assertEquals(CALLERS - 1, coalescer.getCoalescedCount());
+        assertEquals(1, coalescer.getInFlightCount());
+
+        upstream.complete("forecast");
+        for (CompletableFuture<String> caller : callers) {
+            assertEquals("forecast", caller.get(1, TimeUnit.SECONDS));
+        }
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void failureReachesEveryCaller() throws Exception {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        List<CompletableFuture<String>> callers = attach("tokyo", upstream);
+
+        IOException failure = new IOException("connection reset");
+        upstream.completeExceptionally(failure);
+
+        for (CompletableFuture<String> caller : callers) {
+            try {
+                caller.get(1, TimeUnit.SECONDS);
+                fail("Expected the upstream failure");
+            } catch (ExecutionException e) {
+                assertSame(failure, e.getCause());
+            }
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void oneCallerGivingUpLeavesTheOthersWaiting() throws Exception {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        List<CompletableFuture<String>> callers = attach("tokyo", upstream);
+
+        // The first caller started the request, the second joined it
+        assertTrue(callers.get(0).cancel(true));
+        CompletableFuture<String> timedOut = callers.get(1).orTimeout(1, TimeUnit.MILLISECONDS);
+        try {
+            timedOut.get(1, TimeUnit.SECONDS);
+            fail("Expected the caller's own timeout");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+
+        assertFalse(upstream.isDone());
+        upstream.complete("forecast");
+        for (CompletableFuture<String> caller : callers.subList(2, CALLERS)) {
+            assertEquals("forecast", caller.get(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void keyIsReleasedOnceTheRequestCompletes() throws Exception {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> caller = coalescer.execute("tokyo", () -> issue(first));
+        first.completeExceptionally(new IOException("connection reset"));
+        assertTrue(caller.isCompletedExceptionally());
+
+        CompletableFuture<String> second = coalescer.execute("tokyo",
+            () -> issue(CompletableFuture.completedFuture("fresh")));
+
+        assertEquals("fresh", second.get(1, TimeUnit.SECONDS));
+        assertEquals(2, requests.get());
+        assertEquals(2, coalescer.getOriginatedCount());
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    public void differentKeysDoNotCoalesce() throws Exception {
+        coalescer.execute("tokyo", () -> issue(new CompletableFuture<>()));
+        coalescer.execute("oslo", () -> issue(new CompletableFuture<>()));
+
+        assertEquals(2, requests.get());
+        assertEquals(0, coalescer.getCoalescedCount());
+        assertEquals(2, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void supplierThatThrowsFailsTheCallerAndReleasesTheKey() throws Exception {
+        CompletableFuture<String> caller = coalescer.execute("tokyo", () -> {
+            throw new IllegalStateException("client closed");
+        });
+
+        try {
+            caller.get(1, TimeUnit.SECONDS);
+            fail("Expected the supplier's exception");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    private List<CompletableFuture<String>> attach(String key, CompletableFuture<String> upstream) {
+        List<CompletableFuture<String>> callers = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            callers.add(coalescer.execute(key, () -> issue(upstream)));
+        }
+        return callers;
+    }
+
+    private CompletableFuture<String> issue(CompletableFuture<String> upstream) {
+        requests.incrementAndGet();
+        return upstream;
+    }
+}
@@ -0,0 +1,308 @@
+package com.weather.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs ResilientSender against a local stub server that injects latency and errors
+ */
+public class ResilientSenderTest {
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private HttpClient client;
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile Stub stub = hit -> new Reply(200, 0);
+
+    @Before
+    public void startServer() throws Exception {
+        serverThreads = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/", exchange -> {
+            Reply reply = stub.reply(hits.incrementAndGet());
+            try {
+                Thread.sleep(reply.delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = ("status " + reply.status).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(reply.status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            } catch (IOException e) {
+                // The client gave up on this response
+            }
+        });
+        server.start();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    public void retriesServerErrorsUntilSuccess() throws Exception {
+        stub = hit -> new Reply(hit < 3 ? 503 : 200, 0);
+        ResilientSender sender = sender(policy().maxAttempts(3).hedging(false).build(), Clock.systemUTC());
+
+        HttpResponse<InputStream> response = sender.send(request()).get();
+
+        assertEquals(200, response.statusCode());
+        assertEquals("status 200", body(response));
+        assertEquals(3, hits.get());
+    }
+
+    @Test
+    public void doesNotRetryClientErrors() throws Exception {
+        stub = hit -> new Reply(404, 0);
+        ResilientSender sender = sender(policy().maxAttempts(3).hedging(false).build(), Clock.systemUTC());
+
+        HttpResponse<InputStream> response = sender.send(request()).get();
+
+        assertEquals(404, response.statusCode());
+        assertEquals(1, hits.get());
+        assertEquals(CircuitBreaker.State.CLOSED, sender.getCircuitState("127.0.0.1"));
+    }
+
+    @Test
+    public void returnsLastErrorWhenAttemptsRunOut() throws Exception {
+        stub = hit -> new Reply(500, 0);
+        ResilientSender sender = sender(policy().maxAttempts(2).hedging(false).build(), Clock.systemUTC());
+
+        HttpResponse<InputStream> response = sender.send(request()).get();
+
+        assertEquals(500, response.statusCode());
+        assertEquals("status 500", body(response));
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    public void timesOutSlowResponses() throws Exception {
+        stub = hit -> new Reply(200, 2000);
+        ResilientSender sender = sender(policy()
+            .requestTimeout(Duration.ofMillis(100))
+            .maxAttempts(1)
+            .hedging(false)
+            .build(), Clock.systemUTC());
+
+        try {
+            sender.send(request()).get();
+            fail("Expected a timeout");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof HttpTimeoutException);
+        }
+    }
+
+    @Test
+    public void hedgedRequestBeatsSlowFirstResponse() throws Exception {
+        stub = hit -> new Reply(200, hit == 1 ? 2000 : 0);
+        ResilientSender sender = sender(policy()
+            .maxAttempts(1)
+            .hedging(true)
+            .hedgeAfter(0.95, Duration.ofMillis(10), Duration.ofMillis(50))
+            .build(), Clock.systemUTC());
+
+        long start = System.nanoTime();
+        HttpResponse<InputStream> response = sender.send(request()).get();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(200, response.statusCode());
+        assertEquals(2, hits.get());
+        assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < 1000);
+    }
+
+    @Test
+    public void openCircuitFailsFastThenRecovers() throws Exception {
+        stub = hit -> new Reply(500, 0);
+        MutableClock clock = new MutableClock();
+        ResilientSender sender = sender(policy()
+            .maxAttempts(1)
+            .hedging(false)
+            .breakerFailureThreshold(2)
+            .breakerOpenDuration(Duration.ofSeconds(30))
+            .build(), clock);
+
+        sender.send(request()).get().body().close();
+        sender.send(request()).get().body().close();
+        assertEquals(CircuitBreaker.State.OPEN, sender.getCircuitState("127.0.0.1"));
+
+        try {
+            sender.send(request()).get();
+            fail("Expected the circuit to be open");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CircuitBreaker.OpenException);
+        }
+        assertEquals(2, hits.get());
+
+        stub = hit -> new Reply(200, 0);
+        clock.advance(Duration.ofSeconds(30));
+        HttpResponse<InputStream> response = sender.send(request()).get();
+
+        assertEquals(200, response.statusCode());
+        assertEquals(CircuitBreaker.State.CLOSED, sender.getCircuitState("127.0.0.1"));
+    }
+
+    @Test
+    public void halfOpenCircuitSendsNoHedge() throws Exception {
+        stub = hit -> hit == 1 ? new Reply(500, 0) : new Reply(200, 600);
+        MutableClock clock = new MutableClock();
+        ResilientSender sender = sender(policy()
+            .maxAttempts(1)
+            .hedging(true)
+            .hedgeAfter(0.95, Duration.ofMillis(10), Duration.ofMillis(200))
+            .breakerFailureThreshold(1)
+            .breakerOpenDuration(Duration.ofSeconds(30))
+            .build(), clock);
+
+        sender.send(request()).get().body().close();
+        assertEquals(CircuitBreaker.State.OPEN, sender.getCircuitState("127.0.0.1"));
+
+        // The first copy is the circuit's one trial, so the slow answer gets no duplicate
+        clock.advance(Duration.ofSeconds(30));
+        HttpResponse<InputStream> response = sender.send(request()).get();
+
+        assertEquals(200, response.statusCode());
+        assertEquals(2, hits.get());
+        assertEquals(CircuitBreaker.State.CLOSED, sender.getCircuitState("127.0.0.1"));
+    }
+
+    @Test
+    public void deadlineDoesNotCountAgainstTheHost() throws Exception {
+        stub = hit -> new Reply(200, 2000);
+        ResilientSender sender = sender(policy()
+            .deadline(Duration.ofMillis(200))
+            .maxAttempts(1)
+            .breakerFailureThreshold(1)
+            .build(), Clock.systemUTC());
+
+        try {
+            sender.send(request()).get();
+            fail("Expected the deadline to pass");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof HttpTimeoutException);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, sender.getCircuitState("127.0.0.1"));
+    }
+
+    @Test
+    public void bodyStillArrivingAtTheDeadlineFails() throws Exception {
+        server.createContext("/slow-body", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write("{\"partial\":".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                Thread.sleep(2000);
+                out.write("true}".getBytes(StandardCharsets.UTF_8));
+            } catch (IOException | InterruptedException e) {
+                // The client gave up on this response
+            }
+        });
+        ResilientSender sender = sender(policy().deadline(Duration.ofMillis(300)).build(), Clock.systemUTC());
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/slow-body"))
+            .build();
+
+        long start = System.nanoTime();
+        try (InputStream body = sender.send(request).get().body()) {
+            body.readAllBytes();
+            fail("Expected the body read to time out");
+        } catch (HttpTimeoutException e) {
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < 1500);
+        }
+    }
+
+    private ResilientSender sender(ResiliencePolicy policy, Clock clock) {
+        return new ResilientSender(client, policy, clock);
+    }
+
+    private static ResiliencePolicy.Builder policy() {
+        return ResiliencePolicy.builder()
+            .requestTimeout(Duration.ofSeconds(5))
+            .deadline(Duration.ofSeconds(10))
+            .backoff(Duration.ofMillis(1), Duration.ofMillis(5));
+    }
+
+    private HttpRequest request() {
+        return HttpRequest.newBuilder()
+            .uri(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/forecast"))
+            .build();
+    }
+
+    private static String body(HttpResponse<InputStream> response) throws Exception {
+        try (InputStream in = response.body()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private interface Stub {
+        Reply reply(int hit);
+    }
+
+    private static final class Reply {
+        final int status;
+        final long delayMillis;
+
+        Reply(int status, long delayMillis) {
+            this.status = status;
+            this.delayMillis = delayMillis;
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
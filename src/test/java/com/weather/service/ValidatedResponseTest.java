@@ -0,0 +1,66 @@
+package com.weather.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.net.http.HttpHeaders;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Freshness from Cache-Control, Age, Expires and Date response headers
+ */
+public class ValidatedResponseTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-17T12:00:00Z");
+
+    @Test
+    public void maxAgeLessAge() {
+        assertEquals(NOW.plusSeconds(600), freshUntil("Cache-Control", "public, max-age=900", "Age", "300"));
+        assertEquals(NOW, freshUntil("Cache-Control", "max-age=60", "Age", "120"));
+    }
+
+    @Test
+    public void maxAgeWinsOverExpires() {
+        assertEquals(NOW.plusSeconds(60), freshUntil("Cache-Control", "max-age=60",
+            "Expires", "Sat, 17 Oct 2026 14:00:00 GMT"));
+    }
+
+    @Test
+    public void noCacheIsStaleAtOnce() {
+        assertEquals(NOW, freshUntil("Cache-Control", "No-Cache, max-age=900"));
+        assertEquals(NOW, freshUntil("Cache-Control", "no-store"));
+    }
+
+    @Test
+    public void expiresIsRelativeToDate() {
+        // The server's clock is an hour ahead of ours; the response lives for 30 minutes
+        assertEquals(NOW.plusSeconds(1800), freshUntil(
+            "Date", "Sat, 17 Oct 2026 13:00:00 GMT", "Expires", "Sat, 17 Oct 2026 13:30:00 GMT"));
+        assertEquals(Instant.parse("2026-10-17T12:30:00Z"),
+            freshUntil("Expires", "Sat, 17 Oct 2026 12:30:00 GMT"));
+    }
+
+    @Test
+    public void invalidExpiresIsStale() {
+        assertEquals(NOW, freshUntil("Expires", "0"));
+    }
+
+    @Test
+    public void unknownWithoutHeaders() {
+        assertNull(freshUntil());
+        assertNull(freshUntil("Cache-Control", "public"));
+    }
+
+    private static Instant freshUntil(String... namesAndValues) {
+        Map<String, List<String>> headers = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            headers.put(namesAndValues[i], List.of(namesAndValues[i + 1]));
+        }
+        return ValidatedResponse.freshUntil(HttpHeaders.of(headers, (name, value) -> true), NOW);
+    }
+}
@@ -0,0 +1,207 @@
+package com.weather.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.weather.cache.ForecastCache;
+import com.weather.model.Location;
+import com.weather.model.StreamingModelModule;
+import com.weather.model.WeatherResponse;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans forecast requests out to local stand-ins for several providers
+ */
+public class WeatherServiceFanOutTest {
+
+    private static final Location OSLO = new Location(59.91, 10.75, "Oslo", "", "Norway");
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ObjectMapper mapper = StreamingModelModule.newMapper(false);
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        for (HttpServer server : servers) {
+            server.stop(0);
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void fastestProviderWins() throws Exception {
+        ForecastProvider slow = provider(20.0, true);
+        ForecastProvider fast = provider(10.0, false);
+        WeatherService service = service(FanOut.fastest(List.of(slow, fast), Duration.ofSeconds(5)));
+
+        long start = System.nanoTime();
+        WeatherResponse forecast = service.getWeather(OSLO);
+
+        assertEquals(10.0, forecast.hourly.temperature_2m[0], 0.0);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(4));
+    }
+
+    @Test
+    public void ensembleMergesModels() throws Exception {
+        ForecastProvider endpoint = provider(0.0, false);
+        List<ForecastProvider> models = List.of(
+            endpoint.withModel("a"), endpoint.withModel("b"), endpoint.withModel("c"));
+        WeatherService service = service(FanOut.ensemble(models, Duration.ofSeconds(5)));
+
+        EnsembleForecast ensemble = service.getEnsembleAsync(OSLO).get();
+        WeatherResponse mean = service.getWeather(OSLO);
+
+        // The stub adds the model's offset: a=1, b=2, c=3
+        assertEquals(3, ensemble.getMembers().size());
+        assertEquals(2.0, ensemble.getMean().hourly.temperature_2m[0], 1e-9);
+        assertEquals(1.0, ensemble.getMin().hourly.temperature_2m[0], 1e-9);
+        assertEquals(3.0, ensemble.getMax().hourly.temperature_2m[0], 1e-9);
+        assertEquals(2.0, mean.hourly.temperature_2m[0], 1e-9);
+        // Directions 350, 0 and 10 average to north, not to 120
+        assertEquals(0, ensemble.getMean().daily.wind_direction_10m_dominant[0]);
+        // Codes 61, 62, 63: no majority, so the most severe
+        assertEquals(63, ensemble.getMean().daily.weathercode[0]);
+    }
+
+    @Test
+    public void fastestCancelsTheLosers() throws Exception {
+        CountDownLatch abandoned = new CountDownLatch(1);
+        ForecastProvider silent = silentProvider(abandoned);
+        ForecastProvider fast = provider(10.0, false);
+        WeatherService service = service(FanOut.fastest(List.of(silent, fast), Duration.ofSeconds(5)));
+
+        assertEquals(10.0, service.getWeather(OSLO).hourly.temperature_2m[0], 0.0);
+        assertTrue("The losing request was left open", abandoned.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void ensembleSkipsMissingValues() throws Exception {
+        ForecastProvider endpoint = provider(0.0, false);
+        // Model c leaves its first hour, weather code and wind direction out
+        List<ForecastProvider> models = List.of(
+            endpoint.withModel("a"), endpoint.withModel("b"), endpoint.withModel("c with holes"));
+        WeatherService service = service(FanOut.ensemble(models, Duration.ofSeconds(5)));
+
+        WeatherResponse mean = service.getEnsembleAsync(OSLO).get().getMean();
+
+        assertEquals(1.5, mean.hourly.temperature_2m[0], 1e-9);
+        assertEquals(2.0, mean.hourly.temperature_2m[1], 1e-9);
+        // Codes 61 and 62: no majority, so the most severe; directions 350 and 0
+        assertEquals(62, mean.daily.weathercode[0]);
+        assertEquals(355, mean.daily.wind_direction_10m_dominant[0]);
+    }
+
+    @Test
+    public void ensembleMergesWhatArrivedByTheDeadline() throws Exception {
+        ForecastProvider fast = provider(10.0, false);
+        ForecastProvider slow = provider(20.0, true);
+        WeatherService service = service(FanOut.ensemble(List.of(fast, slow), Duration.ofMillis(300)));
+
+        EnsembleForecast ensemble = service.getEnsembleAsync(OSLO).get();
+
+        assertEquals(List.of(fast), ensemble.getProviders());
+        assertEquals(10.0, ensemble.getMean().hourly.temperature_2m[0], 0.0);
+    }
+
+    @Test
+    public void failsWhenNoProviderAnswersByTheDeadline() throws Exception {
+        WeatherService service = service(FanOut.fastest(
+            List.of(provider(10.0, true), provider(20.0, true)), Duration.ofMillis(300)));
+        try {
+            service.getWeather(OSLO);
+            fail("Expected the deadline to pass");
+        } catch (WeatherService.WeatherServiceException e) {
+            assertTrue(e.getMessage().contains("300 ms"));
+        }
+    }
+
+    private WeatherService service(FanOut fanOut) {
+        return new WeatherService(HttpClient.newHttpClient(), mapper, ForecastCache.NONE,
+            ForecastHorizon.FULL, fanOut);
+    }
+
+    /**
+     * Starts a provider answering with the temperature, plus 1, 2 or 3 for models a, b and c
+     * A slow provider does not answer before the test ends. A model named "... with holes"
+     * answers null for its first hour and its daily values.
+     */
+    private ForecastProvider provider(double temperature, boolean slow) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            if (slow) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String query = exchange.getRequestURI().getRawQuery();
+            String name = query.contains("models=")
+                ? URLDecoder.decode(query.substring(query.indexOf("models=") + 7).split("&")[0], StandardCharsets.UTF_8)
+                : "";
+            int model = name.isEmpty() ? 0 : name.charAt(0) - 'a' + 1;
+            boolean holes = name.endsWith(" with holes");
+            double value = temperature + model;
+            int[] directions = {0, 350, 0, 10};
+            String body = "{\"timezone\":\"UTC\",\"utc_offset_seconds\":0,"
+                + "\"hourly\":{\"time\":[0,3600],\"temperature_2m\":[" + (holes ? "null" : value) + "," + value + "]},"
+                + "\"daily\":{\"time\":[0],\"weathercode\":[" + (holes ? "null" : 60 + model) + "],"
+                + "\"wind_direction_10m_dominant\":[" + (holes ? "null" : directions[model]) + "]}}";
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+        servers.add(server);
+        return ForecastProvider.of("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/forecast");
+    }
+
+    /**
+     * Starts a provider that reads the request and never answers
+     * The latch is counted down when the client closes the connection.
+     */
+    private ForecastProvider silentProvider(CountDownLatch closed) throws Exception {
+        ServerSocket socket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress());
+        executor.execute(() -> {
+            try (ServerSocket listener = socket; Socket connection = listener.accept()) {
+                InputStream in = connection.getInputStream();
+                byte[] buffer = new byte[4096];
+                while (in.read(buffer) >= 0) {
+                    // Request bytes, then nothing until the client gives up
+                }
+                closed.countDown();
+            } catch (IOException e) {
+                // Connection reset also means the client gave up
+                closed.countDown();
+            }
+        });
+        return ForecastProvider.of("http://127.0.0.1:" + socket.getLocalPort() + "/v1/forecast");
+    }
+}
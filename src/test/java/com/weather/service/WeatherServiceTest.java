@@ -0,0 +1,201 @@
+package com.weather.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sun.net.httpserver.HttpServer;
+import com.weather.cache.ForecastCache;
+import com.weather.model.Location;
+import com.weather.model.StreamingModelModule;
+import com.weather.model.WeatherResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends forecast requests to a local stand-in for the forecast API
+ */
+public class WeatherServiceTest {
+
+    // The stub answers 400 to any batch with this site
+    private static final String REJECTED_LATITUDE = "89.990000";
+
+    private HttpServer server;
+    private ForecastProvider provider;
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private Locale defaultLocale;
+
+    @Before
+    public void setUp() throws Exception {
+        defaultLocale = Locale.getDefault();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            queries.add(query);
+            int concurrent = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(concurrent, Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            if (exchange.getRequestHeaders().containsKey("If-None-Match")) {
+                // Some servers label even an empty 304 with the negotiated encoding
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            String[] latitudes = query.split("&")[0].substring("latitude=".length()).split(",");
+            if (List.of(latitudes).contains(REJECTED_LATITUDE)) {
+                exchange.sendResponseHeaders(400, -1);
+                exchange.close();
+                return;
+            }
+            int sites = latitudes.length;
+            // The timezone echoes the site's latitude, so tests can check the order
+            StringBuilder body = new StringBuilder(sites > 1 ? "[" : "");
+            for (int i = 0; i < sites; i++) {
+                body.append(i > 0 ? "," : "")
+                    .append("{\"timezone\":\"").append(latitudes[i]).append("\",\"utc_offset_seconds\":0}");
+            }
+            byte[] bytes = body.append(sites > 1 ? "]" : "").toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+        provider = ForecastProvider.of("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/forecast");
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(defaultLocale);
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void coordinatesUseDecimalPointInAnyLocale() throws Exception {
+        Locale.setDefault(Locale.GERMANY);
+        WeatherService service = new WeatherService(HttpClient.newHttpClient(),
+            StreamingModelModule.newMapper(false), ForecastCache.NONE, ForecastHorizon.FULL,
+            FanOut.fastest(List.of(provider), Duration.ofSeconds(5)));
+
+        List<WeatherResponse> forecasts = service.getWeather(List.of(
+            new Location(59.91, 10.75, "Oslo", "", "Norway"),
+            new Location(-12.05, -77.04, "Lima", "", "Peru")));
+
+        assertEquals(2, forecasts.size());
+        assertEquals(1, queries.size());
+        assertTrue(queries.get(0), queries.get(0).startsWith(
+            "latitude=59.910000,-12.050000&longitude=10.750000,-77.040000&"));
+    }
+
+    @Test
+    public void notModifiedIsNotDecoded() throws Exception {
+        WeatherService service = new WeatherService(HttpClient.newHttpClient(),
+            StreamingModelModule.newMapper(false), ForecastCache.NONE, ForecastHorizon.FULL,
+            FanOut.fastest(List.of(provider), Duration.ofSeconds(5)));
+        Location oslo = new Location(59.91, 10.75, "Oslo", "", "Norway");
+
+        ValidatedResponse<WeatherResponse> first = service.revalidateAsync(oslo, null).get();
+        ValidatedResponse<WeatherResponse> second = service.revalidateAsync(oslo, first).get();
+
+        assertEquals("\"v1\"", first.getETag());
+        assertTrue(second.isNotModified());
+        assertSame(first.getValue(), second.getValue());
+    }
+
+    @Test
+    public void requestsHourlyWindOverTheWholeHorizon() throws Exception {
+        WeatherService service = new WeatherService(HttpClient.newHttpClient(),
+            StreamingModelModule.newMapper(false), ForecastCache.NONE, ForecastHorizon.FULL,
+            FanOut.fastest(List.of(provider), Duration.ofSeconds(5)));
+
+        service.getWeather(List.of(
+            new Location(59.91, 10.75, "Oslo", "", "Norway"),
+            new Location(-12.05, -77.04, "Lima", "", "Peru")));
+
+        String hourly = queries.get(0).replaceAll(".*&hourly=([^&]*).*", "$1");
+        assertTrue(hourly, List.of(hourly.split(",")).contains("wind_speed_10m"));
+        assertTrue(queries.get(0), queries.get(0).contains("&forecast_hours=168&"));
+    }
+
+    @Test
+    public void manyLocationsKeepTheirOrderOverFourLanes() throws Exception {
+        WeatherService service = service();
+        // Five batches of at most 50
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < 230; i++) {
+            locations.add(new Location(i / 10.0, 0, "Site " + i, "", ""));
+        }
+
+        List<WeatherResponse> forecasts = service.getWeatherAsync(locations).get();
+
+        assertEquals(230, forecasts.size());
+        for (int i = 0; i < forecasts.size(); i++) {
+            assertEquals(String.format(Locale.ROOT, "%.6f", i / 10.0), forecasts.get(i).timezone);
+        }
+        assertEquals(5, queries.size());
+        assertTrue("max in flight " + maxInFlight.get(), maxInFlight.get() > 1 && maxInFlight.get() <= 4);
+    }
+
+    @Test
+    public void oneFailedBatchFailsTheLookup() throws Exception {
+        WeatherService service = service();
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            locations.add(new Location(i == 75 ? 89.99 : i / 10.0, 0, "Site " + i, "", ""));
+        }
+
+        try {
+            service.getWeatherAsync(locations).get();
+            fail("Expected the rejected batch to fail the lookup");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains("HTTP 400"));
+        }
+    }
+
+    @Test
+    public void providerPolicyAppliesToEveryProviderHost() throws Exception {
+        WeatherService service = service();
+        assertFalse(service.getSender().getPolicy("127.0.0.1").isHedging());
+
+        service.setProviderPolicy(ResiliencePolicy.HEDGED);
+
+        assertSame(ResiliencePolicy.HEDGED, service.getSender().getPolicy("127.0.0.1"));
+        assertEquals(1, service.getWeather(List.of(new Location(59.91, 10.75, "Oslo", "", "Norway"))).size());
+    }
+
+    private WeatherService service() {
+        return new WeatherService(HttpClient.newHttpClient(),
+            StreamingModelModule.newMapper(false), ForecastCache.NONE, ForecastHorizon.FULL,
+            FanOut.fastest(List.of(provider), Duration.ofSeconds(5)));
+    }
+}
@@ -0,0 +1,73 @@
+package com.weather.timing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bucket bounds and percentiles against the documented 12.5% error
+ */
+public class PhaseHistogramTest {
+
+    @Test
+    public void everyValueFallsInABucketWithinAnEighthOfIt() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 100_000; i++) {
+            // Spread over every power of two
+            long value = random.nextLong(1L << random.nextInt(1, 63));
+            assertBucketHolds(value);
+        }
+        for (long value : new long[] {0, 1, 7, 8, 9, 15, 16, 17, 1_000_000, Long.MAX_VALUE - 1, Long.MAX_VALUE}) {
+            assertBucketHolds(value);
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinAnEighthOfTheTrueValue() {
+        PhaseHistogram histogram = new PhaseHistogram();
+        // 1 ms to 10 s in 1 ms steps, largest first
+        for (long millis = 10_000; millis >= 1; millis--) {
+            histogram.record(millis * 1_000_000, 0, false);
+        }
+
+        for (double p : new double[] {0.01, 0.5, 0.9, 0.99, 0.999}) {
+            long exact = (long) Math.ceil(p * 10_000) * 1_000_000;
+            long reported = histogram.percentile(p);
+            assertTrue(p + ": " + reported + " < " + exact, reported >= exact);
+            assertTrue(p + ": " + reported + " vs " + exact, reported - exact <= exact / 8);
+        }
+        assertEquals(10_000_000_000L, histogram.percentile(1.0));
+        assertEquals(10_000_000_000L, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void countsTotalsAndFailures() {
+        PhaseHistogram histogram = new PhaseHistogram();
+        assertEquals(0, histogram.percentile(0.5));
+
+        histogram.record(3_000, 100, false);
+        histogram.record(5_000, 200, true);
+        // A clock step backwards counts as zero
+        histogram.record(-10, 0, false);
+
+        assertEquals(3, histogram.getCount());
+        assertEquals(1, histogram.getFailures());
+        assertEquals(8_000, histogram.getTotalNanos());
+        assertEquals(300, histogram.getTotalBytes());
+        assertEquals(5_000, histogram.getMaxNanos());
+        assertEquals(0, histogram.percentile(0.1));
+    }
+
+    private static void assertBucketHolds(long value) {
+        int index = PhaseHistogram.indexOf(value);
+        long upper = PhaseHistogram.upperBound(index);
+        assertTrue(value + " above its bucket's bound " + upper, value <= upper);
+        assertTrue(value + " in bucket up to " + upper, upper - value <= value / 8);
+        if (index > 0) {
+            assertTrue(value + " also fits the bucket below", PhaseHistogram.upperBound(index - 1) < value);
+        }
+    }
+}
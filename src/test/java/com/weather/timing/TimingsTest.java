@@ -0,0 +1,48 @@
+package com.weather.timing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Phases reach the --timings histograms only once Timings is enabled
+ *
+ * Timings cannot be disabled again, so the whole sequence is one test.
+ */
+public class TimingsTest {
+
+    @Test
+    public void recordsPhasesStartedAfterEnable() {
+        PhaseHistogram geocode = Timings.get(Phase.GEOCODE);
+        assertFalse(Timings.isEnabled());
+
+        run(new GeocodeEvent());
+        assertEquals(0, geocode.getCount());
+        // Only the header line
+        assertEquals(1, Timings.report().lines().count());
+
+        // Started before enable(), so it has no start time to measure from
+        GeocodeEvent spanning = new GeocodeEvent();
+        spanning.start();
+        Timings.enable();
+        spanning.finish();
+        assertEquals(0, geocode.getCount());
+
+        GeocodeEvent failed = new GeocodeEvent();
+        assertTrue(failed.isActive());
+        failed.start();
+        failed.failed = true;
+        failed.finish();
+
+        assertEquals(1, geocode.getCount());
+        assertEquals(1, geocode.getFailures());
+        assertTrue(Timings.report(), Timings.report().contains("Geocode"));
+    }
+
+    private static void run(PhaseEvent event) {
+        event.start();
+        event.finish();
+    }
+}
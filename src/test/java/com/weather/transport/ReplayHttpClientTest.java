@@ -0,0 +1,155 @@
+package com.weather.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sun.net.httpserver.HttpServer;
+import com.weather.service.ResiliencePolicy;
+import com.weather.service.ResilientSender;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records exchanges with a local server, then replays them with the server stopped
+ */
+public class ReplayHttpClientTest {
+
+    private HttpServer server;
+    private Path dir;
+    private Path recording;
+    private String baseUrl;
+    private final AtomicInteger hits = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            int hit = hits.incrementAndGet();
+            byte[] body = ("hit " + hit + " " + exchange.getRequestURI()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", "\"v" + hit + "\"");
+            int status = exchange.getRequestURI().getPath().equals("/missing") ? 404 : 200;
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        dir = Files.createTempDirectory("replay-test");
+        recording = dir.resolve("run.rec");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop(0);
+        try (var files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void replaysWhatWasRecorded() throws Exception {
+        record("/forecast?q=Oslo", "/forecast?q=Lima", "/missing", "/forecast?q=Oslo");
+        server.stop(0);
+
+        try (HttpArchive archive = HttpArchive.open(recording)) {
+            assertEquals(3, archive.size());
+            HttpClient replay = new ReplayHttpClient(archive);
+
+            HttpResponse<String> oslo = replay.send(get("/forecast?q=Oslo"), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, oslo.statusCode());
+            assertEquals("hit 4 /forecast?q=Oslo", oslo.body());
+            assertEquals("\"v4\"", oslo.headers().firstValue("etag").orElse(null));
+
+            HttpResponse<InputStream> lima = replay.sendAsync(get("/forecast?q=Lima"),
+                HttpResponse.BodyHandlers.ofInputStream()).get();
+            assertEquals("hit 2 /forecast?q=Lima", new String(lima.body().readAllBytes(), StandardCharsets.UTF_8));
+
+            assertEquals(404, replay.send(get("/missing"), HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+    }
+
+    @Test
+    public void unrecordedRequestsFailToConnect() throws Exception {
+        record("/forecast?q=Oslo");
+        try (HttpArchive archive = HttpArchive.open(recording)) {
+            new ReplayHttpClient(archive).send(get("/forecast?q=Rome"), HttpResponse.BodyHandlers.ofString());
+            fail("Expected a connect failure");
+        } catch (ConnectException e) {
+            assertTrue(e.getMessage().contains("/forecast?q=Rome"));
+        }
+    }
+
+    @Test
+    public void injectsLatencyAndHonoursTimeouts() throws Exception {
+        record("/forecast?q=Oslo");
+        try (HttpArchive archive = HttpArchive.open(recording)) {
+            HttpClient slow = new ReplayHttpClient(archive, ReplayLatency.fixed(Duration.ofMillis(200)));
+            long start = System.nanoTime();
+            slow.send(get("/forecast?q=Oslo"), HttpResponse.BodyHandlers.ofString());
+            assertTrue((System.nanoTime() - start) / 1_000_000 >= 200);
+
+            ResilientSender sender = new ResilientSender(slow, ResiliencePolicy.builder()
+                .requestTimeout(Duration.ofMillis(50))
+                .maxAttempts(1)
+                .hedging(false)
+                .build(), Clock.systemUTC());
+            try {
+                sender.send(get("/forecast?q=Oslo")).get();
+                fail("Expected a timeout");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof HttpTimeoutException);
+            }
+        }
+    }
+
+    @Test
+    public void parsesLatencySettings() {
+        assertEquals(0, ReplayLatency.parse("none").delayMillis(120));
+        assertEquals(120, ReplayLatency.parse("recorded").delayMillis(120));
+        assertEquals(60, ReplayLatency.parse("0.5x").delayMillis(120));
+        assertEquals(25, ReplayLatency.parse("25ms").delayMillis(120));
+        try {
+            ReplayLatency.parse("fast");
+            fail("Expected an unknown setting to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("fast"));
+        }
+    }
+
+    private void record(String... paths) throws Exception {
+        RecordingHttpClient recorder = new RecordingHttpClient(
+            HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build(),
+            HttpArchiveWriter.create(recording));
+        for (String path : paths) {
+            recorder.send(get(path), HttpResponse.BodyHandlers.ofString());
+        }
+        recorder.commit();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).build();
+    }
+}
@@ -0,0 +1,175 @@
+package com.weather.watch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.weather.display.TerminalScreen;
+import com.weather.formatter.Units;
+import com.weather.formatter.WeatherFormatter;
+import com.weather.model.Location;
+import com.weather.model.StreamingModelModule;
+import com.weather.model.WeatherResponse;
+import com.weather.service.ValidatedResponse;
+import com.weather.service.WeatherService;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * When the watcher refetches after a success and after consecutive failures
+ */
+public class ForecastWatcherTest {
+
+    private static final String FIXTURE = "src/jmh/resources/fixtures/forecast-tokyo.json";
+    private static final Location TOKYO = new Location(35.7, 139.6875, "Tokyo", "Tokyo", "Japan");
+
+    @Test
+    public void refetchesShortlyAfterTheNextModelUpdate() {
+        assertEquals(Instant.parse("2026-10-17T13:05:00Z"),
+            ForecastWatcher.nextFetchAfter(Instant.parse("2026-10-17T12:30:00Z"), null));
+        // Still before this hour's update
+        assertEquals(Instant.parse("2026-10-17T12:05:00Z"),
+            ForecastWatcher.nextFetchAfter(Instant.parse("2026-10-17T12:02:00Z"), null));
+        assertEquals(Instant.parse("2026-10-17T13:05:00Z"),
+            ForecastWatcher.nextFetchAfter(Instant.parse("2026-10-17T12:05:00Z"), null));
+    }
+
+    @Test
+    public void neverRefetchesWhileStillFresh() {
+        Instant now = Instant.parse("2026-10-17T12:30:00Z");
+        assertEquals(Instant.parse("2026-10-17T14:00:00Z"),
+            ForecastWatcher.nextFetchAfter(now, Instant.parse("2026-10-17T14:00:00Z")));
+        // Freshness ending before the model update does not bring the fetch forward
+        assertEquals(Instant.parse("2026-10-17T13:05:00Z"),
+            ForecastWatcher.nextFetchAfter(now, Instant.parse("2026-10-17T12:40:00Z")));
+    }
+
+    @Test
+    public void retryDelayDoublesUpToFifteenMinutes() {
+        assertEquals(Duration.ofMinutes(1), ForecastWatcher.retryDelay(1));
+        assertEquals(Duration.ofMinutes(2), ForecastWatcher.retryDelay(2));
+        assertEquals(Duration.ofMinutes(8), ForecastWatcher.retryDelay(4));
+        assertEquals(Duration.ofMinutes(15), ForecastWatcher.retryDelay(5));
+        assertEquals(Duration.ofMinutes(15), ForecastWatcher.retryDelay(100));
+    }
+
+    @Test
+    public void keepsWatchingThroughCancelledFetchesAndUnrenderableForecasts() throws Exception {
+        MutableClock clock = new MutableClock(Instant.parse("2025-11-14T03:30:00Z"));
+        WeatherResponse good = forecast();
+        WeatherResponse broken = forecast();
+        // Fewer temperatures than hours
+        broken.hourly.temperature_2m = new double[1];
+        ScriptedWeatherService service = new ScriptedWeatherService();
+        service.replies.add(() -> {
+            CompletableFuture<ValidatedResponse<WeatherResponse>> cancelled = new CompletableFuture<>();
+            cancelled.cancel(true);
+            return cancelled;
+        });
+        service.replies.add(() -> {
+            throw new IllegalStateException("executor shut down");
+        });
+        service.replies.add(() -> CompletableFuture.completedFuture(response(broken, clock.instant())));
+        service.replies.add(() -> CompletableFuture.completedFuture(response(good, clock.instant())));
+        RecordingScreen screen = new RecordingScreen();
+        ForecastWatcher watcher = new ForecastWatcher(service,
+            new WeatherFormatter(Units.METRIC, clock), screen, clock);
+
+        assertEquals(Instant.parse("2025-11-14T03:31:00Z"), watcher.tick(TOKYO));
+        assertTrue(screen.frame,
+            screen.frame.startsWith("Update failed (CancellationException), retrying at 3:31 AM"));
+
+        clock.now = Instant.parse("2025-11-14T03:31:00Z");
+        assertEquals(Instant.parse("2025-11-14T03:32:00Z"), watcher.tick(TOKYO));
+        assertTrue(screen.frame,
+            screen.frame.startsWith("Update failed (executor shut down), retrying at 3:33 AM"));
+
+        clock.now = Instant.parse("2025-11-14T03:33:00Z");
+        assertEquals(Instant.parse("2025-11-14T03:34:00Z"), watcher.tick(TOKYO));
+        assertTrue(screen.frame, screen.frame.startsWith("Display failed ("));
+        assertTrue(screen.frame, screen.frame.contains("retrying at 3:37 AM"));
+
+        clock.now = Instant.parse("2025-11-14T03:37:00Z");
+        watcher.tick(TOKYO);
+        assertTrue(screen.frame, screen.frame.contains("Location: Tokyo, Tokyo, Japan"));
+        assertTrue(screen.frame, screen.frame.contains("Updated 3:37 AM, next check 4:05 AM"));
+        assertEquals(4, service.calls);
+    }
+
+    private static WeatherResponse forecast() throws Exception {
+        return StreamingModelModule.newMapper(true).readValue(Paths.get(FIXTURE).toFile(), WeatherResponse.class);
+    }
+
+    private static ValidatedResponse<WeatherResponse> response(WeatherResponse forecast, Instant now) {
+        return ValidatedResponse.of(forecast, HttpHeaders.of(Map.of(), (name, value) -> true), now);
+    }
+
+    /**
+     * Answers each revalidation with the next scripted reply
+     */
+    private static final class ScriptedWeatherService extends WeatherService {
+        final Queue<Supplier<CompletableFuture<ValidatedResponse<WeatherResponse>>>> replies = new ArrayDeque<>();
+        int calls;
+
+        ScriptedWeatherService() {
+            super(HttpClient.newHttpClient(), StreamingModelModule.newMapper(true));
+        }
+
+        @Override
+        public CompletableFuture<ValidatedResponse<WeatherResponse>> revalidateAsync(Location location,
+                ValidatedResponse<WeatherResponse> previous) {
+            calls++;
+            return replies.remove().get();
+        }
+    }
+
+    private static final class RecordingScreen extends TerminalScreen {
+        String frame;
+
+        RecordingScreen() {
+            super(new StringWriter());
+        }
+
+        @Override
+        public int show(String frame) {
+            this.frame = frame;
+            return 0;
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}